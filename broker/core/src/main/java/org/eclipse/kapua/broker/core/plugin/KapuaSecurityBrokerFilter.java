@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -41,6 +41,7 @@ import org.eclipse.kapua.KapuaErrorCodes;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.KapuaRuntimeException;
 import org.eclipse.kapua.broker.core.message.MessageConstants;
+import org.eclipse.kapua.broker.core.plugin.authentication.AclTemplate;
 import org.eclipse.kapua.broker.core.plugin.authentication.Authenticator;
 import org.eclipse.kapua.broker.core.plugin.authentication.DefaultAuthenticator;
 import org.eclipse.kapua.broker.core.plugin.metric.LoginMetric;
@@ -99,6 +100,7 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
 
     protected static final Logger logger = LoggerFactory.getLogger(KapuaSecurityBrokerFilter.class);
     protected static final List<String> VT_DURABLE_PREFIX = ImmutableList.of("Consumer.{0}:AT_LEAST_ONCE.{1}", "Consumer.{0}:EXACTLY_ONCE.{1}");
+    private static final List<AclTemplate> VT_DURABLE_TEMPLATES = ImmutableList.of(AclTemplate.of(VT_DURABLE_PREFIX.get(0)), AclTemplate.of(VT_DURABLE_PREFIX.get(1)));
     protected static final String VT_CONSUMER_PREFIX = "Consumer";
 
     // full client id, with account prepended
@@ -564,8 +566,7 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
         if (!isBrokerContext(producerExchange.getConnectionContext())) {
             KapuaSecurityContext kapuaSecurityContext = getKapuaSecurityContext(producerExchange.getConnectionContext());
             if (!messageSend.getDestination().isTemporary()) {
-                Set<?> allowedACLs = kapuaSecurityContext.getAuthorizationMap().getWriteACLs(messageSend.getDestination());
-                if (allowedACLs != null && !kapuaSecurityContext.isInOneOf(allowedACLs)) {
+                if (!kapuaSecurityContext.isWriteAllowed(messageSend.getDestination())) {
                     String message = MessageFormat.format("User {0} ({1} - {2} - conn id {3}) is not authorized to write to: {4}",
                             kapuaSecurityContext.getUserName(),
                             ((KapuaPrincipal) kapuaSecurityContext.getMainPrincipal()).getClientId(),
@@ -648,9 +649,7 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
             // if (!kapuaSecurityContext.getAuthorizedReadDests().contains(info.getDestination()))
             // {
             if (!info.getDestination().isTemporary()) {
-                Set<?> allowedACLs = null;
-                allowedACLs = kapuaSecurityContext.getAuthorizationMap().getReadACLs(info.getDestination());
-                if (allowedACLs != null && !kapuaSecurityContext.isInOneOf(allowedACLs)) {
+                if (!kapuaSecurityContext.isReadAllowed(info.getDestination())) {
                     String message = MessageFormat.format("User {0} ({1} - {2} - conn id {3}) is not authorized to read from: {4}",
                             kapuaSecurityContext.getUserName(),
                             ((KapuaPrincipal) kapuaSecurityContext.getMainPrincipal()).getClientId(),
@@ -684,12 +683,9 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
             entries.add(createAuthorizationEntry(kcc, entry.getAcl(), entry.getAddress()));
             // added to support the vt topic name space for durable subscriptions
             if (entry.getAcl().isRead()) {
-                // logger.info("pattern {} - clientid {} - topic {} - evaluated {}", new Object[]{JmsConstants.ACL_VT_DURABLE_PREFIX[0], clientId, topic,
-                // MessageFormat.format(JmsConstants.ACL_VT_DURABLE_PREFIX[0], fullClientId, topic)});
-                entries.add(createAuthorizationEntry(kcc, entry.getAcl(), MessageFormat.format(VT_DURABLE_PREFIX.get(0), kcc.getFullClientId(), entry.getAddress())));
-                // logger.info("pattern {} - clientid {} - topic {} - evaluated {}", new Object[]{JmsConstants.ACL_VT_DURABLE_PREFIX[1], clientId, topic,
-                // MessageFormat.format(JmsConstants.ACL_VT_DURABLE_PREFIX[1], fullClientId, topic)});
-                entries.add(createAuthorizationEntry(kcc, entry.getAcl(), MessageFormat.format(VT_DURABLE_PREFIX.get(1), kcc.getFullClientId(), entry.getAddress())));
+                for (AclTemplate vtDurableTemplate : VT_DURABLE_TEMPLATES) {
+                    entries.add(createAuthorizationEntry(kcc, entry.getAcl(), vtDurableTemplate.format(kcc.getFullClientId(), entry.getAddress())));
+                }
             }
         }
         return new DefaultAuthorizationMap(entries);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2016 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -13,10 +13,16 @@ package org.eclipse.kapua.broker.core.plugin;
 
 import java.security.Principal;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
+import org.apache.activemq.command.ActiveMQDestination;
 import org.apache.activemq.security.AuthorizationMap;
 import org.apache.activemq.security.SecurityContext;
+import org.eclipse.kapua.broker.core.setting.BrokerSetting;
+import org.eclipse.kapua.broker.core.setting.BrokerSettingKey;
 import org.eclipse.kapua.commons.security.KapuaSession;
 import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.service.authentication.KapuaPrincipal;
@@ -28,6 +34,8 @@ import org.eclipse.kapua.service.authentication.KapuaPrincipal;
  */
 public class KapuaSecurityContext extends SecurityContext {
 
+    private static final int AUTHORIZATION_CACHE_SIZE = BrokerSetting.getInstance().getInt(BrokerSettingKey.AUTHORIZATION_CACHE_SIZE, 1000);
+
     private KapuaPrincipal principal;
     private KapuaSession kapuaSession;
     private KapuaId connectionId;
@@ -36,6 +44,8 @@ public class KapuaSecurityContext extends SecurityContext {
     private String brokerConnectionId;
 
     private AuthorizationMap authMap;
+    private final Map<String, Boolean> writeAuthorizations = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> readAuthorizations = new ConcurrentHashMap<>();
     private boolean hasDataView;
     private boolean hasDataManage;
     private boolean hasDeviceView;
@@ -71,6 +81,47 @@ public class KapuaSecurityContext extends SecurityContext {
         return authMap;
     }
 
+    /**
+     * Checks whether this connection is allowed to write to the given destination.
+     * <p>
+     * The result is cached, so only the first check of a destination walks the {@link AuthorizationMap}.
+     *
+     * @param destination The destination to check.
+     * @return {@code true} if the destination has no write ACL or if this connection is in one of them, {@code false} otherwise.
+     * @since 1.3.0
+     */
+    public boolean isWriteAllowed(ActiveMQDestination destination) {
+        return isAllowed(writeAuthorizations, destination, authMap::getWriteACLs);
+    }
+
+    /**
+     * Checks whether this connection is allowed to read from the given destination.
+     * <p>
+     * The result is cached, so only the first check of a destination walks the {@link AuthorizationMap}.
+     *
+     * @param destination The destination to check.
+     * @return {@code true} if the destination has no read ACL or if this connection is in one of them, {@code false} otherwise.
+     * @since 1.3.0
+     */
+    public boolean isReadAllowed(ActiveMQDestination destination) {
+        return isAllowed(readAuthorizations, destination, authMap::getReadACLs);
+    }
+
+    private boolean isAllowed(Map<String, Boolean> authorizations, ActiveMQDestination destination, Function<ActiveMQDestination, Set<?>> aclsProvider) {
+        // The destination physical name can be changed afterwards, so its qualified name is used as key
+        String destinationName = destination.getQualifiedName();
+        Boolean allowed = authorizations.get(destinationName);
+        if (allowed == null) {
+            Set<?> allowedACLs = aclsProvider.apply(destination);
+            allowed = allowedACLs == null || isInOneOf(allowedACLs);
+
+            if (authorizations.size() < AUTHORIZATION_CACHE_SIZE) {
+                authorizations.put(destinationName, allowed);
+            }
+        }
+        return allowed;
+    }
+
     public KapuaId getConnectionId() {
         return connectionId;
     }
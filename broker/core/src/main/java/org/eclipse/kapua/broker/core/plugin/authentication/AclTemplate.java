@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin.authentication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precompiled ACL address pattern.
+ * <p>
+ * The pattern uses the {@link java.text.MessageFormat} placeholders ({0}, {1}, ...) but it is parsed only once,
+ * so that building the address of a connection is just a concatenation of the literal parts and the arguments.
+ *
+ * @since 1.3.0
+ */
+public class AclTemplate {
+
+    private static final Map<String, AclTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    private final String pattern;
+    private final String[] literals;
+    private final int[] argumentIndexes;
+    private final int literalsLength;
+
+    private AclTemplate(String pattern) {
+        this.pattern = pattern;
+
+        List<String> literalList = new ArrayList<>();
+        List<Integer> argumentIndexList = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            int end = c == '{' ? pattern.indexOf('}', i) : -1;
+            if (end > i + 1 && isNumber(pattern, i + 1, end)) {
+                literalList.add(literal.toString());
+                argumentIndexList.add(Integer.parseInt(pattern.substring(i + 1, end)));
+                literal.setLength(0);
+                i = end + 1;
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        literalList.add(literal.toString());
+
+        literals = literalList.toArray(new String[0]);
+        argumentIndexes = argumentIndexList.stream().mapToInt(Integer::intValue).toArray();
+
+        int length = 0;
+        for (String l : literals) {
+            length += l.length();
+        }
+        literalsLength = length;
+    }
+
+    /**
+     * Gets the {@link AclTemplate} of the given pattern, compiling it on first request.
+     *
+     * @param pattern The ACL address pattern.
+     * @return The {@link AclTemplate} of the given pattern.
+     * @since 1.3.0
+     */
+    public static AclTemplate of(String pattern) {
+        return TEMPLATES.computeIfAbsent(pattern, AclTemplate::new);
+    }
+
+    /**
+     * Builds the address replacing the placeholders with the given arguments.
+     *
+     * @param arguments The arguments. Placeholders without a matching argument are left as they are.
+     * @return The address.
+     * @since 1.3.0
+     */
+    public String format(String... arguments) {
+        if (argumentIndexes.length == 0) {
+            return pattern;
+        }
+
+        StringBuilder address = new StringBuilder(literalsLength + 32 * argumentIndexes.length);
+        for (int i = 0; i < argumentIndexes.length; i++) {
+            address.append(literals[i]);
+
+            int argumentIndex = argumentIndexes[i];
+            if (argumentIndex < arguments.length) {
+                address.append(arguments[argumentIndex]);
+            } else {
+                address.append('{').append(argumentIndex).append('}');
+            }
+        }
+        address.append(literals[literals.length - 1]);
+
+        return address.toString();
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    private static boolean isNumber(String pattern, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isDigit(pattern.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -119,7 +119,7 @@ public abstract class AuthenticationLogic {
      * @return
      */
     protected String formatAcl(String pattern, KapuaConnectionContext kcc) {
-        return MessageFormat.format(pattern, kcc.getAccountName());
+        return AclTemplate.of(pattern).format(kcc.getAccountName());
     }
 
     /**
@@ -130,7 +130,7 @@ public abstract class AuthenticationLogic {
      * @return
      */
     protected String formatAclFull(String pattern, KapuaConnectionContext kcc) {
-        return MessageFormat.format(pattern, kcc.getAccountName(), kcc.getClientId());
+        return AclTemplate.of(pattern).format(kcc.getAccountName(), kcc.getClientId());
     }
 
     /**
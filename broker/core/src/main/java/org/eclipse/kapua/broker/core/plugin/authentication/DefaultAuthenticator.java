@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2018, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -116,18 +116,20 @@ public class DefaultAuthenticator implements Authenticator {
         if (systemMessageType != null) {
             Context loginSendLogingUpdateMsgTimeContex = loginMetric.getSendLoginUpdateMsgTime().time();
             String message = systemMessageCreator.createMessage(systemMessageType, kcc);
+            JmsAssistantProducerPool producerPool = JmsAssistantProducerPool.getIOnstance(DESTINATIONS.NO_DESTINATION);
             JmsAssistantProducerWrapper producerWrapper = null;
             try {
-                producerWrapper = JmsAssistantProducerPool.getIOnstance(DESTINATIONS.NO_DESTINATION).borrowObject();
+                producerWrapper = producerPool.borrowProducer();
                 producerWrapper.send(String.format((String) options.get(messageAddressPattern),
                         SystemSetting.getInstance().getMessageClassifier(), kcc.getAccountName(), kcc.getClientId()),
                         message,
                         kcc);
+                producerPool.returnProducer(producerWrapper);
             } catch (Exception e) {
                 logger.error("Exception sending the {} message: {}", systemMessageType.name().toLowerCase(), e.getMessage(), e);
-            } finally {
                 if (producerWrapper != null) {
-                    JmsAssistantProducerPool.getIOnstance(DESTINATIONS.NO_DESTINATION).returnObject(producerWrapper);
+                    // the producer health is checked only on failure
+                    producerPool.invalidateProducer(producerWrapper);
                 }
             }
             loginSendLogingUpdateMsgTimeContex.stop();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -26,8 +26,10 @@ import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionCrea
 import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionStatus;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * User profile authentication logic implementation
@@ -49,6 +51,24 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
     protected static final int DATA_VIEW_IDX = 2;
     protected static final int DATA_MANAGE_IDX = 3;
 
+    /**
+     * Precompiled ACL entry: the {@link Acl} and the {@link AclTemplate} of the address.
+     *
+     * @since 1.3.0
+     */
+    protected static class AuthorizationEntryTemplate {
+
+        final Acl acl;
+        final AclTemplate addressTemplate;
+
+        public AuthorizationEntryTemplate(Acl acl, String addressPattern) {
+            this.acl = acl;
+            this.addressTemplate = AclTemplate.of(addressPattern);
+        }
+    }
+
+    private final Map<Integer, List<AuthorizationEntryTemplate>> authorizationTemplates = new ConcurrentHashMap<>();
+
     /**
      * Default constructor
      *
@@ -153,33 +173,64 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
 
     @Override
     protected List<AuthorizationEntry> buildAuthorizationMap(KapuaConnectionContext kcc) {
-        ArrayList<AuthorizationEntry> ael = new ArrayList<>();
-        ael.add(createAuthorizationEntry(kcc, Acl.WRITE_ADMIN, aclAdvisory));
+        boolean[] hasPermissions = kcc.getHasPermissions();
+        List<AuthorizationEntryTemplate> templates = authorizationTemplates.computeIfAbsent(getPermissionProfile(hasPermissions), profile -> compileAuthorizationTemplates(hasPermissions));
+
+        ArrayList<AuthorizationEntry> ael = new ArrayList<>(templates.size());
+        for (AuthorizationEntryTemplate template : templates) {
+            ael.add(createAuthorizationEntry(kcc, template.acl, template.addressTemplate.format(kcc.getAccountName(), kcc.getClientId())));
+        }
+
+        kcc.logAuthDestinationToLog();
+
+        return ael;
+    }
+
+    /**
+     * Compiles the ACL of the given permission profile.
+     * <p>
+     * The ACL depends only on the permissions, so it is compiled once per profile and then instantiated for each connection with the account name ({0}) and the client id ({1}).
+     *
+     * @param hasPermissions The permissions, as returned by {@link #checkPermissions(KapuaConnectionContext)}.
+     * @return The {@link AuthorizationEntryTemplate}s of the permission profile.
+     * @since 1.3.0
+     */
+    protected List<AuthorizationEntryTemplate> compileAuthorizationTemplates(boolean[] hasPermissions) {
+        List<AuthorizationEntryTemplate> templates = new ArrayList<>();
+        templates.add(new AuthorizationEntryTemplate(Acl.WRITE_ADMIN, aclAdvisory));
 
         // addConnection checks BROKER_CONNECT_IDX permission before call this method
         // then here user has BROKER_CONNECT_IDX permission and if check isn't needed
         // if (hasPermissions[BROKER_CONNECT_IDX]) {
-        if (kcc.getHasPermissions()[DEVICE_MANAGE_IDX]) {
-            ael.add(createAuthorizationEntry(kcc, Acl.ALL, formatAcl(aclCtrlAcc, kcc)));
+        if (hasPermissions[DEVICE_MANAGE_IDX]) {
+            templates.add(new AuthorizationEntryTemplate(Acl.ALL, aclCtrlAcc));
         } else {
-            ael.add(createAuthorizationEntry(kcc, Acl.ALL, formatAclFull(aclCtrlAccCli, kcc)));
+            templates.add(new AuthorizationEntryTemplate(Acl.ALL, aclCtrlAccCli));
         }
-        if (kcc.getHasPermissions()[DATA_MANAGE_IDX]) {
-            ael.add(createAuthorizationEntry(kcc, Acl.ALL, formatAcl(aclDataAcc, kcc)));
-        } else if (kcc.getHasPermissions()[DATA_VIEW_IDX]) {
-            ael.add(createAuthorizationEntry(kcc, Acl.READ_ADMIN, formatAcl(aclDataAcc, kcc)));
-            ael.add(createAuthorizationEntry(kcc, Acl.WRITE, formatAclFull(aclDataAccCli, kcc)));
+        if (hasPermissions[DATA_MANAGE_IDX]) {
+            templates.add(new AuthorizationEntryTemplate(Acl.ALL, aclDataAcc));
+        } else if (hasPermissions[DATA_VIEW_IDX]) {
+            templates.add(new AuthorizationEntryTemplate(Acl.READ_ADMIN, aclDataAcc));
+            templates.add(new AuthorizationEntryTemplate(Acl.WRITE, aclDataAccCli));
         } else {
-            ael.add(createAuthorizationEntry(kcc, Acl.ALL, formatAclFull(aclDataAccCli, kcc)));
+            templates.add(new AuthorizationEntryTemplate(Acl.ALL, aclDataAccCli));
         }
-        ael.add(createAuthorizationEntry(kcc, Acl.WRITE_ADMIN, formatAcl(aclCtrlAccReply, kcc)));
+        templates.add(new AuthorizationEntryTemplate(Acl.WRITE_ADMIN, aclCtrlAccReply));
 
         // Write notify to any client Id and any application and operation
-        ael.add(createAuthorizationEntry(kcc, Acl.WRITE, formatAclFull(aclCtrlAccNotify, kcc)));
+        templates.add(new AuthorizationEntryTemplate(Acl.WRITE, aclCtrlAccNotify));
 
-        kcc.logAuthDestinationToLog();
+        return Collections.unmodifiableList(templates);
+    }
 
-        return ael;
+    private static int getPermissionProfile(boolean[] hasPermissions) {
+        int profile = 0;
+        for (int i = 0; i < hasPermissions.length; i++) {
+            if (hasPermissions[i]) {
+                profile |= 1 << i;
+            }
+        }
+        return profile;
     }
 
     protected boolean[] checkPermissions(KapuaConnectionContext kcc) throws KapuaException {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -13,6 +13,7 @@ package org.eclipse.kapua.broker.core.pool;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
@@ -35,6 +36,13 @@ import org.slf4j.LoggerFactory;
  * <b>NOTE:<BR>
  * with virtual topic support the destinations are removed! The message destination will be coded inside send method!
  * </b>
+ * <BR>
+ * The idle producers are health checked in background (see {@link BrokerSettingKey#BROKER_CLIENT_POOL_NO_DEST_VALIDATION_INTERVAL}) instead of on every borrow and return,
+ * while the producers that fail are discarded with {@link #invalidateProducer(JmsAssistantProducerWrapper)}.<BR>
+ * A few producers are reserved to thread affinity (see {@link BrokerSettingKey#BROKER_CLIENT_POOL_NO_DEST_AFFINITY_SLOTS}): each thread first tries its own slot,
+ * without going through the pool locks, and falls back to the pool only when the slot is in use by another thread.<BR>
+ * The slot producers are borrowed from the pool and kept by the slot, so they count against the pool max total size. At least one producer is left to the threads
+ * falling back to the pool.
  * 
  * @since 1.0
  */
@@ -50,8 +58,20 @@ public class JmsAssistantProducerPool extends GenericObjectPool<JmsAssistantProd
         NO_DESTINATION
     }
 
+    /**
+     * Producer reserved to the threads mapped to this slot.<BR>
+     * The producer is only accessed by the thread holding the slot ({@link #inUse} set).
+     */
+    private static class AffinitySlot {
+
+        private final AtomicBoolean inUse = new AtomicBoolean();
+        private JmsAssistantProducerWrapper producerWrapper;
+    }
+
     private static Map<DESTINATIONS, JmsAssistantProducerPool> pools;
 
+    private final AffinitySlot[] affinitySlots;
+
     static {
         pools = new HashMap<JmsAssistantProducerPool.DESTINATIONS, JmsAssistantProducerPool>();
         logger.info("Create pools (internal broker use)...");
@@ -67,23 +87,191 @@ public class JmsAssistantProducerPool extends GenericObjectPool<JmsAssistantProd
      * @param factory
      */
     protected JmsAssistantProducerPool(JmsAssistantProducerWrapperFactory factory) {
-        super(factory);
+        this(factory,
+                newPoolConfig(),
+                BrokerSetting.getInstance().getInt(BrokerSettingKey.BROKER_CLIENT_POOL_NO_DEST_AFFINITY_SLOTS, 4));
+    }
+
+    /**
+     * Create a JmsAssistantProducerPool from the given factory, pool configuration and number of thread affinity slots
+     *
+     * @param factory
+     * @param jmsPoolConfig
+     * @param affinitySlotsCount
+     * @since 1.3.0
+     */
+    JmsAssistantProducerPool(JmsAssistantProducerWrapperFactory factory, GenericObjectPoolConfig jmsPoolConfig, int affinitySlotsCount) {
+        super(factory, jmsPoolConfig);
+
+        int maxTotal = jmsPoolConfig.getMaxTotal();
+        if (maxTotal >= 0 && affinitySlotsCount >= maxTotal) {
+            logger.warn("The {} thread affinity slots would take all the {} producers of JmsAssistantProducerPool, reduced to {}", affinitySlotsCount, maxTotal, Math.max(maxTotal - 1, 0));
+            affinitySlotsCount = maxTotal - 1;
+        }
+        logger.info("Set {} thread affinity slots for JmsAssistantProducerPool", Math.max(affinitySlotsCount, 0));
+        affinitySlots = new AffinitySlot[Math.max(affinitySlotsCount, 0)];
+        for (int i = 0; i < affinitySlots.length; i++) {
+            affinitySlots[i] = new AffinitySlot();
+        }
+    }
+
+    private static GenericObjectPoolConfig newPoolConfig() {
         int totalMaxSize = BrokerSetting.getInstance().getInt(BrokerSettingKey.BROKER_CLIENT_POOL_NO_DEST_TOTAL_MAX_SIZE, 10);
         int maxSize = BrokerSetting.getInstance().getInt(BrokerSettingKey.BROKER_CLIENT_POOL_NO_DEST_MAX_SIZE, 10);
         int minSize = BrokerSetting.getInstance().getInt(BrokerSettingKey.BROKER_CLIENT_POOL_NO_DEST_MIN_SIZE, 5);
 
+        long validationInterval = BrokerSetting.getInstance().getLong(BrokerSettingKey.BROKER_CLIENT_POOL_NO_DEST_VALIDATION_INTERVAL, 30000L);
+
         GenericObjectPoolConfig jmsPoolConfig = new GenericObjectPoolConfig();
         jmsPoolConfig.setMaxTotal(totalMaxSize);
         jmsPoolConfig.setMaxIdle(maxSize);
         jmsPoolConfig.setMinIdle(minSize);
-        logger.info("Set test on return to true for JmsAssistantProducerPool");
-        jmsPoolConfig.setTestOnReturn(true);
-        logger.info("Set test on borrow to true for JmsAssistantProducerPool");
-        jmsPoolConfig.setTestOnBorrow(true);
+        logger.info("Set test while idle to true (every {} ms) for JmsAssistantProducerPool", validationInterval);
+        jmsPoolConfig.setTestOnReturn(false);
+        jmsPoolConfig.setTestOnBorrow(false);
+        jmsPoolConfig.setTestWhileIdle(true);
+        jmsPoolConfig.setTimeBetweenEvictionRunsMillis(validationInterval);
+        jmsPoolConfig.setNumTestsPerEvictionRun(maxSize);
         logger.info("Set block when exausted to true for JmsAssistantProducerPool");
         jmsPoolConfig.setBlockWhenExhausted(true);
+        return jmsPoolConfig;
+    }
+
+    /**
+     * Borrow a producer, trying the affinity slot of the current thread first.<BR>
+     * The producer must be given back with {@link #returnProducer(JmsAssistantProducerWrapper)} or, if it failed, with {@link #invalidateProducer(JmsAssistantProducerWrapper)}.
+     *
+     * @return
+     * @throws Exception
+     * @since 1.3.0
+     */
+    public JmsAssistantProducerWrapper borrowProducer() throws Exception {
+        assertOpen();
 
-        setConfig(jmsPoolConfig);
+        if (affinitySlots.length > 0) {
+            int slotIndex = (int) (Thread.currentThread().getId() % affinitySlots.length);
+            AffinitySlot affinitySlot = affinitySlots[slotIndex];
+            if (affinitySlot.inUse.compareAndSet(false, true)) {
+                try {
+                    if (affinitySlot.producerWrapper == null) {
+                        JmsAssistantProducerWrapper producerWrapper = borrowObject();
+                        producerWrapper.affinitySlot = slotIndex;
+                        affinitySlot.producerWrapper = producerWrapper;
+                    }
+                    return affinitySlot.producerWrapper;
+                } catch (Exception e) {
+                    affinitySlot.inUse.set(false);
+                    throw e;
+                }
+            }
+        }
+
+        return borrowObject();
+    }
+
+    /**
+     * Give back a producer taken with {@link #borrowProducer()}
+     *
+     * @param producerWrapper
+     * @since 1.3.0
+     */
+    public void returnProducer(JmsAssistantProducerWrapper producerWrapper) {
+        if (producerWrapper.affinitySlot >= 0) {
+            AffinitySlot affinitySlot = affinitySlots[producerWrapper.affinitySlot];
+            affinitySlot.inUse.set(false);
+            if (isClosed()) {
+                // close() skips the slots in use: the producer is released by its last user
+                closeAffinitySlot(affinitySlot);
+            }
+        } else {
+            returnObject(producerWrapper);
+        }
+    }
+
+    /**
+     * Discard a failed producer taken with {@link #borrowProducer()}
+     *
+     * @param producerWrapper
+     * @since 1.3.0
+     */
+    public void invalidateProducer(JmsAssistantProducerWrapper producerWrapper) {
+        logger.info("Invalidate jms broker assistant producer wrapper: {}", producerWrapper);
+        if (producerWrapper.affinitySlot >= 0) {
+            AffinitySlot affinitySlot = affinitySlots[producerWrapper.affinitySlot];
+            affinitySlot.producerWrapper = null;
+            destroyProducer(producerWrapper);
+            affinitySlot.inUse.set(false);
+        } else {
+            destroyProducer(producerWrapper);
+        }
+    }
+
+    /**
+     * Health check of the idle producers, run in background by the pool evictor.<BR>
+     * Besides the pool idle producers it also checks the idle affinity slots.
+     */
+    @Override
+    public void evict() throws Exception {
+        super.evict();
+
+        for (AffinitySlot affinitySlot : affinitySlots) {
+            if (affinitySlot.inUse.compareAndSet(false, true)) {
+                try {
+                    JmsAssistantProducerWrapper producerWrapper = affinitySlot.producerWrapper;
+                    if (producerWrapper != null && !JmsAssistantProducerWrapperFactory.isValid(producerWrapper)) {
+                        affinitySlot.producerWrapper = null;
+                        destroyProducer(producerWrapper);
+                    }
+                } finally {
+                    affinitySlot.inUse.set(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Close the pool and the producers of the idle affinity slots.<BR>
+     * The producers of the slots in use are closed when given back.
+     */
+    @Override
+    public void close() {
+        super.close();
+
+        for (AffinitySlot affinitySlot : affinitySlots) {
+            closeAffinitySlot(affinitySlot);
+        }
+    }
+
+    /**
+     * Close the producer of the slot, if the slot is not in use
+     *
+     * @param affinitySlot
+     */
+    private void closeAffinitySlot(AffinitySlot affinitySlot) {
+        if (affinitySlot.inUse.compareAndSet(false, true)) {
+            try {
+                JmsAssistantProducerWrapper producerWrapper = affinitySlot.producerWrapper;
+                if (producerWrapper != null) {
+                    affinitySlot.producerWrapper = null;
+                    destroyProducer(producerWrapper);
+                }
+            } finally {
+                affinitySlot.inUse.set(false);
+            }
+        }
+    }
+
+    /**
+     * Close the producer and remove it from the pool, freeing room for a new one
+     *
+     * @param producerWrapper
+     */
+    private void destroyProducer(JmsAssistantProducerWrapper producerWrapper) {
+        try {
+            invalidateObject(producerWrapper);
+        } catch (Exception e) {
+            logger.warn("Error invalidating jms broker assistant producer wrapper: {}", e.getMessage(), e);
+        }
     }
 
     /**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -29,6 +29,11 @@ import org.eclipse.kapua.broker.core.plugin.KapuaConnectionContext;
  */
 public class JmsAssistantProducerWrapper extends JmsProducerWrapper {
 
+    /**
+     * Index of the {@link JmsAssistantProducerPool} affinity slot owning this producer, or -1 if the producer is owned by the pool itself
+     */
+    int affinitySlot = -1;
+
     public JmsAssistantProducerWrapper(ActiveMQConnectionFactory vmconnFactory, String destination, boolean transacted, boolean start) throws JMSException, KapuaException {
         super(vmconnFactory, destination, transacted, start);
     }
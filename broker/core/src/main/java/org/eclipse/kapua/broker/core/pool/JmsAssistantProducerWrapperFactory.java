@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2016 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -50,7 +50,18 @@ public class JmsAssistantProducerWrapperFactory extends BasePooledObjectFactory<
      */
     @Override
     public boolean validateObject(PooledObject<JmsAssistantProducerWrapper> p) {
-        Session session = p.getObject().session;
+        return isValid(p.getObject());
+    }
+
+    /**
+     * Check if the session of the producer wrapper is still active
+     *
+     * @param producerWrapper
+     * @return
+     * @since 1.3.0
+     */
+    static boolean isValid(JmsAssistantProducerWrapper producerWrapper) {
+        Session session = producerWrapper.session;
         if (session instanceof ActiveMQSession) {
             return !((ActiveMQSession) session).isClosed();
         } else {
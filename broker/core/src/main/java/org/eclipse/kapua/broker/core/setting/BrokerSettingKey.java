@@ -71,10 +71,22 @@ public enum BrokerSettingKey implements SettingKey {
      * No destination broker internal use client pool - minimum size
      */
     BROKER_CLIENT_POOL_NO_DEST_MIN_SIZE("broker.client_pool.no_dest_min_size"),
+    /**
+     * No destination broker internal use client pool - interval (in milliseconds) of the background health check of the idle clients
+     */
+    BROKER_CLIENT_POOL_NO_DEST_VALIDATION_INTERVAL("broker.client_pool.no_dest_validation_interval"),
+    /**
+     * No destination broker internal use client pool - number of clients reserved to thread affinity (0 to disable). They are taken from the maximun total size
+     */
+    BROKER_CLIENT_POOL_NO_DEST_AFFINITY_SLOTS("broker.client_pool.no_dest_affinity_slots"),
     /**
      * Broker name (used also for the vm connector name)
      */
     BROKER_NAME("broker.name"),
+    /**
+     * Maximum number of destinations per connection whose authorization check result is cached
+     */
+    AUTHORIZATION_CACHE_SIZE("broker.authorization_cache.size"),
     /**
      * Camel default route configuration file name. (please specify just the name. The file path will be discovered by the class loader)
      * Used by the {@link CamelKapuaDefaultRouter} to load the routing configuration.
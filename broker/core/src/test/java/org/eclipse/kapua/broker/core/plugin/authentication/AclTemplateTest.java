@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin.authentication;
+
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.text.MessageFormat;
+
+@Category(JUnitTests.class)
+public class AclTemplateTest {
+
+    private static final String[] PATTERNS = {
+            "VirtualTopic.>",
+            "VirtualTopic.$EDC.{0}.>",
+            "VirtualTopic.$EDC.{0}.{1}.>",
+            "VirtualTopic.$EDC.{0}.*.*.NOTIFY.{1}.>",
+            "Consumer.{0}:AT_LEAST_ONCE.{1}",
+            "{1}.{0}"
+    };
+
+    @Test
+    public void formatLikeMessageFormat() {
+        for (String pattern : PATTERNS) {
+            Assert.assertEquals(MessageFormat.format(pattern, "kapua-sys", "client-1"), AclTemplate.of(pattern).format("kapua-sys", "client-1"));
+        }
+    }
+
+    @Test
+    public void formatMissingArgument() {
+        Assert.assertEquals("VirtualTopic.kapua-sys.{1}.>", AclTemplate.of("VirtualTopic.{0}.{1}.>").format("kapua-sys"));
+    }
+
+    @Test
+    public void templateIsCached() {
+        Assert.assertSame(AclTemplate.of("VirtualTopic.{0}.>"), AclTemplate.of("VirtualTopic.{0}.>"));
+    }
+}
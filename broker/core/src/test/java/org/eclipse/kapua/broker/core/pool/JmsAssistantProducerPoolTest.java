@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.pool;
+
+import java.util.NoSuchElementException;
+
+import javax.jms.Connection;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(JUnitTests.class)
+public class JmsAssistantProducerPoolTest extends Assert {
+
+    private static final ActiveMQConnectionFactory CONNECTION_FACTORY = new ActiveMQConnectionFactory("vm://producer-pool-test?broker.persistent=false&broker.useJmx=false");
+
+    /**
+     * Keeps the embedded broker up between the tests
+     */
+    private static Connection brokerConnection;
+
+    private JmsAssistantProducerPool pool;
+
+    @BeforeClass
+    public static void startBroker() throws Exception {
+        brokerConnection = CONNECTION_FACTORY.createConnection();
+    }
+
+    @AfterClass
+    public static void stopBroker() throws Exception {
+        brokerConnection.close();
+    }
+
+    @Before
+    public void createPool() {
+        // a single affinity slot, so that every thread maps to it, and a single overflow producer
+        pool = newPool(2, 1);
+    }
+
+    @After
+    public void closePool() {
+        pool.close();
+    }
+
+    @Test
+    public void borrowAndReturnSlotProducer() throws Exception {
+        JmsAssistantProducerWrapper slotProducer = pool.borrowProducer();
+        assertEquals(0, slotProducer.affinitySlot);
+        assertEquals(1, pool.getNumActive());
+
+        pool.returnProducer(slotProducer);
+        // the slot keeps its producer, still counted by the pool
+        assertEquals(1, pool.getNumActive());
+        assertEquals(0, pool.getNumIdle());
+        assertSame(slotProducer, pool.borrowProducer());
+        assertEquals(1, pool.getCreatedCount());
+    }
+
+    @Test
+    public void borrowAndReturnOverflowProducer() throws Exception {
+        JmsAssistantProducerWrapper slotProducer = pool.borrowProducer();
+        JmsAssistantProducerWrapper overflowProducer = pool.borrowProducer();
+        assertNotSame(slotProducer, overflowProducer);
+        assertEquals(-1, overflowProducer.affinitySlot);
+        assertEquals(2, pool.getNumActive());
+
+        pool.returnProducer(overflowProducer);
+        assertEquals(1, pool.getNumActive());
+        assertEquals(1, pool.getNumIdle());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void slotProducerCountsAgainstMaxTotal() throws Exception {
+        pool.borrowProducer();
+        pool.borrowProducer();
+
+        pool.borrowProducer();
+    }
+
+    @Test
+    public void invalidateSlotProducer() throws Exception {
+        JmsAssistantProducerWrapper slotProducer = pool.borrowProducer();
+
+        pool.invalidateProducer(slotProducer);
+        assertFalse(JmsAssistantProducerWrapperFactory.isValid(slotProducer));
+        assertEquals(0, pool.getNumActive());
+        assertEquals(1, pool.getDestroyedCount());
+
+        // the slot takes a new producer from the pool
+        JmsAssistantProducerWrapper newSlotProducer = pool.borrowProducer();
+        assertNotSame(slotProducer, newSlotProducer);
+        assertEquals(0, newSlotProducer.affinitySlot);
+        assertEquals(1, pool.getNumActive());
+    }
+
+    @Test
+    public void invalidateOverflowProducer() throws Exception {
+        JmsAssistantProducerWrapper slotProducer = pool.borrowProducer();
+        JmsAssistantProducerWrapper overflowProducer = pool.borrowProducer();
+
+        pool.invalidateProducer(overflowProducer);
+        assertFalse(JmsAssistantProducerWrapperFactory.isValid(overflowProducer));
+        assertTrue(JmsAssistantProducerWrapperFactory.isValid(slotProducer));
+        assertEquals(1, pool.getNumActive());
+        assertEquals(0, pool.getNumIdle());
+        assertEquals(1, pool.getDestroyedCount());
+
+        // room for a new overflow producer
+        assertNotSame(overflowProducer, pool.borrowProducer());
+    }
+
+    @Test
+    public void evictInvalidSlotProducer() throws Exception {
+        JmsAssistantProducerWrapper slotProducer = pool.borrowProducer();
+        pool.returnProducer(slotProducer);
+        slotProducer.close();
+
+        pool.evict();
+        assertEquals(0, pool.getNumActive());
+        assertEquals(1, pool.getDestroyedCount());
+        assertNotSame(slotProducer, pool.borrowProducer());
+    }
+
+    @Test
+    public void closeWithIdleSlot() throws Exception {
+        JmsAssistantProducerWrapper slotProducer = pool.borrowProducer();
+        pool.returnProducer(slotProducer);
+
+        pool.close();
+        assertFalse(JmsAssistantProducerWrapperFactory.isValid(slotProducer));
+        assertEquals(1, pool.getDestroyedCount());
+    }
+
+    @Test
+    public void closeWithSlotInUse() throws Exception {
+        JmsAssistantProducerWrapper slotProducer = pool.borrowProducer();
+        JmsAssistantProducerWrapper overflowProducer = pool.borrowProducer();
+        pool.returnProducer(overflowProducer);
+
+        pool.close();
+        // the idle producers are closed, the one in use is left to its user until given back
+        assertFalse(JmsAssistantProducerWrapperFactory.isValid(overflowProducer));
+        assertTrue(JmsAssistantProducerWrapperFactory.isValid(slotProducer));
+
+        pool.returnProducer(slotProducer);
+        assertFalse(JmsAssistantProducerWrapperFactory.isValid(slotProducer));
+        assertEquals(2, pool.getDestroyedCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void borrowAfterClose() throws Exception {
+        pool.close();
+
+        pool.borrowProducer();
+    }
+
+    @Test
+    public void affinitySlotsLeaveOneProducerToThePool() throws Exception {
+        pool.close();
+        pool = newPool(2, 4);
+
+        // a single slot is kept, so the second producer is an overflow one
+        assertEquals(0, pool.borrowProducer().affinitySlot);
+        assertEquals(-1, pool.borrowProducer().affinitySlot);
+    }
+
+    private static JmsAssistantProducerPool newPool(int maxTotal, int affinitySlots) {
+        GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        config.setMaxTotal(maxTotal);
+        config.setMaxIdle(maxTotal);
+        config.setMinIdle(0);
+        config.setBlockWhenExhausted(false);
+        return new JmsAssistantProducerPool(new JmsAssistantProducerWrapperFactory(null) {
+
+            @Override
+            public JmsAssistantProducerWrapper create() throws Exception {
+                return new JmsAssistantProducerWrapper(CONNECTION_FACTORY, null, false, false);
+            }
+        }, config, affinitySlots);
+    }
+}
@@ -12,6 +12,7 @@
 package org.eclipse.kapua.commons.configuration;
 
 import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.KapuaMaxNumberOfItemsReachedException;
 import org.eclipse.kapua.commons.jpa.AbstractEntityCacheFactory;
 import org.eclipse.kapua.commons.jpa.EntityManagerFactory;
 import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
@@ -33,7 +34,9 @@ import org.eclipse.kapua.service.account.AccountListResult;
 import org.eclipse.kapua.service.account.AccountQuery;
 import org.eclipse.kapua.service.account.AccountService;
 
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public abstract class AbstractKapuaConfigurableResourceLimitedService<E extends KapuaEntity, C extends KapuaEntityCreator<E>, S extends KapuaEntityService<E, C>, L extends KapuaListResult<E>, Q extends KapuaQuery<E>, F extends KapuaEntityFactory<E, C, Q, L>>
         extends AbstractKapuaConfigurableService {
@@ -88,6 +91,26 @@ public abstract class AbstractKapuaConfigurableResourceLimitedService<E extends
         return allowedChildEntities(scopeId, null, null);
     }
 
+    /**
+     * Checks that each scope of the given creators can contain all the entities to be created for it.<br>
+     * The limit is checked once for each scope, instead of once for each creator.
+     *
+     * @param creators       The creators of the entities to be created.
+     * @param entityTypeName The name of the entities, used in the {@link KapuaMaxNumberOfItemsReachedException}.
+     * @throws KapuaMaxNumberOfItemsReachedException If a scope cannot contain the entities to be created for it.
+     * @throws KapuaException
+     * @since 1.3.0
+     */
+    protected void checkAllowedChildEntities(List<C> creators, String entityTypeName) throws KapuaException {
+        Map<KapuaId, Long> creatorsByScope = creators.stream().collect(Collectors.groupingBy(KapuaEntityCreator::getScopeId, Collectors.counting()));
+
+        for (Map.Entry<KapuaId, Long> scopeCreators : creatorsByScope.entrySet()) {
+            if (allowedChildEntities(scopeCreators.getKey()) < scopeCreators.getValue()) {
+                throw new KapuaMaxNumberOfItemsReachedException(entityTypeName);
+            }
+        }
+    }
+
     protected int allowedChildEntities(KapuaId scopeId, KapuaId targetScopeId) throws KapuaException {
         return allowedChildEntities(scopeId, targetScopeId, null);
     }
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event;
+
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.event.ServiceEvent.EventStatus;
+import org.eclipse.kapua.event.ServiceEventBusException;
+import org.eclipse.kapua.model.id.KapuaId;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Compact binary event bus marshaller implementation.<br>
+ * Each field of the {@link ServiceEvent} is written in a fixed order, prefixed by its length (or by a presence flag for dates and enums).<br>
+ * The text form of the event (used only when a text message is required) is the Base64 encoding of the binary form.
+ *
+ * @since 1.3.0
+ */
+public class BinaryServiceEventMarshaler implements ServiceEventBinaryMarshaler {
+
+    public static final String CONTENT_TYPE_BINARY = "application/vnd.kapua.service-event";
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int NULL_LENGTH = -1;
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE_BINARY;
+    }
+
+    @Override
+    public ServiceEvent unmarshal(String message) throws ServiceEventBusException {
+        return unmarshalBinary(Base64.getDecoder().decode(message));
+    }
+
+    @Override
+    public String marshal(ServiceEvent kapuaEvent) throws ServiceEventBusException {
+        return Base64.getEncoder().encodeToString(marshalBinary(kapuaEvent));
+    }
+
+    @Override
+    public ServiceEvent unmarshalBinary(byte[] message) throws ServiceEventBusException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new ServiceEventBusException(String.format("Unsupported binary service event format version: %s", version));
+            }
+
+            ServiceEvent kapuaEvent = new ServiceEvent();
+            kapuaEvent.setId(readString(in));
+            kapuaEvent.setContextId(readString(in));
+            kapuaEvent.setTimestamp(readDate(in));
+            kapuaEvent.setUserId(readKapuaId(in));
+            kapuaEvent.setService(readString(in));
+            kapuaEvent.setEntityType(readString(in));
+            kapuaEvent.setScopeId(readKapuaId(in));
+            kapuaEvent.setEntityScopeId(readKapuaId(in));
+            kapuaEvent.setEntityId(readKapuaId(in));
+            kapuaEvent.setOperation(readString(in));
+            kapuaEvent.setInputs(readString(in));
+            kapuaEvent.setOutputs(readString(in));
+            String status = readString(in);
+            kapuaEvent.setStatus(status != null ? EventStatus.valueOf(status) : null);
+            kapuaEvent.setNote(readString(in));
+            return kapuaEvent;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ServiceEventBusException(e);
+        }
+    }
+
+    @Override
+    public byte[] marshalBinary(ServiceEvent kapuaEvent) throws ServiceEventBusException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            writeString(out, kapuaEvent.getId());
+            writeString(out, kapuaEvent.getContextId());
+            writeDate(out, kapuaEvent.getTimestamp());
+            writeKapuaId(out, kapuaEvent.getUserId());
+            writeString(out, kapuaEvent.getService());
+            writeString(out, kapuaEvent.getEntityType());
+            writeKapuaId(out, kapuaEvent.getScopeId());
+            writeKapuaId(out, kapuaEvent.getEntityScopeId());
+            writeKapuaId(out, kapuaEvent.getEntityId());
+            writeString(out, kapuaEvent.getOperation());
+            writeString(out, kapuaEvent.getInputs());
+            writeString(out, kapuaEvent.getOutputs());
+            writeString(out, kapuaEvent.getStatus() != null ? kapuaEvent.getStatus().name() : null);
+            writeString(out, kapuaEvent.getNote());
+        } catch (IOException e) {
+            throw new ServiceEventBusException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(valueBytes.length);
+            out.write(valueBytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] valueBytes = new byte[length];
+        in.readFully(valueBytes);
+        return new String(valueBytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeKapuaId(DataOutputStream out, KapuaId value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            byte[] valueBytes = value.getId().toByteArray();
+            out.writeInt(valueBytes.length);
+            out.write(valueBytes);
+        }
+    }
+
+    private static KapuaId readKapuaId(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] valueBytes = new byte[length];
+        in.readFully(valueBytes);
+        return new KapuaEid(new BigInteger(valueBytes));
+    }
+
+    private static void writeDate(DataOutputStream out, Date value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getTime());
+        }
+    }
+
+    private static Date readDate(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new Date(in.readLong()) : null;
+    }
+}
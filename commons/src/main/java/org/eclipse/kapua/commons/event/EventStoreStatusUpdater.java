@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event;
+
+import org.eclipse.kapua.commons.jpa.EntityManagerSession;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.service.event.store.internal.EventStoreDAO;
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.event.ServiceEvent.EventStatus;
+import org.eclipse.kapua.event.ServiceEventPublishListener;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * {@link ServiceEventPublishListener} that updates the status of the published events in the event store of the service that raised them.<br>
+ * The status of all the notified events is updated with a single statement.
+ *
+ * @since 1.3.0
+ */
+public class EventStoreStatusUpdater implements ServiceEventPublishListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EventStoreStatusUpdater.class);
+
+    private final EntityManagerSession entityManagerSession;
+
+    /**
+     * Constructor
+     *
+     * @param entityManagerSession the {@link EntityManagerSession} of the service owning the event store
+     */
+    public EventStoreStatusUpdater(EntityManagerSession entityManagerSession) {
+        this.entityManagerSession = entityManagerSession;
+    }
+
+    @Override
+    public void onPublished(List<ServiceEvent> serviceEvents) {
+        updateEventStatus(serviceEvents, EventStatus.SENT);
+    }
+
+    @Override
+    public void onPublishFailed(List<ServiceEvent> serviceEvents, Throwable cause) {
+        LOG.warn("Error sending {} event(s): {}", serviceEvents.size(), cause.getMessage());
+        updateEventStatus(serviceEvents, EventStatus.SEND_ERROR);
+    }
+
+    private void updateEventStatus(List<ServiceEvent> serviceEvents, EventStatus newServiceEventStatus) {
+        List<KapuaId> eventIds = serviceEvents.stream()
+                .filter(serviceEvent -> serviceEvent.getId() != null)
+                .peek(serviceEvent -> serviceEvent.setStatus(newServiceEventStatus))
+                .map(serviceEvent -> KapuaEid.parseCompactId(serviceEvent.getId()))
+                .collect(Collectors.toList());
+
+        try {
+            // The transaction is handled here since the caller thread may have an event scope open:
+            // in that case a transacted action would persist the event in scope once again.
+            int updated = entityManagerSession.doAction(em -> {
+                em.beginTransaction();
+                int updatedEvents = EventStoreDAO.updateStatus(em, eventIds, newServiceEventStatus);
+                em.commit();
+                return updatedEvents;
+            });
+            LOG.debug("Updated status to {} for {}/{} event(s)", newServiceEventStatus, updated, eventIds.size());
+        } catch (Throwable t) {
+            // this may be a valid condition if the HouseKeeper is doing the update concurrently with this task
+            LOG.warn("Error updating event status: {}", t.getMessage(), t);
+        }
+    }
+}
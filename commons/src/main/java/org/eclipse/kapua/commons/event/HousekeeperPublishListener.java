@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event;
+
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.event.ServiceEventPublishListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ServiceEventPublishListener} used by the {@link ServiceEventHousekeeper} to publish a scan window.<br>
+ * While the window is being published, the events confirmed synchronously by the bus are collected and then notified to the delegate
+ * with a single call on {@link #close()}, so their status is updated with a single statement.
+ * The events confirmed after {@link #close()} (i.e. by the batch publisher of the bus) and the failed events are notified to the delegate straight away.
+ *
+ * @since 1.3.0
+ */
+class HousekeeperPublishListener implements ServiceEventPublishListener {
+
+    private final ServiceEventPublishListener delegate;
+
+    private List<ServiceEvent> publishedEvents = new ArrayList<>();
+    private volatile boolean publishFailed;
+
+    /**
+     * Constructor
+     *
+     * @param delegate the listener updating the event store
+     */
+    HousekeeperPublishListener(ServiceEventPublishListener delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void onPublished(List<ServiceEvent> serviceEvents) {
+        synchronized (this) {
+            if (publishedEvents != null) {
+                publishedEvents.addAll(serviceEvents);
+                return;
+            }
+        }
+        delegate.onPublished(serviceEvents);
+    }
+
+    @Override
+    public void onPublishFailed(List<ServiceEvent> serviceEvents, Throwable cause) {
+        publishFailed = true;
+        delegate.onPublishFailed(serviceEvents, cause);
+    }
+
+    /**
+     * Whether the bus notified a publish failure for any of the window events
+     *
+     * @return
+     */
+    boolean isPublishFailed() {
+        return publishFailed;
+    }
+
+    /**
+     * Notify the events collected so far to the delegate and stop collecting
+     */
+    void close() {
+        List<ServiceEvent> collectedEvents;
+        synchronized (this) {
+            collectedEvents = publishedEvents;
+            publishedEvents = null;
+        }
+        if (collectedEvents != null && !collectedEvents.isEmpty()) {
+            delegate.onPublished(collectedEvents);
+        }
+    }
+}
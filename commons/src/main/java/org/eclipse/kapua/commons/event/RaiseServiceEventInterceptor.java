@@ -14,20 +14,16 @@ package org.eclipse.kapua.commons.event;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.eclipse.kapua.commons.core.InterceptorBind;
-import org.eclipse.kapua.commons.jpa.EntityManagerContainer;
+import org.eclipse.kapua.commons.jpa.EntityManagerSession;
 import org.eclipse.kapua.commons.metric.MetricServiceFactory;
 import org.eclipse.kapua.commons.metric.MetricsService;
-import org.eclipse.kapua.commons.model.id.KapuaEid;
 import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
 import org.eclipse.kapua.commons.security.KapuaSession;
-import org.eclipse.kapua.commons.service.event.store.api.EventStoreRecord;
-import org.eclipse.kapua.commons.service.event.store.api.ServiceEventUtil;
-import org.eclipse.kapua.commons.service.event.store.internal.EventStoreDAO;
 import org.eclipse.kapua.commons.service.internal.AbstractKapuaService;
 import org.eclipse.kapua.event.RaiseServiceEvent;
 import org.eclipse.kapua.event.ServiceEvent;
-import org.eclipse.kapua.event.ServiceEvent.EventStatus;
 import org.eclipse.kapua.event.ServiceEventBusException;
+import org.eclipse.kapua.event.ServiceEventPublishListener;
 import org.eclipse.kapua.locator.KapuaProvider;
 import org.eclipse.kapua.model.KapuaEntity;
 import org.eclipse.kapua.model.id.KapuaId;
@@ -43,6 +39,8 @@ import java.lang.reflect.Parameter;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Event interceptor. It builds the event object and sends it to the event bus.
@@ -63,6 +61,19 @@ public class RaiseServiceEventInterceptor implements MethodInterceptor {
 
     private static final MetricsService METRIC_SERVICE = MetricServiceFactory.getInstance();
 
+    private static final ServiceEventPublishListener NO_OP_PUBLISH_LISTENER = new ServiceEventPublishListener() {
+
+        @Override
+        public void onPublished(List<ServiceEvent> serviceEvents) {
+        }
+
+        @Override
+        public void onPublishFailed(List<ServiceEvent> serviceEvents, Throwable cause) {
+        }
+    };
+
+    private final Map<EntityManagerSession, EventStoreStatusUpdater> eventStoreStatusUpdaters = new ConcurrentHashMap<>();
+
     private Counter wrongId;
     private Counter wrongEntity;
 
@@ -240,36 +251,26 @@ public class RaiseServiceEventInterceptor implements MethodInterceptor {
     private void sendEvent(MethodInvocation invocation, ServiceEvent serviceEvent, Object returnedValue) throws ServiceEventBusException {
         String address = ServiceMap.getAddress(serviceEvent.getService());
         try {
-            ServiceEventBusManager.getInstance().publish(address, serviceEvent);
-            LOG.info("SENT event from service {} to {} - entity type {} - entity scope id {} - entity id {} - context id {}",
+            // the event status in the event table is confirmed (or marked as SEND_ERROR) by the listener once the publish outcome is known
+            ServiceEventBusManager.getInstance().publish(address, serviceEvent, getPublishListener(invocation));
+            LOG.info("PUBLISHED event from service {} to {} - entity type {} - entity scope id {} - entity id {} - context id {}",
                     serviceEvent.getService(),
                     address,
                     serviceEvent.getEntityType(),
                     serviceEvent.getEntityScopeId(),
                     serviceEvent.getEntityId(),
                     serviceEvent.getContextId());
-            // if message was sent successfully then confirm the event in the event table
-            updateEventStatus(invocation, serviceEvent, EventStatus.SENT);
         } catch (ServiceEventBusException e) {
             LOG.warn("Error sending event", e);
-            // mark event status as SEND_ERROR
-            updateEventStatus(invocation, serviceEvent, EventStatus.SEND_ERROR);
         }
     }
 
-    private void updateEventStatus(MethodInvocation invocation, ServiceEvent serviceEventBus, EventStatus newServiceEventStatus) {
+    private ServiceEventPublishListener getPublishListener(MethodInvocation invocation) {
         if (invocation.getThis() instanceof AbstractKapuaService) {
-            try {
-                serviceEventBus.setStatus(newServiceEventStatus);
-                ((AbstractKapuaService) invocation.getThis()).getEntityManagerSession().doTransactedAction(EntityManagerContainer.<EventStoreRecord>create().onResultHandler(em -> {
-                    return EventStoreDAO.update(em,
-                            ServiceEventUtil.mergeToEntity(EventStoreDAO.find(em, serviceEventBus.getScopeId(), KapuaEid.parseCompactId(serviceEventBus.getId())), serviceEventBus));
-                }));
-            } catch (Throwable t) {
-                // this may be a valid condition if the HouseKeeper is doing the update concurrently with this task
-                LOG.warn("Error updating event status: {}", t.getMessage(), t);
-            }
+            EntityManagerSession entityManagerSession = ((AbstractKapuaService) invocation.getThis()).getEntityManagerSession();
+            return eventStoreStatusUpdaters.computeIfAbsent(entityManagerSession, EventStoreStatusUpdater::new);
         }
+        return NO_OP_PUBLISH_LISTENER;
     }
 
 }
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.event.ServiceEvent;
+
+/**
+ * Event bus marshaler that is able to encode the service bus event object as bytes.<br>
+ * When configured as event bus marshaler, events are sent as binary messages instead of text messages.
+ *
+ * @since 1.3.0
+ */
+public interface ServiceEventBinaryMarshaler extends ServiceEventMarshaler {
+
+    /**
+     * Unmarshal the binary message received from the bus
+     *
+     * @param message
+     * @return
+     * @throws KapuaException
+     */
+    ServiceEvent unmarshalBinary(byte[] message) throws KapuaException;
+
+    /**
+     * Marshal the message to the service event bus as bytes
+     *
+     * @param kapuaEvent
+     * @return
+     * @throws KapuaException
+     */
+    byte[] marshalBinary(ServiceEvent kapuaEvent) throws KapuaException;
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2019 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -14,23 +14,20 @@ package org.eclipse.kapua.commons.event;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.commons.jpa.EntityManager;
 import org.eclipse.kapua.commons.jpa.EntityManagerFactory;
+import org.eclipse.kapua.commons.jpa.EntityManagerSession;
 import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
 import org.eclipse.kapua.commons.service.event.store.api.EventStoreRecord;
-import org.eclipse.kapua.commons.service.event.store.api.EventStoreRecordAttributes;
-import org.eclipse.kapua.commons.service.event.store.api.EventStoreRecordListResult;
-import org.eclipse.kapua.commons.service.event.store.api.EventStoreRecordQuery;
-import org.eclipse.kapua.commons.service.event.store.api.EventStoreService;
 import org.eclipse.kapua.commons.service.event.store.api.ServiceEventUtil;
-import org.eclipse.kapua.commons.service.event.store.internal.EventStoreFactoryImpl;
-import org.eclipse.kapua.commons.service.event.store.internal.EventStoreServiceImpl;
+import org.eclipse.kapua.commons.service.event.store.internal.EventStoreDAO;
 import org.eclipse.kapua.commons.setting.system.SystemSetting;
 import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
 import org.eclipse.kapua.commons.util.KapuaDateUtils;
+import org.eclipse.kapua.event.ServiceEvent;
 import org.eclipse.kapua.event.ServiceEvent.EventStatus;
 import org.eclipse.kapua.event.ServiceEventBus;
 import org.eclipse.kapua.event.ServiceEventBusException;
-import org.eclipse.kapua.model.query.predicate.AndPredicate;
-import org.eclipse.kapua.model.query.predicate.AttributePredicate.Operator;
+import org.eclipse.kapua.event.ServiceEventPublishListener;
+import org.eclipse.kapua.model.id.KapuaId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,7 +37,12 @@ import java.util.Date;
 import java.util.List;
 
 /**
- * Event bus housekeeper. It is responsible to send unsent messages or send again messages gone in error.
+ * Event bus housekeeper. It is responsible to send unsent messages or send again messages gone in error.<br>
+ * The execution is claimed through the {@link HousekeeperRun} lock, which is released before processing the events.<br>
+ * Unsent events are scanned in windows ordered by event identifier and published through {@link ServiceEventBus#publish(String, ServiceEvent, ServiceEventPublishListener)},
+ * so they are sent in batches when the bus is configured to; the status of each window is updated with a single statement.
+ * SENT events older than the configured retention are purged in batches.
+ * Each execution processes at most {@link SystemSettingKey#HOUSEKEEPER_MAX_WINDOWS_PER_RUN} scan windows and purge batches, the remaining events are left to the next execution.
  *
  * @since 1.0
  */
@@ -56,10 +58,14 @@ public class ServiceEventHousekeeper implements Runnable {
     private static final long WAIT_TIME = SystemSetting.getInstance().getLong(SystemSettingKey.HOUSEKEEPER_EXECUTION_WAIT_TIME);
     private static final long OLD_MESSAGES_TIME_WINDOW = SystemSetting.getInstance().getLong(SystemSettingKey.HOUSEKEEPER_OLD_MESSAGES_TIME_WINDOW);
     private static final int EVENT_SCAN_WINDOW = SystemSetting.getInstance().getInt(SystemSettingKey.HOUSEKEEPER_EVENT_SCAN_WINDOW);
+    private static final long SENT_EVENTS_RETENTION = SystemSetting.getInstance().getLong(SystemSettingKey.HOUSEKEEPER_SENT_EVENTS_RETENTION, 604800000L);
+    private static final int PURGE_BATCH_SIZE = SystemSetting.getInstance().getInt(SystemSettingKey.HOUSEKEEPER_PURGE_BATCH_SIZE, 500);
+    private static final int MAX_WINDOWS_PER_RUN = SystemSetting.getInstance().getInt(SystemSettingKey.HOUSEKEEPER_MAX_WINDOWS_PER_RUN, 10);
 
     private final Object monitor = new Object();
 
-    private EventStoreService kapuaEventService;
+    private EntityManagerSession entityManagerSession;
+    private EventStoreStatusUpdater statusUpdater;
 
     private EntityManager manager;
 
@@ -79,12 +85,12 @@ public class ServiceEventHousekeeper implements Runnable {
         this.eventbus = eventbus;
         this.servicesEntryList = servicesEntryList;
         manager = entityManagerFactory.createEntityManager();
-        kapuaEventService = new EventStoreServiceImpl(entityManagerFactory);
+        entityManagerSession = new EntityManagerSession(entityManagerFactory);
+        statusUpdater = new EventStoreStatusUpdater(entityManagerSession);
     }
 
     @Override
     public void run() {
-        //TODO handling events table cleanup
         running = true;
         while (running) {
             waitStep();
@@ -114,12 +120,14 @@ public class ServiceEventHousekeeper implements Runnable {
             Date startRun = Date.from(KapuaDateUtils.getKapuaSysDate());
             //try to acquire lock
             HousekeeperRun kapuaEventHousekeeper = getLock(serviceName);
+            //claim this execution and release the lock, so the other instances skip it without waiting for the events processing
+            updateLock(kapuaEventHousekeeper, serviceName, startRun);
             //scan unsent events (marked as SENT_ERROR)
             findAndSendUnsentEvents(serviceName, EventsProcessType.SEND_ERROR);
             //scan unsent OLD events (marked as FIRED but raised before a specific (configurable) time window)
             findAndSendUnsentEvents(serviceName, EventsProcessType.OLD);
-            //release lock
-            updateLock(kapuaEventHousekeeper, serviceName, startRun);
+            //remove SENT events older than the configured retention
+            purgeSentEvents(serviceName);
         } catch (LockException | NoExecutionNeededException e) {
             LOGGER.trace("The lock is handled by someone else or the last execution was to close");
         } finally {
@@ -131,56 +139,83 @@ public class ServiceEventHousekeeper implements Runnable {
     }
 
     private void findAndSendUnsentEvents(String serviceName, EventsProcessType eventsProcessType) throws KapuaException {
-        EventStoreRecordListResult unsentMessagesList = getUnsentEvents(serviceName, eventsProcessType);
-        //send unprocessed events
-        if (!unsentMessagesList.isEmpty()) {
-            for (EventStoreRecord kapuaEvent : unsentMessagesList.getItems()) {
-                try {
-                    String address = ServiceMap.getAddress(serviceName);
+        EventStatus eventStatus;
+        Date eventDateBound;
+        if (EventsProcessType.SEND_ERROR.equals(eventsProcessType)) {
+            LOGGER.trace("Looking for SENT_ERROR events.");
+            eventStatus = EventStatus.SEND_ERROR;
+            eventDateBound = null;
+        } else {
+            eventStatus = EventStatus.TRIGGERED;
+            eventDateBound = Date.from(KapuaDateUtils.getKapuaSysDate().minusMillis(OLD_MESSAGES_TIME_WINDOW));
+            LOGGER.trace("Looking for OLD events. Date before {}", eventDateBound);
+        }
+
+        String address = ServiceMap.getAddress(serviceName);
+        KapuaId lastEventId = null;
+        List<EventStoreRecord> unsentEvents;
+        int windows = 0;
+        do {
+            KapuaId afterEventId = lastEventId;
+            unsentEvents = entityManagerSession.doAction(em -> EventStoreDAO.scan(em, serviceName, eventStatus, eventDateBound, afterEventId, EVENT_SCAN_WINDOW));
+            if (unsentEvents.isEmpty()) {
+                break;
+            }
+            lastEventId = unsentEvents.get(unsentEvents.size() - 1).getId();
+            windows++;
+
+            //publish the whole window, then confirm all the events sent synchronously in the event table with a single update
+            //if something goes wrong during this update the events may be raised twice (but this condition should happens rarely and it is compliant to the contract of the service events)
+            HousekeeperPublishListener publishListener = new HousekeeperPublishListener(statusUpdater);
+            try {
+                for (EventStoreRecord kapuaEvent : unsentEvents) {
                     LOGGER.info("publish event: service '{}' - address '{}' - operation '{}' - id '{}'",
                             kapuaEvent.getService(),
                             address,
                             kapuaEvent.getOperation(),
                             kapuaEvent.getContextId());
 
-                    eventbus.publish(address, ServiceEventUtil.toServiceEventBus(kapuaEvent));
-                    //if message was sent successfully then confirm the event in the event table
-                    //if something goes wrong during this update the event message may be raised twice (but this condition should happens rarely and it is compliant to the contract of the service events)
-                    //this is done in a different transaction
-                    kapuaEvent.setStatus(EventStatus.SENT);
-                    kapuaEventService.update(kapuaEvent);
-                } catch (ServiceEventBusException e) {
-                    LOGGER.warn("Exception publishing event: {}", e.getMessage(), e);
-                } catch (KapuaException e) {
-                    //this may be a valid condition if the HouseKeeper is doing the update concurrently with this task
-                    LOGGER.warn("Exception acknowledging event: {}", e.getMessage(), e);
+                    eventbus.publish(address, ServiceEventUtil.toServiceEventBus(kapuaEvent), publishListener);
                 }
+            } catch (ServiceEventBusException e) {
+                LOGGER.warn("Exception publishing event: {}", e.getMessage(), e);
+            } finally {
+                publishListener.close();
+            }
+            if (publishListener.isPublishFailed()) {
+                //the event bus is likely unavailable, the remaining events will be processed by the next run
+                break;
             }
         }
+        while (running && unsentEvents.size() == EVENT_SCAN_WINDOW && windows < MAX_WINDOWS_PER_RUN);
     }
 
-    private EventStoreRecordListResult getUnsentEvents(String serviceName, EventsProcessType eventsProcessType) throws KapuaException {
-        EventStoreRecordQuery query = new EventStoreFactoryImpl().newQuery(null);
-
-        AndPredicate andPredicate = query.andPredicate();
-        andPredicate.and(query.attributePredicate(EventStoreRecordAttributes.SERVICE_NAME, serviceName));
-
-        if (EventsProcessType.SEND_ERROR.equals(eventsProcessType)) {
-            LOGGER.trace("Looking for SENT_ERROR events. Add EventStatus=SENT_ERROR query predicate.");
-            andPredicate.and(query.attributePredicate(EventStoreRecordAttributes.EVENT_STATUS, EventStatus.SEND_ERROR));
-        } else {
-            LOGGER.trace("Looking for OLD events. Add EventStatus=RAISED query predicate.");
-            andPredicate.and(query.attributePredicate(EventStoreRecordAttributes.EVENT_STATUS, EventStatus.TRIGGERED));
-            //add timestamp predicate
-            Date eventDateBound = Date.from(KapuaDateUtils.getKapuaSysDate().minusMillis(OLD_MESSAGES_TIME_WINDOW));
-            LOGGER.trace("Looking for OLD events. Add timestamp condition query predicate. Date before {}", eventDateBound);
-            andPredicate.and(query.attributePredicate(EventStoreRecordAttributes.MODIFIED_ON, eventDateBound, Operator.LESS_THAN_OR_EQUAL));
+    private void purgeSentEvents(String serviceName) throws KapuaException {
+        if (SENT_EVENTS_RETENTION <= 0) {
+            return;
         }
 
-        query.setPredicate(andPredicate);
-        query.setLimit(EVENT_SCAN_WINDOW);
+        Date eventDateBound = Date.from(KapuaDateUtils.getKapuaSysDate().minusMillis(SENT_EVENTS_RETENTION));
+        LOGGER.trace("Purging SENT events of service '{}' older than {}", serviceName, eventDateBound);
+        int purgedEvents = 0;
+        int deletedEvents;
+        int batches = 0;
+        do {
+            //each batch is deleted in its own transaction to keep locks and undo logs small
+            deletedEvents = entityManagerSession.doAction(em -> {
+                em.beginTransaction();
+                int deleted = EventStoreDAO.deleteBefore(em, serviceName, EventStatus.SENT, eventDateBound, PURGE_BATCH_SIZE);
+                em.commit();
+                return deleted;
+            });
+            purgedEvents += deletedEvents;
+            batches++;
+        }
+        while (running && deletedEvents == PURGE_BATCH_SIZE && batches < MAX_WINDOWS_PER_RUN);
 
-        return kapuaEventService.query(query);
+        if (purgedEvents > 0) {
+            LOGGER.info("Purged {} SENT event(s) of service '{}' older than {}", purgedEvents, serviceName, eventDateBound);
+        }
     }
 
     private void waitStep() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -19,6 +19,8 @@ import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.apache.qpid.jms.jndi.JmsInitialContextFactory;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.KapuaRuntimeException;
+import org.eclipse.kapua.commons.event.BinaryServiceEventMarshaler;
+import org.eclipse.kapua.commons.event.ServiceEventBinaryMarshaler;
 import org.eclipse.kapua.commons.event.ServiceEventBusDriver;
 import org.eclipse.kapua.commons.event.ServiceEventBusManager;
 import org.eclipse.kapua.commons.event.ServiceEventMarshaler;
@@ -32,11 +34,15 @@ import org.eclipse.kapua.event.ServiceEvent;
 import org.eclipse.kapua.event.ServiceEventBus;
 import org.eclipse.kapua.event.ServiceEventBusException;
 import org.eclipse.kapua.event.ServiceEventBusListener;
+import org.eclipse.kapua.event.ServiceEventPublishListener;
+import org.eclipse.kapua.model.id.KapuaId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 
+import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.ExceptionListener;
@@ -51,11 +57,17 @@ import javax.jms.Topic;
 import javax.naming.Context;
 import javax.naming.NamingException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JMS event bus implementation
@@ -71,8 +83,18 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
     private static final int PRODUCER_POOL_BORROW_WAIT = SystemSetting.getInstance().getInt(SystemSettingKey.EVENT_BUS_PRODUCER_POOL_BORROW_WAIT_MAX);
     private static final int PRODUCER_POOL_EVICTION_INTERVAL = SystemSetting.getInstance().getInt(SystemSettingKey.EVENT_BUS_PRODUCER_EVICTION_INTERVAL);
     private static final int CONSUMER_POOL_SIZE = SystemSetting.getInstance().getInt(SystemSettingKey.EVENT_BUS_CONSUMER_POOL_SIZE);
+    private static final Map<String, Integer> SUBSCRIPTION_CONSUMER_POOL_SIZES = SystemSetting.getInstance().getMap(Integer.class, SystemSettingKey.EVENT_BUS_CONSUMER_POOL_SUBSCRIPTION_SIZE);
     private static final String MESSAGE_SERIALIZER = SystemSetting.getInstance().getString(SystemSettingKey.EVENT_BUS_MESSAGE_SERIALIZER);
     private static final String TRANSPORT_USE_EPOLL = SystemSetting.getInstance().getString(SystemSettingKey.EVENT_BUS_TRANSPORT_USE_EPOLL);
+    private static final boolean PUBLISH_BATCH_ENABLED = SystemSetting.getInstance().getBoolean(SystemSettingKey.EVENT_BUS_PUBLISH_BATCH_ENABLED, false);
+    private static final int PUBLISH_BATCH_MAX_SIZE = SystemSetting.getInstance().getInt(SystemSettingKey.EVENT_BUS_PUBLISH_BATCH_MAX_SIZE, 100);
+    private static final long PUBLISH_BATCH_LINGER_TIME = SystemSetting.getInstance().getLong(SystemSettingKey.EVENT_BUS_PUBLISH_BATCH_LINGER_TIME, 10L);
+    private static final int PUBLISH_BATCH_QUEUE_SIZE = SystemSetting.getInstance().getInt(SystemSettingKey.EVENT_BUS_PUBLISH_BATCH_QUEUE_SIZE, 10000);
+
+    // used to decode binary messages whatever the configured message serializer is
+    private static final ServiceEventBinaryMarshaler BINARY_MARSHALER = new BinaryServiceEventMarshaler();
+
+    static final String JMSX_GROUP_ID = "JMSXGroupID";
 
     private List<Subscription> subscriptionList = new ArrayList<>();
     private EventBusJMSConnectionBridge eventBusJMSConnectionBridge;
@@ -125,6 +147,12 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
         eventBusJMSConnectionBridge.publish(address, kapuaEvent);
     }
 
+    @Override
+    public void publish(String address, ServiceEvent kapuaEvent, ServiceEventPublishListener publishListener)
+            throws ServiceEventBusException {
+        eventBusJMSConnectionBridge.publish(address, kapuaEvent, publishListener);
+    }
+
     @Override
     public synchronized void subscribe(String address, String name, final ServiceEventBusListener kapuaEventListener)
             throws ServiceEventBusException {
@@ -141,6 +169,20 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
         KapuaSession.createFrom(kapuaEvent.getScopeId(), kapuaEvent.getUserId());
     }
 
+    /**
+     * Get the message group of the event, built from the (scope id, entity id) of the event entity.
+     *
+     * @param kapuaEvent
+     * @return the message group or {@code null} if the event has no entity id
+     */
+    static String getGroupId(ServiceEvent kapuaEvent) {
+        if (kapuaEvent.getEntityId() == null) {
+            return null;
+        }
+        KapuaId scopeId = kapuaEvent.getEntityScopeId() != null ? kapuaEvent.getEntityScopeId() : kapuaEvent.getScopeId();
+        return String.format("%s/%s", scopeId != null ? scopeId.toCompactId() : "", kapuaEvent.getEntityId().toCompactId());
+    }
+
     /**
      * Stop the event bus
      *
@@ -214,6 +256,7 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
 
         private Connection jmsConnection;
         private Map<String, SenderPool> senders = new HashMap<>();
+        private Map<String, BatchPublisher> batchPublishers = new ConcurrentHashMap<>();
         private ExceptionListenerImpl exceptionListener;
 
         public EventBusJMSConnectionBridge() {
@@ -261,6 +304,10 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
                 // borrowed object will be returned to the pool soon (since the connection is gone bad) and then destroyed by the pool (since the pool is stopped)
                 senderIterator.remove();
             }
+
+            // pending events are notified as failed and will be sent again by the housekeeper
+            batchPublishers.values().forEach(BatchPublisher::stop);
+            batchPublishers.clear();
         }
 
         void publish(String address, ServiceEvent kapuaEvent)
@@ -292,13 +339,53 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
             }
         }
 
+        void publish(String address, ServiceEvent kapuaEvent, ServiceEventPublishListener publishListener)
+                throws ServiceEventBusException {
+            if (PUBLISH_BATCH_ENABLED && address != null && address.trim().length() > 0) {
+                BatchPublisher batchPublisher = batchPublishers.computeIfAbsent(address, BatchPublisher::new);
+                if (batchPublisher.offer(kapuaEvent, publishListener)) {
+                    return;
+                }
+                LOGGER.debug("Publish queue for address {} is full. Publishing event synchronously...", address);
+            }
+
+            try {
+                publish(address, kapuaEvent);
+            } catch (ServiceEventBusException e) {
+                publishListener.onPublishFailed(Collections.singletonList(kapuaEvent), e);
+                throw e;
+            }
+            publishListener.onPublished(Collections.singletonList(kapuaEvent));
+        }
+
+        Message createEventMessage(Session jmsSession, ServiceEvent kapuaEvent) throws JMSException, KapuaException {
+            // Serialize outgoing kapua event based on platform configuration
+            Message message;
+            if (eventBusMarshaler instanceof ServiceEventBinaryMarshaler) {
+                BytesMessage bytesMessage = jmsSession.createBytesMessage();
+                bytesMessage.writeBytes(((ServiceEventBinaryMarshaler) eventBusMarshaler).marshalBinary(kapuaEvent));
+                message = bytesMessage;
+            } else {
+                TextMessage textMessage = jmsSession.createTextMessage();
+                textMessage.setText(eventBusMarshaler.marshal(kapuaEvent));
+                message = textMessage;
+            }
+            message.setStringProperty(ServiceEventMarshaler.CONTENT_TYPE_KEY, eventBusMarshaler.getContentType());
+            // the broker delivers all the messages of the same group to the same consumer, so the events of an entity are processed in order
+            String groupId = getGroupId(kapuaEvent);
+            if (groupId != null) {
+                message.setStringProperty(JMSX_GROUP_ID, groupId);
+            }
+            return message;
+        }
+
         synchronized void subscribe(Subscription subscription)
                 throws ServiceEventBusException {
             try {
                 String subscriptionStr = String.format("events.%s", subscription.getAddress());
                 // create a bunch of sessions to allow parallel event processing
                 LOGGER.info("Subscribing to address {} - name {} ...", subscriptionStr, subscription.getName());
-                for (int i = 0; i < CONSUMER_POOL_SIZE; i++) {
+                for (int i = 0; i < subscription.getConsumerPoolSize(); i++) {
                     final Session jmsSession = jmsConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
                     Topic jmsTopic = jmsSession.createTopic(subscriptionStr);
                     MessageConsumer jmsConsumer = jmsSession.createSharedDurableConsumer(jmsTopic, subscription.getName());
@@ -307,23 +394,21 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
                         @Override
                         public void onMessage(Message message) {
                             try {
+                                final ServiceEvent kapuaEvent;
                                 if (message instanceof TextMessage) {
                                     TextMessage textMessage = (TextMessage) message;
-                                    final ServiceEvent kapuaEvent = eventBusMarshaler.unmarshal(textMessage.getText());
-                                    setSession(kapuaEvent);
-                                    KapuaSecurityUtils.doPrivileged(() -> {
-                                        try {
-                                            // restore event context
-                                            ServiceEventScope.set(kapuaEvent);
-                                            subscription.getKapuaEventListener().onKapuaEvent(kapuaEvent);
-                                        } finally {
-                                            ServiceEventScope.end();
-                                        }
-                                    });
-
+                                    kapuaEvent = eventBusMarshaler.unmarshal(textMessage.getText());
+                                } else if (message instanceof BytesMessage) {
+                                    BytesMessage bytesMessage = (BytesMessage) message;
+                                    byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+                                    bytesMessage.readBytes(body);
+                                    kapuaEvent = BINARY_MARSHALER.unmarshalBinary(body);
                                 } else {
                                     LOGGER.error("Discarding wrong event message type '{}'", message != null ? message.getClass() : "null");
+                                    return;
                                 }
+                                // the message is acknowledged only once the processing completes
+                                subscription.process(kapuaEvent);
                             } catch (Throwable t) {
                                 LOGGER.error(t.getMessage(), t);
                                 // throwing the exception to prevent the message acknowledging (https://docs.oracle.com/javaee/7/api/javax/jms/Session.html#AUTO_ACKNOWLEDGE)
@@ -332,7 +417,7 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
                         }
                     });
                 }
-                LOGGER.info("Subscribing to address {} - name {} - pool size {} ...DONE", subscriptionStr, subscription.getName(), CONSUMER_POOL_SIZE);
+                LOGGER.info("Subscribing to address {} - name {} - pool size {} ...DONE", subscriptionStr, subscription.getName(), subscription.getConsumerPoolSize());
             } catch (JMSException e) {
                 throw new ServiceEventBusException(e);
             }
@@ -353,11 +438,7 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
 
             public void sendMessage(ServiceEvent kapuaEvent) throws Exception {
                 try {
-                    TextMessage message = jmsSession.createTextMessage();
-                    // Serialize outgoing kapua event based on platform configuration
-                    message.setText(eventBusMarshaler.marshal(kapuaEvent));
-                    message.setStringProperty(ServiceEventMarshaler.CONTENT_TYPE_KEY, eventBusMarshaler.getContentType());
-                    jmsProducer.send(message);
+                    jmsProducer.send(createEventMessage(jmsSession, kapuaEvent));
                 } catch (JMSException | KapuaException e) {
                     LOGGER.error("Message publish interrupted: {}", e.getMessage());
                     throw e;
@@ -374,6 +455,131 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
 
         }
 
+        /**
+         * Queues the events of an address and publishes them in transacted batches from a dedicated thread.<br>
+         * The JMS session is confined to the publisher thread and it is recreated on the next batch after an error.
+         */
+        private class BatchPublisher implements Runnable {
+
+            private final String address;
+            private final BlockingQueue<PendingServiceEvent> pendingEvents = new LinkedBlockingQueue<>(PUBLISH_BATCH_QUEUE_SIZE);
+            private final Thread publisherThread;
+            private volatile boolean active = true;
+
+            private Session jmsSession;
+            private MessageProducer jmsProducer;
+
+            public BatchPublisher(String address) {
+                this.address = address;
+                publisherThread = new Thread(this, String.format("EventBusBatchPublisher-%s", address));
+                publisherThread.setDaemon(true);
+                publisherThread.start();
+            }
+
+            public boolean offer(ServiceEvent kapuaEvent, ServiceEventPublishListener publishListener) {
+                return active && pendingEvents.offer(new PendingServiceEvent(kapuaEvent, publishListener));
+            }
+
+            @Override
+            public void run() {
+                List<PendingServiceEvent> batch = new ArrayList<>(PUBLISH_BATCH_MAX_SIZE);
+                try {
+                    while (active) {
+                        batch.add(pendingEvents.take());
+
+                        long lingerDeadline = System.currentTimeMillis() + PUBLISH_BATCH_LINGER_TIME;
+                        while (batch.size() < PUBLISH_BATCH_MAX_SIZE) {
+                            pendingEvents.drainTo(batch, PUBLISH_BATCH_MAX_SIZE - batch.size());
+
+                            long lingerWait = lingerDeadline - System.currentTimeMillis();
+                            if (batch.size() >= PUBLISH_BATCH_MAX_SIZE || lingerWait <= 0) {
+                                break;
+                            }
+
+                            PendingServiceEvent nextEvent = pendingEvents.poll(lingerWait, TimeUnit.MILLISECONDS);
+                            if (nextEvent == null) {
+                                break;
+                            }
+                            batch.add(nextEvent);
+                        }
+
+                        sendBatch(batch);
+                        batch.clear();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    closeSession();
+
+                    pendingEvents.drainTo(batch);
+                    if (!batch.isEmpty()) {
+                        notifyOutcome(batch, new ServiceEventBusException(String.format("Event bus publisher for address %s stopped", address)));
+                    }
+                }
+            }
+
+            private void sendBatch(List<PendingServiceEvent> batch) {
+                try {
+                    if (jmsSession == null) {
+                        jmsSession = jmsConnection.createSession(true, Session.SESSION_TRANSACTED);
+                        Topic jmsTopic = jmsSession.createTopic(String.format("events.%s", address));
+                        jmsProducer = jmsSession.createProducer(jmsTopic);
+                    }
+
+                    for (PendingServiceEvent pendingEvent : batch) {
+                        jmsProducer.send(createEventMessage(jmsSession, pendingEvent.getServiceEvent()));
+                    }
+                    jmsSession.commit();
+                } catch (Exception e) {
+                    LOGGER.error("Batch publish of {} events to address {} interrupted: {}", batch.size(), address, e.getMessage());
+                    // the uncommitted messages are discarded by closing the session
+                    closeSession();
+                    notifyOutcome(batch, e);
+                    return;
+                }
+
+                notifyOutcome(batch, null);
+            }
+
+            private void notifyOutcome(List<PendingServiceEvent> batch, Exception error) {
+                // the same listener is notified once per batch with all its events
+                Map<ServiceEventPublishListener, List<ServiceEvent>> eventsByListener = new IdentityHashMap<>();
+                for (PendingServiceEvent pendingEvent : batch) {
+                    eventsByListener.computeIfAbsent(pendingEvent.getPublishListener(), publishListener -> new ArrayList<>()).add(pendingEvent.getServiceEvent());
+                }
+
+                eventsByListener.forEach((publishListener, serviceEvents) -> {
+                    try {
+                        if (error == null) {
+                            publishListener.onPublished(serviceEvents);
+                        } else {
+                            publishListener.onPublishFailed(serviceEvents, error);
+                        }
+                    } catch (Exception e) {
+                        LOGGER.warn("Error notifying publish outcome of {} events to address {}: {}", serviceEvents.size(), address, e.getMessage(), e);
+                    }
+                });
+            }
+
+            private void closeSession() {
+                if (jmsSession != null) {
+                    try {
+                        jmsSession.close();
+                    } catch (JMSException e) {
+                        LOGGER.warn("Cannot close the BatchPublisher session!", e);
+                    } finally {
+                        jmsSession = null;
+                        jmsProducer = null;
+                    }
+                }
+            }
+
+            public void stop() {
+                active = false;
+                publisherThread.interrupt();
+            }
+        }
+
         private class PooledSenderFactory extends BasePooledObjectFactory<Sender> {
 
             private String address;
@@ -459,16 +665,79 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
         }
     }
 
+    private class PendingServiceEvent {
+
+        ServiceEvent serviceEvent;
+        ServiceEventPublishListener publishListener;
+
+        public PendingServiceEvent(ServiceEvent serviceEvent, ServiceEventPublishListener publishListener) {
+            this.serviceEvent = serviceEvent;
+            this.publishListener = publishListener;
+        }
+
+        public ServiceEvent getServiceEvent() {
+            return serviceEvent;
+        }
+
+        public ServiceEventPublishListener getPublishListener() {
+            return publishListener;
+        }
+
+    }
+
+    /**
+     * Subscription to an address.<br>
+     * Events are consumed by a pool of sessions sized as the consumer pool of the subscription.
+     * Since every event is published with the {@link #JMSX_GROUP_ID} of its entity (see {@link #getGroupId(ServiceEvent)}),
+     * the broker delivers the events of the same entity to a single session, which processes them one at a time in the order they are published,
+     * while events of different entities are processed in parallel by the other sessions.
+     */
     private class Subscription {
 
         String name;
         String address;
         ServiceEventBusListener kapuaEventListener;
+        int consumerPoolSize;
+        Histogram lag;
 
         public Subscription(String address, String name, ServiceEventBusListener kapuaEventListener) {
             this.name = name;
             this.address = address;
             this.kapuaEventListener = kapuaEventListener;
+
+            Integer subscriptionConsumerPoolSize = SUBSCRIPTION_CONSUMER_POOL_SIZES.get(name);
+            consumerPoolSize = subscriptionConsumerPoolSize != null && subscriptionConsumerPoolSize > 0 ? subscriptionConsumerPoolSize : CONSUMER_POOL_SIZE;
+
+            lag = MetricServiceFactory.getInstance().getHistogram("event_bus", "subscription", name, "lag", "ms");
+        }
+
+        /**
+         * Process the event in the calling session thread.
+         *
+         * @param kapuaEvent
+         * @throws Exception if the listener fails to process the event
+         */
+        public void process(ServiceEvent kapuaEvent) throws Exception {
+            try {
+                setSession(kapuaEvent);
+                KapuaSecurityUtils.doPrivileged(() -> {
+                    try {
+                        // restore event context
+                        ServiceEventScope.set(kapuaEvent);
+                        kapuaEventListener.onKapuaEvent(kapuaEvent);
+                    } finally {
+                        ServiceEventScope.end();
+                    }
+                });
+            } finally {
+                if (kapuaEvent.getTimestamp() != null) {
+                    lag.update(System.currentTimeMillis() - kapuaEvent.getTimestamp().getTime());
+                }
+            }
+        }
+
+        public int getConsumerPoolSize() {
+            return consumerPoolSize;
         }
 
         public String getName() {
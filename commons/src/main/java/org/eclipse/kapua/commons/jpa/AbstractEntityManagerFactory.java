@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -43,6 +43,20 @@ public abstract class AbstractEntityManagerFactory implements org.eclipse.kapua.
      * @param uniqueConstraints
      */
     protected AbstractEntityManagerFactory(String persistenceUnitName, String datasourceName, Map<String, String> uniqueConstraints) {
+        this(persistenceUnitName, datasourceName, uniqueConstraints, false);
+    }
+
+    /**
+     * Protected constructor
+     *
+     * @param persistenceUnitName
+     * @param datasourceName
+     * @param uniqueConstraints
+     * @param jdbcBatchWriting    whether the statements flushed together are grouped in JDBC batches of {@link SystemSettingKey#DB_JDBC_BATCH_WRITING_SIZE} statements.
+     *                            Meant for the persistence units whose services create many entities at once (see {@link org.eclipse.kapua.commons.service.internal.ServiceDAO#createAll(javax.persistence.EntityManager, java.util.List)}).
+     * @since 1.3.0
+     */
+    protected AbstractEntityManagerFactory(String persistenceUnitName, String datasourceName, Map<String, String> uniqueConstraints, boolean jdbcBatchWriting) {
         SystemSetting config = SystemSetting.getInstance();
 
         //
@@ -64,6 +78,12 @@ public abstract class AbstractEntityManagerFactory implements org.eclipse.kapua.
             configOverrides.put("eclipselink.connection-pool.default.max", config.getString(SystemSettingKey.DB_POOL_SIZE_MAX));
             configOverrides.put("eclipselink.connection-pool.default.wait", config.getString(SystemSettingKey.DB_POOL_BORROW_TIMEOUT));
 
+            int batchWritingSize = config.getInt(SystemSettingKey.DB_JDBC_BATCH_WRITING_SIZE, 0);
+            if (jdbcBatchWriting && batchWritingSize > 0) {
+                configOverrides.put("eclipselink.jdbc.batch-writing", "JDBC");
+                configOverrides.put("eclipselink.jdbc.batch-writing.size", Integer.toString(batchWritingSize));
+            }
+
             configOverrides.put("eclipselink.logging.level", "FINE");
             configOverrides.put("eclipselink.logging.parameters", "true");
 
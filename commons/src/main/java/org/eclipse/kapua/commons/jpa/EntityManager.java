@@ -22,7 +22,9 @@ import javax.persistence.LockModeType;
 import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
 import java.io.Serializable;
 
 /**
@@ -255,6 +257,28 @@ public class EntityManager {
         return javaxPersitenceEntityManager.createQuery(criteriaSelectQuery);
     }
 
+    /**
+     * Return the update query based on the criteria
+     *
+     * @param criteriaUpdateQuery
+     * @return
+     * @since 1.3.0
+     */
+    public <E> Query createQuery(CriteriaUpdate<E> criteriaUpdateQuery) {
+        return javaxPersitenceEntityManager.createQuery(criteriaUpdateQuery);
+    }
+
+    /**
+     * Return the delete query based on the criteria
+     *
+     * @param criteriaDeleteQuery
+     * @return
+     * @since 1.3.0
+     */
+    public <E> Query createQuery(CriteriaDelete<E> criteriaDeleteQuery) {
+        return javaxPersitenceEntityManager.createQuery(criteriaDeleteQuery);
+    }
+
     /**
      * Return the typed query based on the query name
      *
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.metric;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.SlidingTimeWindowReservoir;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.codahale.metrics.UniformReservoir;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.kapua.commons.setting.system.SystemSetting;
+import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Builds the {@link Reservoir} of the histograms and timers created by the {@link MetricsServiceImpl}, as configured by {@link SystemSettingKey#METRICS_RESERVOIR_TYPE}.
+ *
+ * @since 1.3.0
+ */
+class MetricReservoirFactory {
+
+    /**
+     * The {@link Reservoir} types provided by Dropwizard metrics.
+     *
+     * @since 1.3.0
+     */
+    enum ReservoirType {
+        EXPONENTIALLY_DECAYING,
+        UNIFORM,
+        SLIDING_WINDOW,
+        SLIDING_TIME_WINDOW
+    }
+
+    private static final int DEFAULT_RESERVOIR_SIZE = 1028;
+    private static final long DEFAULT_RESERVOIR_WINDOW = 60;
+
+    private MetricReservoirFactory() {
+    }
+
+    /**
+     * Gets the {@link Reservoir} {@link Supplier} configured in the {@link SystemSetting}s.
+     *
+     * @return The configured {@link Reservoir} {@link Supplier} or {@code null} if the Dropwizard default should be used.
+     * @throws IllegalArgumentException if the configured {@link Reservoir} cannot be instantiated.
+     * @since 1.3.0
+     */
+    static Supplier<Reservoir> getConfiguredReservoirSupplier() {
+        SystemSetting systemSetting = SystemSetting.getInstance();
+        return getReservoirSupplier(
+                systemSetting.getString(SystemSettingKey.METRICS_RESERVOIR_TYPE, null),
+                systemSetting.getInt(SystemSettingKey.METRICS_RESERVOIR_SIZE, DEFAULT_RESERVOIR_SIZE),
+                systemSetting.getLong(SystemSettingKey.METRICS_RESERVOIR_WINDOW, DEFAULT_RESERVOIR_WINDOW));
+    }
+
+    /**
+     * Gets the {@link Reservoir} {@link Supplier} for the given type.
+     *
+     * @param reservoirType One of the {@link ReservoirType}s or the fully qualified name of a {@link Reservoir} implementation with a public no-args constructor.
+     * @param size          The size of the {@link ReservoirType#UNIFORM} and {@link ReservoirType#SLIDING_WINDOW} reservoirs.
+     * @param window        The window in seconds of the {@link ReservoirType#SLIDING_TIME_WINDOW} reservoir.
+     * @return The {@link Reservoir} {@link Supplier} or {@code null} if the type is blank.
+     * @throws IllegalArgumentException if the {@link Reservoir} cannot be instantiated.
+     * @since 1.3.0
+     */
+    static Supplier<Reservoir> getReservoirSupplier(String reservoirType, int size, long window) {
+        if (StringUtils.isBlank(reservoirType)) {
+            return null;
+        }
+
+        for (ReservoirType type : ReservoirType.values()) {
+            if (type.name().equalsIgnoreCase(reservoirType.trim())) {
+                switch (type) {
+                case UNIFORM:
+                    return () -> new UniformReservoir(size);
+                case SLIDING_WINDOW:
+                    return () -> new SlidingWindowReservoir(size);
+                case SLIDING_TIME_WINDOW:
+                    return () -> new SlidingTimeWindowReservoir(window, TimeUnit.SECONDS);
+                case EXPONENTIALLY_DECAYING:
+                default:
+                    return ExponentiallyDecayingReservoir::new;
+                }
+            }
+        }
+
+        // Custom implementation (i.e. an HdrHistogram backed reservoir available in the classpath)
+        Class<? extends Reservoir> reservoirClass;
+        try {
+            reservoirClass = Class.forName(reservoirType.trim()).asSubclass(Reservoir.class);
+            reservoirClass.newInstance();
+        } catch (ClassNotFoundException | ClassCastException | InstantiationException | IllegalAccessException e) {
+            throw new IllegalArgumentException(String.format("Cannot instantiate the metric reservoir '%s'", reservoirType), e);
+        }
+
+        return () -> {
+            try {
+                return reservoirClass.newInstance();
+            } catch (InstantiationException | IllegalAccessException e) {
+                throw new IllegalArgumentException(String.format("Cannot instantiate the metric reservoir '%s'", reservoirClass.getName()), e);
+            }
+        };
+    }
+}
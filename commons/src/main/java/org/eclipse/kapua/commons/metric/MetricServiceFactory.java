@@ -18,7 +18,7 @@ package org.eclipse.kapua.commons.metric;
  */
 public class MetricServiceFactory {
 
-    private static MetricsService instance;
+    private static volatile MetricsService instance;
 
     private MetricServiceFactory() {
 
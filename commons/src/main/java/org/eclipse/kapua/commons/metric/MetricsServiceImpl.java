@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -16,7 +16,9 @@ import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.JmxReporter.Builder;
+import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Reservoir;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.codahale.metrics.Timer;
 import org.eclipse.kapua.KapuaException;
@@ -26,11 +28,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Metric report exporter handler.
- * It provides methods for register/unregister metrics in the context
+ * It provides methods for register/unregister metrics in the context.<br>
+ * Counters, histograms and timers are cached by their name parts, so that the lookups done in the hot paths don't build the metric name nor scan the {@link MetricRegistry}.
  *
  * @since 1.0
  */
@@ -44,6 +52,12 @@ public class MetricsServiceImpl implements MetricsService {
 
     private JmxReporter jmxReporter;
 
+    private final Supplier<Reservoir> reservoirSupplier;
+
+    private final Map<MetricKey, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<MetricKey, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<MetricKey, Timer> timers = new ConcurrentHashMap<>();
+
     /**
      * Default metric service constructor
      */
@@ -56,6 +70,8 @@ public class MetricsServiceImpl implements MetricsService {
             logger.warn("Unable to load Default Metric Registry - creating a new one");
         }
 
+        reservoirSupplier = MetricReservoirFactory.getConfiguredReservoirSupplier();
+
         if (isJmxEnabled()) {
             enableJmxSupport();
         }
@@ -81,33 +97,43 @@ public class MetricsServiceImpl implements MetricsService {
 
     @Override
     public Counter getCounter(String module, String component, String... names) {
-        String name = getMetricName(module, component, names);
-        Counter counter = metricRegistry.getCounters().get(name);
+        MetricKey metricKey = new MetricKey(module, component, names);
+        Counter counter = counters.get(metricKey);
         if (counter == null) {
-            logger.debug("Creating a Counter: {}", name);
-            counter = metricRegistry.counter(name);
+            counter = counters.computeIfAbsent(metricKey.copy(), key -> {
+                logger.debug("Creating a Counter: {}", key.getName());
+                return metricRegistry.counter(key.getName());
+            });
         }
         return counter;
     }
 
     @Override
     public Histogram getHistogram(String module, String component, String... names) {
-        String name = getMetricName(module, component, names);
-        Histogram histogram = metricRegistry.getHistograms().get(name);
+        MetricKey metricKey = new MetricKey(module, component, names);
+        Histogram histogram = histograms.get(metricKey);
         if (histogram == null) {
-            logger.debug("Creating a Histogram: {}", name);
-            histogram = metricRegistry.histogram(name);
+            histogram = histograms.computeIfAbsent(metricKey.copy(), key -> {
+                logger.debug("Creating a Histogram: {}", key.getName());
+                return reservoirSupplier == null ?
+                        metricRegistry.histogram(key.getName()) :
+                        getOrRegister(key.getName(), Histogram.class, () -> new Histogram(reservoirSupplier.get()));
+            });
         }
         return histogram;
     }
 
     @Override
     public Timer getTimer(String module, String component, String... names) {
-        String name = getMetricName(module, component, names);
-        Timer timer = metricRegistry.getTimers().get(name);
+        MetricKey metricKey = new MetricKey(module, component, names);
+        Timer timer = timers.get(metricKey);
         if (timer == null) {
-            logger.debug("Creating a Timer: {}", name);
-            timer = metricRegistry.timer(name);
+            timer = timers.computeIfAbsent(metricKey.copy(), key -> {
+                logger.debug("Creating a Timer: {}", key.getName());
+                return reservoirSupplier == null ?
+                        metricRegistry.timer(key.getName()) :
+                        getOrRegister(key.getName(), Timer.class, () -> new Timer(reservoirSupplier.get()));
+            });
         }
         return timer;
     }
@@ -115,7 +141,7 @@ public class MetricsServiceImpl implements MetricsService {
     @Override
     public void registerGauge(Gauge<?> gauge, String module, String component, String... names) throws KapuaException {
         String name = getMetricName(module, component, names);
-        if (metricRegistry.getGauges().get(name) != null) {
+        if (metricRegistry.getMetrics().get(name) instanceof Gauge) {
             throw KapuaException.internalError(MessageFormat.format("A metric with the name {0} is already defined!", name));
         } else {
             metricRegistry.register(name, gauge);
@@ -123,25 +149,40 @@ public class MetricsServiceImpl implements MetricsService {
     }
 
     /**
-     * Build the metric name based on module, component and metric names
+     * Registers the metric built by the given {@link Supplier} or returns the one already registered with the same name.
      *
-     * @param module
-     * @param component
-     * @param metricsName
+     * @param name
+     * @param metricClass
+     * @param metricSupplier
      * @return
+     * @throws IllegalArgumentException if a metric of a different type is already registered with the same name
      */
-    private String getMetricName(String module, String component, String... metricsName) {
-        return MessageFormat.format(METRICS_NAME_FORMAT, module, component, convertToDotNotation(metricsName));
+    private <M extends Metric> M getOrRegister(String name, Class<M> metricClass, Supplier<M> metricSupplier) {
+        Metric metric = metricRegistry.getMetrics().get(name);
+        if (metric == null) {
+            try {
+                return metricRegistry.register(name, metricSupplier.get());
+            } catch (IllegalArgumentException e) {
+                // Registered concurrently by someone else
+                metric = metricRegistry.getMetrics().get(name);
+            }
+        }
+        if (!metricClass.isInstance(metric)) {
+            throw new IllegalArgumentException(MessageFormat.format("A metric with the name {0} is already defined with a different type!", name));
+        }
+        return metricClass.cast(metric);
     }
 
     /**
-     * Convert the metric names to a concatenated dot separated string
+     * Build the metric name based on module, component and metric names
      *
+     * @param module
+     * @param component
      * @param metricsName
      * @return
      */
-    private String convertToDotNotation(String... metricsName) {
-        StringBuilder builder = new StringBuilder();
+    private static String getMetricName(String module, String component, String... metricsName) {
+        StringBuilder builder = new StringBuilder(module).append('.').append(component).append('.');
         boolean firstMetricName = true;
         for (String s : metricsName) {
             if (!firstMetricName) {
@@ -165,4 +206,54 @@ public class MetricsServiceImpl implements MetricsService {
         return SystemSetting.getInstance().getBoolean(SystemSettingKey.METRICS_ENABLE_JMX, false);
     }
 
+    /**
+     * Lookup key of the cached metrics, made of the metric name parts.
+     * It avoids building the metric name on each lookup.
+     */
+    private static class MetricKey {
+
+        private final String module;
+        private final String component;
+        private final String[] names;
+        private final int hashCode;
+
+        private MetricKey(String module, String component, String[] names) {
+            this.module = module;
+            this.component = component;
+            this.names = names;
+            this.hashCode = 31 * (31 * Objects.hashCode(module) + Objects.hashCode(component)) + Arrays.hashCode(names);
+        }
+
+        /**
+         * Copies this key, so that it is not affected by changes to the names array provided by the caller.
+         */
+        private MetricKey copy() {
+            return new MetricKey(module, component, names.clone());
+        }
+
+        private String getName() {
+            return getMetricName(module, component, names);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MetricKey)) {
+                return false;
+            }
+            MetricKey other = (MetricKey) obj;
+            return hashCode == other.hashCode &&
+                    Objects.equals(module, other.module) &&
+                    Objects.equals(component, other.component) &&
+                    Arrays.equals(names, other.names);
+        }
+    }
+
 }
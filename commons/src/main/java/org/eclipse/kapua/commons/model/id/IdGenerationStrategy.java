@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.model.id;
+
+import java.math.BigInteger;
+
+/**
+ * Strategy used by the {@link IdGenerator} to generate the {@link BigInteger} values of the {@link KapuaEid}s.
+ * <p>
+ * Implementations must be thread safe.
+ *
+ * @since 1.3.0
+ */
+public interface IdGenerationStrategy {
+
+    /**
+     * Generates a new identifier value.
+     *
+     * @return The generated identifier value, a non negative {@link BigInteger}.
+     * @since 1.3.0
+     */
+    BigInteger generate();
+}
@@ -11,34 +11,98 @@
  *******************************************************************************/
 package org.eclipse.kapua.commons.model.id;
 
+import org.apache.commons.lang3.StringUtils;
 import org.eclipse.kapua.commons.setting.system.SystemSetting;
 import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
 import org.eclipse.kapua.commons.util.RandomUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
-import java.util.Random;
 
 /**
- * Generates random identifier
+ * Generates identifiers with the {@link IdGenerationStrategy} configured by {@link SystemSettingKey#KAPUA_KEY_GENERATOR}.
  *
  * @since 1.0.0
  */
 public class IdGenerator {
 
-    private static final Random RANDOM = RandomUtils.getInstance();
+    private static final Logger LOG = LoggerFactory.getLogger(IdGenerator.class);
+
+    /**
+     * The available {@link IdGenerationStrategy}s.
+     *
+     * @since 1.3.0
+     */
+    public enum GenerationType {
+        /**
+         * @see RandomIdGenerationStrategy
+         */
+        RANDOM,
+
+        /**
+         * @see TimeOrderedIdGenerationStrategy
+         */
+        TIME_ORDERED
+    }
+
+    /**
+     * Number of bits of the node id of the {@link TimeOrderedIdGenerationStrategy}.
+     *
+     * @since 1.3.0
+     */
+    public static final int NODE_ID_BITS = 10;
+
+    /**
+     * Number of bits of the sequence of the {@link TimeOrderedIdGenerationStrategy}.
+     *
+     * @since 1.3.0
+     */
+    public static final int SEQUENCE_BITS = 12;
+
     private static final int ID_SIZE = SystemSetting.getInstance().getInt(SystemSettingKey.KAPUA_KEY_SIZE);
+    private static final IdGenerationStrategy STRATEGY = buildStrategy(SystemSetting.getInstance().getString(SystemSettingKey.KAPUA_KEY_GENERATOR, GenerationType.RANDOM.name()));
 
     private IdGenerator() {
     }
 
     /**
-     * Generate a {@link BigInteger} random value.<br>
-     * For more detail refer to: {@link SystemSettingKey#KAPUA_KEY_SIZE}
+     * Generate a {@link BigInteger} value with the configured {@link IdGenerationStrategy}.<br>
+     * For more detail refer to: {@link SystemSettingKey#KAPUA_KEY_SIZE} and {@link SystemSettingKey#KAPUA_KEY_GENERATOR}
      *
      * @return
      */
     public static BigInteger generate() {
-        return new BigInteger(ID_SIZE, RANDOM);
+        return STRATEGY.generate();
     }
 
+    /**
+     * Builds the {@link IdGenerationStrategy} for the given type.
+     *
+     * @param generationType One of the {@link GenerationType}s or the fully qualified name of an {@link IdGenerationStrategy} implementation with a public no-args constructor.
+     * @return The {@link IdGenerationStrategy}.
+     * @throws IllegalArgumentException if the {@link IdGenerationStrategy} cannot be instantiated.
+     * @since 1.3.0
+     */
+    static IdGenerationStrategy buildStrategy(String generationType) {
+        if (StringUtils.isBlank(generationType) || GenerationType.RANDOM.name().equalsIgnoreCase(generationType.trim())) {
+            return new RandomIdGenerationStrategy(ID_SIZE);
+        }
+
+        if (GenerationType.TIME_ORDERED.name().equalsIgnoreCase(generationType.trim())) {
+            long nodeId = SystemSetting.getInstance().getLong(SystemSettingKey.KAPUA_KEY_GENERATOR_NODE_ID, -1L);
+            if (nodeId < 0) {
+                // Clashes between nodes with the same random node id are recovered by the insert retry (see SystemSettingKey.KAPUA_INSERT_MAX_RETRY)
+                nodeId = RandomUtils.getInstance().nextInt(1 << NODE_ID_BITS);
+                LOG.info("No node id configured for the time ordered id generation. Using random node id: {}", nodeId);
+            }
+            return new TimeOrderedIdGenerationStrategy(ID_SIZE, NODE_ID_BITS, SEQUENCE_BITS, nodeId);
+        }
+
+        try {
+            return Class.forName(generationType.trim()).asSubclass(IdGenerationStrategy.class).newInstance();
+        } catch (ClassNotFoundException | ClassCastException | InstantiationException | IllegalAccessException e) {
+            throw new IllegalArgumentException(String.format("Cannot instantiate the id generation strategy '%s'", generationType), e);
+        }
+    }
 }
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.model.id;
+
+import org.eclipse.kapua.commons.util.RandomUtils;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * {@link IdGenerationStrategy} that generates uniformly distributed random identifiers.
+ *
+ * @since 1.3.0
+ */
+public class RandomIdGenerationStrategy implements IdGenerationStrategy {
+
+    private static final Random RANDOM = RandomUtils.getInstance();
+
+    private final int idSize;
+
+    /**
+     * Constructor.
+     *
+     * @param idSize The size in bits of the generated identifiers.
+     * @since 1.3.0
+     */
+    public RandomIdGenerationStrategy(int idSize) {
+        this.idSize = idSize;
+    }
+
+    @Override
+    public BigInteger generate() {
+        return new BigInteger(idSize, RANDOM);
+    }
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.model.id;
+
+import java.math.BigInteger;
+
+/**
+ * {@link IdGenerationStrategy} that generates time ordered identifiers.
+ * <p>
+ * Identifiers are composed, from the most significant bit, by:
+ * <ul>
+ * <li>the milliseconds elapsed since the {@link #EPOCH}, which takes all the bits not used by the node id and the sequence</li>
+ * <li>the node id, which distinguishes the identifiers generated by different nodes</li>
+ * <li>a sequence, which distinguishes the identifiers generated in the same millisecond by the same node</li>
+ * </ul>
+ * With the default 63 bits key size, 10 bits node id and 12 bits sequence the timestamp takes 41 bits, which lasts about 69 years.
+ * <p>
+ * Since identifiers grow with time new rows are appended at the end of the primary key index instead of being scattered across all of it.
+ * Identifiers generated by the same instance are strictly increasing, even if the system clock moves backwards.
+ *
+ * @since 1.3.0
+ */
+public class TimeOrderedIdGenerationStrategy implements IdGenerationStrategy {
+
+    /**
+     * Start of the timestamp part of the identifiers (2020-01-01T00:00:00Z).
+     *
+     * @since 1.3.0
+     */
+    public static final long EPOCH = 1577836800000L;
+
+    /**
+     * Minimum number of bits of the timestamp part of the identifiers.
+     *
+     * @since 1.3.0
+     */
+    public static final int MIN_TIMESTAMP_BITS = 41;
+
+    private final int nodeIdBits;
+    private final int sequenceBits;
+    private final long nodeId;
+    private final long maxSequence;
+
+    private long lastTimestamp = -1;
+    private long sequence;
+
+    /**
+     * Constructor.
+     *
+     * @param idSize       The size in bits of the generated identifiers.
+     * @param nodeIdBits   The number of bits of the node id part.
+     * @param sequenceBits The number of bits of the sequence part.
+     * @param nodeId       The node id. Must be lower than 2<sup>nodeIdBits</sup>.
+     * @throws IllegalArgumentException if the given values leave less than {@link #MIN_TIMESTAMP_BITS} to the timestamp or if the node id does not fit.
+     * @since 1.3.0
+     */
+    public TimeOrderedIdGenerationStrategy(int idSize, int nodeIdBits, int sequenceBits, long nodeId) {
+        if (nodeIdBits < 0 || nodeIdBits > 31 || sequenceBits < 1 || sequenceBits > 31) {
+            throw new IllegalArgumentException(String.format("Invalid node id bits %d or sequence bits %d", nodeIdBits, sequenceBits));
+        }
+        if (idSize - nodeIdBits - sequenceBits < MIN_TIMESTAMP_BITS) {
+            throw new IllegalArgumentException(String.format("Key size %d is too small for %d node id bits and %d sequence bits", idSize, nodeIdBits, sequenceBits));
+        }
+        if (nodeId < 0 || nodeId >= 1L << nodeIdBits) {
+            throw new IllegalArgumentException(String.format("Node id %d does not fit into %d bits", nodeId, nodeIdBits));
+        }
+
+        this.nodeIdBits = nodeIdBits;
+        this.sequenceBits = sequenceBits;
+        this.nodeId = nodeId;
+        this.maxSequence = (1L << sequenceBits) - 1;
+    }
+
+    @Override
+    public BigInteger generate() {
+        long timestamp;
+        long currentSequence;
+        synchronized (this) {
+            timestamp = Math.max(System.currentTimeMillis() - EPOCH, lastTimestamp);
+            if (timestamp == lastTimestamp) {
+                sequence = (sequence + 1) & maxSequence;
+                if (sequence == 0) {
+                    // Sequence exhausted for this millisecond: borrow the next one
+                    timestamp++;
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = timestamp;
+            currentSequence = sequence;
+        }
+
+        long nodeAndSequence = (nodeId << sequenceBits) | currentSequence;
+        return BigInteger.valueOf(timestamp).shiftLeft(nodeIdBits + sequenceBits).or(BigInteger.valueOf(nodeAndSequence));
+    }
+
+    /**
+     * Gets the node id part of this {@link TimeOrderedIdGenerationStrategy}.
+     *
+     * @return The node id part of this {@link TimeOrderedIdGenerationStrategy}.
+     * @since 1.3.0
+     */
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Extracts the generation time of an identifier generated with the given layout.
+     *
+     * @param id           The identifier.
+     * @param nodeIdBits   The number of bits of the node id part.
+     * @param sequenceBits The number of bits of the sequence part.
+     * @return The generation time in milliseconds since the Unix epoch.
+     * @since 1.3.0
+     */
+    public static long getTimestamp(BigInteger id, int nodeIdBits, int sequenceBits) {
+        return id.shiftRight(nodeIdBits + sequenceBits).longValue() + EPOCH;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -15,13 +15,31 @@ import org.eclipse.kapua.KapuaEntityNotFoundException;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.commons.jpa.EntityManager;
 import org.eclipse.kapua.commons.service.event.store.api.EventStoreRecord;
+import org.eclipse.kapua.commons.service.event.store.api.EventStoreRecordAttributes;
 import org.eclipse.kapua.commons.service.event.store.api.EventStoreRecordListResult;
 import org.eclipse.kapua.commons.service.internal.ServiceDAO;
 import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.event.ServiceEvent.EventStatus;
 import org.eclipse.kapua.model.query.KapuaQuery;
 
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
 public class EventStoreDAO {
 
+    private static final String EID = "eid";
+
     private EventStoreDAO() {
     }
 
@@ -54,6 +72,109 @@ public class EventStoreDAO {
         return ServiceDAO.update(em, EventStoreRecordImpl.class, kapuaEventImpl);
     }
 
+    /**
+     * Updates the status of all the events matching the provided event identifiers with a single statement.<br>
+     * The optimistic lock version of the updated events is incremented.
+     *
+     * @param em
+     * @param eventIds
+     * @param eventStatus
+     * @return the number of updated events
+     * @since 1.3.0
+     */
+    public static int updateStatus(EntityManager em, Collection<KapuaId> eventIds, EventStatus eventStatus) {
+        if (eventIds.isEmpty()) {
+            return 0;
+        }
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaUpdate<EventStoreRecordImpl> criteriaUpdate = cb.createCriteriaUpdate(EventStoreRecordImpl.class);
+        Root<EventStoreRecordImpl> entityRoot = criteriaUpdate.from(EventStoreRecordImpl.class);
+
+        Collection<BigInteger> eids = eventIds.stream().map(KapuaId::getId).collect(Collectors.toList());
+
+        criteriaUpdate.set(entityRoot.get(EventStoreRecordAttributes.EVENT_STATUS), eventStatus);
+        criteriaUpdate.set(entityRoot.get(EventStoreRecordAttributes.MODIFIED_ON), new Date());
+        criteriaUpdate.set(entityRoot.<Integer>get(EventStoreRecordAttributes.OPTLOCK), cb.sum(entityRoot.<Integer>get(EventStoreRecordAttributes.OPTLOCK), 1));
+        criteriaUpdate.where(entityRoot.get(EventStoreRecordAttributes.ENTITY_ID).get(EID).in(eids));
+
+        return em.createQuery(criteriaUpdate).executeUpdate();
+    }
+
+    /**
+     * Returns the events of the given service in the given status, ordered by event identifier.<br>
+     * The scan is keyset based: only the events with an identifier greater than the provided one are returned, so that
+     * the next window can be fetched passing the identifier of the last event of the previous window.
+     *
+     * @param em
+     * @param serviceName
+     * @param eventStatus
+     * @param modifiedBefore if not {@code null} only the events last modified on or before this date are returned
+     * @param afterEventId   if not {@code null} only the events with an identifier greater than this one are returned
+     * @param maxResults
+     * @return
+     * @since 1.3.0
+     */
+    public static List<EventStoreRecord> scan(EntityManager em, String serviceName, EventStatus eventStatus, Date modifiedBefore, KapuaId afterEventId, int maxResults) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<EventStoreRecordImpl> criteriaSelectQuery = cb.createQuery(EventStoreRecordImpl.class);
+        Root<EventStoreRecordImpl> entityRoot = criteriaSelectQuery.from(EventStoreRecordImpl.class);
+        Path<BigInteger> eidPath = entityRoot.get(EventStoreRecordAttributes.ENTITY_ID).<BigInteger>get(EID);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(entityRoot.get(EventStoreRecordAttributes.SERVICE_NAME), serviceName));
+        predicates.add(cb.equal(entityRoot.get(EventStoreRecordAttributes.EVENT_STATUS), eventStatus));
+        if (modifiedBefore != null) {
+            predicates.add(cb.lessThanOrEqualTo(entityRoot.<Date>get(EventStoreRecordAttributes.MODIFIED_ON), modifiedBefore));
+        }
+        if (afterEventId != null) {
+            predicates.add(cb.greaterThan(eidPath, afterEventId.getId()));
+        }
+
+        criteriaSelectQuery.select(entityRoot)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(eidPath));
+
+        return new ArrayList<>(em.createQuery(criteriaSelectQuery).setMaxResults(maxResults).getResultList());
+    }
+
+    /**
+     * Deletes up to {@code maxResults} events of the given service in the given status last modified before the given date.<br>
+     * The events are selected by identifier first, so that each call deletes a bounded number of rows.
+     *
+     * @param em
+     * @param serviceName
+     * @param eventStatus
+     * @param modifiedBefore
+     * @param maxResults
+     * @return the number of deleted events
+     * @since 1.3.0
+     */
+    public static int deleteBefore(EntityManager em, String serviceName, EventStatus eventStatus, Date modifiedBefore, int maxResults) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<BigInteger> criteriaSelectQuery = cb.createQuery(BigInteger.class);
+        Root<EventStoreRecordImpl> entityRoot = criteriaSelectQuery.from(EventStoreRecordImpl.class);
+        Path<BigInteger> eidPath = entityRoot.get(EventStoreRecordAttributes.ENTITY_ID).<BigInteger>get(EID);
+
+        criteriaSelectQuery.select(eidPath)
+                .where(
+                        cb.equal(entityRoot.get(EventStoreRecordAttributes.SERVICE_NAME), serviceName),
+                        cb.equal(entityRoot.get(EventStoreRecordAttributes.EVENT_STATUS), eventStatus),
+                        cb.lessThan(entityRoot.<Date>get(EventStoreRecordAttributes.MODIFIED_ON), modifiedBefore))
+                .orderBy(cb.asc(eidPath));
+
+        List<BigInteger> eids = em.createQuery(criteriaSelectQuery).setMaxResults(maxResults).getResultList();
+        if (eids.isEmpty()) {
+            return 0;
+        }
+
+        CriteriaDelete<EventStoreRecordImpl> criteriaDelete = cb.createCriteriaDelete(EventStoreRecordImpl.class);
+        Root<EventStoreRecordImpl> deleteRoot = criteriaDelete.from(EventStoreRecordImpl.class);
+        criteriaDelete.where(deleteRoot.get(EventStoreRecordAttributes.ENTITY_ID).get(EID).in(eids));
+
+        return em.createQuery(criteriaDelete).executeUpdate();
+    }
+
     /**
      * Finds the event by event identifier
      *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Eurotech and/or its affiliates and others
+ * Copyright (c) 2016, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -16,6 +16,7 @@ import org.eclipse.kapua.KapuaEntityExistsException;
 import org.eclipse.kapua.KapuaEntityNotFoundException;
 import org.eclipse.kapua.KapuaErrorCodes;
 import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.KapuaRuntimeException;
 import org.eclipse.kapua.commons.jpa.EntityManager;
 import org.eclipse.kapua.commons.model.AbstractKapuaUpdatableEntity;
 import org.eclipse.kapua.commons.model.id.KapuaEid;
@@ -76,11 +77,16 @@ import javax.persistence.criteria.Root;
 import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.EntityType;
 import javax.validation.constraints.NotNull;
+import java.math.BigInteger;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * {@link ServiceDAO} utility methods.
@@ -113,6 +119,8 @@ public class ServiceDAO {
 
     private static final String COMPARE_ERROR_MESSAGE = "Trying to compare a non-comparable value";
 
+    private static final String KAPUA_EID_ATTRIBUTE = "eid";
+
     static {
         KapuaLocator locator = null;
         try {
@@ -176,6 +184,40 @@ public class ServiceDAO {
         return entity;
     }
 
+    /**
+     * Create all {@link KapuaEntity}es utility method.<br>
+     * All the {@link KapuaEntity}es are persisted and flushed together, so that the inserts are grouped in JDBC batches of {@link SystemSettingKey#DB_JDBC_BATCH_WRITING_SIZE} statements by the persistence units enabling JDBC batch writing.<br>
+     * Differently from {@link #create(EntityManager, KapuaEntity)} the {@link KapuaEntity}es are not refreshed after the insert.
+     * <p>
+     * This method checks for the constraint violation and, in this case, it throws a specific exception ({@link KapuaEntityExistsException}).
+     *
+     * @param em       The {@link EntityManager} that holds the transaction.
+     * @param entities The {@link KapuaEntity}es to be created.
+     * @return The persisted {@link KapuaEntity}es.
+     * @since 1.3.0
+     */
+    public static <E extends KapuaEntity> List<E> createAll(@NotNull EntityManager em, @NotNull List<E> entities) {
+        try {
+            for (E entity : entities) {
+                em.persist(entity);
+            }
+            em.flush();
+        } catch (EntityExistsException e) {
+            throw new KapuaEntityExistsException(e, entities.isEmpty() ? null : entities.get(0).getId());
+        } catch (PersistenceException e) {
+            if (isInsertConstraintViolation(e)) {
+                for (E entity : entities) {
+                    if (em.find(entity.getClass(), entity.getId()) != null) {
+                        throw new KapuaEntityExistsException(e, entity.getId());
+                    }
+                }
+            }
+            throw e;
+        }
+
+        return entities;
+    }
+
     /**
      * Find {@link KapuaEntity} utility method
      *
@@ -358,6 +400,9 @@ public class ServiceDAO {
 
     /**
      * Query {@link KapuaEntity} utility method.
+     * <p>
+     * All the filter values are bound as parameters, so that queries with the same structure generate the same SQL statement.
+     * Values of {@code IN} predicates are bound as a single collection parameter (see {@link #getInParameterValue(Object[])}).
      *
      * @param em                The {@link EntityManager} that holds the transaction.
      * @param interfaceClass    {@link KapuaQuery} result entity interface class
@@ -374,7 +419,139 @@ public class ServiceDAO {
                                                                                              @NotNull L resultContainer,
                                                                                              @NotNull KapuaQuery<I> kapuaQuery)
             throws KapuaException {
+        // Set limit
+        Integer maxResults = kapuaQuery.getLimit() != null ? kapuaQuery.getLimit() + 1 : null;
+
+        // Finally querying!
+        List<E> result = doQuery(em, implementingClass, kapuaQuery, false, null, kapuaQuery.getOffset(), maxResults);
+
+        // Check limit exceeded
+        if (kapuaQuery.getLimit() != null &&
+                result.size() > kapuaQuery.getLimit()) {
+            result.remove(kapuaQuery.getLimit().intValue());
+            resultContainer.setLimitExceeded(true);
+        }
+
+        if (Boolean.TRUE.equals(kapuaQuery.getAskTotalCount())) {
+            resultContainer.setTotalCount(count(em, interfaceClass, implementingClass, kapuaQuery));
+        }
+
+        // Set results
+        resultContainer.addItems(result);
+        return resultContainer;
+    }
+
+    /**
+     * Keyset query {@link KapuaEntity} utility method.
+     * <p>
+     * Returns the page of {@link KapuaEntity}es that match the {@link KapuaQuery} and come after the given {@link KapuaEntity#getId()}, ordered by {@link KapuaEntity#getId()}.<br>
+     * The next page can be fetched passing the {@link KapuaEntity#getId()} of the last result, which is cheaper than increasing {@link KapuaQuery#getOffset()}
+     * since the database seeks directly to the first result instead of scanning and discarding the previous ones.
+     * <p>
+     * {@link KapuaQuery#getSortCriteria()}, {@link KapuaQuery#getOffset()} and {@link KapuaQuery#getAskTotalCount()} are ignored:
+     * results are always ordered by {@link KapuaEntity#getId()}, which is unique, so pages never skip or repeat {@link KapuaEntity}es
+     * that share the same value of another attribute.
+     *
+     * @param em                The {@link EntityManager} that holds the transaction.
+     * @param interfaceClass    {@link KapuaQuery} result entity interface class
+     * @param implementingClass {@link KapuaQuery} result entity implementation class
+     * @param resultContainer   The {@link KapuaListResult} in which load the result. It must be empty.
+     * @param kapuaQuery        The {@link KapuaQuery} to perform.
+     * @param afterId           The {@link KapuaEntity#getId()} after which to start. If {@code null} the first page is returned.
+     * @return The reference of the {@code resultContainer} parameter. Results are added to the given {@code resultContainer} parameter.
+     * @throws KapuaException If filter predicates in the {@link KapuaQuery} are incorrect.
+     * @since 1.3.0
+     */
+    public static <I extends KapuaEntity, E extends I, L extends KapuaListResult<I>> L queryAfter(@NotNull EntityManager em,
+                                                                                                  @NotNull Class<I> interfaceClass,
+                                                                                                  @NotNull Class<E> implementingClass,
+                                                                                                  @NotNull L resultContainer,
+                                                                                                  @NotNull KapuaQuery<I> kapuaQuery,
+                                                                                                  @Nullable KapuaId afterId)
+            throws KapuaException {
+        Integer maxResults = kapuaQuery.getLimit() != null ? kapuaQuery.getLimit() + 1 : null;
+
+        List<E> result = doQuery(em, implementingClass, kapuaQuery, true, afterId, null, maxResults);
+
+        if (kapuaQuery.getLimit() != null &&
+                result.size() > kapuaQuery.getLimit()) {
+            result.remove(kapuaQuery.getLimit().intValue());
+            resultContainer.setLimitExceeded(true);
+        }
+
+        resultContainer.addItems(result);
+        return resultContainer;
+    }
+
+    /**
+     * Streams the {@link KapuaEntity}es that match the {@link KapuaQuery}, ordered by {@link KapuaEntity#getId()}.
+     * <p>
+     * Results are loaded in pages of {@code pageSize} using {@link #queryAfter(EntityManager, Class, Class, KapuaListResult, KapuaQuery, KapuaId)}.
+     * The entities of a page are detached from the {@link EntityManager} when the next page is loaded, so memory usage does not grow while iterating.
+     * Changes made to the returned entities are not persisted.
+     * <p>
+     * The returned {@link Iterator} must be consumed while the {@link EntityManager} is open.
+     * {@link KapuaQuery#getSortCriteria()}, {@link KapuaQuery#getOffset()}, {@link KapuaQuery#getLimit()} and {@link KapuaQuery#getAskTotalCount()} are ignored.
+     * Errors while loading a page are thrown as {@link KapuaRuntimeException}.
+     *
+     * @param em                The {@link EntityManager} that holds the transaction.
+     * @param interfaceClass    {@link KapuaQuery} result entity interface class
+     * @param implementingClass {@link KapuaQuery} result entity implementation class
+     * @param kapuaQuery        The {@link KapuaQuery} to perform.
+     * @param pageSize          The number of {@link KapuaEntity}es loaded for each page.
+     * @return The {@link Iterator} over the results.
+     * @since 1.3.0
+     */
+    public static <I extends KapuaEntity, E extends I> Iterator<E> iterate(@NotNull EntityManager em,
+                                                                           @NotNull Class<I> interfaceClass,
+                                                                           @NotNull Class<E> implementingClass,
+                                                                           @NotNull KapuaQuery<I> kapuaQuery,
+                                                                           int pageSize) {
+        return new KeysetIterator<>(em, implementingClass, kapuaQuery, pageSize);
+    }
+
+    private static <I extends KapuaEntity, E extends I> List<E> doQuery(@NotNull EntityManager em,
+                                                                        @NotNull Class<E> implementingClass,
+                                                                        @NotNull KapuaQuery<I> kapuaQuery,
+                                                                        boolean keyset,
+                                                                        @Nullable KapuaId afterId,
+                                                                        @Nullable Integer firstResult,
+                                                                        @Nullable Integer maxResults)
+            throws KapuaException {
         CriteriaBuilder cb = em.getCriteriaBuilder();
+        Map<ParameterExpression, Object> binds = new HashMap<>();
+
+        BigInteger afterEid = keyset && afterId != null ? afterId.getId() : null;
+        CriteriaQuery<E> criteriaSelectQuery = buildSelectQuery(cb, implementingClass, kapuaQuery, getScopedPredicate(kapuaQuery), keyset, afterEid, binds);
+
+        //
+        // QUERY!
+        TypedQuery<E> query = em.createQuery(criteriaSelectQuery);
+
+        // Populate query parameters
+        binds.forEach(query::setParameter);
+
+        // Set offset
+        if (firstResult != null) {
+            query.setFirstResult(firstResult);
+        }
+
+        // Set limit
+        if (maxResults != null) {
+            query.setMaxResults(maxResults);
+        }
+
+        return query.getResultList();
+    }
+
+    private static <I extends KapuaEntity, E extends I> CriteriaQuery<E> buildSelectQuery(@NotNull CriteriaBuilder cb,
+                                                                                          @NotNull Class<E> implementingClass,
+                                                                                          @NotNull KapuaQuery<I> kapuaQuery,
+                                                                                          @Nullable QueryPredicate kapuaPredicates,
+                                                                                          boolean keyset,
+                                                                                          @Nullable BigInteger afterEid,
+                                                                                          @NotNull Map<ParameterExpression, Object> binds)
+            throws KapuaException {
         CriteriaQuery<E> criteriaSelectQuery = cb.createQuery(implementingClass);
 
         //
@@ -395,28 +572,21 @@ public class ServiceDAO {
 
         //
         // WHERE
-        QueryPredicate kapuaPredicates = kapuaQuery.getPredicate();
-        if (kapuaQuery.getScopeId() != null) {
-
-            AndPredicate scopedAndPredicate = kapuaQuery.andPredicate(
-                    kapuaQuery.attributePredicate(KapuaEntityAttributes.SCOPE_ID, kapuaQuery.getScopeId())
-            );
-
-            // Add existing query predicates
-            if (kapuaQuery.getPredicate() != null) {
-                scopedAndPredicate.and(kapuaQuery.getPredicate());
-            }
-
-            kapuaPredicates = scopedAndPredicate;
-        }
-
         // Manage kapua query predicates to build the where clause.
-        Map<ParameterExpression, Object> binds = new HashMap<>();
         Expression<Boolean> expr = handleKapuaQueryPredicates(kapuaPredicates,
                 binds,
                 cb,
                 entityRoot,
-                entityRoot.getModel());
+                entityType);
+
+        // Keyset seek predicate
+        if (afterEid != null) {
+            ParameterExpression<BigInteger> pAfter = cb.parameter(BigInteger.class);
+            binds.put(pAfter, afterEid);
+
+            Predicate afterIdPredicate = cb.greaterThan(entityRoot.get(KapuaEntityAttributes.ENTITY_ID).<BigInteger>get(KAPUA_EID_ATTRIBUTE), pAfter);
+            expr = expr != null ? cb.and(expr, afterIdPredicate) : afterIdPredicate;
+        }
 
         if (expr != null) {
             criteriaSelectQuery.where(expr);
@@ -424,9 +594,9 @@ public class ServiceDAO {
 
         //
         // ORDER BY
-        // Default to the KapuaEntity id if no ordering is specified.
+        // Default to the KapuaEntity id if no ordering is specified. Keyset queries are always ordered by the KapuaEntity id.
         Order order;
-        if (kapuaQuery.getSortCriteria() != null) {
+        if (!keyset && kapuaQuery.getSortCriteria() != null) {
             FieldSortCriteria sortCriteria = (FieldSortCriteria) kapuaQuery.getSortCriteria();
 
             if (SortOrder.DESCENDING.equals(sortCriteria.getSortOrder())) {
@@ -440,40 +610,7 @@ public class ServiceDAO {
         }
         criteriaSelectQuery.orderBy(order);
 
-        //
-        // QUERY!
-        TypedQuery<E> query = em.createQuery(criteriaSelectQuery);
-
-        // Populate query parameters
-        binds.forEach(query::setParameter); // Whoah! This is very magic!
-
-        // Set offset
-        if (kapuaQuery.getOffset() != null) {
-            query.setFirstResult(kapuaQuery.getOffset());
-        }
-
-        // Set limit
-        if (kapuaQuery.getLimit() != null) {
-            query.setMaxResults(kapuaQuery.getLimit() + 1);
-        }
-
-        // Finally querying!
-        List<E> result = query.getResultList();
-
-        // Check limit exceeded
-        if (kapuaQuery.getLimit() != null &&
-                result.size() > kapuaQuery.getLimit()) {
-            result.remove(kapuaQuery.getLimit().intValue());
-            resultContainer.setLimitExceeded(true);
-        }
-
-        if (Boolean.TRUE.equals(kapuaQuery.getAskTotalCount())) {
-            resultContainer.setTotalCount(count(em, interfaceClass, implementingClass, kapuaQuery));
-        }
-
-        // Set results
-        resultContainer.addItems(result);
-        return resultContainer;
+        return criteriaSelectQuery;
     }
 
     /**
@@ -493,6 +630,25 @@ public class ServiceDAO {
                                                                   @NotNull KapuaQuery<I> kapuaQuery)
             throws KapuaException {
         CriteriaBuilder cb = em.getCriteriaBuilder();
+        Map<ParameterExpression, Object> binds = new HashMap<>();
+
+        CriteriaQuery<Long> criteriaSelectQuery = buildCountQuery(cb, implementingClass, getScopedPredicate(kapuaQuery), binds);
+
+        //
+        // COUNT!
+        TypedQuery<Long> query = em.createQuery(criteriaSelectQuery);
+
+        // Populate query parameters
+        binds.forEach(query::setParameter);
+
+        return query.getSingleResult();
+    }
+
+    private static <E> CriteriaQuery<Long> buildCountQuery(@NotNull CriteriaBuilder cb,
+                                                           @NotNull Class<E> implementingClass,
+                                                           @Nullable QueryPredicate kapuaPredicates,
+                                                           @NotNull Map<ParameterExpression, Object> binds)
+            throws KapuaException {
         CriteriaQuery<Long> criteriaSelectQuery = cb.createQuery(Long.class);
 
         //
@@ -505,22 +661,6 @@ public class ServiceDAO {
 
         //
         // WHERE
-        QueryPredicate kapuaPredicates = kapuaQuery.getPredicate();
-        if (kapuaQuery.getScopeId() != null) {
-
-            AndPredicate scopedAndPredicate = kapuaQuery.andPredicate();
-
-            AttributePredicate<KapuaId> scopeId = kapuaQuery.attributePredicate(KapuaEntityAttributes.SCOPE_ID, kapuaQuery.getScopeId());
-            scopedAndPredicate.and(scopeId);
-
-            if (kapuaQuery.getPredicate() != null) {
-                scopedAndPredicate.and(kapuaQuery.getPredicate());
-            }
-
-            kapuaPredicates = scopedAndPredicate;
-        }
-
-        Map<ParameterExpression, Object> binds = new HashMap<>();
         Expression<Boolean> expr = handleKapuaQueryPredicates(kapuaPredicates,
                 binds,
                 cb,
@@ -531,14 +671,31 @@ public class ServiceDAO {
             criteriaSelectQuery.where(expr);
         }
 
-        //
-        // COUNT!
-        TypedQuery<Long> query = em.createQuery(criteriaSelectQuery);
+        return criteriaSelectQuery;
+    }
 
-        // Populate query parameters
-        binds.forEach(query::setParameter); // Whoah! This is very magic!
+    /**
+     * Gets the {@link KapuaQuery#getPredicate()} in {@code AND} with the {@link KapuaQuery#getScopeId()}, if defined.
+     *
+     * @param kapuaQuery The {@link KapuaQuery} from which to get the {@link QueryPredicate}.
+     * @return The {@link QueryPredicate} to apply.
+     */
+    private static QueryPredicate getScopedPredicate(@NotNull KapuaQuery<?> kapuaQuery) {
+        QueryPredicate kapuaPredicates = kapuaQuery.getPredicate();
+        if (kapuaQuery.getScopeId() != null) {
 
-        return query.getSingleResult();
+            AndPredicate scopedAndPredicate = kapuaQuery.andPredicate(
+                    kapuaQuery.attributePredicate(KapuaEntityAttributes.SCOPE_ID, kapuaQuery.getScopeId())
+            );
+
+            // Add existing query predicates
+            if (kapuaQuery.getPredicate() != null) {
+                scopedAndPredicate.and(kapuaQuery.getPredicate());
+            }
+
+            kapuaPredicates = scopedAndPredicate;
+        }
+        return kapuaPredicates;
     }
 
     /**
@@ -554,14 +711,14 @@ public class ServiceDAO {
      * It can be invoked recursively (i.e. to handle {@link AttributePredicate}s of the {@link AndPredicate}.
      *
      * @param queryPredicate     The {@link QueryPredicate} to handle.
-     * @param binds              The {@link Map}&lg;{@link String}, {@link Object}&gt; of the query values.
+     * @param binds              The {@link Map} in which to put the query parameters and their values.
      * @param cb                 The JPA {@link CriteriaBuilder} of the {@link javax.persistence.Query}.
      * @param userPermissionRoot The JPA {@link Root} of the {@link javax.persistence.Query}.
      * @param entityType         The JPA {@link EntityType} of the {@link javax.persistence.Query}.
      * @return The handled {@link Predicate}
      * @throws KapuaException If any problem occurs.
      */
-    private static <E> Predicate handleKapuaQueryPredicates(@NotNull QueryPredicate queryPredicate,
+    private static <E> Predicate handleKapuaQueryPredicates(@Nullable QueryPredicate queryPredicate,
                                                             @NotNull Map<ParameterExpression, Object> binds,
                                                             @NotNull CriteriaBuilder cb,
                                                             @NotNull Root<E> userPermissionRoot,
@@ -632,6 +789,7 @@ public class ServiceDAO {
         return jpaOrPredicates;
     }
 
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     private static <E> Predicate handleAttributePredicate(@NotNull AttributePredicate<?> attrPred,
                                                           @NotNull Map<ParameterExpression, Object> binds,
                                                           @NotNull CriteriaBuilder cb,
@@ -643,9 +801,6 @@ public class ServiceDAO {
 
         // Parse attributes
         Object attrValue = attrPred.getAttributeValue();
-        if (attrValue instanceof KapuaId && !(attrValue instanceof KapuaEid)) {
-            attrValue = KapuaEid.parseKapuaId((KapuaId) attrValue);
-        }
 
         // Fields to query properties of sub attributes of the root entity
         Attribute<?, ?> attribute;
@@ -657,20 +812,34 @@ public class ServiceDAO {
 
         if (attrValue instanceof Object[]) {
             Object[] attrValues = (Object[]) attrValue;
-            Expression<?> orPredicate = extractAttribute(entityRoot, attrName);
-
-            Predicate[] orPredicates = new Predicate[attrValues.length];
-            for (int i = 0; i < attrValues.length; i++) {
-                Object value = attrValues[i];
+            if (attrValues.length == 0) {
+                expr = cb.disjunction();
+            } else {
+                // Values are bound as a single collection parameter. See getInParameterValue
+                ParameterExpression<Collection> pIn = cb.parameter(Collection.class);
+                binds.put(pIn, getInParameterValue(attrValues));
 
-                if (value instanceof KapuaId && !(value instanceof KapuaEid)) {
-                    value = new KapuaEid((KapuaId) value);
-                }
+                Expression<?> inExpression = attrValues[0] instanceof KapuaId ?
+                        extractIdAttribute(entityRoot, attrName, attribute) :
+                        extractAttribute(entityRoot, attrName);
 
-                orPredicates[i] = cb.equal(orPredicate, value);
+                expr = inExpression.in((Expression) pIn);
+            }
+        } else if (attrValue == null) {
+            switch (attrPred.getOperator()) {
+                case IS_NULL:
+                    expr = cb.isNull(extractAttribute(entityRoot, attrName));
+                    break;
+                case NOT_NULL:
+                    expr = cb.isNotNull(extractAttribute(entityRoot, attrName));
+                    break;
+                case NOT_EQUAL:
+                    expr = cb.notEqual(extractAttribute(entityRoot, attrName), attrValue);
+                    break;
+                case EQUAL:
+                default:
+                    expr = cb.equal(extractAttribute(entityRoot, attrName), attrValue);
             }
-
-            expr = cb.and(cb.or(orPredicates));
         } else {
             String strAttrValue;
             switch (attrPred.getOperator()) {
@@ -697,14 +866,17 @@ public class ServiceDAO {
                     break;
 
                 case NOT_EQUAL:
-                    expr = cb.notEqual(extractAttribute(entityRoot, attrName), attrValue);
+                    if (attrValue instanceof KapuaId) {
+                        expr = cb.notEqual(extractIdAttribute(entityRoot, attrName, attribute), bind(cb, binds, BigInteger.class, ((KapuaId) attrValue).getId()));
+                    } else {
+                        expr = cb.notEqual(extractAttribute(entityRoot, attrName), bind(cb, binds, attrValue));
+                    }
                     break;
 
                 case GREATER_THAN:
                     if (attrValue instanceof Comparable && ArrayUtils.contains(attribute.getJavaType().getInterfaces(), Comparable.class)) {
-                        Comparable comparableAttrValue = (Comparable<?>) attrValue;
                         Expression<? extends Comparable> comparableExpression = extractAttribute(entityRoot, attrName);
-                        expr = cb.greaterThan(comparableExpression, comparableAttrValue);
+                        expr = cb.greaterThan(comparableExpression, (Expression) bind(cb, binds, attrValue));
                     } else {
                         throw new KapuaException(KapuaErrorCodes.ILLEGAL_ARGUMENT, COMPARE_ERROR_MESSAGE);
                     }
@@ -713,8 +885,7 @@ public class ServiceDAO {
                 case GREATER_THAN_OR_EQUAL:
                     if (attrValue instanceof Comparable && ArrayUtils.contains(attribute.getJavaType().getInterfaces(), Comparable.class)) {
                         Expression<? extends Comparable> comparableExpression = extractAttribute(entityRoot, attrName);
-                        Comparable comparableAttrValue = (Comparable<?>) attrValue;
-                        expr = cb.greaterThanOrEqualTo(comparableExpression, comparableAttrValue);
+                        expr = cb.greaterThanOrEqualTo(comparableExpression, (Expression) bind(cb, binds, attrValue));
                     } else {
                         throw new KapuaException(KapuaErrorCodes.ILLEGAL_ARGUMENT, COMPARE_ERROR_MESSAGE);
                     }
@@ -723,8 +894,7 @@ public class ServiceDAO {
                 case LESS_THAN:
                     if (attrValue instanceof Comparable && ArrayUtils.contains(attribute.getJavaType().getInterfaces(), Comparable.class)) {
                         Expression<? extends Comparable> comparableExpression = extractAttribute(entityRoot, attrName);
-                        Comparable comparableAttrValue = (Comparable<?>) attrValue;
-                        expr = cb.lessThan(comparableExpression, comparableAttrValue);
+                        expr = cb.lessThan(comparableExpression, (Expression) bind(cb, binds, attrValue));
                     } else {
                         throw new KapuaException(KapuaErrorCodes.ILLEGAL_ARGUMENT, COMPARE_ERROR_MESSAGE);
                     }
@@ -732,8 +902,7 @@ public class ServiceDAO {
                 case LESS_THAN_OR_EQUAL:
                     if (attrValue instanceof Comparable && ArrayUtils.contains(attribute.getJavaType().getInterfaces(), Comparable.class)) {
                         Expression<? extends Comparable> comparableExpression = extractAttribute(entityRoot, attrName);
-                        Comparable comparableAttrValue = (Comparable<?>) attrValue;
-                        expr = cb.lessThanOrEqualTo(comparableExpression, comparableAttrValue);
+                        expr = cb.lessThanOrEqualTo(comparableExpression, (Expression) bind(cb, binds, attrValue));
                     } else {
                         throw new KapuaException(KapuaErrorCodes.ILLEGAL_ARGUMENT, COMPARE_ERROR_MESSAGE);
                     }
@@ -741,12 +910,80 @@ public class ServiceDAO {
 
                 case EQUAL:
                 default:
-                    expr = cb.equal(extractAttribute(entityRoot, attrName), attrValue);
+                    if (attrValue instanceof KapuaId) {
+                        expr = cb.equal(extractIdAttribute(entityRoot, attrName, attribute), bind(cb, binds, BigInteger.class, ((KapuaId) attrValue).getId()));
+                    } else {
+                        expr = cb.equal(extractAttribute(entityRoot, attrName), bind(cb, binds, attrValue));
+                    }
             }
         }
         return expr;
     }
 
+    /**
+     * Creates a query parameter for the given value.
+     *
+     * @param cb    The JPA {@link CriteriaBuilder} of the {@link javax.persistence.Query}.
+     * @param binds The {@link Map} in which to put the query parameter and its value.
+     * @param value The value to bind.
+     * @return The {@link ParameterExpression} bound to the value.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> ParameterExpression<T> bind(@NotNull CriteriaBuilder cb, @NotNull Map<ParameterExpression, Object> binds, @NotNull T value) {
+        return bind(cb, binds, (Class<T>) value.getClass(), value);
+    }
+
+    private static <T> ParameterExpression<T> bind(@NotNull CriteriaBuilder cb, @NotNull Map<ParameterExpression, Object> binds, @NotNull Class<T> parameterClass, @NotNull T value) {
+        ParameterExpression<T> parameter = cb.parameter(parameterClass);
+        binds.put(parameter, value);
+        return parameter;
+    }
+
+    /**
+     * Gets the value of an {@code IN} collection parameter.
+     * <p>
+     * {@link KapuaId}s are converted to their {@link KapuaId#getId()}, and the values are padded to the next power of two by repeating the last one,
+     * so that the number of distinct SQL statements generated for lists of different sizes stays small.
+     *
+     * @param values The values of the {@code IN} predicate. It must not be empty.
+     * @return The {@link List} of values to bind.
+     */
+    private static List<Object> getInParameterValue(@NotNull Object[] values) {
+        int paddedSize = Integer.highestOneBit(values.length);
+        if (paddedSize < values.length) {
+            paddedSize <<= 1;
+        }
+
+        List<Object> inValues = new ArrayList<>(paddedSize);
+        for (Object value : values) {
+            inValues.add(value instanceof KapuaId ? ((KapuaId) value).getId() : value);
+        }
+
+        Object lastValue = inValues.get(inValues.size() - 1);
+        while (inValues.size() < paddedSize) {
+            inValues.add(lastValue);
+        }
+        return inValues;
+    }
+
+    /**
+     * Selects the {@link KapuaEid#getId()} of a {@link KapuaId} attribute.
+     * <p>
+     * Collection attributes (i.e. {@code @ElementCollection Set<KapuaEid>}) are joined, so that the predicate matches any of their elements.
+     * The join is a left join since the predicate can be in {@code OR} with other predicates: the query is {@code DISTINCT}, so entities are not repeated.
+     *
+     * @param entityRoot    The {@link Root} entity from which extract the attribute.
+     * @param attributeName The full attribute name.
+     * @param attribute     The {@link Attribute} of the {@link Root} entity selected by the attribute name.
+     * @return The {@link Path} of the {@link KapuaEid#getId()}.
+     */
+    private static <E> Path<BigInteger> extractIdAttribute(@NotNull Root<E> entityRoot, @NotNull String attributeName, @NotNull Attribute<?, ?> attribute) {
+        if (attribute.isCollection() && !attributeName.contains(ATTRIBUTE_SEPARATOR)) {
+            return entityRoot.join(attributeName, JoinType.LEFT).<BigInteger>get(KAPUA_EID_ATTRIBUTE);
+        }
+        return extractAttribute(entityRoot, attributeName).<BigInteger>get(KAPUA_EID_ATTRIBUTE);
+    }
+
     /**
      * Utility method that selects the correct {@link Root} attribute.<br>
      * This method handles {@link Embedded} attributes and nested {@link KapuaEntity}es up to one level of nesting<br>
@@ -869,4 +1106,59 @@ public class ServiceDAO {
         SQLException innerExc = (SQLException) cause;
         return SQL_ERROR_CODE_CONSTRAINT_VIOLATION.equals(innerExc.getSQLState());
     }
+
+    /**
+     * {@link Iterator} that loads the results of a {@link KapuaQuery} in pages, using keyset queries.
+     *
+     * @see #iterate(EntityManager, Class, Class, KapuaQuery, int)
+     */
+    private static class KeysetIterator<I extends KapuaEntity, E extends I> implements Iterator<E> {
+
+        private final EntityManager em;
+        private final Class<E> implementingClass;
+        private final KapuaQuery<I> kapuaQuery;
+        private final int pageSize;
+
+        private List<E> page = Collections.emptyList();
+        private int pageIndex;
+        private boolean lastPage;
+
+        private KeysetIterator(EntityManager em, Class<E> implementingClass, KapuaQuery<I> kapuaQuery, int pageSize) {
+            this.em = em;
+            this.implementingClass = implementingClass;
+            this.kapuaQuery = kapuaQuery;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pageIndex < page.size()) {
+                return true;
+            }
+            if (lastPage) {
+                return false;
+            }
+
+            KapuaId afterId = page.isEmpty() ? null : page.get(page.size() - 1).getId();
+            page.forEach(em::detach);
+
+            try {
+                page = doQuery(em, implementingClass, kapuaQuery, true, afterId, null, pageSize);
+            } catch (KapuaException e) {
+                throw KapuaRuntimeException.internalError(e, "Error while loading the next page of results");
+            }
+            pageIndex = 0;
+            lastPage = page.size() < pageSize;
+
+            return !page.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.get(pageIndex++);
+        }
+    }
 }
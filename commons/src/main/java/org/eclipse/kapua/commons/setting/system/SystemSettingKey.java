@@ -150,6 +150,10 @@ public enum SystemSettingKey implements SettingKey {
      * Database pool connection borrow timeout
      */
     DB_POOL_BORROW_TIMEOUT("commons.db.pool.borrow.timeout"),
+    /**
+     * Max number of statements grouped in a JDBC batch when flushing, for the persistence units enabling JDBC batch writing. A value less or equal to 0 disables JDBC batch writing
+     */
+    DB_JDBC_BATCH_WRITING_SIZE("commons.db.jdbc.batchWriting.size"),
     /**
      * Character used in DB query to escape other special characters
      */
@@ -181,11 +185,38 @@ public enum SystemSettingKey implements SettingKey {
      */
     METRICS_ENABLE_JMX("metrics.enable.jmx"),
 
+    /**
+     * Reservoir used by histograms and timers. One of EXPONENTIALLY_DECAYING, UNIFORM, SLIDING_WINDOW, SLIDING_TIME_WINDOW
+     * or the fully qualified name of a {@link com.codahale.metrics.Reservoir} implementation with a public no-args constructor.
+     * If not set the Dropwizard default is used
+     */
+    METRICS_RESERVOIR_TYPE("metrics.reservoir.type"),
+
+    /**
+     * Size of the UNIFORM and SLIDING_WINDOW reservoirs (number of samples)
+     */
+    METRICS_RESERVOIR_SIZE("metrics.reservoir.size"),
+
+    /**
+     * Window of the SLIDING_TIME_WINDOW reservoir (in seconds)
+     */
+    METRICS_RESERVOIR_WINDOW("metrics.reservoir.window"),
+
     /**
      * Set the Kapua key size (the size is expressed in bits)
      */
     KAPUA_KEY_SIZE("commons.entity.key.size"),
 
+    /**
+     * Strategy used to generate the Kapua keys (RANDOM, TIME_ORDERED or the class name of an IdGenerationStrategy)
+     */
+    KAPUA_KEY_GENERATOR("commons.entity.key.generator"),
+
+    /**
+     * Node id of the TIME_ORDERED key generation (between 0 and 1023, must be unique for each node). A random value is used if not set
+     */
+    KAPUA_KEY_GENERATOR_NODE_ID("commons.entity.key.generator.nodeId"),
+
     /**
      * Maximum allowed retry (due to a {@link EntityExistsException}, so already exists key) on insert operation
      */
@@ -231,6 +262,11 @@ public enum SystemSettingKey implements SettingKey {
      */
     EVENT_BUS_CONSUMER_POOL_SIZE("commons.eventbus.consumerPool.size"),
 
+    /**
+     * Consumers pool size override per subscription name (commons.eventbus.consumerPool.subscription.&lt;subscription name&gt;=&lt;size&gt;)
+     */
+    EVENT_BUS_CONSUMER_POOL_SUBSCRIPTION_SIZE("commons.eventbus.consumerPool.subscription"),
+
     /**
      * Event message serializer class
      */
@@ -241,6 +277,26 @@ public enum SystemSettingKey implements SettingKey {
      */
     EVENT_BUS_TRANSPORT_USE_EPOLL("commons.eventbus.transport.useEpoll"),
 
+    /**
+     * If true the events are queued per address and published asynchronously in transacted batches
+     */
+    EVENT_BUS_PUBLISH_BATCH_ENABLED("commons.eventbus.publishBatch.enabled"),
+
+    /**
+     * Max number of events published in a single batch
+     */
+    EVENT_BUS_PUBLISH_BATCH_MAX_SIZE("commons.eventbus.publishBatch.maxSize"),
+
+    /**
+     * Max time to wait for more events before publishing a batch (in milliseconds)
+     */
+    EVENT_BUS_PUBLISH_BATCH_LINGER_TIME("commons.eventbus.publishBatch.lingerTime"),
+
+    /**
+     * Max number of events queued per address waiting to be published. When the queue is full the events are published synchronously
+     */
+    EVENT_BUS_PUBLISH_BATCH_QUEUE_SIZE("commons.eventbus.publishBatch.queueSize"),
+
     /**
      * Wait time between housekeeper executions (in milliseconds)
      */
@@ -253,11 +309,28 @@ public enum SystemSettingKey implements SettingKey {
      * Time window to consider FIRED messages as "old" messages so ready to be processed by the housekeeper (in milliseconds)
      */
     HOUSEKEEPER_OLD_MESSAGES_TIME_WINDOW("commons.eventbus.houskeeper.oldMessagesTimeWindow"),
+    /**
+     * Time after which SENT events are purged from the event store by the housekeeper (in milliseconds). A value less or equal to 0 disables the purge
+     */
+    HOUSEKEEPER_SENT_EVENTS_RETENTION("commons.eventbus.houskeeper.sentEventsRetention"),
+    /**
+     * Max number of events deleted in a single transaction by the housekeeper purge
+     */
+    HOUSEKEEPER_PURGE_BATCH_SIZE("commons.eventbus.houskeeper.purgeBatchSize"),
+    /**
+     * Max number of scan windows (and purge batches) processed by a single housekeeper execution. The remaining events are processed by the next execution
+     */
+    HOUSEKEEPER_MAX_WINDOWS_PER_RUN("commons.eventbus.houskeeper.maxWindowsPerRun"),
     /**
      * Allow System Settings to be updatable at runtime via System.setProperty()
      */
     SETTINGS_HOTSWAP("commons.settings.hotswap"),
 
+    /**
+     * Maximum number of idle JAXB marshallers (and unmarshallers) of each type kept by the XmlUtil
+     */
+    XML_MARSHALLER_POOL_SIZE("commons.xml.marshallerPool.size"),
+
     /**
      * Provide the classname for the Cache Provider
      */
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.util.xml;
+
+import org.eclipse.persistence.jaxb.MarshallerProperties;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.util.ValidationEventCollector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool of configured {@link Marshaller}s and {@link Unmarshaller}s of a {@link JAXBContext}.
+ * <p>
+ * {@link Marshaller}s and {@link Unmarshaller}s are not thread safe, so each one is used by a single thread at a time and then given back to the pool.
+ * When the pool is empty a new one is created, when the pool is full the given back one is discarded.
+ *
+ * @since 1.3.0
+ */
+class JAXBMarshallerPool {
+
+    /**
+     * A {@link Marshaller} with its {@link ValidationEventCollector}.
+     *
+     * @since 1.3.0
+     */
+    static class PooledMarshaller {
+
+        final Marshaller marshaller;
+        final ValidationEventCollector eventCollector;
+        final boolean json;
+
+        private PooledMarshaller(Marshaller marshaller, ValidationEventCollector eventCollector, boolean json) {
+            this.marshaller = marshaller;
+            this.eventCollector = eventCollector;
+            this.json = json;
+        }
+    }
+
+    /**
+     * An {@link Unmarshaller} with its {@link ValidationEventCollector}.
+     *
+     * @since 1.3.0
+     */
+    static class PooledUnmarshaller {
+
+        final Unmarshaller unmarshaller;
+        final ValidationEventCollector eventCollector;
+        final boolean json;
+
+        private PooledUnmarshaller(Unmarshaller unmarshaller, ValidationEventCollector eventCollector, boolean json) {
+            this.unmarshaller = unmarshaller;
+            this.eventCollector = eventCollector;
+            this.json = json;
+        }
+    }
+
+    private final JAXBContext context;
+
+    private final BlockingQueue<PooledMarshaller> xmlMarshallers;
+    private final BlockingQueue<PooledMarshaller> jsonMarshallers;
+    private final BlockingQueue<PooledUnmarshaller> xmlUnmarshallers;
+    private final BlockingQueue<PooledUnmarshaller> jsonUnmarshallers;
+
+    /**
+     * Constructor.
+     *
+     * @param context The {@link JAXBContext} from which create the {@link Marshaller}s and {@link Unmarshaller}s.
+     * @param maxIdle The maximum number of idle {@link Marshaller}s and {@link Unmarshaller}s of each type kept in the pool.
+     * @since 1.3.0
+     */
+    JAXBMarshallerPool(JAXBContext context, int maxIdle) {
+        this.context = context;
+
+        xmlMarshallers = new ArrayBlockingQueue<>(maxIdle);
+        jsonMarshallers = new ArrayBlockingQueue<>(maxIdle);
+        xmlUnmarshallers = new ArrayBlockingQueue<>(maxIdle);
+        jsonUnmarshallers = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    JAXBContext getContext() {
+        return context;
+    }
+
+    /**
+     * Takes a {@link PooledMarshaller} from the pool or creates a new one if none is available.
+     *
+     * @param json Whether the {@link Marshaller} must produce JSON instead of XML.
+     * @return The {@link PooledMarshaller}, with no collected events.
+     * @throws JAXBException if the {@link Marshaller} cannot be created.
+     * @since 1.3.0
+     */
+    PooledMarshaller borrowMarshaller(boolean json) throws JAXBException {
+        PooledMarshaller pooledMarshaller = (json ? jsonMarshallers : xmlMarshallers).poll();
+        if (pooledMarshaller != null) {
+            pooledMarshaller.eventCollector.reset();
+            return pooledMarshaller;
+        }
+
+        ValidationEventCollector eventCollector = new ValidationEventCollector();
+        Marshaller marshaller = context.createMarshaller();
+        marshaller.setSchema(null);
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        if (json) {
+            marshaller.setProperty(MarshallerProperties.MEDIA_TYPE, "application/json");
+            marshaller.setProperty(MarshallerProperties.JSON_INCLUDE_ROOT, false);
+        }
+        marshaller.setEventHandler(eventCollector);
+
+        return new PooledMarshaller(marshaller, eventCollector, json);
+    }
+
+    /**
+     * Gives back a {@link PooledMarshaller} taken with {@link #borrowMarshaller(boolean)}.
+     *
+     * @param pooledMarshaller The {@link PooledMarshaller} to give back.
+     * @since 1.3.0
+     */
+    void returnMarshaller(PooledMarshaller pooledMarshaller) {
+        pooledMarshaller.eventCollector.reset();
+        (pooledMarshaller.json ? jsonMarshallers : xmlMarshallers).offer(pooledMarshaller);
+    }
+
+    /**
+     * Takes a {@link PooledUnmarshaller} from the pool or creates a new one if none is available.
+     *
+     * @param json Whether the {@link Unmarshaller} must read JSON instead of XML.
+     * @return The {@link PooledUnmarshaller}, with no collected events.
+     * @throws JAXBException if the {@link Unmarshaller} cannot be created.
+     * @since 1.3.0
+     */
+    PooledUnmarshaller borrowUnmarshaller(boolean json) throws JAXBException {
+        PooledUnmarshaller pooledUnmarshaller = (json ? jsonUnmarshallers : xmlUnmarshallers).poll();
+        if (pooledUnmarshaller != null) {
+            pooledUnmarshaller.eventCollector.reset();
+            return pooledUnmarshaller;
+        }
+
+        ValidationEventCollector eventCollector = new ValidationEventCollector();
+        Unmarshaller unmarshaller = context.createUnmarshaller();
+        unmarshaller.setSchema(null);
+        unmarshaller.setEventHandler(eventCollector);
+        if (json) {
+            unmarshaller.setProperty(MarshallerProperties.MEDIA_TYPE, "application/json");
+            unmarshaller.setProperty(MarshallerProperties.JSON_INCLUDE_ROOT, false);
+        }
+
+        return new PooledUnmarshaller(unmarshaller, eventCollector, json);
+    }
+
+    /**
+     * Gives back a {@link PooledUnmarshaller} taken with {@link #borrowUnmarshaller(boolean)}.
+     *
+     * @param pooledUnmarshaller The {@link PooledUnmarshaller} to give back.
+     * @since 1.3.0
+     */
+    void returnUnmarshaller(PooledUnmarshaller pooledUnmarshaller) {
+        pooledUnmarshaller.eventCollector.reset();
+        (pooledUnmarshaller.json ? jsonUnmarshallers : xmlUnmarshallers).offer(pooledUnmarshaller);
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -14,8 +14,9 @@ package org.eclipse.kapua.commons.util.xml;
 
 import org.apache.commons.lang.SystemUtils;
 import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.setting.system.SystemSetting;
+import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
 import org.eclipse.persistence.jaxb.JAXBContextFactory;
-import org.eclipse.persistence.jaxb.MarshallerProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
@@ -39,6 +40,7 @@ import javax.xml.namespace.QName;
 import javax.xml.stream.FactoryConfigurationError;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.sax.SAXSource;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -59,6 +61,9 @@ public class XmlUtil {
 
     private static JAXBContextProvider jaxbContextProvider;
 
+    private static volatile JAXBContext defaultContext;
+    private static volatile JAXBMarshallerPool marshallerPool;
+
     public static void setContextProvider(JAXBContextProvider provider) {
         jaxbContextProvider = provider;
     }
@@ -93,30 +98,20 @@ public class XmlUtil {
      */
     public static void marshal(Object object, Writer w)
             throws JAXBException {
-        JAXBContext context = get();
-
-        ValidationEventCollector valEventHndlr = new ValidationEventCollector();
-        Marshaller marshaller = context.createMarshaller();
-        marshaller.setSchema(null);
-        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-        marshaller.setEventHandler(valEventHndlr);
-
-        try {
-            marshaller.marshal(object, w);
-        } catch (JAXBException je) {
-            throw je;
-        } catch (Exception e) {
-            throw new MarshalException(e.getMessage(), e);
-        }
+        doMarshal(false, marshaller -> marshaller.marshal(object, w));
+    }
 
-        if (valEventHndlr.hasEvents()) {
-            for (ValidationEvent valEvent : valEventHndlr.getEvents()) {
-                if (valEvent.getSeverity() != ValidationEvent.WARNING) {
-                    // throw a new Marshall Exception if there is a parsing error
-                    throw new MarshalException(valEvent.getMessage(), valEvent.getLinkedException());
-                }
-            }
-        }
+    /**
+     * Marshal the object to an output stream, without buffering the whole document in memory
+     *
+     * @param object
+     * @param os
+     * @throws JAXBException
+     * @since 1.3.0
+     */
+    public static void marshal(Object object, OutputStream os)
+            throws JAXBException {
+        doMarshal(false, marshaller -> marshaller.marshal(object, os));
     }
 
     /**
@@ -128,32 +123,20 @@ public class XmlUtil {
      */
     public static void marshalJson(Object object, Writer w)
             throws JAXBException {
-        JAXBContext context = get();
-
-        ValidationEventCollector valEventHndlr = new ValidationEventCollector();
-        Marshaller marshaller = context.createMarshaller();
-        marshaller.setSchema(null);
-        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-        marshaller.setProperty(MarshallerProperties.MEDIA_TYPE, "application/json");
-        marshaller.setProperty(MarshallerProperties.JSON_INCLUDE_ROOT, false);
-        marshaller.setEventHandler(valEventHndlr);
-
-        try {
-            marshaller.marshal(object, w);
-        } catch (JAXBException je) {
-            throw je;
-        } catch (Exception e) {
-            throw new MarshalException(e.getMessage(), e);
-        }
+        doMarshal(true, marshaller -> marshaller.marshal(object, w));
+    }
 
-        if (valEventHndlr.hasEvents()) {
-            for (ValidationEvent valEvent : valEventHndlr.getEvents()) {
-                if (valEvent.getSeverity() != ValidationEvent.WARNING) {
-                    // throw a new Marshall Exception if there is a parsing error
-                    throw new MarshalException(valEvent.getMessage(), valEvent.getLinkedException());
-                }
-            }
-        }
+    /**
+     * Marshal the object to an output stream in json format, without buffering the whole document in memory
+     *
+     * @param object
+     * @param os
+     * @throws JAXBException
+     * @since 1.3.0
+     */
+    public static void marshalJson(Object object, OutputStream os)
+            throws JAXBException {
+        doMarshal(true, marshaller -> marshaller.marshal(object, os));
     }
 
     /**
@@ -227,72 +210,104 @@ public class XmlUtil {
      */
     public static <T> T unmarshal(Reader r, Class<T> clazz, String nsUri)
             throws JAXBException, XMLStreamException, FactoryConfigurationError, SAXException {
-        JAXBContext context = get();
+        return doUnmarshal(r, clazz, nsUri, false);
+    }
 
-        ValidationEventCollector valEventHndlr = new ValidationEventCollector();
-        Unmarshaller unmarshaller = context.createUnmarshaller();
-        unmarshaller.setSchema(null);
-        unmarshaller.setEventHandler(valEventHndlr);
+    /**
+     * Unmarshal method which injects the namespace URI provided in all the elements before attempting the parsing.
+     *
+     * @param r
+     * @param clazz
+     * @param nsUri
+     * @return
+     * @throws JAXBException
+     * @throws XMLStreamException
+     * @throws FactoryConfigurationError
+     * @throws SAXException
+     */
+    public static <T> T unmarshalJson(Reader r, Class<T> clazz, String nsUri)
+            throws JAXBException, XMLStreamException, FactoryConfigurationError, SAXException {
+        return doUnmarshal(r, clazz, nsUri, true);
+    }
 
-        SAXSource saxSource;
-        if (nsUri == null) {
-            saxSource = new SAXSource(new InputSource(r));
-        } else {
-            boolean addNamespace = true;
-            XMLReader reader = XMLReaderFactory.createXMLReader();
-            XmlNamespaceFilter filter = new XmlNamespaceFilter(nsUri, addNamespace);
-            filter.setParent(reader);
-            saxSource = new SAXSource(filter, new InputSource(r));
+    /**
+     * Find child element by QName
+     *
+     * @param node
+     * @param qname
+     * @return
+     */
+    public static Element findChildElement(Node node, QName qname) {
+        NodeList nl = node.getChildNodes();
+        for (int i = 0; i < nl.getLength(); i++) {
+
+            Node n = nl.item(i);
+
+            boolean isElement = n instanceof Element;
+            boolean matchName = qname.getLocalPart().equals(n.getLocalName());
+            boolean matchNsURI = qname.getNamespaceURI().isEmpty() ? (n.getNamespaceURI() == null || n.getNamespaceURI().isEmpty()) : qname.getNamespaceURI().equals(n.getNamespaceURI());
+
+            if (isElement && matchName && matchNsURI) {
+                return (Element) n;
+            }
         }
+        return null;
+    }
+
+    /**
+     * Marshals with a {@link Marshaller} taken from the {@link JAXBMarshallerPool}.
+     * <p>
+     * The {@link Marshaller} is given back to the pool only if the marshalling succeeds.
+     *
+     * @param json   Whether to marshal to JSON instead of XML.
+     * @param action The marshal action.
+     * @throws JAXBException
+     * @since 1.3.0
+     */
+    private static void doMarshal(boolean json, MarshalAction action)
+            throws JAXBException {
+        JAXBMarshallerPool marshallerPool = getMarshallerPool();
+        JAXBMarshallerPool.PooledMarshaller pooledMarshaller = marshallerPool.borrowMarshaller(json);
 
-        JAXBElement<T> elem = null;
         try {
-            elem = unmarshaller.unmarshal(saxSource, clazz);
-        } catch (JAXBException e) {
-            throw e;
+            action.marshal(pooledMarshaller.marshaller);
+        } catch (JAXBException je) {
+            throw je;
         } catch (Exception e) {
-            throw new UnmarshalException(e.getMessage(), e);
+            throw new MarshalException(e.getMessage(), e);
         }
 
+        ValidationEventCollector valEventHndlr = pooledMarshaller.eventCollector;
         if (valEventHndlr.hasEvents()) {
             for (ValidationEvent valEvent : valEventHndlr.getEvents()) {
                 if (valEvent.getSeverity() != ValidationEvent.WARNING) {
-                    // throw a new Unmarshall Exception if there is a parsing error
-                    String msg = MessageFormat.format("Line {0}, Col: {1}.{2}\tError message: {3}\n\tLinked exception message:{4}",
-                            valEvent.getLocator().getLineNumber(),
-                            valEvent.getLocator().getColumnNumber(),
-                            SystemUtils.LINE_SEPARATOR,
-                            valEvent.getMessage() != null ? valEvent.getMessage() : "",
-                            valEvent.getLinkedException() != null ? valEvent.getLinkedException().getMessage() : "");
-                    throw new UnmarshalException(msg, valEvent.getLinkedException());
+                    // throw a new Marshall Exception if there is a parsing error
+                    throw new MarshalException(valEvent.getMessage(), valEvent.getLinkedException());
                 }
             }
         }
-        return elem.getValue();
+
+        marshallerPool.returnMarshaller(pooledMarshaller);
     }
 
     /**
-     * Unmarshal method which injects the namespace URI provided in all the elements before attempting the parsing.
+     * Unmarshals with an {@link Unmarshaller} taken from the {@link JAXBMarshallerPool}, injecting the namespace URI provided (if any) in all the elements before attempting the parsing.
+     * <p>
+     * The {@link Unmarshaller} is given back to the pool only if the unmarshalling succeeds.
      *
      * @param r
      * @param clazz
      * @param nsUri
+     * @param json  Whether to unmarshal from JSON instead of XML.
      * @return
      * @throws JAXBException
-     * @throws XMLStreamException
-     * @throws FactoryConfigurationError
      * @throws SAXException
+     * @since 1.3.0
      */
-    public static <T> T unmarshalJson(Reader r, Class<T> clazz, String nsUri)
-            throws JAXBException, XMLStreamException, FactoryConfigurationError, SAXException {
-        JAXBContext context = get();
-
-        ValidationEventCollector valEventHndlr = new ValidationEventCollector();
-        Unmarshaller unmarshaller = context.createUnmarshaller();
-        unmarshaller.setSchema(null);
-        unmarshaller.setEventHandler(valEventHndlr);
-        unmarshaller.setProperty(MarshallerProperties.MEDIA_TYPE, "application/json");
-        unmarshaller.setProperty(MarshallerProperties.JSON_INCLUDE_ROOT, false);
+    private static <T> T doUnmarshal(Reader r, Class<T> clazz, String nsUri, boolean json)
+            throws JAXBException, SAXException {
+        JAXBMarshallerPool marshallerPool = getMarshallerPool();
+        JAXBMarshallerPool.PooledUnmarshaller pooledUnmarshaller = marshallerPool.borrowUnmarshaller(json);
 
         SAXSource saxSource;
         if (nsUri == null) {
@@ -307,13 +322,14 @@ public class XmlUtil {
 
         JAXBElement<T> elem = null;
         try {
-            elem = unmarshaller.unmarshal(saxSource, clazz);
+            elem = pooledUnmarshaller.unmarshaller.unmarshal(saxSource, clazz);
         } catch (JAXBException e) {
             throw e;
         } catch (Exception e) {
             throw new UnmarshalException(e.getMessage(), e);
         }
 
+        ValidationEventCollector valEventHndlr = pooledUnmarshaller.eventCollector;
         if (valEventHndlr.hasEvents()) {
             for (ValidationEvent valEvent : valEventHndlr.getEvents()) {
                 if (valEvent.getSeverity() != ValidationEvent.WARNING) {
@@ -328,31 +344,29 @@ public class XmlUtil {
                 }
             }
         }
+
+        marshallerPool.returnUnmarshaller(pooledUnmarshaller);
         return elem.getValue();
     }
 
     /**
-     * Find child element by QName
+     * Gets the {@link JAXBMarshallerPool} of the current JAXB context.
+     * <p>
+     * If the JAXB context changes (i.e. a new {@link JAXBContextProvider} is set) a new {@link JAXBMarshallerPool} is created.
      *
-     * @param node
-     * @param qname
-     * @return
+     * @return The {@link JAXBMarshallerPool} of the current JAXB context.
+     * @throws JAXBException
+     * @since 1.3.0
      */
-    public static Element findChildElement(Node node, QName qname) {
-        NodeList nl = node.getChildNodes();
-        for (int i = 0; i < nl.getLength(); i++) {
-
-            Node n = nl.item(i);
-
-            boolean isElement = n instanceof Element;
-            boolean matchName = qname.getLocalPart().equals(n.getLocalName());
-            boolean matchNsURI = qname.getNamespaceURI().isEmpty() ? (n.getNamespaceURI() == null || n.getNamespaceURI().isEmpty()) : qname.getNamespaceURI().equals(n.getNamespaceURI());
+    private static JAXBMarshallerPool getMarshallerPool() throws JAXBException {
+        JAXBContext context = get();
 
-            if (isElement && matchName && matchNsURI) {
-                return (Element) n;
-            }
+        JAXBMarshallerPool pool = marshallerPool;
+        if (pool == null || pool.getContext() != context) {
+            pool = new JAXBMarshallerPool(context, SystemSetting.getInstance().getInt(SystemSettingKey.XML_MARSHALLER_POOL_SIZE, 32));
+            marshallerPool = pool;
         }
-        return null;
+        return pool;
     }
 
     /**
@@ -366,13 +380,35 @@ public class XmlUtil {
         try {
             context = jaxbContextProvider.getJAXBContext();
             if (context == null) {
-                logger.warn("No JAXBContext found! Creating one using JAXBContextFactory.createContext(...).");
-                context = JAXBContextFactory.createContext(new Class[] {}, null);
+                logger.warn("No JAXBContext found! Using one created with JAXBContextFactory.createContext(...).");
+                context = getDefaultContext();
             }
         } catch (KapuaException | NullPointerException ex) {
-            logger.warn("No JAXBContextProvider provided or error while getting one! Creating one using JAXBContextFactory.createContext(...).", ex);
+            logger.warn("No JAXBContextProvider provided or error while getting one! Using one created with JAXBContextFactory.createContext(...).", ex);
+            context = getDefaultContext();
+        }
+        return context;
+    }
+
+    /**
+     * Gets the JAXB context created with {@link JAXBContextFactory#createContext(Class[], java.util.Map)}, creating it on first invocation.
+     *
+     * @return The default JAXB context.
+     * @throws JAXBException
+     * @since 1.3.0
+     */
+    private static JAXBContext getDefaultContext() throws JAXBException {
+        JAXBContext context = defaultContext;
+        if (context == null) {
             context = JAXBContextFactory.createContext(new Class[] {}, null);
+            defaultContext = context;
         }
         return context;
     }
+
+    @FunctionalInterface
+    private interface MarshalAction {
+
+        void marshal(Marshaller marshaller) throws JAXBException;
+    }
 }
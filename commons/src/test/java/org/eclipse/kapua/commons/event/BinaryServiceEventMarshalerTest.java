@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event;
+
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.event.ServiceEvent.EventStatus;
+import org.eclipse.kapua.event.ServiceEventBusException;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+import java.util.Date;
+
+@Category(JUnitTests.class)
+public class BinaryServiceEventMarshalerTest extends Assert {
+
+    private final BinaryServiceEventMarshaler marshaler = new BinaryServiceEventMarshaler();
+
+    @Test
+    public void marshalBinaryRoundTripTest() throws Exception {
+        ServiceEvent serviceEvent = new ServiceEvent();
+        serviceEvent.setId("AQ");
+        serviceEvent.setContextId("2c4f0d6c-1c8b-4e57-9b1d-2f6b4f7a3e11");
+        serviceEvent.setTimestamp(new Date(1577836800000L));
+        serviceEvent.setUserId(new KapuaEid(BigInteger.ONE));
+        serviceEvent.setService("org.eclipse.kapua.service.account.AccountService");
+        serviceEvent.setEntityType("org.eclipse.kapua.service.account.internal.AccountImpl");
+        serviceEvent.setScopeId(new KapuaEid(BigInteger.ONE));
+        serviceEvent.setEntityScopeId(new KapuaEid(BigInteger.valueOf(42)));
+        serviceEvent.setEntityId(new KapuaEid(new BigInteger("9223372036854775809")));
+        serviceEvent.setOperation("delete");
+        serviceEvent.setInputs("àèìòù €");
+        serviceEvent.setStatus(EventStatus.TRIGGERED);
+
+        ServiceEvent unmarshaled = marshaler.unmarshalBinary(marshaler.marshalBinary(serviceEvent));
+
+        assertEquals(serviceEvent.getId(), unmarshaled.getId());
+        assertEquals(serviceEvent.getContextId(), unmarshaled.getContextId());
+        assertEquals(serviceEvent.getTimestamp(), unmarshaled.getTimestamp());
+        assertEquals(serviceEvent.getUserId(), unmarshaled.getUserId());
+        assertEquals(serviceEvent.getService(), unmarshaled.getService());
+        assertEquals(serviceEvent.getEntityType(), unmarshaled.getEntityType());
+        assertEquals(serviceEvent.getScopeId(), unmarshaled.getScopeId());
+        assertEquals(serviceEvent.getEntityScopeId(), unmarshaled.getEntityScopeId());
+        assertEquals(serviceEvent.getEntityId(), unmarshaled.getEntityId());
+        assertEquals(serviceEvent.getOperation(), unmarshaled.getOperation());
+        assertEquals(serviceEvent.getInputs(), unmarshaled.getInputs());
+        assertNull(unmarshaled.getOutputs());
+        assertEquals(serviceEvent.getStatus(), unmarshaled.getStatus());
+        assertNull(unmarshaled.getNote());
+    }
+
+    @Test
+    public void marshalTextRoundTripTest() throws Exception {
+        ServiceEvent serviceEvent = new ServiceEvent();
+        serviceEvent.setContextId("context");
+
+        ServiceEvent unmarshaled = marshaler.unmarshal(marshaler.marshal(serviceEvent));
+
+        assertNull(unmarshaled.getId());
+        assertNull(unmarshaled.getTimestamp());
+        assertNull(unmarshaled.getEntityId());
+        assertEquals("context", unmarshaled.getContextId());
+    }
+
+    @Test(expected = ServiceEventBusException.class)
+    public void unmarshalBinaryWrongVersionTest() throws Exception {
+        marshaler.unmarshalBinary(new byte[]{ 99 });
+    }
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event;
+
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.event.ServiceEventPublishListener;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@Category(JUnitTests.class)
+public class HousekeeperPublishListenerTest extends Assert {
+
+    private final RecordingPublishListener delegate = new RecordingPublishListener();
+    private final HousekeeperPublishListener publishListener = new HousekeeperPublishListener(delegate);
+
+    @Test
+    public void confirmWindowOnClose() {
+        ServiceEvent first = newEvent("1");
+        ServiceEvent second = newEvent("2");
+
+        publishListener.onPublished(Collections.singletonList(first));
+        publishListener.onPublished(Collections.singletonList(second));
+        assertTrue(delegate.published.isEmpty());
+
+        publishListener.close();
+        assertEquals(1, delegate.published.size());
+        assertEquals(Arrays.asList(first, second), delegate.published.get(0));
+        assertFalse(publishListener.isPublishFailed());
+    }
+
+    @Test
+    public void confirmLateBatchStraightAway() {
+        publishListener.close();
+        assertTrue(delegate.published.isEmpty());
+
+        List<ServiceEvent> batch = Arrays.asList(newEvent("1"), newEvent("2"));
+        publishListener.onPublished(batch);
+        assertEquals(Collections.singletonList(batch), delegate.published);
+    }
+
+    @Test
+    public void notifyFailureStraightAway() {
+        ServiceEvent sent = newEvent("1");
+        ServiceEvent failed = newEvent("2");
+
+        publishListener.onPublished(Collections.singletonList(sent));
+        publishListener.onPublishFailed(Collections.singletonList(failed), new Exception("bus unavailable"));
+        assertTrue(publishListener.isPublishFailed());
+        assertEquals(Collections.singletonList(Collections.singletonList(failed)), delegate.failed);
+        assertTrue(delegate.published.isEmpty());
+
+        publishListener.close();
+        assertEquals(Collections.singletonList(Collections.singletonList(sent)), delegate.published);
+    }
+
+    private static ServiceEvent newEvent(String id) {
+        ServiceEvent serviceEvent = new ServiceEvent();
+        serviceEvent.setId(id);
+        return serviceEvent;
+    }
+
+    private static class RecordingPublishListener implements ServiceEventPublishListener {
+
+        private final List<List<ServiceEvent>> published = new ArrayList<>();
+        private final List<List<ServiceEvent>> failed = new ArrayList<>();
+
+        @Override
+        public void onPublished(List<ServiceEvent> serviceEvents) {
+            published.add(new ArrayList<>(serviceEvents));
+        }
+
+        @Override
+        public void onPublishFailed(List<ServiceEvent> serviceEvents, Throwable cause) {
+            failed.add(new ArrayList<>(serviceEvents));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event.jms;
+
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+
+@Category(JUnitTests.class)
+public class JMSServiceEventBusGroupIdTest extends Assert {
+
+    @Test
+    public void groupByEntityScopeAndId() {
+        ServiceEvent serviceEvent = newEvent(1, 42, 7);
+
+        assertEquals(new KapuaEid(BigInteger.valueOf(42)).toCompactId() + "/" + new KapuaEid(BigInteger.valueOf(7)).toCompactId(), JMSServiceEventBus.getGroupId(serviceEvent));
+        assertEquals(JMSServiceEventBus.getGroupId(serviceEvent), JMSServiceEventBus.getGroupId(newEvent(2, 42, 7)));
+        assertNotEquals(JMSServiceEventBus.getGroupId(serviceEvent), JMSServiceEventBus.getGroupId(newEvent(1, 43, 7)));
+        assertNotEquals(JMSServiceEventBus.getGroupId(serviceEvent), JMSServiceEventBus.getGroupId(newEvent(1, 42, 8)));
+    }
+
+    @Test
+    public void groupByScopeWithoutEntityScope() {
+        ServiceEvent serviceEvent = newEvent(1, 42, 7);
+        serviceEvent.setEntityScopeId(null);
+
+        assertEquals(new KapuaEid(BigInteger.ONE).toCompactId() + "/" + new KapuaEid(BigInteger.valueOf(7)).toCompactId(), JMSServiceEventBus.getGroupId(serviceEvent));
+    }
+
+    @Test
+    public void noGroupWithoutEntity() {
+        ServiceEvent serviceEvent = newEvent(1, 42, 7);
+        serviceEvent.setEntityId(null);
+
+        assertNull(JMSServiceEventBus.getGroupId(serviceEvent));
+    }
+
+    private static ServiceEvent newEvent(long scopeId, long entityScopeId, long entityId) {
+        ServiceEvent serviceEvent = new ServiceEvent();
+        serviceEvent.setScopeId(new KapuaEid(BigInteger.valueOf(scopeId)));
+        serviceEvent.setEntityScopeId(new KapuaEid(BigInteger.valueOf(entityScopeId)));
+        serviceEvent.setEntityId(new KapuaEid(BigInteger.valueOf(entityId)));
+        return serviceEvent;
+    }
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.metric;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(JUnitTests.class)
+public class MetricsServiceImplTest extends Assert {
+
+    @Test
+    public void testCachedMetrics() {
+        MetricsService metricsService = MetricServiceFactory.getInstance();
+
+        String[] names = { "cached", "count" };
+        Counter counter = metricsService.getCounter("test", "metrics", names);
+        names[1] = "changed";
+
+        assertSame(counter, metricsService.getCounter("test", "metrics", "cached", "count"));
+        assertSame(counter, metricsService.getMetricRegistry().getCounters().get("test.metrics.cached.count"));
+        assertNotSame(counter, metricsService.getCounter("test", "metrics", "cached", "changed"));
+
+        Timer timer = metricsService.getTimer("test", "metrics", "cached", "time");
+        assertSame(timer, metricsService.getTimer("test", "metrics", "cached", "time"));
+        assertSame(timer, metricsService.getMetricRegistry().getTimers().get("test.metrics.cached.time"));
+    }
+
+    @Test
+    public void testReservoirSupplier() {
+        assertNull(MetricReservoirFactory.getReservoirSupplier(null, 10, 10));
+        assertNull(MetricReservoirFactory.getReservoirSupplier(" ", 10, 10));
+        assertTrue(MetricReservoirFactory.getReservoirSupplier("SLIDING_WINDOW", 10, 10).get() instanceof SlidingWindowReservoir);
+        assertTrue(MetricReservoirFactory.getReservoirSupplier("uniform", 10, 10).get() instanceof UniformReservoir);
+        assertTrue(MetricReservoirFactory.getReservoirSupplier(ExponentiallyDecayingReservoir.class.getName(), 10, 10).get() instanceof ExponentiallyDecayingReservoir);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReservoirSupplierInvalidType() {
+        MetricReservoirFactory.getReservoirSupplier("not.a.Reservoir", 10, 10);
+    }
+}
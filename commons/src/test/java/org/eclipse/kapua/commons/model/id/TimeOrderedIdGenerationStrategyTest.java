@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.model.id;
+
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+
+@Category(JUnitTests.class)
+public class TimeOrderedIdGenerationStrategyTest extends Assert {
+
+    private static final int ID_SIZE = 63;
+
+    @Test
+    public void generateIncreasingIds() {
+        TimeOrderedIdGenerationStrategy strategy = new TimeOrderedIdGenerationStrategy(ID_SIZE, IdGenerator.NODE_ID_BITS, IdGenerator.SEQUENCE_BITS, 5);
+
+        BigInteger upperLimit = BigInteger.valueOf(2).pow(ID_SIZE);
+        BigInteger previous = BigInteger.ZERO;
+        // More than the sequence size, to go through sequence exhaustion
+        for (int i = 0; i < 20000; i++) {
+            BigInteger generated = strategy.generate();
+            assertTrue("The generated ids must be increasing", generated.compareTo(previous) > 0);
+            assertTrue("The generated id is out of the expected bounds", generated.compareTo(upperLimit) < 0);
+            previous = generated;
+        }
+    }
+
+    @Test
+    public void generateIdLayout() {
+        TimeOrderedIdGenerationStrategy strategy = new TimeOrderedIdGenerationStrategy(ID_SIZE, IdGenerator.NODE_ID_BITS, IdGenerator.SEQUENCE_BITS, 1023);
+
+        long before = System.currentTimeMillis();
+        BigInteger generated = strategy.generate();
+        long after = System.currentTimeMillis();
+
+        long timestamp = TimeOrderedIdGenerationStrategy.getTimestamp(generated, IdGenerator.NODE_ID_BITS, IdGenerator.SEQUENCE_BITS);
+        assertTrue(timestamp >= before && timestamp <= after);
+        assertEquals(1023, generated.shiftRight(IdGenerator.SEQUENCE_BITS).longValue() & 1023);
+    }
+
+    @Test
+    public void generateFromDifferentNodes() {
+        TimeOrderedIdGenerationStrategy strategy1 = new TimeOrderedIdGenerationStrategy(ID_SIZE, IdGenerator.NODE_ID_BITS, IdGenerator.SEQUENCE_BITS, 1);
+        TimeOrderedIdGenerationStrategy strategy2 = new TimeOrderedIdGenerationStrategy(ID_SIZE, IdGenerator.NODE_ID_BITS, IdGenerator.SEQUENCE_BITS, 2);
+
+        for (int i = 0; i < 1000; i++) {
+            assertNotEquals(strategy1.generate(), strategy2.generate());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void keySizeTooSmall() {
+        new TimeOrderedIdGenerationStrategy(32, IdGenerator.NODE_ID_BITS, IdGenerator.SEQUENCE_BITS, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nodeIdOutOfRange() {
+        new TimeOrderedIdGenerationStrategy(ID_SIZE, IdGenerator.NODE_ID_BITS, IdGenerator.SEQUENCE_BITS, 1024);
+    }
+
+    @Test
+    public void buildStrategy() {
+        assertTrue(IdGenerator.buildStrategy("RANDOM") instanceof RandomIdGenerationStrategy);
+        assertTrue(IdGenerator.buildStrategy("time_ordered") instanceof TimeOrderedIdGenerationStrategy);
+        assertTrue(IdGenerator.buildStrategy(TimeOrderedTestStrategy.class.getName()) instanceof TimeOrderedTestStrategy);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void buildStrategyInvalid() {
+        IdGenerator.buildStrategy("org.eclipse.kapua.NotExisting");
+    }
+
+    public static class TimeOrderedTestStrategy implements IdGenerationStrategy {
+
+        @Override
+        public BigInteger generate() {
+            return BigInteger.ONE;
+        }
+    }
+}
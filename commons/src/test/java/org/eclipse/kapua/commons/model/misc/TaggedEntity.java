@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.model.misc;
+
+import org.eclipse.kapua.commons.model.AbstractKapuaEntity;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.model.id.KapuaId;
+
+import javax.persistence.AttributeOverride;
+import javax.persistence.AttributeOverrides;
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.JoinColumn;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Test entity with a collection of {@link KapuaId}s, mapped like the tag ids of a device.
+ */
+@Entity(name = "TaggedEntity")
+@Table(name = "tagged_entity_test")
+public class TaggedEntity extends AbstractKapuaEntity {
+
+    private static final long serialVersionUID = 5271398730150487113L;
+
+    public static final String TAG_IDS = "tagIds";
+
+    @ElementCollection
+    @CollectionTable(name = "tagged_entity_test_tag", joinColumns = @JoinColumn(name = "entity_id", referencedColumnName = "id"))
+    @AttributeOverrides({
+            @AttributeOverride(name = "eid", column = @Column(name = "tag_id", nullable = false, updatable = false))
+    })
+    private Set<KapuaEid> tagIds;
+
+    public TaggedEntity() {
+    }
+
+    public TaggedEntity(KapuaId scopeId, KapuaId id, Set<KapuaId> tagIds) {
+        super(scopeId);
+        setId(id);
+
+        this.tagIds = new HashSet<>();
+        for (KapuaId tagId : tagIds) {
+            this.tagIds.add(KapuaEid.parseKapuaId(tagId));
+        }
+    }
+
+    public Set<KapuaId> getTagIds() {
+        return new HashSet<>(tagIds);
+    }
+
+    @PrePersist
+    @Override
+    protected void prePersistsAction() {
+        setCreatedBy(new KapuaEid(BigInteger.ONE));
+        setCreatedOn(new Date());
+    }
+}
@@ -0,0 +1,22 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.model.misc;
+
+import org.eclipse.kapua.commons.model.query.AbstractKapuaQuery;
+import org.eclipse.kapua.model.id.KapuaId;
+
+public class TaggedEntityQuery extends AbstractKapuaQuery<TaggedEntity> {
+
+    public TaggedEntityQuery(KapuaId scopeId) {
+        super(scopeId);
+    }
+}
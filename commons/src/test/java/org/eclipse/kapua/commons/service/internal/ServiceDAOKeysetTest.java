@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.service.internal;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.jpa.EntityManager;
+import org.eclipse.kapua.commons.liquibase.KapuaLiquibaseClient;
+import org.eclipse.kapua.commons.model.AbstractCommonServiceTest;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.model.misc.CollisionEntityManagerFactory;
+import org.eclipse.kapua.commons.model.misc.TaggedEntity;
+import org.eclipse.kapua.commons.model.misc.TaggedEntityQuery;
+import org.eclipse.kapua.commons.model.query.KapuaListResultImpl;
+import org.eclipse.kapua.model.KapuaEntityAttributes;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.model.query.KapuaListResult;
+import org.eclipse.kapua.model.query.SortOrder;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Test {@link ServiceDAO} keyset queries on {@link TaggedEntity}es that share the same creation date.
+ */
+@Category(JUnitTests.class)
+public class ServiceDAOKeysetTest extends AbstractCommonServiceTest {
+
+    private static final String TEST_FILTER = "test_tagged_entity_*_create.sql";
+
+    private static final KapuaId SCOPE_ID = id(4242);
+
+    // Persisted out of order, so that the result order does not depend on the insertion order
+    private static final List<KapuaId> ENTITY_IDS = Arrays.asList(id(105), id(101), id(107), id(103), id(102), id(106), id(104));
+
+    @BeforeClass
+    public static void setUp() throws KapuaException {
+        new KapuaLiquibaseClient("jdbc:h2:mem:kapua;MODE=MySQL;DB_CLOSE_DELAY=-1", "kapua", "kapua").update();
+        scriptSession(DEFAULT_TEST_PATH, TEST_FILTER);
+
+        EntityManager em = CollisionEntityManagerFactory.getInstance().createEntityManager();
+        try {
+            em.beginTransaction();
+            for (KapuaId entityId : ENTITY_IDS) {
+                ServiceDAO.create(em, new TaggedEntity(SCOPE_ID, entityId, Collections.emptySet()));
+            }
+            em.createNativeQuery("UPDATE tagged_entity_test SET created_on = TIMESTAMP '2020-01-01 00:00:00' WHERE scope_id = " + SCOPE_ID.getId()).executeUpdate();
+            em.commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void queryAfterWithEqualCreatedOn() throws KapuaException {
+        TaggedEntityQuery query = new TaggedEntityQuery(SCOPE_ID);
+        query.setSortCriteria(query.fieldSortCriteria(KapuaEntityAttributes.CREATED_ON, SortOrder.ASCENDING));
+
+        Assert.assertEquals(sortedIds(), queryAllPages(query, 2));
+    }
+
+    @Test
+    public void queryAfterIgnoresSortCriteria() throws KapuaException {
+        TaggedEntityQuery query = new TaggedEntityQuery(SCOPE_ID);
+        query.setSortCriteria(query.fieldSortCriteria(KapuaEntityAttributes.CREATED_ON, SortOrder.DESCENDING));
+
+        Assert.assertEquals(sortedIds(), queryAllPages(query, 3));
+    }
+
+    @Test
+    public void queryAfterLastPage() throws KapuaException {
+        TaggedEntityQuery query = new TaggedEntityQuery(SCOPE_ID);
+        query.setLimit(ENTITY_IDS.size());
+
+        EntityManager em = CollisionEntityManagerFactory.getInstance().createEntityManager();
+        try {
+            KapuaListResult<TaggedEntity> firstPage = ServiceDAO.queryAfter(em, TaggedEntity.class, TaggedEntity.class, new KapuaListResultImpl<>(), query, null);
+            Assert.assertEquals(ENTITY_IDS.size(), firstPage.getSize());
+            Assert.assertFalse(firstPage.isLimitExceeded());
+
+            KapuaListResult<TaggedEntity> nextPage = ServiceDAO.queryAfter(em, TaggedEntity.class, TaggedEntity.class, new KapuaListResultImpl<>(), query, id(107));
+            Assert.assertTrue(nextPage.isEmpty());
+            Assert.assertFalse(nextPage.isLimitExceeded());
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void iterateWithEqualCreatedOn() throws KapuaException {
+        TaggedEntityQuery query = new TaggedEntityQuery(SCOPE_ID);
+
+        EntityManager em = CollisionEntityManagerFactory.getInstance().createEntityManager();
+        try {
+            List<KapuaId> resultIds = new ArrayList<>();
+            Iterator<TaggedEntity> iterator = ServiceDAO.iterate(em, TaggedEntity.class, TaggedEntity.class, query, 3);
+            while (iterator.hasNext()) {
+                resultIds.add(iterator.next().getId());
+            }
+
+            Assert.assertEquals(sortedIds(), resultIds);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static List<KapuaId> queryAllPages(TaggedEntityQuery query, int pageSize) throws KapuaException {
+        query.setLimit(pageSize);
+
+        EntityManager em = CollisionEntityManagerFactory.getInstance().createEntityManager();
+        try {
+            List<KapuaId> resultIds = new ArrayList<>();
+            KapuaId afterId = null;
+            KapuaListResult<TaggedEntity> page;
+            do {
+                page = ServiceDAO.queryAfter(em, TaggedEntity.class, TaggedEntity.class, new KapuaListResultImpl<>(), query, afterId);
+                Assert.assertTrue(page.getSize() <= pageSize);
+
+                for (TaggedEntity entity : page.getItems()) {
+                    resultIds.add(entity.getId());
+                    afterId = entity.getId();
+                }
+            } while (page.isLimitExceeded());
+
+            return resultIds;
+        } finally {
+            em.close();
+        }
+    }
+
+    private static List<KapuaId> sortedIds() {
+        List<KapuaId> sortedIds = new ArrayList<>(ENTITY_IDS);
+        sortedIds.sort((id1, id2) -> id1.getId().compareTo(id2.getId()));
+        return sortedIds;
+    }
+
+    private static KapuaId id(long id) {
+        return new KapuaEid(BigInteger.valueOf(id));
+    }
+}
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.service.internal;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.jpa.EntityManager;
+import org.eclipse.kapua.commons.liquibase.KapuaLiquibaseClient;
+import org.eclipse.kapua.commons.model.AbstractCommonServiceTest;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.model.misc.CollisionEntityManagerFactory;
+import org.eclipse.kapua.commons.model.misc.TaggedEntity;
+import org.eclipse.kapua.commons.model.misc.TaggedEntityQuery;
+import org.eclipse.kapua.commons.model.query.KapuaListResultImpl;
+import org.eclipse.kapua.model.KapuaEntityAttributes;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.model.query.KapuaListResult;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Test {@link ServiceDAO} queries on collection attributes and from concurrent threads.
+ */
+@Category(JUnitTests.class)
+public class ServiceDAOQueryTest extends AbstractCommonServiceTest {
+
+    private static final String TEST_FILTER = "test_tagged_entity_*_create.sql";
+
+    private static final KapuaId SCOPE_ID = id(3131);
+
+    @BeforeClass
+    public static void setUp() throws KapuaException {
+        new KapuaLiquibaseClient("jdbc:h2:mem:kapua;MODE=MySQL;DB_CLOSE_DELAY=-1", "kapua", "kapua").update();
+        scriptSession(DEFAULT_TEST_PATH, TEST_FILTER);
+
+        EntityManager em = CollisionEntityManagerFactory.getInstance().createEntityManager();
+        try {
+            em.beginTransaction();
+            ServiceDAO.create(em, new TaggedEntity(SCOPE_ID, id(1), ids(10, 11)));
+            ServiceDAO.create(em, new TaggedEntity(SCOPE_ID, id(2), ids(11)));
+            ServiceDAO.create(em, new TaggedEntity(SCOPE_ID, id(3), ids()));
+            ServiceDAO.create(em, new TaggedEntity(SCOPE_ID, id(4), ids(12)));
+            em.commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void queryInTagIds() throws KapuaException {
+        assertQuery(ids(1), query(TaggedEntity.TAG_IDS, new KapuaId[]{ id(10) }));
+        assertQuery(ids(1, 2), query(TaggedEntity.TAG_IDS, new KapuaId[]{ id(11) }));
+        assertQuery(ids(1, 2, 4), query(TaggedEntity.TAG_IDS, new KapuaId[]{ id(10), id(11), id(12) }));
+        assertQuery(ids(), query(TaggedEntity.TAG_IDS, new KapuaId[]{ id(13) }));
+    }
+
+    @Test
+    public void countInTagIds() throws KapuaException {
+        TaggedEntityQuery query = new TaggedEntityQuery(SCOPE_ID);
+        query.setPredicate(query.attributePredicate(TaggedEntity.TAG_IDS, new KapuaId[]{ id(10), id(11) }));
+
+        // Entities with more than one matching tag are counted once
+        Assert.assertEquals(2, count(query));
+    }
+
+    @Test
+    public void queryEqualTagId() throws KapuaException {
+        assertQuery(ids(4), query(TaggedEntity.TAG_IDS, id(12)));
+    }
+
+    @Test
+    public void queryTagIdsInOr() throws KapuaException {
+        TaggedEntityQuery query = new TaggedEntityQuery(SCOPE_ID);
+        query.setPredicate(query.orPredicate(
+                query.attributePredicate(TaggedEntity.TAG_IDS, new KapuaId[]{ id(10) }),
+                query.attributePredicate(KapuaEntityAttributes.ENTITY_ID, id(3))
+        ));
+
+        // The entity without tags matches the other OR predicate
+        assertQuery(ids(1, 3), query);
+    }
+
+    @Test
+    public void queryInEntityIds() throws KapuaException {
+        assertQuery(ids(1, 3, 4), query(KapuaEntityAttributes.ENTITY_ID, new KapuaId[]{ id(1), id(3), id(4) }));
+    }
+
+    @Test
+    public void concurrentQueriesWithSameShape() throws Exception {
+        List<Set<KapuaId>> expectedResults = Arrays.asList(ids(1), ids(1, 2), ids(4), ids());
+        List<KapuaId[]> tagIds = Arrays.asList(new KapuaId[]{ id(10) }, new KapuaId[]{ id(11) }, new KapuaId[]{ id(12) }, new KapuaId[]{ id(13) });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> queries = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int index = i % tagIds.size();
+                queries.add(executor.submit(() -> {
+                    assertQuery(expectedResults.get(index), query(TaggedEntity.TAG_IDS, tagIds.get(index)));
+                    return null;
+                }));
+            }
+            for (Future<?> query : queries) {
+                query.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static TaggedEntityQuery query(String attributeName, Object attributeValue) {
+        TaggedEntityQuery query = new TaggedEntityQuery(SCOPE_ID);
+        query.setPredicate(query.attributePredicate(attributeName, attributeValue));
+        return query;
+    }
+
+    private static void assertQuery(Set<KapuaId> expectedIds, TaggedEntityQuery query) throws KapuaException {
+        EntityManager em = CollisionEntityManagerFactory.getInstance().createEntityManager();
+        try {
+            KapuaListResult<TaggedEntity> result = ServiceDAO.query(em, TaggedEntity.class, TaggedEntity.class, new KapuaListResultImpl<>(), query);
+
+            List<KapuaId> resultIds = result.getItems().stream().map(TaggedEntity::getId).collect(Collectors.toList());
+            Assert.assertEquals("Duplicated results: " + resultIds, resultIds.size(), new HashSet<>(resultIds).size());
+            Assert.assertEquals(expectedIds, new HashSet<>(resultIds));
+        } finally {
+            em.close();
+        }
+    }
+
+    private static long count(TaggedEntityQuery query) throws KapuaException {
+        EntityManager em = CollisionEntityManagerFactory.getInstance().createEntityManager();
+        try {
+            return ServiceDAO.count(em, TaggedEntity.class, TaggedEntity.class, query);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static KapuaId id(long id) {
+        return new KapuaEid(BigInteger.valueOf(id));
+    }
+
+    private static Set<KapuaId> ids(long... ids) {
+        Set<KapuaId> kapuaIds = new HashSet<>();
+        for (long id : ids) {
+            kapuaIds.add(id(id));
+        }
+        return kapuaIds;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -16,8 +16,15 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import org.eclipse.persistence.jaxb.JAXBContextFactory;
+
+import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.ByteArrayOutputStream;
 import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
 
 @Category(JUnitTests.class)
 public class XmlUtilTest extends Assert {
@@ -74,4 +81,37 @@ public class XmlUtilTest extends Assert {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMarshalRoundTripWithPooledMarshallers() throws Exception {
+        JAXBContext context = JAXBContextFactory.createContext(new Class[] { TestBean.class }, null);
+        XmlUtil.setContextProvider(() -> context);
+        try {
+            for (int i = 0; i < 3; i++) {
+                TestBean testBean = new TestBean();
+                testBean.value = "value-" + i;
+
+                String xml = XmlUtil.marshal(testBean);
+                ByteArrayOutputStream xmlStream = new ByteArrayOutputStream();
+                XmlUtil.marshal(testBean, xmlStream);
+                assertEquals(xml, new String(xmlStream.toByteArray(), StandardCharsets.UTF_8));
+                assertEquals(testBean.value, XmlUtil.unmarshal(xml, TestBean.class).value);
+
+                String json = XmlUtil.marshalJson(testBean);
+                ByteArrayOutputStream jsonStream = new ByteArrayOutputStream();
+                XmlUtil.marshalJson(testBean, jsonStream);
+                assertEquals(json, new String(jsonStream.toByteArray(), StandardCharsets.UTF_8));
+                assertEquals(testBean.value, XmlUtil.unmarshalJson(json, TestBean.class, null).value);
+            }
+        } finally {
+            XmlUtil.setContextProvider(null);
+        }
+    }
+
+    @XmlRootElement(name = "testBean")
+    public static class TestBean {
+
+        @XmlElement(name = "value")
+        public String value;
+    }
+}
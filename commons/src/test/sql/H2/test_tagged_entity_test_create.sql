@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+
+CREATE TABLE IF NOT EXISTS tagged_entity_test (
+  scope_id             		BIGINT(21) 	  UNSIGNED NOT NULL,
+  id                     	BIGINT(21) 	  UNSIGNED NOT NULL,
+  created_on             	TIMESTAMP(3)  NOT NULL,
+  created_by             	BIGINT(21)    UNSIGNED NOT NULL,
+
+  PRIMARY KEY (id),
+
+  CHECK scope_id >= 0,
+  CHECK id >= 0,
+  CHECK created_by >= 0
+
+) ENGINE = InnoDB DEFAULT CHARSET = utf8;
+
+CREATE TABLE IF NOT EXISTS tagged_entity_test_tag (
+  entity_id             	BIGINT(21) 	  UNSIGNED NOT NULL,
+  tag_id                 	BIGINT(21) 	  UNSIGNED NOT NULL,
+
+  PRIMARY KEY (entity_id, tag_id),
+  FOREIGN KEY (entity_id) REFERENCES tagged_entity_test(id) ON DELETE CASCADE
+
+) ENGINE = InnoDB DEFAULT CHARSET = utf8;
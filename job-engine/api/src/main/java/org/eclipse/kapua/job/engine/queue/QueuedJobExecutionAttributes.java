@@ -25,4 +25,6 @@ public class QueuedJobExecutionAttributes extends KapuaUpdatableEntityAttributes
     public static final String JOB_EXECUTION_ID = "jobExecutionId";
 
     public static final String WAIT_FOR_JOB_EXECUTION_ID = "waitForJobExecutionId";
+
+    public static final String STATUS = "status";
 }
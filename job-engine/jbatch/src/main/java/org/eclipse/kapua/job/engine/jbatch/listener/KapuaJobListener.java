@@ -21,8 +21,6 @@ import org.eclipse.kapua.job.engine.commons.wrappers.JobContextWrapper;
 import org.eclipse.kapua.job.engine.jbatch.driver.JbatchDriver;
 import org.eclipse.kapua.job.engine.jbatch.exception.JobAlreadyRunningException;
 import org.eclipse.kapua.job.engine.jbatch.exception.JobExecutionEnqueuedException;
-import org.eclipse.kapua.job.engine.jbatch.setting.JobEngineSetting;
-import org.eclipse.kapua.job.engine.jbatch.setting.JobEngineSettingKeys;
 import org.eclipse.kapua.job.engine.queue.QueuedJobExecution;
 import org.eclipse.kapua.job.engine.queue.QueuedJobExecutionCreator;
 import org.eclipse.kapua.job.engine.queue.QueuedJobExecutionFactory;
@@ -59,7 +57,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
-import java.util.Timer;
 
 /**
  * {@link JobListener} implementations.
@@ -74,8 +71,6 @@ public class KapuaJobListener extends AbstractJobListener implements JobListener
 
     private static final String JBATCH_EXECUTION_ID = "JBATCH_EXECUTION_ID";
 
-    private static final JobEngineSetting JOB_ENGINE_SETTING = JobEngineSetting.getInstance();
-
     private static final KapuaLocator LOCATOR = KapuaLocator.getInstance();
 
     private static final JobExecutionService JOB_EXECUTION_SERVICE = LOCATOR.getService(JobExecutionService.class);
@@ -228,8 +223,7 @@ public class KapuaJobListener extends AbstractJobListener implements JobListener
 
                 checkQueuedJobExecutions(
                         jobContextWrapper.getScopeId(),
-                        jobContextWrapper.getJobId(),
-                        jobContextWrapper.getKapuaExecutionId());
+                        jobContextWrapper.getJobId());
             } else {
                 LOG.warn("Cannot find job execution with id: {}. This is likely to happen with the Job has been forcibly deleted.", kapuaExecutionId);
             }
@@ -353,16 +347,13 @@ public class KapuaJobListener extends AbstractJobListener implements JobListener
         return KapuaSecurityUtils.doPrivileged(() -> QUEUED_JOB_SERVICE.create(queuedJobExecutionCreator));
     }
 
-    private void checkQueuedJobExecutions(KapuaId scopeId, KapuaId jobId, KapuaId jobExecutionId) {
-
-        String timerName = new StringBuilder()
-                .append(KapuaJobListener.class.getSimpleName())
-                .append("-DelayedCheckTimer-")
-                .append(jobExecutionId)
-                .toString();
-
-        Timer queuedCheckTimer = new Timer(timerName, true);
-
-        queuedCheckTimer.schedule(new QueuedJobExecutionCheckTask(scopeId, jobId, jobExecutionId), JOB_ENGINE_SETTING.getLong(JobEngineSettingKeys.JOB_ENGINE_QUEUE_CHECK_DELAY));
+    /**
+     * Notifies the {@link QueuedJobExecutionScheduler} that a {@link JobExecution} of the {@link Job} has ended and an execution slot has been freed.
+     *
+     * @param scopeId The {@link Job#getScopeId()}
+     * @param jobId   The {@link Job#getId()}
+     */
+    private void checkQueuedJobExecutions(KapuaId scopeId, KapuaId jobId) {
+        QueuedJobExecutionScheduler.getInstance().scheduleCheck(scopeId, jobId);
     }
 }
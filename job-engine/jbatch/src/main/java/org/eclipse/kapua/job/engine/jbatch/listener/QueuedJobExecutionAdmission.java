@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.job.engine.jbatch.listener;
+
+import org.eclipse.kapua.job.engine.queue.QueuedJobExecution;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.job.execution.JobExecution;
+import org.eclipse.kapua.service.job.targets.JobTarget;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Admission rule of the {@link QueuedJobExecution}s of a {@link org.eclipse.kapua.service.job.Job}.
+ * <p>
+ * A {@link JobExecution} is enqueued when it shares {@link JobTarget}s with a running {@link JobExecution} of the same {@link org.eclipse.kapua.service.job.Job},
+ * so it is admitted when none of its {@link JobTarget}s is reserved.
+ * The {@link QueuedJobExecution}s must be offered in queue order: the {@link JobTarget}s of a {@link QueuedJobExecution} that is not admitted are reserved as well,
+ * so a later {@link QueuedJobExecution} never overtakes an earlier one on the same {@link JobTarget}s.
+ *
+ * @since 1.3.0
+ */
+public class QueuedJobExecutionAdmission {
+
+    private final Set<KapuaId> reservedTargetIds;
+
+    /**
+     * Constructor.
+     *
+     * @param runningTargetIds The {@link JobTarget} ids of the running {@link JobExecution}s of the {@link org.eclipse.kapua.service.job.Job}.
+     * @since 1.3.0
+     */
+    public QueuedJobExecutionAdmission(Set<KapuaId> runningTargetIds) {
+        reservedTargetIds = new HashSet<>(runningTargetIds);
+    }
+
+    /**
+     * Offers the next {@link QueuedJobExecution} of the queue.
+     * <p>
+     * Either way, its {@link JobTarget}s are reserved for the rest of the queue.
+     *
+     * @param targetIds The {@link JobExecution#getTargetIds()} of the {@link QueuedJobExecution}.
+     * @return {@code true} if the {@link QueuedJobExecution} can be resumed, {@code false} if it must keep waiting.
+     * @since 1.3.0
+     */
+    public boolean offer(Set<KapuaId> targetIds) {
+        boolean admitted = Collections.disjoint(reservedTargetIds, targetIds);
+        reservedTargetIds.addAll(targetIds);
+        return admitted;
+    }
+
+    /**
+     * Releases the {@link JobTarget}s of an admitted {@link QueuedJobExecution} that could not be resumed.
+     * <p>
+     * The {@link QueuedJobExecution} will never run, so it will never trigger the check that would admit the later {@link QueuedJobExecution}s on its {@link JobTarget}s:
+     * they must be admitted by the current check.
+     * It must be invoked right after the admitting {@link #offer(Set)}, before offering the next {@link QueuedJobExecution}.
+     * At that point none of the given {@link JobTarget}s was reserved by anything else, since they have been admitted.
+     *
+     * @param targetIds The {@link JobExecution#getTargetIds()} of the {@link QueuedJobExecution}.
+     * @since 1.3.0
+     */
+    public void release(Set<KapuaId> targetIds) {
+        reservedTargetIds.removeAll(targetIds);
+    }
+}
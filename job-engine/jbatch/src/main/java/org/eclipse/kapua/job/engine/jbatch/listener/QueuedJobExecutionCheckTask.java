@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019 Eurotech and/or its affiliates and others
+ * Copyright (c) 2019, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -11,12 +11,9 @@
  *******************************************************************************/
 package org.eclipse.kapua.job.engine.jbatch.listener;
 
-import org.eclipse.kapua.commons.model.query.predicate.AndPredicateImpl;
-import org.eclipse.kapua.commons.model.query.predicate.AttributePredicateImpl;
+import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
 import org.eclipse.kapua.job.engine.JobEngineService;
-import org.eclipse.kapua.job.engine.jbatch.setting.JobEngineSetting;
-import org.eclipse.kapua.job.engine.jbatch.setting.JobEngineSettingKeys;
 import org.eclipse.kapua.job.engine.queue.QueuedJobExecution;
 import org.eclipse.kapua.job.engine.queue.QueuedJobExecutionAttributes;
 import org.eclipse.kapua.job.engine.queue.QueuedJobExecutionFactory;
@@ -26,78 +23,155 @@ import org.eclipse.kapua.job.engine.queue.QueuedJobExecutionService;
 import org.eclipse.kapua.job.engine.queue.QueuedJobExecutionStatus;
 import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.model.query.SortOrder;
+import org.eclipse.kapua.service.job.execution.JobExecution;
+import org.eclipse.kapua.service.job.execution.JobExecutionAttributes;
+import org.eclipse.kapua.service.job.execution.JobExecutionFactory;
+import org.eclipse.kapua.service.job.execution.JobExecutionListResult;
+import org.eclipse.kapua.service.job.execution.JobExecutionQuery;
+import org.eclipse.kapua.service.job.execution.JobExecutionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.TimerTask;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
-public class QueuedJobExecutionCheckTask extends TimerTask {
+/**
+ * Resumes the {@link QueuedJobExecutionStatus#QUEUED} {@link QueuedJobExecution}s of a {@link org.eclipse.kapua.service.job.Job}
+ * whose {@link org.eclipse.kapua.service.job.targets.JobTarget}s are no longer used by a running {@link JobExecution}, in queue order (see {@link QueuedJobExecutionAdmission}).
+ *
+ * @see QueuedJobExecutionScheduler
+ * @since 1.1.0
+ */
+public class QueuedJobExecutionCheckTask implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(QueuedJobExecutionCheckTask.class);
 
-    private static final JobEngineSetting JOB_ENGINE_SETTING = JobEngineSetting.getInstance();
-
     private static final KapuaLocator LOCATOR = KapuaLocator.getInstance();
 
     private static final JobEngineService JOB_ENGINE_SERVICE = LOCATOR.getService(JobEngineService.class);
 
+    private static final JobExecutionService JOB_EXECUTION_SERVICE = LOCATOR.getService(JobExecutionService.class);
+    private static final JobExecutionFactory JOB_EXECUTION_FACTORY = LOCATOR.getFactory(JobExecutionFactory.class);
+
     private static final QueuedJobExecutionService QUEUED_JOB_EXECUTION_SERVICE = LOCATOR.getService(QueuedJobExecutionService.class);
     private static final QueuedJobExecutionFactory QUEUED_JOB_EXECUTION_FACTORY = LOCATOR.getFactory(QueuedJobExecutionFactory.class);
 
-
     private KapuaId scopeId;
     private KapuaId jobId;
-    private KapuaId jobExecutionId;
 
-    public QueuedJobExecutionCheckTask(KapuaId scopeId, KapuaId jobId, KapuaId jobExecutionId) {
+    public QueuedJobExecutionCheckTask(KapuaId scopeId, KapuaId jobId) {
         this.scopeId = scopeId;
         this.jobId = jobId;
-        this.jobExecutionId = jobExecutionId;
     }
 
     @Override
     public void run() {
-        LOG.info("Checking Job Execution queue for: {}...", jobExecutionId);
+        LOG.info("Checking Job Execution queue for: {}...", jobId);
 
         try {
             QueuedJobExecutionQuery query = QUEUED_JOB_EXECUTION_FACTORY.newQuery(scopeId);
 
             query.setPredicate(
-                    new AndPredicateImpl(
-                            new AttributePredicateImpl<>(QueuedJobExecutionAttributes.JOB_ID, jobId),
-                            new AttributePredicateImpl<>(QueuedJobExecutionAttributes.WAIT_FOR_JOB_EXECUTION_ID, jobExecutionId)
+                    query.andPredicate(
+                            query.attributePredicate(QueuedJobExecutionAttributes.JOB_ID, jobId),
+                            query.attributePredicate(QueuedJobExecutionAttributes.STATUS, QueuedJobExecutionStatus.QUEUED)
                     )
             );
+            query.setSortCriteria(query.fieldSortCriteria(QueuedJobExecutionAttributes.CREATED_ON, SortOrder.ASCENDING));
 
             QueuedJobExecutionListResult queuedJobExecutions = KapuaSecurityUtils.doPrivileged(() -> QUEUED_JOB_EXECUTION_SERVICE.query(query));
 
+            if (queuedJobExecutions.isEmpty()) {
+                LOG.info("Checking Job Execution queue for: {}... DONE! No queued job execution.", jobId);
+                return;
+            }
+
+            Set<KapuaId> queuedJobExecutionIds = new HashSet<>();
+            queuedJobExecutions.getItems().forEach(qje -> queuedJobExecutionIds.add(qje.getJobExecutionId()));
+
+            Map<KapuaId, Set<KapuaId>> queuedTargetIds = new HashMap<>();
+            for (JobExecution jobExecution : findQueuedJobExecutions(queuedJobExecutionIds).getItems()) {
+                queuedTargetIds.put(jobExecution.getId(), jobExecution.getTargetIds());
+            }
+
+            Set<KapuaId> runningTargetIds = new HashSet<>();
+            for (JobExecution jobExecution : findRunningJobExecutions().getItems()) {
+                if (!queuedJobExecutionIds.contains(jobExecution.getId())) {
+                    runningTargetIds.addAll(jobExecution.getTargetIds());
+                }
+            }
+
+            QueuedJobExecutionAdmission admission = new QueuedJobExecutionAdmission(runningTargetIds);
+
             int i = 0;
+            int resumedExecution = 0;
             int failedToResumeExecution = 0;
             for (QueuedJobExecution qje : queuedJobExecutions.getItems()) {
-                Thread.sleep(JOB_ENGINE_SETTING.getInt(JobEngineSettingKeys.JOB_ENGINE_QUEUE_PROCESSING_RUN_DELAY));
+                ++i;
+                Set<KapuaId> targetIds = queuedTargetIds.getOrDefault(qje.getJobExecutionId(), Collections.emptySet());
+                if (!admission.offer(targetIds)) {
+                    // Its targets are still in use. The execution using them will trigger a new check when it ends.
+                    LOG.debug("Job Execution ({}/{}): {} still waiting for its targets", i, queuedJobExecutions.getSize(), qje.getJobExecutionId());
+                    continue;
+                }
 
-                LOG.info("Resuming Job Execution ({}/{}): {}...", ++i, queuedJobExecutions.getSize(), qje.getJobExecutionId());
+                LOG.info("Resuming Job Execution ({}/{}): {}...", i, queuedJobExecutions.getSize(), qje.getJobExecutionId());
 
                 try {
                     KapuaSecurityUtils.doPrivileged(() -> JOB_ENGINE_SERVICE.resumeJobExecution(qje.getScopeId(), qje.getJobId(), qje.getJobExecutionId()));
 
                     qje.setStatus(QueuedJobExecutionStatus.PROCESSED);
-                    KapuaSecurityUtils.doPrivileged(() -> QUEUED_JOB_EXECUTION_SERVICE.update(qje));
+                    resumedExecution++;
                 } catch (Exception e) {
                     LOG.error("Resuming Job Execution ({}/{}): {}... ERROR!", i, queuedJobExecutions.getSize(), qje.getJobExecutionId(), e);
                     failedToResumeExecution++;
 
                     qje.setStatus(QueuedJobExecutionStatus.FAILED_TO_RESUME);
+
+                    // It won't run and trigger the next check: let the later entries on its targets be admitted now
+                    admission.release(targetIds);
+                }
+
+                try {
                     KapuaSecurityUtils.doPrivileged(() -> QUEUED_JOB_EXECUTION_SERVICE.update(qje));
+                } catch (Exception e) {
+                    LOG.error("Updating Queued Job Execution ({}/{}): {}... ERROR!", i, queuedJobExecutions.getSize(), qje.getId(), e);
                     continue;
                 }
 
-                LOG.info("Resuming Job Execution ({}/{}): {}... DONE!", i, queuedJobExecutions.getSize(), qje.getJobExecutionId());
+                if (QueuedJobExecutionStatus.PROCESSED.equals(qje.getStatus())) {
+                    LOG.info("Resuming Job Execution ({}/{}): {}... DONE!", i, queuedJobExecutions.getSize(), qje.getJobExecutionId());
+                }
             }
 
-            LOG.info("Checking Job Execution queue for: {}... DONE! Queued job failed to resume: {}.", jobExecutionId, failedToResumeExecution);
+            LOG.info("Checking Job Execution queue for: {}... DONE! Queued job resumed: {} - failed to resume: {}.", jobId, resumedExecution, failedToResumeExecution);
         } catch (Exception e) {
-            LOG.error("Checking Job Execution queue for: {}... ERROR!", jobExecutionId, e);
+            LOG.error("Checking Job Execution queue for: {}... ERROR!", jobId, e);
         }
     }
+
+    private JobExecutionListResult findQueuedJobExecutions(Set<KapuaId> jobExecutionIds) throws KapuaException {
+        JobExecutionQuery query = JOB_EXECUTION_FACTORY.newQuery(scopeId);
+
+        query.setPredicate(query.attributePredicate(JobExecutionAttributes.ENTITY_ID, jobExecutionIds.toArray()));
+
+        return KapuaSecurityUtils.doPrivileged(() -> JOB_EXECUTION_SERVICE.query(query));
+    }
+
+    private JobExecutionListResult findRunningJobExecutions() throws KapuaException {
+        JobExecutionQuery query = JOB_EXECUTION_FACTORY.newQuery(scopeId);
+
+        query.setPredicate(
+                query.andPredicate(
+                        query.attributePredicate(JobExecutionAttributes.JOB_ID, jobId),
+                        query.attributePredicate(JobExecutionAttributes.ENDED_ON, null)
+                )
+        );
+
+        return KapuaSecurityUtils.doPrivileged(() -> JOB_EXECUTION_SERVICE.query(query));
+    }
 }
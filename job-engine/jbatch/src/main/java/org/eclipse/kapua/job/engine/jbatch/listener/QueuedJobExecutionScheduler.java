@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.job.engine.jbatch.listener;
+
+import org.eclipse.kapua.job.engine.jbatch.driver.JbatchDriver;
+import org.eclipse.kapua.job.engine.queue.QueuedJobExecution;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.job.Job;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Admission scheduler for {@link QueuedJobExecution}s.
+ * <p>
+ * Each time a {@link org.eclipse.kapua.service.job.execution.JobExecution} ends, a single check of the queue of the {@link Job} is scheduled.
+ * The check resumes, in queue order, the {@link QueuedJobExecution}s whose targets are no longer in use (see {@link QueuedJobExecutionAdmission}),
+ * without waiting between each resume. No check is scheduled otherwise: the queue is not polled.
+ * <p>
+ * Checks are coalesced per {@link Job}: while a check is pending for a {@link Job}, further notifications for the same {@link Job} are absorbed by the pending one.
+ * The queue itself is persisted as {@link QueuedJobExecution}s, so no state is lost if the node restarts.
+ *
+ * @since 1.3.0
+ */
+public class QueuedJobExecutionScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueuedJobExecutionScheduler.class);
+
+    private static final QueuedJobExecutionScheduler INSTANCE = new QueuedJobExecutionScheduler();
+
+    private final ExecutorService checkExecutor;
+    private final Set<String> pendingChecks = ConcurrentHashMap.newKeySet();
+
+    private QueuedJobExecutionScheduler() {
+        checkExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, QueuedJobExecutionScheduler.class.getSimpleName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the {@link QueuedJobExecutionScheduler} instance (singleton).
+     *
+     * @return The {@link QueuedJobExecutionScheduler} instance.
+     * @since 1.3.0
+     */
+    public static QueuedJobExecutionScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Schedules a check of the queue of the given {@link Job}.
+     * <p>
+     * The check is run right away: it is invoked by {@link KapuaJobListener#afterJob()} once the ending execution has been updated with its
+     * {@link org.eclipse.kapua.service.job.execution.JobExecution#getEndedOn()}, so its targets are already seen as free.
+     * If a check for the same {@link Job} is already pending, this invocation is a no-op.
+     *
+     * @param scopeId The {@link Job#getScopeId()}.
+     * @param jobId   The {@link Job#getId()}.
+     * @since 1.3.0
+     */
+    public void scheduleCheck(KapuaId scopeId, KapuaId jobId) {
+        String jobName = JbatchDriver.getJbatchJobName(scopeId, jobId);
+
+        if (!pendingChecks.add(jobName)) {
+            LOG.debug("Check of Job Execution queue for: {} already pending", jobName);
+            return;
+        }
+
+        checkExecutor.execute(() -> {
+            pendingChecks.remove(jobName);
+            new QueuedJobExecutionCheckTask(scopeId, jobId).run();
+        });
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2018, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -23,11 +23,7 @@ public enum JobEngineSettingKeys implements SettingKey {
 
     JOB_ENGINE_STOP_WAIT_CHECK_TIME_MAX("jobEngine.stop.wait.check.time.max"),
 
-    JOB_ENGINE_STOP_WAIT_CHECK_TIME_INTERVAL("jobEngine.stop.wait.check.time.interval"),
-
-    JOB_ENGINE_QUEUE_CHECK_DELAY("jobEngine.queue.check.delay"),
-
-    JOB_ENGINE_QUEUE_PROCESSING_RUN_DELAY("jobEngine.queue.processing.run.delay");
+    JOB_ENGINE_STOP_WAIT_CHECK_TIME_INTERVAL("jobEngine.stop.wait.check.time.interval");
 
 
     private String key;
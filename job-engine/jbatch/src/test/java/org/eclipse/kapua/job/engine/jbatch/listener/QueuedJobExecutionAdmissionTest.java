@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.job.engine.jbatch.listener;
+
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+@Category(JUnitTests.class)
+public class QueuedJobExecutionAdmissionTest extends Assert {
+
+    @Test
+    public void admitWhenNothingRunning() {
+        QueuedJobExecutionAdmission admission = new QueuedJobExecutionAdmission(Collections.emptySet());
+
+        assertTrue(admission.offer(targets(1, 2)));
+        assertTrue(admission.offer(targets(3)));
+    }
+
+    @Test
+    public void waitForRunningTargets() {
+        QueuedJobExecutionAdmission admission = new QueuedJobExecutionAdmission(targets(1, 2));
+
+        assertFalse(admission.offer(targets(2, 3)));
+        assertTrue(admission.offer(targets(4)));
+    }
+
+    @Test
+    public void keepQueueOrderOnSameTargets() {
+        QueuedJobExecutionAdmission admission = new QueuedJobExecutionAdmission(targets(1));
+
+        // The first entry waits for target 1: the later entries on its targets must not overtake it
+        assertFalse(admission.offer(targets(1, 2)));
+        assertFalse(admission.offer(targets(2)));
+        assertTrue(admission.offer(targets(3)));
+    }
+
+    @Test
+    public void admitOnlyTheFirstOfOverlappingEntries() {
+        QueuedJobExecutionAdmission admission = new QueuedJobExecutionAdmission(Collections.emptySet());
+
+        assertTrue(admission.offer(targets(1, 2)));
+        assertFalse(admission.offer(targets(2)));
+        assertFalse(admission.offer(targets(1, 3)));
+        assertFalse(admission.offer(targets(3)));
+        assertTrue(admission.offer(targets(4)));
+    }
+
+    @Test
+    public void admitAfterReleaseOfFailedResume() {
+        QueuedJobExecutionAdmission admission = new QueuedJobExecutionAdmission(targets(1));
+
+        // The first entry is admitted but fails to resume: the entries waiting for its targets must not wait for good
+        assertTrue(admission.offer(targets(2, 3)));
+        admission.release(targets(2, 3));
+
+        assertTrue(admission.offer(targets(2)));
+        assertFalse(admission.offer(targets(3, 1)));
+        assertFalse(admission.offer(targets(3)));
+    }
+
+    @Test
+    public void releaseKeepsRunningTargetsReserved() {
+        QueuedJobExecutionAdmission admission = new QueuedJobExecutionAdmission(targets(1));
+
+        assertTrue(admission.offer(targets(2)));
+        admission.release(targets(2));
+
+        assertFalse(admission.offer(targets(1)));
+        assertTrue(admission.offer(targets(2)));
+    }
+
+    @Test
+    public void admitWithoutTargets() {
+        QueuedJobExecutionAdmission admission = new QueuedJobExecutionAdmission(targets(1));
+
+        assertTrue(admission.offer(Collections.emptySet()));
+    }
+
+    private static Set<KapuaId> targets(long... ids) {
+        Set<KapuaId> targetIds = new HashSet<>();
+        Arrays.stream(ids).forEach(id -> targetIds.add(new KapuaEid(BigInteger.valueOf(id))));
+        return targetIds;
+    }
+}
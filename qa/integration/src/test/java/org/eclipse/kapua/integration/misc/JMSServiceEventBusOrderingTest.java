@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.integration.misc;
+
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.jms.server.config.impl.JMSConfigurationImpl;
+import org.apache.activemq.artemis.jms.server.embedded.EmbeddedJMS;
+import org.eclipse.kapua.commons.event.jms.JMSServiceEventBus;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.event.ServiceEvent.EventStatus;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks that the events of an entity, published concurrently by several producers, are processed one at a time
+ * and in the order each producer published them, even if the subscription consumes with several sessions.
+ */
+@Category(JUnitTests.class)
+public class JMSServiceEventBusOrderingTest extends Assert {
+
+    private static final String ADDRESS = "ordering";
+    private static final String SUBSCRIPTION = "ordering-test";
+
+    private static final int ENTITIES = 4;
+    private static final int PRODUCERS_PER_ENTITY = 3;
+    private static final int EVENTS_PER_PRODUCER = 50;
+
+    private static EmbeddedJMS jmsServer;
+    private static JMSServiceEventBus eventBus;
+
+    @BeforeClass
+    public static void startEventBus() throws Exception {
+        System.setProperty(SystemSettingKey.EVENT_BUS_URL.key(), "amqp://127.0.0.1:5672");
+
+        Configuration configuration = new ConfigurationImpl();
+        configuration.setPersistenceEnabled(false);
+        configuration.setJournalDirectory("target/artemis" + UUID.randomUUID() + "/data/journal");
+        configuration.setSecurityEnabled(false);
+        configuration.addAcceptorConfiguration("amqp", "tcp://127.0.0.1:5672?protocols=AMQP");
+        jmsServer = new EmbeddedJMS().setConfiguration(configuration).setJmsConfiguration(new JMSConfigurationImpl()).start();
+
+        eventBus = new JMSServiceEventBus();
+        eventBus.start();
+    }
+
+    @AfterClass
+    public static void stopEventBus() throws Exception {
+        if (eventBus != null) {
+            eventBus.stop();
+        }
+        if (jmsServer != null) {
+            jmsServer.stop();
+        }
+    }
+
+    @Test
+    public void processEntityEventsInOrder() throws Exception {
+        int expectedEvents = ENTITIES * PRODUCERS_PER_ENTITY * EVENTS_PER_PRODUCER;
+        CountDownLatch received = new CountDownLatch(expectedEvents);
+        Map<KapuaId, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        Map<KapuaId, List<String>> processed = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+
+        eventBus.subscribe(ADDRESS, SUBSCRIPTION, kapuaEvent -> {
+            AtomicInteger entityInFlight = inFlight.computeIfAbsent(kapuaEvent.getEntityId(), entityId -> new AtomicInteger());
+            if (entityInFlight.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            try {
+                // widen the window in which another session could process an event of the same entity
+                Thread.sleep(1);
+                processed.computeIfAbsent(kapuaEvent.getEntityId(), entityId -> Collections.synchronizedList(new ArrayList<>())).add(kapuaEvent.getInputs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                entityInFlight.decrementAndGet();
+                received.countDown();
+            }
+        });
+
+        ExecutorService producers = Executors.newFixedThreadPool(ENTITIES * PRODUCERS_PER_ENTITY);
+        try {
+            List<Future<?>> publishing = new ArrayList<>();
+            for (int entity = 1; entity <= ENTITIES; entity++) {
+                KapuaId entityId = new KapuaEid(BigInteger.valueOf(entity));
+                for (int producer = 0; producer < PRODUCERS_PER_ENTITY; producer++) {
+                    int producerIndex = producer;
+                    publishing.add(producers.submit(() -> {
+                        for (int sequence = 0; sequence < EVENTS_PER_PRODUCER; sequence++) {
+                            eventBus.publish(ADDRESS, newEvent(entityId, producerIndex + ":" + sequence));
+                        }
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> producer : publishing) {
+                producer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            producers.shutdown();
+        }
+
+        assertTrue("Not all the events were processed", received.await(60, TimeUnit.SECONDS));
+        assertEquals("Events of the same entity were processed concurrently", 0, overlaps.get());
+        assertEquals(ENTITIES, processed.size());
+
+        for (Map.Entry<KapuaId, List<String>> entityEvents : processed.entrySet()) {
+            Map<String, Integer> lastSequences = new HashMap<>();
+            for (String inputs : entityEvents.getValue()) {
+                String[] producerSequence = inputs.split(":");
+                int sequence = Integer.parseInt(producerSequence[1]);
+                Integer lastSequence = lastSequences.put(producerSequence[0], sequence);
+                assertEquals(String.format("Event out of order for entity %s, producer %s", entityEvents.getKey(), producerSequence[0]),
+                        lastSequence != null ? lastSequence + 1 : 0, sequence);
+            }
+            assertEquals(PRODUCERS_PER_ENTITY * EVENTS_PER_PRODUCER, entityEvents.getValue().size());
+        }
+    }
+
+    private static ServiceEvent newEvent(KapuaId entityId, String inputs) {
+        ServiceEvent serviceEvent = new ServiceEvent();
+        serviceEvent.setId(UUID.randomUUID().toString());
+        serviceEvent.setContextId(UUID.randomUUID().toString());
+        serviceEvent.setTimestamp(new Date());
+        serviceEvent.setUserId(KapuaId.ONE);
+        serviceEvent.setScopeId(KapuaId.ONE);
+        serviceEvent.setService("org.eclipse.kapua.integration.misc.JMSServiceEventBusOrderingTest");
+        serviceEvent.setEntityType("org.eclipse.kapua.integration.misc.Entity");
+        serviceEvent.setEntityScopeId(KapuaId.ONE);
+        serviceEvent.setEntityId(entityId);
+        serviceEvent.setOperation("update");
+        serviceEvent.setInputs(inputs);
+        serviceEvent.setStatus(EventStatus.TRIGGERED);
+        return serviceEvent;
+    }
+}
@@ -1,5 +1,5 @@
 ###############################################################################
-# Copyright (c) 2017, 2019 Eurotech and/or its affiliates and others
+# Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
 #
 # All rights reserved. This program and the accompanying materials
 # are made available under the terms of the Eclipse Public License v1.0
@@ -975,6 +975,93 @@ Feature: Datastore tests
     Then An assertion error was thrown
     And I logout
 
+  Scenario: Aggregating a metric in time buckets
+  The time buckets of a metric aggregation are only computed over a time range bounded on both sides,
+  and only if the number of buckets does not exceed the configured maximum.
+
+    Given I login as user with name "kapua-sys" and password "kapua-password"
+    And I select account "kapua-sys"
+    When I create message query for current account with limit 10
+    Given I expect the exception "KapuaIllegalArgumentException" with the text "*"
+    When I aggregate the double metric "temperature" with interval "1h"
+    Then An exception was thrown
+    When I create message query for current account from "2018-12-01T00:00:00.000Z" to "2018-12-01T23:59:59.999Z" with limit 10
+    Given I expect the exception "KapuaIllegalArgumentException" with the text "*"
+    When I aggregate the double metric "temperature" with interval "1ms"
+    Then An exception was thrown
+    When I aggregate the double metric "temperature" with interval "1h"
+    Then No exception was thrown
+    And I logout
+
+  Scenario: Storing a batch of messages with invalid messages
+  The messages of a batch are validated one by one: the invalid ones are reported as rejected in the batch result,
+  at their position in the batch, while the valid ones are stored.
+
+    Given I login as user with name "kapua-sys" and password "kapua-password"
+    And I select account "kapua-sys"
+    And The device "test-client-1"
+    And I set the database to device timestamp indexing
+    And I prepare a number of messages with the following details and remember the list as "BatchMessages"
+      | clientId      | topic            |
+      | test-client-1 | batch/test/one   |
+      | test-client-1 | batch/test/two   |
+      | test-client-1 | batch/test/three |
+    And I clear the channel of the message 1 in the list "BatchMessages"
+    When I store the messages from list "BatchMessages" in a single batch and remember the result as "BatchResult"
+    Then No exception was thrown
+    And The batch result "BatchResult" reports 2 stored and 1 rejected messages
+    And The message 1 in the batch result "BatchResult" is rejected
+    When I refresh all indices
+    And I count the current account messages and store the count as "AccountMessageCount"
+    Then The value of "AccountMessageCount" is exactly 2
+    And I delete all indices
+    And I logout
+
+  Scenario: Storing a batch of messages in a scope without write access
+  The write access is checked for each scope of the messages of a batch, so the whole batch is refused
+  if it contains a message of a scope the user cannot write.
+
+    Given I login as user with name "kapua-sys" and password "kapua-password"
+    And Account
+      | name             | scopeId |
+      | datastore-batch  | 1       |
+    And I configure user service
+      | type    | name                       | value |
+      | boolean | infiniteChildEntities      | true  |
+      | integer | maxNumberChildEntities     | 5     |
+      | boolean | lockoutPolicy.enabled      | false |
+      | integer | lockoutPolicy.maxFailures  | 3     |
+      | integer | lockoutPolicy.resetAfter   | 300   |
+      | integer | lockoutPolicy.lockDuration | 3     |
+    And User A
+      | name            | displayName     | email                | phoneNumber     | status  | userType |
+      | datastore-batch | Datastore Batch | datastore@kapua.com  | +386 31 323 444 | ENABLED | INTERNAL |
+    And I add credentials
+      | name            | password          | enabled |
+      | datastore-batch | ToManySecrets123# | true    |
+    And Add permissions to the last created user
+      | domain    | action |
+      | datastore | write  |
+    And The device "test-client-1"
+    And I set the database to device timestamp indexing
+    And I prepare a number of messages with the following details and remember the list as "BatchMessages"
+      | clientId      | topic          |
+      | test-client-1 | batch/test/one |
+      | test-client-1 | batch/test/two |
+    And I logout
+    When I login as user with name "datastore-batch" and password "ToManySecrets123#"
+    And I store the messages from list "BatchMessages" in a single batch and remember the result as "BatchResult"
+    Then No exception was thrown
+    And The batch result "BatchResult" reports 2 stored and 0 rejected messages
+    When I move the message 1 in the list "BatchMessages" to the system account
+    Given I expect the exception "SubjectUnauthorizedException" with the text "Missing permission: datastore:write:"
+    When I store the messages from list "BatchMessages" in a single batch and remember the result as "BatchResult"
+    Then An exception was thrown
+    And I logout
+    And I login as user with name "kapua-sys" and password "kapua-password"
+    And I delete all indices
+    And I logout
+
   Scenario: Stop broker after all scenarios
 
     Given Stop Broker
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -20,6 +20,7 @@ import org.eclipse.kapua.app.api.resources.v1.resources.model.ScopeId;
 import org.eclipse.kapua.app.api.resources.v1.resources.model.StorableEntityId;
 import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.message.device.data.KapuaDataMessage;
+import org.eclipse.kapua.commons.util.ArgumentValidator;
 import org.eclipse.kapua.model.type.ObjectValueConverter;
 import org.eclipse.kapua.service.KapuaService;
 import org.eclipse.kapua.service.datastore.DatastoreObjectFactory;
@@ -30,8 +31,11 @@ import org.eclipse.kapua.service.datastore.internal.mediator.MessageField;
 import org.eclipse.kapua.service.datastore.internal.schema.MessageSchema;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreBatchResult;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
 import org.eclipse.kapua.service.datastore.model.query.AndPredicate;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregation;
 import org.eclipse.kapua.service.datastore.model.query.RangePredicate;
 import org.eclipse.kapua.service.datastore.model.query.SortField;
 import org.eclipse.kapua.service.datastore.model.query.SortDirection;
@@ -63,6 +67,11 @@ public class DataMessages extends AbstractKapuaResource {
     private static final DatastoreObjectFactory DATASTORE_OBJECT_FACTORY = LOCATOR.getFactory(DatastoreObjectFactory.class);
     private static final StorablePredicateFactory STORABLE_PREDICATE_FACTORY = LOCATOR.getFactory(StorablePredicateFactory.class);
 
+    /**
+     * Max number of messages stored by a single batch request
+     */
+    static final int BULK_MAX_MESSAGES = 1000;
+
     /**
      * Gets the {@link DatastoreMessage} list in the scope.
      *
@@ -74,6 +83,7 @@ public class DataMessages extends AbstractKapuaResource {
      * @param endDateParam   The end date to filter the results. Must come after startDate parameter
      * @param offset         The result set offset.
      * @param limit          The result set limit.
+     * @param nextKey        The key returned by the previous result set to get the next one (an empty value asks for the first one). When set the offset is ignored.
      * @return The {@link MessageListResult} of all the datastoreMessages associated to the current selected scope.
      * @throws KapuaException Whenever something bad happens. See specific {@link KapuaService} exceptions.
      * @since 1.0.0
@@ -94,8 +104,73 @@ public class DataMessages extends AbstractKapuaResource {
             @QueryParam("metricMax") String metricMaxValue, //
             @QueryParam("sortDir") @DefaultValue("DESC") SortDirection sortDir, //
             @QueryParam("offset") @DefaultValue("0") int offset,//
-            @QueryParam("limit") @DefaultValue("50") int limit) throws KapuaException {
+            @QueryParam("limit") @DefaultValue("50") int limit, //
+            @QueryParam("nextKey") String nextKey) throws KapuaException {
+
+        MessageQuery query = DATASTORE_OBJECT_FACTORY.newDatastoreMessageQuery(scopeId);
+        query.setPredicate(getQueryPredicate(clientId, channel, strictChannel, startDateParam, endDateParam, metricName, metricType, metricMinValue, metricMaxValue));
+        query.setOffset(offset);
+        query.setLimit(limit);
+        query.setNextKey(nextKey);
+
+        List<SortField> sort = new ArrayList<>();
+        sort.add(SortField.of(sortDir, MessageSchema.MESSAGE_TIMESTAMP));
+        query.setSortFields(sort);
+
+        return query(scopeId, query);
+    }
+
+    /**
+     * Computes the statistics of a metric over the {@link DatastoreMessage}s in the scope.
+     * The statistics are computed by the datastore, so the messages are not returned.
+     *
+     * @param scopeId        The {@link ScopeId} in which to search results.
+     * @param clientId       The client id to filter results.
+     * @param channel        The channel id to filter results. It allows '#' wildcard in last channel level.
+     * @param strictChannel  Restrict the search only to this channel ignoring its children. Only meaningful if channel is set.
+     * @param startDateParam The start date to filter the results. Must come before endDate parameter.
+     * @param endDateParam   The end date to filter the results. Must come after startDate parameter
+     * @param metricName     The name of the metric to aggregate.
+     * @param metricType     The type of the metric to aggregate. Must be a numeric type.
+     * @param metricMinValue The minimum value of the metric to filter results.
+     * @param metricMaxValue The maximum value of the metric to filter results.
+     * @param interval       The width of the time buckets (such as 30s, 15m, 1h, 1d). If not set only the overall statistics are computed, otherwise startDate and endDate are required.
+     * @param percents       The percentiles to compute (values between 0 and 100).
+     * @return The {@link MetricAggregationResult} of the metric over the messages matching the filters.
+     * @throws KapuaException Whenever something bad happens. See specific {@link KapuaService} exceptions.
+     * @since 1.3.0
+     */
+    @GET
+    @Path("_aggregate")
+    @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+    public <V extends Comparable<V>> MetricAggregationResult aggregate( //
+            @PathParam("scopeId") ScopeId scopeId, //
+            @QueryParam("clientId") String clientId, //
+            @QueryParam("channel") String channel, //
+            @QueryParam("strictChannel") boolean strictChannel, //
+            @QueryParam("startDate") DateParam startDateParam, //
+            @QueryParam("endDate") DateParam endDateParam, //
+            @QueryParam("metricName") String metricName, //
+            @QueryParam("metricType") MetricType<V> metricType, //
+            @QueryParam("metricMin") String metricMinValue, //
+            @QueryParam("metricMax") String metricMaxValue, //
+            @QueryParam("interval") String interval, //
+            @QueryParam("percents") List<Double> percents) throws KapuaException {
+        ArgumentValidator.notEmptyOrNull(metricName, "metricName");
+        ArgumentValidator.notNull(metricType, "metricType");
+
+        MessageQuery query = DATASTORE_OBJECT_FACTORY.newDatastoreMessageQuery(scopeId);
+        query.setPredicate(getQueryPredicate(clientId, channel, strictChannel, startDateParam, endDateParam, metricName, metricType, metricMinValue, metricMaxValue));
 
+        MetricAggregation aggregation = MetricAggregation.of(metricName, metricType.getType());
+        aggregation.setInterval(Strings.emptyToNull(interval));
+        aggregation.setPercents(percents);
+
+        return MESSAGE_STORE_SERVICE.aggregate(query, aggregation);
+    }
+
+    <V extends Comparable<V>> StorablePredicate getQueryPredicate(String clientId, String channel, boolean strictChannel, DateParam startDateParam, DateParam endDateParam,
+            String metricName, MetricType<V> metricType, String metricMinValue, String metricMaxValue) {
         AndPredicate andPredicate = STORABLE_PREDICATE_FACTORY.newAndPredicate();
         if (!Strings.isNullOrEmpty(clientId)) {
             TermPredicate clientIdPredicate = STORABLE_PREDICATE_FACTORY.newTermPredicate(MessageField.CLIENT_ID, clientId);
@@ -116,17 +191,7 @@ public class DataMessages extends AbstractKapuaResource {
         if (!Strings.isNullOrEmpty(metricName)) {
             andPredicate.getPredicates().add(getMetricPredicate(metricName, metricType, metricMinValue, metricMaxValue));
         }
-
-        MessageQuery query = DATASTORE_OBJECT_FACTORY.newDatastoreMessageQuery(scopeId);
-        query.setPredicate(andPredicate);
-        query.setOffset(offset);
-        query.setLimit(limit);
-
-        List<SortField> sort = new ArrayList<>();
-        sort.add(SortField.of(sortDir, MessageSchema.MESSAGE_TIMESTAMP));
-        query.setSortFields(sort);
-
-        return query(scopeId, query);
+        return andPredicate;
     }
 
     private StorablePredicate getChannelPredicate(String channel, boolean strictChannel) {
@@ -173,6 +238,28 @@ public class DataMessages extends AbstractKapuaResource {
         return returnCreated(new StorableEntityId(MESSAGE_STORE_SERVICE.store(message).toString()));
     }
 
+    /**
+     * Stores a batch of Messages under the account of the currently connected user, with a single datastore round trip.
+     * The messages are only stored in the back-end database and they are not forwarded to the message broker.
+     *
+     * @param scopeId  The {@link ScopeId} in which to store the messages.
+     * @param messages The {@link KapuaDataMessage}s to be stored (at most {@value #BULK_MAX_MESSAGES}).
+     * @return The {@link MessageStoreBatchResult} reporting the outcome of each message, in the same order of the messages.
+     * @throws KapuaException Whenever something bad happens. See specific {@link KapuaService} exceptions.
+     * @since 1.3.0
+     */
+    MessageStoreBatchResult storeMessages(ScopeId scopeId, List<KapuaDataMessage> messages) throws KapuaException {
+        ArgumentValidator.notEmptyOrNull(messages, "messages");
+        ArgumentValidator.numRange(messages.size(), 1, BULK_MAX_MESSAGES, "messages");
+
+        for (KapuaDataMessage message : messages) {
+            if (message != null) {
+                message.setScopeId(scopeId);
+            }
+        }
+        return MESSAGE_STORE_SERVICE.store(messages);
+    }
+
     /**
      * Queries the results with the given {@link MessageQuery} parameter.
      *
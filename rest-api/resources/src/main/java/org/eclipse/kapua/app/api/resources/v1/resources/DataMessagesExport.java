@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.app.api.resources.v1.resources;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.KapuaIllegalArgumentException;
+import org.eclipse.kapua.commons.util.ArgumentValidator;
+import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
+import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+
+import javax.xml.bind.JAXBException;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the {@link DatastoreMessage}s matching a {@link MessageQuery} as newline delimited JSON, one page at a time (see {@link DataMessagesJson#export}).
+ * <p>
+ * Each page after the first one is read with the {@link MessageListResult#getNextKey()} of the previous one, until a page has no next key.
+ * Each message is written as a single line, followed by a {@code '\n'}, and the output is flushed after each page.
+ *
+ * @since 1.3.0
+ */
+class DataMessagesExport {
+
+    /**
+     * Max number of messages read from the datastore at a time
+     */
+    static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Reads a page of {@link DatastoreMessage}s.
+     *
+     * @since 1.3.0
+     */
+    @FunctionalInterface
+    interface PageReader {
+
+        MessageListResult read(MessageQuery query) throws KapuaException;
+    }
+
+    /**
+     * Writes a {@link DatastoreMessage} as a single line JSON document, without the trailing newline.
+     *
+     * @since 1.3.0
+     */
+    @FunctionalInterface
+    interface MessageWriter {
+
+        void write(DatastoreMessage message, OutputStream outputStream) throws JAXBException, IOException;
+    }
+
+    private DataMessagesExport() {
+    }
+
+    /**
+     * Checks the number of messages read from the datastore at a time.
+     *
+     * @param pageSize The page size.
+     * @throws KapuaIllegalArgumentException If the page size is not between 1 and {@link #MAX_PAGE_SIZE}.
+     * @since 1.3.0
+     */
+    static void checkPageSize(int pageSize) throws KapuaIllegalArgumentException {
+        ArgumentValidator.numRange(pageSize, 1, MAX_PAGE_SIZE, "pageSize");
+    }
+
+    /**
+     * Writes the given first page and the following ones.
+     *
+     * @param query         The {@link MessageQuery} of the first page. Its next key is updated to read the following pages.
+     * @param firstPage     The first page, already read with the given {@link MessageQuery}.
+     * @param pageReader    The {@link PageReader} of the following pages.
+     * @param messageWriter The {@link MessageWriter} of each message.
+     * @param outputStream  The {@link OutputStream} to write to.
+     * @return The number of written messages.
+     * @throws KapuaException If a following page cannot be read. The pages already written are left in the {@link OutputStream}.
+     * @throws JAXBException  If a message cannot be written.
+     * @throws IOException    If the {@link OutputStream} cannot be written.
+     * @since 1.3.0
+     */
+    static long write(MessageQuery query, MessageListResult firstPage, PageReader pageReader, MessageWriter messageWriter, OutputStream outputStream)
+            throws KapuaException, JAXBException, IOException {
+        long written = 0;
+        MessageListResult page = firstPage;
+        while (true) {
+            for (DatastoreMessage datastoreMessage : page.getItems()) {
+                messageWriter.write(datastoreMessage, outputStream);
+                outputStream.write('\n');
+                written++;
+            }
+            outputStream.flush();
+
+            if (page.getNextKey() == null) {
+                return written;
+            }
+            query.setNextKey(page.getNextKey().toString());
+            page = pageReader.read(query);
+        }
+    }
+}
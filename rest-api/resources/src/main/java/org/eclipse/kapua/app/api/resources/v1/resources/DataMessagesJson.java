@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2018, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -11,7 +11,13 @@
  *******************************************************************************/
 package org.eclipse.kapua.app.api.resources.v1.resources;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.KapuaIllegalArgumentException;
 import org.eclipse.kapua.app.api.resources.v1.resources.marker.JsonSerializationFixed;
 import org.eclipse.kapua.app.api.resources.v1.resources.model.DateParam;
 import org.eclipse.kapua.app.api.resources.v1.resources.model.MetricType;
@@ -28,12 +34,16 @@ import org.eclipse.kapua.message.device.data.KapuaDataPayload;
 import org.eclipse.kapua.model.type.ObjectValueConverter;
 import org.eclipse.kapua.service.KapuaService;
 import org.eclipse.kapua.service.datastore.DatastoreObjectFactory;
+import org.eclipse.kapua.service.datastore.internal.schema.MessageSchema;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreBatchResult;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
 import org.eclipse.kapua.service.datastore.model.query.SortDirection;
 import org.eclipse.kapua.service.datastore.model.query.SortField;
 import org.eclipse.kapua.service.datastore.model.query.XmlAdaptedSortField;
+import org.eclipse.persistence.jaxb.MarshallerProperties;
+import org.eclipse.persistence.jaxb.UnmarshallerProperties;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DefaultValue;
@@ -43,8 +53,25 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.Providers;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.stream.StreamSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -62,6 +89,16 @@ public class DataMessagesJson extends AbstractKapuaResource implements JsonSeria
 
     private static final DataMessages DATA_MESSAGES = new DataMessages();
 
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Newline delimited JSON media type (one JSON document per line)
+     */
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    @Context
+    private Providers providers;
+
     /**
      * Gets the {@link DatastoreMessage} list in the scope.
      *
@@ -73,6 +110,7 @@ public class DataMessagesJson extends AbstractKapuaResource implements JsonSeria
      * @param endDateParam   The end date to filter the results. Must come after startDate parameter
      * @param offset         The result set offset.
      * @param limit          The result set limit.
+     * @param nextKey        The key returned by the previous result set to get the next one (an empty value asks for the first one). When set the offset is ignored.
      * @return The {@link MessageListResult} of all the datastoreMessages associated to the current selected scope.
      * @throws KapuaException Whenever something bad happens. See specific {@link KapuaService} exceptions.
      * @since 1.0.0
@@ -93,7 +131,8 @@ public class DataMessagesJson extends AbstractKapuaResource implements JsonSeria
             @QueryParam("metricMax") String metricMaxValue,
             @QueryParam("sortDir") @DefaultValue("DESC") SortDirection sortDir,
             @QueryParam("offset") @DefaultValue("0") int offset,
-            @QueryParam("limit") @DefaultValue("50") int limit) throws KapuaException {
+            @QueryParam("limit") @DefaultValue("50") int limit,
+            @QueryParam("nextKey") String nextKey) throws KapuaException {
 
         MessageListResult result = DATA_MESSAGES.simpleQuery(
                 scopeId,
@@ -108,7 +147,8 @@ public class DataMessagesJson extends AbstractKapuaResource implements JsonSeria
                 metricMaxValue,
                 sortDir,
                 offset,
-                limit);
+                limit,
+                nextKey);
 
         List<JsonDatastoreMessage> jsonDatastoreMessages = new ArrayList<>();
         result.getItems().forEach(m -> jsonDatastoreMessages.add(new JsonDatastoreMessage(m)));
@@ -116,6 +156,7 @@ public class DataMessagesJson extends AbstractKapuaResource implements JsonSeria
         jsonResult.addItems(jsonDatastoreMessages);
         jsonResult.setTotalCount(result.getTotalCount());
         jsonResult.setLimitExceeded(result.isLimitExceeded());
+        jsonResult.setNextKey(result.getNextKey());
         return jsonResult;
     }
 
@@ -137,7 +178,114 @@ public class DataMessagesJson extends AbstractKapuaResource implements JsonSeria
     public Response storeMessageJson(
             @PathParam("scopeId") ScopeId scopeId,
             JsonKapuaDataMessage jsonKapuaDataMessage) throws KapuaException {
+        return returnCreated(DATA_MESSAGES.storeMessage(scopeId, toKapuaDataMessage(scopeId, jsonKapuaDataMessage)));
+    }
 
+    /**
+     * Stores a batch of Messages, sent as a JSON array, under the account of the currently connected user.
+     * The messages are stored with a single datastore round trip and they are not forwarded to the message broker.
+     * <p>
+     * The array is read one message at a time, so a request with more than {@link DataMessages#BULK_MAX_MESSAGES} messages is rejected
+     * as soon as the limit is exceeded, without reading the rest of it.
+     *
+     * @param scopeId        The {@link ScopeId} in which to store the messages.
+     * @param messagesStream The {@link KapuaDataMessage}s to be stored, as a JSON array.
+     * @return The {@link MessageStoreBatchResult} reporting the outcome of each message, in the same order of the messages.
+     * @throws KapuaException Whenever something bad happens. See specific {@link KapuaService} exceptions.
+     * @since 1.3.0
+     */
+    @POST
+    @Path("_bulk")
+    @Consumes({MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON})
+    public MessageStoreBatchResult storeMessagesJson(
+            @PathParam("scopeId") ScopeId scopeId,
+            InputStream messagesStream) throws KapuaException {
+        Unmarshaller unmarshaller = createJsonUnmarshaller();
+
+        List<KapuaDataMessage> kapuaDataMessages = new ArrayList<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(messagesStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new KapuaIllegalArgumentException("messages", "a JSON array is required");
+            }
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (kapuaDataMessages.size() == DataMessages.BULK_MAX_MESSAGES) {
+                    throw new KapuaIllegalArgumentException("messages", String.format("more than %s messages", DataMessages.BULK_MAX_MESSAGES));
+                }
+                String item = String.format("item %s", kapuaDataMessages.size() + 1);
+                if (token != JsonToken.START_OBJECT) {
+                    throw new KapuaIllegalArgumentException("messages", item);
+                }
+
+                // Copy the single message, so that only one of them is held as text at a time
+                StringWriter messageWriter = new StringWriter();
+                try (JsonGenerator generator = JSON_FACTORY.createGenerator(messageWriter)) {
+                    generator.copyCurrentStructure(parser);
+                }
+                kapuaDataMessages.add(toKapuaDataMessage(scopeId, unmarshalMessage(unmarshaller, messageWriter.toString(), item)));
+            }
+        } catch (JsonParseException e) {
+            throw new KapuaIllegalArgumentException("messages", String.format("item %s", kapuaDataMessages.size() + 1));
+        } catch (IOException e) {
+            throw KapuaException.internalError(e, "Unable to read the messages.");
+        }
+        return DATA_MESSAGES.storeMessages(scopeId, kapuaDataMessages);
+    }
+
+    /**
+     * Stores a batch of Messages, sent as newline delimited JSON (one message per line), under the account of the currently connected user.
+     * The messages are stored with a single datastore round trip and they are not forwarded to the message broker.
+     *
+     * @param scopeId        The {@link ScopeId} in which to store the messages.
+     * @param messagesStream The {@link KapuaDataMessage}s to be stored, one JSON document per line. Blank lines are skipped.
+     * @return The {@link MessageStoreBatchResult} reporting the outcome of each message, in the same order of the messages.
+     * @throws KapuaException Whenever something bad happens. See specific {@link KapuaService} exceptions.
+     * @since 1.3.0
+     */
+    @POST
+    @Path("_bulk")
+    @Consumes({ APPLICATION_NDJSON })
+    @Produces({MediaType.APPLICATION_JSON})
+    public MessageStoreBatchResult storeMessagesNdjson(
+            @PathParam("scopeId") ScopeId scopeId,
+            InputStream messagesStream) throws KapuaException {
+        Unmarshaller unmarshaller = createJsonUnmarshaller();
+
+        List<KapuaDataMessage> kapuaDataMessages = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(messagesStream, StandardCharsets.UTF_8))) {
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                if (kapuaDataMessages.size() == DataMessages.BULK_MAX_MESSAGES) {
+                    throw new KapuaIllegalArgumentException("messages", String.format("more than %s messages", DataMessages.BULK_MAX_MESSAGES));
+                }
+
+                kapuaDataMessages.add(toKapuaDataMessage(scopeId, unmarshalMessage(unmarshaller, line, String.format("line %s", lineNumber))));
+            }
+        } catch (IOException e) {
+            throw KapuaException.internalError(e, "Unable to read the messages.");
+        }
+        return DATA_MESSAGES.storeMessages(scopeId, kapuaDataMessages);
+    }
+
+    /**
+     * Unmarshals a single {@link JsonKapuaDataMessage}, reporting the given position of the message in the request when it is not valid
+     */
+    private JsonKapuaDataMessage unmarshalMessage(Unmarshaller unmarshaller, String message, String position) throws KapuaIllegalArgumentException {
+        try {
+            return unmarshaller.unmarshal(new StreamSource(new StringReader(message)), JsonKapuaDataMessage.class).getValue();
+        } catch (JAXBException e) {
+            throw new KapuaIllegalArgumentException("messages", position);
+        }
+    }
+
+    private KapuaDataMessage toKapuaDataMessage(ScopeId scopeId, JsonKapuaDataMessage jsonKapuaDataMessage) {
         KapuaDataMessage kapuaDataMessage = KAPUA_DATA_MESSAGE_FACTORY.newKapuaDataMessage();
 
         kapuaDataMessage.setId(jsonKapuaDataMessage.getId());
@@ -164,8 +312,7 @@ public class DataMessagesJson extends AbstractKapuaResource implements JsonSeria
                     });
         }
         kapuaDataMessage.setPayload(kapuaDataPayload);
-
-        return returnCreated(DATA_MESSAGES.storeMessage(scopeId, kapuaDataMessage));
+        return kapuaDataMessage;
     }
 
     /**
@@ -196,9 +343,123 @@ public class DataMessagesJson extends AbstractKapuaResource implements JsonSeria
         jsonResult.addItems(jsonDatastoreMessages);
         jsonResult.setLimitExceeded(result.isLimitExceeded());
         jsonResult.setTotalCount(result.getTotalCount());
+        jsonResult.setNextKey(result.getNextKey());
         return jsonResult;
     }
 
+    /**
+     * Exports the {@link DatastoreMessage}s in the scope as newline delimited JSON (one {@link JsonDatastoreMessage} per line).
+     * <p>
+     * The messages are read from the datastore one page at a time, using the key of the previous page, and written to the response as they are read,
+     * so there is no limit on the number of messages exported.
+     * <p>
+     * Only the errors reading the first page are reported with their status: once it is written the response status is 200,
+     * so a failure reading a following page aborts the response and leaves the stream truncated after the last complete line.
+     * Clients must check that the response ended normally (terminating chunk received) before relying on the export being complete.
+     *
+     * @param scopeId        The {@link ScopeId} in which to search results.
+     * @param clientId       The client id to filter results.
+     * @param channel        The channel id to filter results. It allows '#' wildcard in last channel level.
+     * @param strictChannel  Restrict the search only to this channel ignoring its children. Only meaningful if channel is set.
+     * @param startDateParam The start date to filter the results. Must come before endDate parameter.
+     * @param endDateParam   The end date to filter the results. Must come after startDate parameter
+     * @param metricName     The name of the metric to filter results.
+     * @param metricType     The type of the metric to filter results.
+     * @param metricMinValue The minimum value of the metric to filter results.
+     * @param metricMaxValue The maximum value of the metric to filter results.
+     * @param sortDir        The sort direction of the message timestamp.
+     * @param pageSize       The number of messages read from the datastore at a time (between 1 and 1000).
+     * @return The {@link Response} streaming the messages.
+     * @throws KapuaException Whenever something bad happens. See specific {@link KapuaService} exceptions.
+     * @since 1.3.0
+     */
+    @GET
+    @Path("_export")
+    @Produces({ APPLICATION_NDJSON })
+    public <V extends Comparable<V>> Response export(
+            @PathParam("scopeId") ScopeId scopeId,
+            @QueryParam("clientId") String clientId,
+            @QueryParam("channel") String channel,
+            @QueryParam("strictChannel") boolean strictChannel,
+            @QueryParam("startDate") DateParam startDateParam,
+            @QueryParam("endDate") DateParam endDateParam,
+            @QueryParam("metricName") String metricName,
+            @QueryParam("metricType") MetricType<V> metricType,
+            @QueryParam("metricMin") String metricMinValue,
+            @QueryParam("metricMax") String metricMaxValue,
+            @QueryParam("sortDir") @DefaultValue("ASC") SortDirection sortDir,
+            @QueryParam("pageSize") @DefaultValue("500") int pageSize) throws KapuaException {
+        DataMessagesExport.checkPageSize(pageSize);
+
+        MessageQuery query = DATASTORE_OBJECT_FACTORY.newDatastoreMessageQuery(scopeId);
+        query.setPredicate(DATA_MESSAGES.getQueryPredicate(clientId, channel, strictChannel, startDateParam, endDateParam, metricName, metricType, metricMinValue, metricMaxValue));
+        query.setLimit(pageSize);
+        query.setNextKey("");
+
+        List<SortField> sort = new ArrayList<>();
+        sort.add(SortField.of(sortDir, MessageSchema.MESSAGE_TIMESTAMP));
+        query.setSortFields(sort);
+
+        // The first page is read before streaming, so that errors are still reported with the proper status
+        MessageListResult firstPage = DATA_MESSAGES.query(scopeId, query);
+        Marshaller marshaller = createJsonMarshaller();
+
+        StreamingOutput output = outputStream -> {
+            try {
+                DataMessagesExport.write(
+                        query,
+                        firstPage,
+                        nextPageQuery -> DATA_MESSAGES.query(scopeId, nextPageQuery),
+                        (datastoreMessage, messageOutputStream) -> marshaller.marshal(new JsonDatastoreMessage(datastoreMessage), messageOutputStream),
+                        outputStream);
+            } catch (KapuaException | JAXBException e) {
+                // The 200 status has already been sent: the response is aborted, leaving the stream truncated
+                throw new WebApplicationException(e);
+            }
+        };
+        return Response.ok(output, APPLICATION_NDJSON).build();
+    }
+
+    /**
+     * Creates a marshaller writing the objects as single line JSON documents, with the same settings of the JSON responses
+     */
+    private Marshaller createJsonMarshaller() throws KapuaException {
+        try {
+            Marshaller marshaller = getJsonJaxbContext().createMarshaller();
+            marshaller.setProperty(MarshallerProperties.MEDIA_TYPE, MediaType.APPLICATION_JSON);
+            marshaller.setProperty(MarshallerProperties.JSON_INCLUDE_ROOT, false);
+            marshaller.setProperty(MarshallerProperties.JSON_WRAPPER_AS_ARRAY_NAME, true);
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, false);
+            return marshaller;
+        } catch (JAXBException e) {
+            throw KapuaException.internalError(e, "Unable to create the JSON marshaller.");
+        }
+    }
+
+    /**
+     * Creates an unmarshaller reading single JSON documents, with the same settings of the JSON requests
+     */
+    private Unmarshaller createJsonUnmarshaller() throws KapuaException {
+        try {
+            Unmarshaller unmarshaller = getJsonJaxbContext().createUnmarshaller();
+            unmarshaller.setProperty(UnmarshallerProperties.MEDIA_TYPE, MediaType.APPLICATION_JSON);
+            unmarshaller.setProperty(UnmarshallerProperties.JSON_INCLUDE_ROOT, false);
+            unmarshaller.setProperty(UnmarshallerProperties.JSON_WRAPPER_AS_ARRAY_NAME, true);
+            return unmarshaller;
+        } catch (JAXBException e) {
+            throw KapuaException.internalError(e, "Unable to create the JSON unmarshaller.");
+        }
+    }
+
+    private JAXBContext getJsonJaxbContext() throws KapuaException {
+        ContextResolver<JAXBContext> contextResolver = providers != null ? providers.getContextResolver(JAXBContext.class, MediaType.APPLICATION_JSON_TYPE) : null;
+        JAXBContext jaxbContext = contextResolver != null ? contextResolver.getContext(JsonDatastoreMessage.class) : null;
+        if (jaxbContext == null) {
+            throw KapuaException.internalError("Unable to get a JAXBContext.");
+        }
+        return jaxbContext;
+    }
+
     /**
      * Returns the DatastoreMessage specified by the "datastoreMessageId" path parameter.
      *
@@ -228,6 +489,7 @@ public class DataMessagesJson extends AbstractKapuaResource implements JsonSeria
         messageQuery.setFetchStyle(query.getFetchStyle());
         messageQuery.setLimit(query.getLimit());
         messageQuery.setOffset(query.getOffset());
+        messageQuery.setNextKey(query.getNextKey());
         messageQuery.setPredicate(query.getPredicate());
 
         List<SortField> sortFields = new ArrayList<>();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2018, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -45,6 +45,7 @@ public class JsonMessageQuery {
     private KapuaId scopeId;
     private Integer limit;
     private Integer indexOffset;
+    private String nextKey;
     private boolean askTotalCount;
     private List<XmlAdaptedSortField> sortFields;
     private StorableFetchStyle fetchStyle;
@@ -114,6 +115,15 @@ public class JsonMessageQuery {
         return limit;
     }
 
+    @XmlElement(name = "nextKey")
+    public String getNextKey() {
+        return nextKey;
+    }
+
+    public void setNextKey(String nextKey) {
+        this.nextKey = nextKey;
+    }
+
     @XmlElement(name = "askTotalCount")
     public boolean isAskTotalCount() {
         return askTotalCount;
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.app.api.resources.v1.resources;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.KapuaIllegalArgumentException;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.model.DatastoreMessageImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MessageListResultImpl;
+import org.eclipse.kapua.service.datastore.internal.model.StorableIdImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MessageQueryImpl;
+import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
+import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Category(JUnitTests.class)
+public class DataMessagesExportTest extends Assert {
+
+    private static final DataMessagesExport.MessageWriter MESSAGE_WRITER =
+            (message, outputStream) -> outputStream.write(("{\"datastoreId\":\"" + message.getDatastoreId() + "\"}").getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    public void pageSizeBounds() throws KapuaIllegalArgumentException {
+        DataMessagesExport.checkPageSize(1);
+        DataMessagesExport.checkPageSize(DataMessagesExport.MAX_PAGE_SIZE);
+
+        assertInvalidPageSize(0);
+        assertInvalidPageSize(-1);
+        assertInvalidPageSize(DataMessagesExport.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test
+    public void pagesFollowedByNextKey() throws Exception {
+        Map<String, MessageListResult> pages = new HashMap<>();
+        pages.put("key-1", page("key-2", "3", "4"));
+        pages.put("key-2", page(null, "5"));
+        List<String> readKeys = new ArrayList<>();
+
+        MessageQuery query = new MessageQueryImpl(KapuaId.ONE);
+        query.setNextKey("");
+        FlushCountingOutputStream outputStream = new FlushCountingOutputStream();
+
+        long written = DataMessagesExport.write(query, page("key-1", "1", "2"), nextPageQuery -> {
+            readKeys.add(nextPageQuery.getNextKey());
+            return pages.get(nextPageQuery.getNextKey());
+        }, MESSAGE_WRITER, outputStream);
+
+        assertEquals(5, written);
+        // the first page is not read again, the following ones are read with the key of the previous page
+        assertEquals(Arrays.asList("key-1", "key-2"), readKeys);
+        assertEquals(lines("1", "2", "3", "4", "5"), outputStream.toString());
+        assertEquals(3, outputStream.flushes);
+    }
+
+    @Test
+    public void singlePage() throws Exception {
+        FlushCountingOutputStream outputStream = new FlushCountingOutputStream();
+
+        long written = DataMessagesExport.write(new MessageQueryImpl(KapuaId.ONE), page(null, "1"), nextPageQuery -> {
+            fail("No page to read after the last one");
+            return null;
+        }, MESSAGE_WRITER, outputStream);
+
+        assertEquals(1, written);
+        assertEquals(lines("1"), outputStream.toString());
+        assertEquals(1, outputStream.flushes);
+    }
+
+    @Test
+    public void emptyExport() throws Exception {
+        FlushCountingOutputStream outputStream = new FlushCountingOutputStream();
+
+        long written = DataMessagesExport.write(new MessageQueryImpl(KapuaId.ONE), page(null), nextPageQuery -> {
+            fail("No page to read after the last one");
+            return null;
+        }, MESSAGE_WRITER, outputStream);
+
+        assertEquals(0, written);
+        assertEquals("", outputStream.toString());
+    }
+
+    @Test
+    public void failureAfterFirstPage() throws IOException {
+        FlushCountingOutputStream outputStream = new FlushCountingOutputStream();
+        KapuaException failure = KapuaException.internalError("page read failure");
+
+        try {
+            DataMessagesExport.write(new MessageQueryImpl(KapuaId.ONE), page("key-1", "1", "2"), nextPageQuery -> {
+                throw failure;
+            }, MESSAGE_WRITER, outputStream);
+            fail("The page read failure must be thrown");
+        } catch (KapuaException e) {
+            assertSame(failure, e);
+        } catch (Exception e) {
+            fail("Unexpected exception: " + e);
+        }
+
+        // the stream is truncated after the complete lines of the first page, which were already flushed
+        assertEquals(lines("1", "2"), outputStream.toString());
+        assertEquals(1, outputStream.flushes);
+    }
+
+    private static void assertInvalidPageSize(int pageSize) {
+        try {
+            DataMessagesExport.checkPageSize(pageSize);
+            fail("Page size " + pageSize + " must be rejected");
+        } catch (KapuaIllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static MessageListResult page(String nextKey, String... datastoreIds) {
+        List<DatastoreMessage> messages = new ArrayList<>();
+        for (String datastoreId : datastoreIds) {
+            DatastoreMessageImpl message = new DatastoreMessageImpl();
+            message.setDatastoreId(new StorableIdImpl(datastoreId));
+            messages.add(message);
+        }
+
+        MessageListResultImpl page = new MessageListResultImpl();
+        page.addItems(messages);
+        page.setNextKey(nextKey);
+        return page;
+    }
+
+    private static String lines(String... datastoreIds) {
+        StringBuilder lines = new StringBuilder();
+        for (String datastoreId : datastoreIds) {
+            lines.append("{\"datastoreId\":\"").append(datastoreId).append("\"}\n");
+        }
+        return lines.toString();
+    }
+
+    private static class FlushCountingOutputStream extends ByteArrayOutputStream {
+
+        private int flushes;
+
+        @Override
+        public void flush() throws IOException {
+            super.flush();
+            flushes++;
+        }
+    }
+}
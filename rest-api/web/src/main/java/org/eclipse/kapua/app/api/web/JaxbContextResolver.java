@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -20,6 +20,7 @@ import org.eclipse.kapua.app.api.core.exception.model.ThrowableInfo;
 import org.eclipse.kapua.app.api.resources.v1.resources.model.CountResult;
 import org.eclipse.kapua.app.api.resources.v1.resources.model.StorableEntityId;
 import org.eclipse.kapua.app.api.resources.v1.resources.model.data.JsonDatastoreMessage;
+import org.eclipse.kapua.app.api.resources.v1.resources.model.data.JsonKapuaDataMessage;
 import org.eclipse.kapua.app.api.resources.v1.resources.model.data.JsonMessageQuery;
 import org.eclipse.kapua.app.api.resources.v1.resources.model.device.management.JsonGenericRequestMessage;
 import org.eclipse.kapua.app.api.resources.v1.resources.model.device.management.JsonGenericResponseMessage;
@@ -101,8 +102,14 @@ import org.eclipse.kapua.service.datastore.model.ClientInfo;
 import org.eclipse.kapua.service.datastore.model.ClientInfoListResult;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreBatchResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
+import org.eclipse.kapua.service.datastore.model.MetricBucket;
 import org.eclipse.kapua.service.datastore.model.MetricInfo;
 import org.eclipse.kapua.service.datastore.model.MetricInfoListResult;
+import org.eclipse.kapua.service.datastore.model.MetricPercentile;
+import org.eclipse.kapua.service.datastore.model.MetricStatistics;
 import org.eclipse.kapua.service.datastore.model.StorableId;
 import org.eclipse.kapua.service.datastore.model.query.ChannelInfoQuery;
 import org.eclipse.kapua.service.datastore.model.query.ClientInfoQuery;
@@ -115,6 +122,8 @@ import org.eclipse.kapua.service.datastore.model.query.XmlAdaptedSortFields;
 import org.eclipse.kapua.service.datastore.model.xml.ChannelInfoXmlRegistry;
 import org.eclipse.kapua.service.datastore.model.xml.ClientInfoXmlRegistry;
 import org.eclipse.kapua.service.datastore.model.xml.DatastoreMessageXmlRegistry;
+import org.eclipse.kapua.service.datastore.model.xml.MessageStoreResultXmlRegistry;
+import org.eclipse.kapua.service.datastore.model.xml.MetricAggregationXmlRegistry;
 import org.eclipse.kapua.service.datastore.model.xml.MetricInfoXmlRegistry;
 import org.eclipse.kapua.service.device.call.kura.model.bundle.KuraBundles;
 import org.eclipse.kapua.service.device.call.kura.model.configuration.KuraDeviceConfiguration;
@@ -302,9 +311,18 @@ public class JaxbContextResolver implements ContextResolver<JAXBContext> {
                     MessageListResult.class,
                     MessageQuery.class,
                     MessageXmlRegistry.class,
+                    MetricAggregationResult.class,
+                    MetricStatistics.class,
+                    MetricBucket.class,
+                    MetricPercentile.class,
+                    MetricAggregationXmlRegistry.class,
+                    MessageStoreBatchResult.class,
+                    MessageStoreResult.class,
+                    MessageStoreResultXmlRegistry.class,
 
                     JsonKapuaPayload.class,
                     JsonDatastoreMessage.class,
+                    JsonKapuaDataMessage.class,
 
                     DatastoreMessage.class,
                     DatastoreMessageXmlRegistry.class,
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -59,4 +59,15 @@ public interface AccountService extends KapuaEntityService<Account, AccountCreat
      * @throws KapuaException
      */
     AccountListResult findChildrenRecursively(KapuaId accountId) throws KapuaException;
+
+    /**
+     * Checks whether an {@link Account} is a descendant, at any depth, of the given {@link Account}.
+     *
+     * @param accountId    The {@link KapuaId} of the ancestor {@link Account}.
+     * @param descendantId The {@link KapuaId} of the {@link Account} to check.
+     * @return {@code true} if the {@link Account} is a descendant of the given {@link Account}, {@code false} otherwise.
+     * @throws KapuaException
+     * @since 1.3.0
+     */
+    boolean isDescendant(KapuaId accountId, KapuaId descendantId) throws KapuaException;
 }
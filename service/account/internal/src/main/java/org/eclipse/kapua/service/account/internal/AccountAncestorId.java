@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.account.internal;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.Objects;
+
+/**
+ * {@link AccountAncestorImpl} identifier.
+ *
+ * @since 1.3.0
+ */
+@Embeddable
+public class AccountAncestorId implements Serializable {
+
+    private static final long serialVersionUID = -2964380512747281396L;
+
+    @Basic
+    @Column(name = "ancestor_id", nullable = false, updatable = false)
+    private BigInteger ancestorId;
+
+    @Basic
+    @Column(name = "descendant_id", nullable = false, updatable = false)
+    private BigInteger descendantId;
+
+    /**
+     * Constructor.
+     * <p>
+     * Required by JPA.
+     *
+     * @since 1.3.0
+     */
+    protected AccountAncestorId() {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param ancestorId   The ancestor {@link org.eclipse.kapua.service.account.Account} id.
+     * @param descendantId The descendant {@link org.eclipse.kapua.service.account.Account} id.
+     * @since 1.3.0
+     */
+    public AccountAncestorId(BigInteger ancestorId, BigInteger descendantId) {
+        this.ancestorId = ancestorId;
+        this.descendantId = descendantId;
+    }
+
+    public BigInteger getAncestorId() {
+        return ancestorId;
+    }
+
+    public BigInteger getDescendantId() {
+        return descendantId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        AccountAncestorId that = (AccountAncestorId) o;
+        return Objects.equals(ancestorId, that.ancestorId) && Objects.equals(descendantId, that.descendantId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ancestorId, descendantId);
+    }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.account.internal;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.math.BigInteger;
+
+/**
+ * Row of the {@link org.eclipse.kapua.service.account.Account} ancestry closure table.
+ * <p>
+ * For each {@link org.eclipse.kapua.service.account.Account} there is a row for each of its ancestors and one for itself (with depth 0),
+ * so that subtree lookups are index lookups instead of scans on {@link org.eclipse.kapua.service.account.Account#getParentAccountPath()}.
+ *
+ * @since 1.3.0
+ */
+@Entity(name = "AccountAncestor")
+@NamedQueries({
+        @NamedQuery(name = "AccountAncestor.findAncestors", query = "SELECT aa FROM AccountAncestor aa WHERE aa.id.descendantId = :descendantId"),
+        @NamedQuery(name = "AccountAncestor.findDescendantAccounts", query = "SELECT a FROM Account a, AccountAncestor aa WHERE aa.id.ancestorId = :ancestorId AND aa.depth > 0 AND a.id.eid = aa.id.descendantId ORDER BY a.name"),
+        @NamedQuery(name = "AccountAncestor.countAncestor", query = "SELECT COUNT(aa) FROM AccountAncestor aa WHERE aa.id.ancestorId = :ancestorId AND aa.id.descendantId = :descendantId AND aa.depth > 0")
+})
+@Table(name = "act_account_ancestor")
+public class AccountAncestorImpl implements Serializable {
+
+    private static final long serialVersionUID = 4468012880371245094L;
+
+    @EmbeddedId
+    private AccountAncestorId id;
+
+    @Basic
+    @Column(name = "depth", nullable = false, updatable = false)
+    private int depth;
+
+    /**
+     * Constructor.
+     * <p>
+     * Required by JPA.
+     *
+     * @since 1.3.0
+     */
+    protected AccountAncestorImpl() {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param ancestorId   The ancestor {@link org.eclipse.kapua.service.account.Account} id.
+     * @param descendantId The descendant {@link org.eclipse.kapua.service.account.Account} id.
+     * @param depth        The distance between the ancestor and the descendant (0 when they are the same {@link org.eclipse.kapua.service.account.Account}).
+     * @since 1.3.0
+     */
+    public AccountAncestorImpl(BigInteger ancestorId, BigInteger descendantId, int depth) {
+        this.id = new AccountAncestorId(ancestorId, descendantId);
+        this.depth = depth;
+    }
+
+    public AccountAncestorId getId() {
+        return id;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -22,6 +22,13 @@ import org.eclipse.kapua.service.account.Account;
 import org.eclipse.kapua.service.account.AccountCreator;
 import org.eclipse.kapua.service.account.AccountListResult;
 
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.Root;
+import java.math.BigInteger;
+import java.util.List;
+
 /**
  * {@link Account} {@link ServiceDAO}
  *
@@ -138,4 +145,78 @@ public class AccountDAO {
     public static Account delete(EntityManager em, KapuaId scopeId, KapuaId accountId) throws KapuaEntityNotFoundException {
         return ServiceDAO.delete(em, AccountImpl.class, scopeId, accountId);
     }
+
+    /**
+     * Adds the given {@link Account} to the ancestry closure table.
+     * <p>
+     * The {@link Account} is linked to itself and to all the ancestors of its parent {@link Account}.
+     *
+     * @param em        The {@link EntityManager} of the current transaction.
+     * @param scopeId   The parent {@link Account} id.
+     * @param accountId The {@link Account} id.
+     * @since 1.3.0
+     */
+    public static void createAncestors(EntityManager em, KapuaId scopeId, KapuaId accountId) {
+        BigInteger descendantId = accountId.getId();
+        em.persist(new AccountAncestorImpl(descendantId, descendantId, 0));
+
+        if (scopeId != null) {
+            TypedQuery<AccountAncestorImpl> query = em.createNamedQuery("AccountAncestor.findAncestors", AccountAncestorImpl.class);
+            query.setParameter("descendantId", scopeId.getId());
+
+            for (AccountAncestorImpl parentAncestor : query.getResultList()) {
+                em.persist(new AccountAncestorImpl(parentAncestor.getId().getAncestorId(), descendantId, parentAncestor.getDepth() + 1));
+            }
+        }
+    }
+
+    /**
+     * Removes the given {@link Account} from the ancestry closure table.
+     * <p>
+     * The {@link Account} must not have child {@link Account}s.
+     *
+     * @param em        The {@link EntityManager} of the current transaction.
+     * @param accountId The {@link Account} id.
+     * @since 1.3.0
+     */
+    public static void deleteAncestors(EntityManager em, KapuaId accountId) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaDelete<AccountAncestorImpl> criteriaDelete = cb.createCriteriaDelete(AccountAncestorImpl.class);
+        Root<AccountAncestorImpl> entityRoot = criteriaDelete.from(AccountAncestorImpl.class);
+        criteriaDelete.where(cb.equal(entityRoot.get("id").get("descendantId"), accountId.getId()));
+
+        em.createQuery(criteriaDelete).executeUpdate();
+    }
+
+    /**
+     * Finds all the descendants of the given {@link Account}, ordered by name.
+     *
+     * @param em        The {@link EntityManager}.
+     * @param accountId The {@link Account} id.
+     * @return The descendant {@link Account}s at any depth.
+     * @since 1.3.0
+     */
+    public static List<Account> findDescendants(EntityManager em, KapuaId accountId) {
+        TypedQuery<Account> query = em.createNamedQuery("AccountAncestor.findDescendantAccounts", Account.class);
+        query.setParameter("ancestorId", accountId.getId());
+
+        return query.getResultList();
+    }
+
+    /**
+     * Checks whether an {@link Account} is a descendant, at any depth, of another {@link Account}.
+     *
+     * @param em           The {@link EntityManager}.
+     * @param ancestorId   The ancestor {@link Account} id.
+     * @param descendantId The descendant {@link Account} id.
+     * @return {@code true} if the second {@link Account} is a descendant of the first one, {@code false} otherwise.
+     * @since 1.3.0
+     */
+    public static boolean isDescendant(EntityManager em, KapuaId ancestorId, KapuaId descendantId) {
+        TypedQuery<Long> query = em.createNamedQuery("AccountAncestor.countAncestor", Long.class);
+        query.setParameter("ancestorId", ancestorId.getId());
+        query.setParameter("descendantId", descendantId.getId());
+
+        return query.getSingleResult() > 0;
+    }
 }
@@ -45,7 +45,6 @@ import org.eclipse.kapua.service.authorization.AuthorizationService;
 import org.eclipse.kapua.service.authorization.permission.PermissionFactory;
 
 import javax.inject.Inject;
-import javax.persistence.TypedQuery;
 import java.util.Map;
 import java.util.Objects;
 
@@ -140,6 +139,9 @@ public class AccountServiceImpl extends AbstractKapuaConfigurableResourceLimited
             // Set the parent account path
             String parentAccountPath = AccountDAO.find(em, null, accountCreator.getScopeId()).getParentAccountPath() + "/" + account.getId();
             account.setParentAccountPath(parentAccountPath);
+
+            // Link the account to its ancestors
+            AccountDAO.createAncestors(em, accountCreator.getScopeId(), account.getId());
             return AccountDAO.update(em, account);
         }));
     }
@@ -261,6 +263,7 @@ public class AccountServiceImpl extends AbstractKapuaConfigurableResourceLimited
                 throw new KapuaIllegalAccessException(action.name());
             }
 
+            AccountDAO.deleteAncestors(em, accountId);
             return AccountDAO.delete(em, scopeId, accountId);
         }).onAfterHandler((emptyParam) -> entityCache.remove(scopeId, accountId)));
     }
@@ -339,17 +342,32 @@ public class AccountServiceImpl extends AbstractKapuaConfigurableResourceLimited
         // Check Access
         checkAccountPermission(account.getScopeId(), account.getId(), AccountDomains.ACCOUNT_DOMAIN, Actions.read);
         return entityManagerSession.doAction(EntityManagerContainer.<AccountListResult>create().onResultHandler(em -> {
-            AccountListResult result = null;
-            TypedQuery<Account> q;
-            q = em.createNamedQuery("Account.findChildAccountsRecursive", Account.class);
-            q.setParameter("parentAccountPath", "\\" + account.getParentAccountPath() + "/%");
-
-            result = new AccountListResultImpl();
-            result.addItems(q.getResultList());
+            AccountListResult result = new AccountListResultImpl();
+            result.addItems(AccountDAO.findDescendants(em, account.getId()));
             return result;
         }));
     }
 
+    @Override
+    public boolean isDescendant(KapuaId accountId, KapuaId descendantId) throws KapuaException {
+        //
+        // Argument validation
+        ArgumentValidator.notNull(accountId, "accountId");
+        ArgumentValidator.notNull(descendantId, "descendantId");
+
+        //
+        // Make sure account exists
+        Account account = findById(accountId);
+        if (account == null) {
+            throw new KapuaEntityNotFoundException(Account.TYPE, accountId);
+        }
+
+        //
+        // Check Access
+        checkAccountPermission(account.getScopeId(), account.getId(), AccountDomains.ACCOUNT_DOMAIN, Actions.read);
+        return entityManagerSession.doAction(EntityManagerContainer.<Boolean>create().onResultHandler(em -> AccountDAO.isDescendant(em, accountId, descendantId)));
+    }
+
     @Override
     public AccountListResult query(KapuaQuery<Account> query) throws KapuaException {
         //
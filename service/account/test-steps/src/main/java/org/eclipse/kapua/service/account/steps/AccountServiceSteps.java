@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2019 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -721,6 +721,31 @@ public class AccountServiceSteps extends TestBase {
         }
     }
 
+    @Then("^Account \"(.*)\" has (\\d+) descendants?$")
+    public void checkNumberOfDescendantsForNamedAccount(String name, int num)
+            throws Exception {
+
+        Account tmpAcc = accountService.findByName(name);
+        assertNotNull(tmpAcc);
+
+        AccountListResult descendants = accountService.findChildrenRecursively(tmpAcc.getId());
+        assertEquals(num, descendants.getSize());
+    }
+
+    @Then("^Account \"(.*)\" is a descendant of \"(.*)\"$")
+    public void checkAccountIsDescendant(String descendantName, String ancestorName)
+            throws Exception {
+
+        assertTrue(isDescendant(ancestorName, descendantName));
+    }
+
+    @Then("^Account \"(.*)\" is not a descendant of \"(.*)\"$")
+    public void checkAccountIsNotDescendant(String descendantName, String ancestorName)
+            throws Exception {
+
+        assertFalse(isDescendant(ancestorName, descendantName));
+    }
+
     @Then("^The account does not exist$")
     public void tryToFindInexistentAccount() {
 
@@ -840,6 +865,15 @@ public class AccountServiceSteps extends TestBase {
      * @param name     The name of the account
      * @return The newly created account creator object.
      */
+    private boolean isDescendant(String ancestorName, String descendantName) throws KapuaException {
+        Account ancestor = accountService.findByName(ancestorName);
+        Account descendant = accountService.findByName(descendantName);
+        assertNotNull(ancestor);
+        assertNotNull(descendant);
+
+        return accountService.isDescendant(ancestor.getId(), descendant.getId());
+    }
+
     private AccountCreator prepareRegularAccountCreator(KapuaId parentId, String name) {
         AccountCreator tmpAccCreator = accountFactory.newCreator(parentId, name);
 
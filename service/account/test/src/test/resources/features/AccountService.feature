@@ -1,5 +1,5 @@
 ###############################################################################
-# Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+# Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
 #
 # All rights reserved. This program and the accompanying materials
 # are made available under the terms of the Eclipse Public License v1.0
@@ -134,6 +134,46 @@ Scenario: Change the account parent path
     When I change the parent path for account "test_acc_11"
     Then An exception was thrown
 
+Scenario: Account ancestry on create
+    Creating an account must link it to its parent and to all the ancestors of its parent.
+
+    Given I create a generic account with name "test_acc_a"
+    And I create a generic account with name "test_acc_b" in current scopeId
+    And I create a generic account with name "test_acc_c" in current scopeId
+    Then Account "test_acc_c" is a descendant of "test_acc_b"
+    And Account "test_acc_c" is a descendant of "test_acc_a"
+    And Account "test_acc_c" is a descendant of "kapua-sys"
+    And Account "test_acc_a" is not a descendant of "test_acc_c"
+    And Account "test_acc_a" is not a descendant of "test_acc_a"
+    And Account "test_acc_a" has 2 descendants
+    And Account "test_acc_c" has 0 descendants
+
+Scenario: Account ancestry on move
+    Accounts cannot be moved under another parent, so a rejected parent path change
+    must leave the account ancestry untouched.
+
+    Given I create a generic account with name "test_acc_a"
+    And I create a generic account with name "test_acc_b" in current scopeId
+    And I create a generic account with name "test_acc_d"
+    And I expect the exception "KapuaAccountException" with the text "An illegal value was provided for the argument"
+    When I change the parent path for account "test_acc_b"
+    Then An exception was thrown
+    And Account "test_acc_b" is a descendant of "test_acc_a"
+    And Account "test_acc_b" is not a descendant of "test_acc_d"
+    And Account "test_acc_a" has 1 descendant
+    And Account "test_acc_d" has 0 descendants
+
+Scenario: Account ancestry on delete
+    Deleting an account must remove it from the ancestry of all its ancestors.
+
+    Given I create a generic account with name "test_acc_a"
+    And I create a generic account with name "test_acc_b" in current scopeId
+    And I create a generic account with name "test_acc_c" in current scopeId
+    When I delete account "test_acc_c"
+    Then Account "test_acc_a" has 1 descendant
+    And Account "test_acc_b" has 0 descendants
+    And Account "test_acc_b" is a descendant of "test_acc_a"
+
 Scenario: Check account properties
     It must be possible to set arbitrary account properties.
 
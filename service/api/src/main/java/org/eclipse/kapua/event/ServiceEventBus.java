@@ -11,6 +11,8 @@
  *******************************************************************************/
 package org.eclipse.kapua.event;
 
+import java.util.Collections;
+
 /**
  * Service event bus definition.
  *
@@ -27,6 +29,27 @@ public interface ServiceEventBus {
      */
     void publish(String address, ServiceEvent event) throws ServiceEventBusException;
 
+    /**
+     * Publish the event to the bus and notify the outcome to the given {@link ServiceEventPublishListener}.<BR>
+     * Implementations may defer the actual publish (i.e. to send events in batches); in that case the listener is notified asynchronously.<BR>
+     * The default implementation publishes synchronously using {@link #publish(String, ServiceEvent)}.
+     *
+     * @param address         address in which to publish the event
+     * @param event           event to publish
+     * @param publishListener listener to notify with the outcome of the publish
+     * @throws ServiceEventBusException
+     * @since 1.3.0
+     */
+    default void publish(String address, ServiceEvent event, ServiceEventPublishListener publishListener) throws ServiceEventBusException {
+        try {
+            publish(address, event);
+        } catch (ServiceEventBusException e) {
+            publishListener.onPublishFailed(Collections.singletonList(event), e);
+            throw e;
+        }
+        publishListener.onPublished(Collections.singletonList(event));
+    }
+
     /**
      * Subscribe for a specific address event
      *
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.event;
+
+import java.util.List;
+
+/**
+ * Listener of the outcome of {@link ServiceEventBus#publish(String, ServiceEvent, ServiceEventPublishListener)}.
+ * <p>
+ * Implementations may receive more than one {@link ServiceEvent} at a time when the {@link ServiceEventBus} publishes events in batches.
+ *
+ * @since 1.3.0
+ */
+public interface ServiceEventPublishListener {
+
+    /**
+     * Invoked when the given {@link ServiceEvent}s have been confirmed by the bus.<BR>
+     * <B>NOTE: This method implementation must be thread safe!</B>
+     *
+     * @param serviceEvents The published {@link ServiceEvent}s.
+     * @since 1.3.0
+     */
+    void onPublished(List<ServiceEvent> serviceEvents);
+
+    /**
+     * Invoked when the given {@link ServiceEvent}s could not be published.<BR>
+     * <B>NOTE: This method implementation must be thread safe!</B>
+     *
+     * @param serviceEvents The {@link ServiceEvent}s not published.
+     * @param cause         The error occurred.
+     * @since 1.3.0
+     */
+    void onPublishFailed(List<ServiceEvent> serviceEvents, Throwable cause);
+}
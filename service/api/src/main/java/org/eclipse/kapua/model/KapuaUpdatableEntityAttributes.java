@@ -29,4 +29,11 @@ public class KapuaUpdatableEntityAttributes extends KapuaEntityAttributes {
      */
     public static final String MODIFIED_BY = "modifiedBy";
 
+    /**
+     * {@link KapuaUpdatableEntity} optimistic lock version.
+     *
+     * @since 1.3.0
+     */
+    public static final String OPTLOCK = "optlock";
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2016 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -18,6 +18,9 @@ import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.model.query.KapuaListResult;
 import org.eclipse.kapua.model.query.KapuaQuery;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Common interface for all KapuaService that are managing identifiable entities.
  *
@@ -36,6 +39,25 @@ public interface KapuaEntityService<E extends KapuaEntity, C extends KapuaEntity
      */
     E create(C creator) throws KapuaException;
 
+    /**
+     * Creates all the entities using information provided via the entity creators.<br>
+     * Implementations can create all the entities in a single transaction, checking the limits once for the whole list.
+     * They raise the same service events as {@link #create(KapuaEntityCreator)}, one for each created entity: if {@link #create(KapuaEntityCreator)} raises none, neither does this method.
+     * The default implementation creates the entities one by one.
+     *
+     * @param creators
+     * @return the created entities, in the same order of the creators
+     * @throws KapuaException
+     * @since 1.3.0
+     */
+    default List<E> createAll(List<C> creators) throws KapuaException {
+        List<E> entities = new ArrayList<>(creators.size());
+        for (C creator : creators) {
+            entities.add(create(creator));
+        }
+        return entities;
+    }
+
     /**
      * Find the entity identified by entity and scope identifiers
      *
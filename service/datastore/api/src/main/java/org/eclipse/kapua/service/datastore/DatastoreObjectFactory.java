@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -16,7 +16,13 @@ import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.service.datastore.model.ChannelInfoListResult;
 import org.eclipse.kapua.service.datastore.model.ClientInfoListResult;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreBatchResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
+import org.eclipse.kapua.service.datastore.model.MetricBucket;
 import org.eclipse.kapua.service.datastore.model.MetricInfoListResult;
+import org.eclipse.kapua.service.datastore.model.MetricPercentile;
+import org.eclipse.kapua.service.datastore.model.MetricStatistics;
 import org.eclipse.kapua.service.datastore.model.query.ChannelInfoQuery;
 import org.eclipse.kapua.service.datastore.model.query.ClientInfoQuery;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
@@ -98,4 +104,52 @@ public interface DatastoreObjectFactory extends KapuaObjectFactory {
      */
     MetricInfoListResult newMetricInfoListResult();
 
+    /**
+     * Return a new message store batch result
+     *
+     * @return
+     * @since 1.3.0
+     */
+    MessageStoreBatchResult newMessageStoreBatchResult();
+
+    /**
+     * Return a new message store result
+     *
+     * @return
+     * @since 1.3.0
+     */
+    MessageStoreResult newMessageStoreResult();
+
+    /**
+     * Return a new metric aggregation result
+     *
+     * @return
+     * @since 1.3.0
+     */
+    MetricAggregationResult newMetricAggregationResult();
+
+    /**
+     * Return a new metric statistics
+     *
+     * @return
+     * @since 1.3.0
+     */
+    MetricStatistics newMetricStatistics();
+
+    /**
+     * Return a new metric time bucket
+     *
+     * @return
+     * @since 1.3.0
+     */
+    MetricBucket newMetricBucket();
+
+    /**
+     * Return a new metric percentile
+     *
+     * @return
+     * @since 1.3.0
+     */
+    MetricPercentile newMetricPercentile();
+
 }
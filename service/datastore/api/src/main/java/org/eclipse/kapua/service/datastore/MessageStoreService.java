@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -18,10 +18,15 @@ import org.eclipse.kapua.service.KapuaService;
 import org.eclipse.kapua.service.config.KapuaConfigurableService;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreBatchResult;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
 import org.eclipse.kapua.service.datastore.model.StorableId;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregation;
 import org.eclipse.kapua.service.datastore.model.query.StorableFetchStyle;
 
+import java.util.List;
+
 /**
  * Service responsible for storing and accessing telemetry data generated by devices.
  *
@@ -49,6 +54,18 @@ public interface MessageStoreService extends KapuaService, KapuaConfigurableServ
      */
     StorableId store(KapuaMessage<?, ?> message, String datastoreId) throws KapuaException;
 
+    /**
+     * Store a batch of messages with a single datastore round trip.<br>
+     * The write access is checked once for each scope of the batch. The messages failing the validation or belonging to a scope with the storage disabled
+     * are reported as not stored by the corresponding result, without affecting the rest of the batch.
+     *
+     * @param messages
+     * @return the results in the same order of the messages
+     * @throws KapuaException
+     * @since 1.3.0
+     */
+    MessageStoreBatchResult store(List<? extends KapuaMessage<?, ?>> messages) throws KapuaException;
+
     /**
      * Find message by identifier
      *
@@ -81,6 +98,19 @@ public interface MessageStoreService extends KapuaService, KapuaConfigurableServ
      */
     long count(MessageQuery query) throws KapuaException;
 
+    /**
+     * Compute the statistics of a metric over the messages matching the given query.<br>
+     * Only the query predicate is used, the paging and sorting settings are ignored.<br>
+     * If the aggregation has an interval, the query predicate must bound the message timestamp on both sides.
+     *
+     * @param query
+     * @param aggregation
+     * @return
+     * @throws KapuaException
+     * @since 1.3.0
+     */
+    MetricAggregationResult aggregate(MessageQuery query, MetricAggregation aggregation) throws KapuaException;
+
     /**
      * Delete message by identifier
      *
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model;
+
+import org.eclipse.kapua.service.datastore.model.xml.MessageStoreResultXmlRegistry;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+import java.util.List;
+
+/**
+ * Outcome of the store of a batch of messages definition.<br>
+ * The results are in the same order of the messages of the batch.
+ *
+ * @since 1.3.0
+ */
+@XmlRootElement(name = "messageStoreBatchResult")
+@XmlAccessorType(XmlAccessType.PROPERTY)
+@XmlType(propOrder = { "results" }, factoryClass = MessageStoreResultXmlRegistry.class, factoryMethod = "newMessageStoreBatchResult")
+public interface MessageStoreBatchResult {
+
+    /**
+     * Get the results of the single messages
+     *
+     * @return
+     * @since 1.3.0
+     */
+    @XmlElementWrapper(name = "results")
+    @XmlElement(name = "result")
+    List<MessageStoreResult> getResults();
+
+    /**
+     * Set the results of the single messages
+     *
+     * @param results
+     * @since 1.3.0
+     */
+    void setResults(List<MessageStoreResult> results);
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model;
+
+import org.eclipse.kapua.service.datastore.model.xml.MessageStoreResultXmlRegistry;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+
+/**
+ * Outcome of the store of a single message of a batch definition.<br>
+ * If the message was stored the datastore identifier is set, otherwise the error describes why the message was rejected.
+ *
+ * @since 1.3.0
+ */
+@XmlRootElement(name = "messageStoreResult")
+@XmlAccessorType(XmlAccessType.PROPERTY)
+@XmlType(propOrder = { "stored", "datastoreId", "error" }, factoryClass = MessageStoreResultXmlRegistry.class, factoryMethod = "newMessageStoreResult")
+public interface MessageStoreResult {
+
+    /**
+     * Get the store outcome
+     *
+     * @return {@code true} if the message was stored
+     * @since 1.3.0
+     */
+    @XmlElement(name = "stored")
+    boolean isStored();
+
+    /**
+     * Set the store outcome
+     *
+     * @param stored
+     * @since 1.3.0
+     */
+    void setStored(boolean stored);
+
+    /**
+     * Get the datastore identifier of the stored message
+     *
+     * @return the identifier or {@code null} if the message was not stored
+     * @since 1.3.0
+     */
+    @XmlElement(name = "datastoreId")
+    @XmlJavaTypeAdapter(StorableIdAdapter.class)
+    StorableId getDatastoreId();
+
+    /**
+     * Set the datastore identifier of the stored message
+     *
+     * @param datastoreId
+     * @since 1.3.0
+     */
+    void setDatastoreId(StorableId datastoreId);
+
+    /**
+     * Get the reason why the message was not stored
+     *
+     * @return the error or {@code null} if the message was stored
+     * @since 1.3.0
+     */
+    @XmlElement(name = "error")
+    String getError();
+
+    /**
+     * Set the reason why the message was not stored
+     *
+     * @param error
+     * @since 1.3.0
+     */
+    void setError(String error);
+}
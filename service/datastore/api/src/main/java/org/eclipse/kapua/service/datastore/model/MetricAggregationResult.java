@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model;
+
+import org.eclipse.kapua.service.datastore.model.xml.MetricAggregationXmlRegistry;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+import java.util.List;
+
+/**
+ * Metric aggregation result definition.<br>
+ * It holds the statistics of the metric over all the messages matching the query and, if an interval was asked, the statistics of each time bucket.
+ *
+ * @since 1.3.0
+ */
+@XmlRootElement(name = "metricAggregationResult")
+@XmlAccessorType(XmlAccessType.PROPERTY)
+@XmlType(propOrder = { "metricName", "statistics", "buckets" }, factoryClass = MetricAggregationXmlRegistry.class, factoryMethod = "newMetricAggregationResult")
+public interface MetricAggregationResult {
+
+    /**
+     * Get the aggregated metric name
+     *
+     * @return
+     * @since 1.3.0
+     */
+    @XmlElement(name = "metricName")
+    String getMetricName();
+
+    /**
+     * Set the aggregated metric name
+     *
+     * @param metricName
+     * @since 1.3.0
+     */
+    void setMetricName(String metricName);
+
+    /**
+     * Get the overall statistics
+     *
+     * @return
+     * @since 1.3.0
+     */
+    @XmlElement(name = "statistics")
+    MetricStatistics getStatistics();
+
+    /**
+     * Set the overall statistics
+     *
+     * @param statistics
+     * @since 1.3.0
+     */
+    void setStatistics(MetricStatistics statistics);
+
+    /**
+     * Get the time buckets statistics (empty if no interval was asked), sorted by timestamp
+     *
+     * @return
+     * @since 1.3.0
+     */
+    @XmlElementWrapper(name = "buckets")
+    @XmlElement(name = "bucket")
+    List<MetricBucket> getBuckets();
+
+    /**
+     * Set the time buckets statistics
+     *
+     * @param buckets
+     * @since 1.3.0
+     */
+    void setBuckets(List<MetricBucket> buckets);
+}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model;
+
+import org.eclipse.kapua.model.xml.DateXmlAdapter;
+import org.eclipse.kapua.service.datastore.model.xml.MetricAggregationXmlRegistry;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import java.util.Date;
+
+/**
+ * Statistics of the values of a metric in a time bucket definition
+ *
+ * @since 1.3.0
+ */
+@XmlRootElement(name = "bucket")
+@XmlAccessorType(XmlAccessType.PROPERTY)
+@XmlType(propOrder = { "timestamp" }, factoryClass = MetricAggregationXmlRegistry.class, factoryMethod = "newMetricBucket")
+public interface MetricBucket extends MetricStatistics {
+
+    /**
+     * Get the bucket start timestamp
+     *
+     * @return
+     * @since 1.3.0
+     */
+    @XmlElement(name = "timestamp")
+    @XmlJavaTypeAdapter(DateXmlAdapter.class)
+    Date getTimestamp();
+
+    /**
+     * Set the bucket start timestamp
+     *
+     * @param timestamp
+     * @since 1.3.0
+     */
+    void setTimestamp(Date timestamp);
+}
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model;
+
+import org.eclipse.kapua.service.datastore.model.xml.MetricAggregationXmlRegistry;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * Metric percentile definition
+ *
+ * @since 1.3.0
+ */
+@XmlRootElement(name = "percentile")
+@XmlAccessorType(XmlAccessType.PROPERTY)
+@XmlType(propOrder = { "percent", "value" }, factoryClass = MetricAggregationXmlRegistry.class, factoryMethod = "newMetricPercentile")
+public interface MetricPercentile {
+
+    /**
+     * Get the percent
+     *
+     * @return
+     * @since 1.3.0
+     */
+    @XmlElement(name = "percent")
+    double getPercent();
+
+    /**
+     * Set the percent
+     *
+     * @param percent
+     * @since 1.3.0
+     */
+    void setPercent(double percent);
+
+    /**
+     * Get the metric value at the percent
+     *
+     * @return
+     * @since 1.3.0
+     */
+    @XmlElement(name = "value")
+    Double getValue();
+
+    /**
+     * Set the metric value at the percent
+     *
+     * @param value
+     * @since 1.3.0
+     */
+    void setValue(Double value);
+}
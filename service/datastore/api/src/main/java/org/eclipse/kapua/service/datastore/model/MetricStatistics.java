@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model;
+
+import org.eclipse.kapua.service.datastore.model.xml.MetricAggregationXmlRegistry;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+import java.util.List;
+
+/**
+ * Statistics of the values of a metric definition.<br>
+ * min, max, avg and sum are {@code null} if no value was found.
+ *
+ * @since 1.3.0
+ */
+@XmlRootElement(name = "statistics")
+@XmlAccessorType(XmlAccessType.PROPERTY)
+@XmlType(propOrder = { "count", "min", "max", "avg", "sum", "percentiles" }, factoryClass = MetricAggregationXmlRegistry.class, factoryMethod = "newMetricStatistics")
+public interface MetricStatistics {
+
+    /**
+     * Get the count of the values
+     *
+     * @return
+     * @since 1.3.0
+     */
+    @XmlElement(name = "count")
+    long getCount();
+
+    /**
+     * Set the count of the values
+     *
+     * @param count
+     * @since 1.3.0
+     */
+    void setCount(long count);
+
+    /**
+     * Get the minimum value
+     *
+     * @return
+     * @since 1.3.0
+     */
+    @XmlElement(name = "min")
+    Double getMin();
+
+    /**
+     * Set the minimum value
+     *
+     * @param min
+     * @since 1.3.0
+     */
+    void setMin(Double min);
+
+    /**
+     * Get the maximum value
+     *
+     * @return
+     * @since 1.3.0
+     */
+    @XmlElement(name = "max")
+    Double getMax();
+
+    /**
+     * Set the maximum value
+     *
+     * @param max
+     * @since 1.3.0
+     */
+    void setMax(Double max);
+
+    /**
+     * Get the average value
+     *
+     * @return
+     * @since 1.3.0
+     */
+    @XmlElement(name = "avg")
+    Double getAvg();
+
+    /**
+     * Set the average value
+     *
+     * @param avg
+     * @since 1.3.0
+     */
+    void setAvg(Double avg);
+
+    /**
+     * Get the sum of the values
+     *
+     * @return
+     * @since 1.3.0
+     */
+    @XmlElement(name = "sum")
+    Double getSum();
+
+    /**
+     * Set the sum of the values
+     *
+     * @param sum
+     * @since 1.3.0
+     */
+    void setSum(Double sum);
+
+    /**
+     * Get the percentiles (only the ones asked by the aggregation)
+     *
+     * @return
+     * @since 1.3.0
+     */
+    @XmlElementWrapper(name = "percentiles")
+    @XmlElement(name = "percentile")
+    List<MetricPercentile> getPercentiles();
+
+    /**
+     * Set the percentiles
+     *
+     * @param percentiles
+     * @since 1.3.0
+     */
+    void setPercentiles(List<MetricPercentile> percentiles);
+}
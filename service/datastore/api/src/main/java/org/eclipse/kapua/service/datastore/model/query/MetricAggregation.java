@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Metric aggregation definition.<br>
+ * It defines the statistics to be computed by the datastore over the values of a metric of the messages matching a {@link MessageQuery}:
+ * the overall statistics, optionally split in time buckets of the given interval, and optionally the given percentiles.
+ *
+ * @since 1.3.0
+ */
+public class MetricAggregation {
+
+    private String metricName;
+    private Class<?> metricType;
+    private String interval;
+    private List<Double> percents;
+
+    public MetricAggregation() {
+        percents = new ArrayList<>();
+    }
+
+    private MetricAggregation(String metricName, Class<?> metricType) {
+        this();
+        this.metricName = metricName;
+        this.metricType = metricType;
+    }
+
+    /**
+     * Get the metric name
+     *
+     * @return
+     * @since 1.3.0
+     */
+    public String getMetricName() {
+        return metricName;
+    }
+
+    /**
+     * Set the metric name
+     *
+     * @param metricName
+     * @since 1.3.0
+     */
+    public void setMetricName(String metricName) {
+        this.metricName = metricName;
+    }
+
+    /**
+     * Get the metric type
+     *
+     * @return
+     * @since 1.3.0
+     */
+    public Class<?> getMetricType() {
+        return metricType;
+    }
+
+    /**
+     * Set the metric type (only numeric types can be aggregated)
+     *
+     * @param metricType
+     * @since 1.3.0
+     */
+    public void setMetricType(Class<?> metricType) {
+        this.metricType = metricType;
+    }
+
+    /**
+     * Get the time bucket interval
+     *
+     * @return
+     * @since 1.3.0
+     */
+    public String getInterval() {
+        return interval;
+    }
+
+    /**
+     * Set the time bucket interval (such as '30s', '15m', '1h', '1d').<br>
+     * If {@code null} only the overall statistics are computed, otherwise the query must bound the message timestamp on both sides.
+     *
+     * @param interval
+     * @since 1.3.0
+     */
+    public void setInterval(String interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * Get the percentiles to compute
+     *
+     * @return
+     * @since 1.3.0
+     */
+    public List<Double> getPercents() {
+        return percents;
+    }
+
+    /**
+     * Set the percentiles to compute (values between 0 and 100)
+     *
+     * @param percents
+     * @since 1.3.0
+     */
+    public void setPercents(List<Double> percents) {
+        this.percents = percents != null ? percents : new ArrayList<>();
+    }
+
+    /**
+     * Return a new metric aggregation for the given metric
+     *
+     * @param metricName
+     * @param metricType
+     * @return
+     * @since 1.3.0
+     */
+    public static MetricAggregation of(String metricName, Class<?> metricType) {
+        return new MetricAggregation(metricName, metricType);
+    }
+}
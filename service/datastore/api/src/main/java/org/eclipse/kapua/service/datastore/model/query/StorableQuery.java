@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -125,6 +125,25 @@ public interface StorableQuery<S extends Object> {
      */
     void setLimit(Integer limit);
 
+    /**
+     * Get the continuation key of the query.<br>
+     * When not {@code null} the result list is paged by the key returned by the previous result list (see {@link org.eclipse.kapua.service.datastore.model.StorableListResult#getNextKey()}) instead of the offset.<br>
+     * An empty key asks for the first page.
+     *
+     * @return
+     * @since 1.3.0
+     */
+    @XmlElement(name = "nextKey")
+    String getNextKey();
+
+    /**
+     * Set the continuation key of the query
+     *
+     * @param nextKey
+     * @since 1.3.0
+     */
+    void setNextKey(String nextKey);
+
     /**
      * Get the ask for the total count matching query objects
      *
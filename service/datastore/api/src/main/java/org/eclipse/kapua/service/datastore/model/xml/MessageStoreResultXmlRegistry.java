@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model.xml;
+
+import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.service.datastore.DatastoreObjectFactory;
+import org.eclipse.kapua.service.datastore.model.MessageStoreBatchResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+
+import javax.xml.bind.annotation.XmlRegistry;
+
+/**
+ * Message store result xml registry
+ *
+ * @since 1.3.0
+ */
+@XmlRegistry
+public class MessageStoreResultXmlRegistry {
+
+    private static final KapuaLocator LOCATOR = KapuaLocator.getInstance();
+    private static final DatastoreObjectFactory DATASTORE_OBJECT_FACTORY = LOCATOR.getFactory(DatastoreObjectFactory.class);
+
+    /**
+     * Creates a {@link MessageStoreBatchResult} instance
+     *
+     * @return
+     */
+    public MessageStoreBatchResult newMessageStoreBatchResult() {
+        return DATASTORE_OBJECT_FACTORY.newMessageStoreBatchResult();
+    }
+
+    /**
+     * Creates a {@link MessageStoreResult} instance
+     *
+     * @return
+     */
+    public MessageStoreResult newMessageStoreResult() {
+        return DATASTORE_OBJECT_FACTORY.newMessageStoreResult();
+    }
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model.xml;
+
+import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.service.datastore.DatastoreObjectFactory;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
+import org.eclipse.kapua.service.datastore.model.MetricBucket;
+import org.eclipse.kapua.service.datastore.model.MetricPercentile;
+import org.eclipse.kapua.service.datastore.model.MetricStatistics;
+
+import javax.xml.bind.annotation.XmlRegistry;
+
+/**
+ * Metric aggregation xml registry
+ *
+ * @since 1.3.0
+ */
+@XmlRegistry
+public class MetricAggregationXmlRegistry {
+
+    private static final KapuaLocator LOCATOR = KapuaLocator.getInstance();
+    private static final DatastoreObjectFactory DATASTORE_OBJECT_FACTORY = LOCATOR.getFactory(DatastoreObjectFactory.class);
+
+    /**
+     * Creates a {@link MetricAggregationResult} instance
+     *
+     * @return
+     */
+    public MetricAggregationResult newMetricAggregationResult() {
+        return DATASTORE_OBJECT_FACTORY.newMetricAggregationResult();
+    }
+
+    /**
+     * Creates a {@link MetricStatistics} instance
+     *
+     * @return
+     */
+    public MetricStatistics newMetricStatistics() {
+        return DATASTORE_OBJECT_FACTORY.newMetricStatistics();
+    }
+
+    /**
+     * Creates a {@link MetricBucket} instance
+     *
+     * @return
+     */
+    public MetricBucket newMetricBucket() {
+        return DATASTORE_OBJECT_FACTORY.newMetricBucket();
+    }
+
+    /**
+     * Creates a {@link MetricPercentile} instance
+     *
+     * @return
+     */
+    public MetricPercentile newMetricPercentile() {
+        return DATASTORE_OBJECT_FACTORY.newMetricPercentile();
+    }
+}
@@ -11,11 +11,21 @@
  *******************************************************************************/
 package org.eclipse.kapua.service.datastore.client;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
 /**
  * Datastore client definition. It defines the methods (crud and utilities) to be exposed to the caller.<br>
  * The datastore client implementation should provide a static init method and a static getInstance method that return the already initialized client instance.
@@ -29,6 +39,8 @@ public abstract class AbstractDatastoreClient<C extends Closeable> implements Da
     private static final String CLIENT_UNDEFINED_MSG = "Elasticsearch client must be not null";
     private static final String CLIENT_CLEANUP_ERROR_MSG = "Cannot cleanup rest datastore driver. Cannot close Elasticsearch client instance";
 
+    protected static final JsonFactory JSON_FACTORY = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
     protected String clientType;
     protected ClientProvider<C> esClientProvider;
     protected ModelContext modelContext;
@@ -76,6 +88,73 @@ public abstract class AbstractDatastoreClient<C extends Closeable> implements Da
         throw new ClientUndefinedException(CLIENT_UNDEFINED_MSG);
     }
 
+    /**
+     * Convert the query to an aggregation only query: the aggregations are added and the fetching, sorting and paging settings are dropped
+     *
+     * @param query
+     * @param aggregations
+     * @return
+     * @throws ClientException
+     */
+    protected ObjectNode toAggregationQuery(Object query, ObjectNode aggregations) throws ClientException {
+        ObjectNode queryMap = (ObjectNode) queryConverter.convertQuery(query);
+        queryMap.remove(Arrays.asList(SchemaKeys.KEY_SOURCE, SchemaKeys.KEY_SORT, SchemaKeys.KEY_FROM, SchemaKeys.KEY_SEARCH_AFTER));
+        queryMap.put(SchemaKeys.KEY_SIZE, 0);
+        queryMap.set(SchemaKeys.KEY_AGGREGATIONS, aggregations);
+        return queryMap;
+    }
+
+    /**
+     * Write the storable object as json document through the model context
+     *
+     * @param storable
+     * @return the UTF-8 encoded json document
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    protected byte[] marshal(Object storable) throws ClientException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(512);
+        marshal(storable, output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Write the storable object as json document through the model context
+     *
+     * @param storable
+     * @param output
+     *            the stream the UTF-8 encoded json document is appended to (it is not closed)
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    protected void marshal(Object storable, OutputStream output) throws ClientException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8)) {
+            modelContext.marshal(storable, generator);
+        } catch (IOException e) {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR, e);
+        }
+    }
+
+    /**
+     * Read the storable object from the json document through the model context
+     *
+     * @param clazz
+     * @param datastoreId
+     * @param fetchStyle
+     * @param sourceParser
+     *            parser of the json document (it is closed once the object is read)
+     * @return
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    protected <T> T unmarshal(Class<T> clazz, String datastoreId, Object fetchStyle, JsonParser sourceParser) throws ClientException {
+        try (JsonParser parser = sourceParser) {
+            return modelContext.unmarshal(clazz, datastoreId, fetchStyle, parser);
+        } catch (IOException e) {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR, e);
+        }
+    }
+
     /**
      * Set the model context
      *
@@ -16,6 +16,8 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.io.Closeable;
 
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertResponse;
 import org.eclipse.kapua.service.datastore.client.model.BulkUpdateRequest;
 import org.eclipse.kapua.service.datastore.client.model.BulkUpdateResponse;
 import org.eclipse.kapua.service.datastore.client.model.IndexRequest;
@@ -55,6 +57,17 @@ public interface DatastoreClient<C extends Closeable> {
      */
     InsertResponse insert(InsertRequest insertRequest) throws ClientException;
 
+    /**
+     * Bulk insert.<br>
+     * The failure of a single insert doesn't fail the whole request but it is reported by the corresponding (negative) insert response.
+     *
+     * @param bulkInsertRequest
+     * @return
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    BulkInsertResponse insert(BulkInsertRequest bulkInsertRequest) throws ClientException;
+
     /**
      * Upsert
      *
@@ -105,6 +118,19 @@ public interface DatastoreClient<C extends Closeable> {
      */
     long count(TypeDescriptor typeDescriptor, Object query) throws ClientException;
 
+    /**
+     * Compute the aggregations over the objects matching the query criteria (no object is returned)
+     *
+     * @param typeDescriptor
+     * @param query
+     * @param aggregations
+     *            the aggregations definition
+     * @return the aggregations result or {@code null} if the index doesn't exist
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    JsonNode aggregate(TypeDescriptor typeDescriptor, Object query, ObjectNode aggregations) throws ClientException;
+
     /**
      * Delete by id
      *
@@ -143,6 +169,15 @@ public interface DatastoreClient<C extends Closeable> {
      */
     void createIndex(String indexName, ObjectNode indexSettings) throws ClientException;
 
+    /**
+     * Update the dynamic settings of the index (i.e. the refresh interval)
+     *
+     * @param indexName
+     * @param indexSettings
+     * @throws ClientException
+     */
+    void updateIndexSettings(String indexName, ObjectNode indexSettings) throws ClientException;
+
     /**
      * Check if the mapping exists
      *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -13,6 +13,9 @@ package org.eclipse.kapua.service.datastore.client;
 
 import java.util.Map;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
 /**
  * Model context definition. This object is responsible for translating datastore model objects from/to client objects
  *
@@ -48,4 +51,29 @@ public interface ModelContext {
      */
     Map<String, Object> marshal(Object object) throws DatamodelMappingException;
 
+    /**
+     * Convert the datastore object (from client domain) reading it straight from the json document.<br>
+     * The document is the same accepted by {@link #unmarshal(Class, Map)}, but no intermediate map is built.
+     *
+     * @param clazz        datastore object type
+     * @param datastoreId  datastore object id
+     * @param fetchStyle   fetch style of the query the document is returned by
+     * @param sourceParser parser positioned on the start object token of the document (or before it). The parser is left on the matching end object token.
+     * @return
+     * @throws DatamodelMappingException
+     * @since 1.3.0
+     */
+    <T> T unmarshal(Class<T> clazz, String datastoreId, Object fetchStyle, JsonParser sourceParser) throws DatamodelMappingException;
+
+    /**
+     * Write the datastore object straight to the json generator.<br>
+     * The document is the same produced by serializing the {@link #marshal(Object)} result, but no intermediate map is built.
+     *
+     * @param object
+     * @param generator
+     * @throws DatamodelMappingException
+     * @since 1.3.0
+     */
+    void marshal(Object object, JsonGenerator generator) throws DatamodelMappingException;
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -45,6 +45,18 @@ public class SchemaKeys {
      * Size key (used by queries to limit the result set size)
      */
     public static final String KEY_SIZE = "size";
+    /**
+     * Search after key (used by queries for paginating the result set starting after the sort values of the last returned object)
+     *
+     * @since 1.3.0
+     */
+    public static final String KEY_SEARCH_AFTER = "search_after";
+    /**
+     * Aggregations key (used by queries to compute metrics over the matching objects)
+     *
+     * @since 1.3.0
+     */
+    public static final String KEY_AGGREGATIONS = "aggs";
 
     /**
      * Query ascending sort key
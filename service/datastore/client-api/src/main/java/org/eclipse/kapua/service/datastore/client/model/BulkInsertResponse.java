@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.client.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk insert response container.<br>
+ * The insert responses are in the same order of the requests of the bulk insert request.
+ * 
+ * @since 1.3.0
+ */
+public class BulkInsertResponse {
+
+    List<InsertResponse> responseList;
+
+    /**
+     * Default constructor
+     */
+    public BulkInsertResponse() {
+        responseList = new ArrayList<>();
+    }
+
+    /**
+     * Add an insert response to the bulk request
+     * 
+     * @param response
+     */
+    public void add(InsertResponse response) {
+        responseList.add(response);
+    }
+
+    /**
+     * Get the insert response list
+     * 
+     * @return
+     */
+    public List<InsertResponse> getResponse() {
+        return responseList;
+    }
+
+    /**
+     * Set the insert response list
+     * 
+     * @param responseList
+     */
+    public void setResponse(List<InsertResponse> responseList) {
+        this.responseList = responseList;
+    }
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -25,6 +25,11 @@ public class InsertResponse extends Response {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Result description
+     */
+    private String description;
+
     public InsertResponse() {
         super(null, null);
     }
@@ -39,6 +44,44 @@ public class InsertResponse extends Response {
      */
     public InsertResponse(String id, TypeDescriptor typeDescriptor) {
         super(id, typeDescriptor);
+        setResult(true);
+    }
+
+    /**
+     * Negative result constructor (result false)
+     *
+     * @param id
+     *            the record id
+     * @param typeDescriptor
+     *            index/type descriptor
+     * @param description
+     *            the failure description
+     * @since 1.3.0
+     */
+    public InsertResponse(String id, TypeDescriptor typeDescriptor, String description) {
+        super(id, typeDescriptor);
+        setResult(false);
+        this.description = description;
+    }
+
+    /**
+     * Get the insert description (may be an error condition)
+     *
+     * @return
+     * @since 1.3.0
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Set the insert description (may be an error condition)
+     *
+     * @param description
+     * @since 1.3.0
+     */
+    public void setDescription(String description) {
+        this.description = description;
     }
 
 }
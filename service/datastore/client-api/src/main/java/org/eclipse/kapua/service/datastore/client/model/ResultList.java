@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -24,6 +24,7 @@ public class ResultList<T> {
 
     private List<T> result;
     private long totalCount;
+    private Object[] lastSortValues;
 
     /**
      * Default constructor
@@ -62,4 +63,23 @@ public class ResultList<T> {
         return totalCount;
     }
 
+    /**
+     * Get the sort values of the last object of the result list (to be used to search the objects after it)
+     *
+     * @return
+     * @since 1.3.0
+     */
+    public Object[] getLastSortValues() {
+        return lastSortValues;
+    }
+
+    /**
+     * Set the sort values of the last object of the result list
+     *
+     * @param lastSortValues
+     * @since 1.3.0
+     */
+    public void setLastSortValues(Object[] lastSortValues) {
+        this.lastSortValues = lastSortValues;
+    }
 }
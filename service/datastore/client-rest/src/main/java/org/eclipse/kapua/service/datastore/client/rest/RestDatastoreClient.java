@@ -12,6 +12,8 @@
 package org.eclipse.kapua.service.datastore.client.rest;
 
 import com.codahale.metrics.Counter;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -31,9 +33,9 @@ import org.eclipse.kapua.service.datastore.client.ClientCommunicationException;
 import org.eclipse.kapua.service.datastore.client.ClientErrorCodes;
 import org.eclipse.kapua.service.datastore.client.ClientException;
 import org.eclipse.kapua.service.datastore.client.ClientProvider;
-import org.eclipse.kapua.service.datastore.client.ModelContext;
-import org.eclipse.kapua.service.datastore.client.QueryConverter;
 import org.eclipse.kapua.service.datastore.client.SchemaKeys;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertResponse;
 import org.eclipse.kapua.service.datastore.client.model.BulkUpdateRequest;
 import org.eclipse.kapua.service.datastore.client.model.BulkUpdateResponse;
 import org.eclipse.kapua.service.datastore.client.model.IndexRequest;
@@ -50,12 +52,12 @@ import org.elasticsearch.client.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeoutException;
@@ -88,9 +90,15 @@ public class RestDatastoreClient extends AbstractDatastoreClient<RestClient> {
     private static final String KEY_RESULT = "result";
     private static final String KEY_STATUS = "status";
     private static final String KEY_UPDATE = "update";
+    private static final String KEY_INDEX = "index";
+    private static final String KEY_VERSION = "_version";
+    private static final String KEY_VERSION_TYPE = "_version_type";
+    private static final String KEY_ERROR = "error";
+    private static final String KEY_REASON = "reason";
 
     private static final String KEY_HITS = "hits";
     private static final String KEY_TOTAL = "total";
+    private static final String KEY_AGGREGATIONS = "aggregations";
 
     private static final ObjectMapper MAPPER;
 
@@ -147,19 +155,15 @@ public class RestDatastoreClient extends AbstractDatastoreClient<RestClient> {
     @Override
     public InsertResponse insert(InsertRequest insertRequest) throws ClientException {
         RestClient client = getClient();
-        Map<String, Object> storableMap = modelContext.marshal(insertRequest.getStorable());
-        logger.debug("Insert - converted object: '{}'", storableMap);
-        String json;
-        try {
-            json = MAPPER.writeValueAsString(storableMap);
-        } catch (IOException e) {
-            throw new ClientException(ClientErrorCodes.ACTION_ERROR, e);
+        byte[] json = marshal(insertRequest.getStorable());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Insert - converted object: '{}'", new String(json, StandardCharsets.UTF_8));
         }
         Response insertResponse = restCallTimeoutHandler(() -> client.performRequest(
                 POST_ACTION,
                 getInsertTypePath(insertRequest),
                 Collections.emptyMap(),
-                EntityBuilder.create().setText(json).setContentType(ContentType.APPLICATION_JSON).build(),
+                EntityBuilder.create().setBinary(json).setContentType(ContentType.APPLICATION_JSON).build(),
                 new BasicHeader("Content-Type", ContentType.APPLICATION_JSON.toString())), insertRequest.getTypeDescriptor().getIndex(), "INSERT");
 
         if (isRequestSuccessful(insertResponse)) {
@@ -180,24 +184,79 @@ public class RestDatastoreClient extends AbstractDatastoreClient<RestClient> {
     }
 
     @Override
-    public UpdateResponse upsert(UpdateRequest updateRequest) throws ClientException {
+    public BulkInsertResponse insert(BulkInsertRequest bulkInsertRequest) throws ClientException {
         RestClient client = getClient();
-        Map<String, Object> storableMap = modelContext.marshal(updateRequest.getStorable());
-        Map<String, Object> updateRequestMap = new HashMap<>();
-        updateRequestMap.put(KEY_DOC, storableMap);
-        updateRequestMap.put(KEY_DOC_AS_UPSERT, true);
-        logger.debug("Upsert - converted object: '{}'", updateRequestMap);
-        String json;
+        ByteArrayOutputStream bulkOperation = new ByteArrayOutputStream();
         try {
-            json = MAPPER.writeValueAsString(updateRequestMap);
+            for (InsertRequest insertRequest : bulkInsertRequest.getRequest()) {
+                ObjectNode actionNode = MAPPER.createObjectNode();
+                actionNode.put(KEY_DOC_INDEX, insertRequest.getTypeDescriptor().getIndex());
+                actionNode.put(KEY_DOC_TYPE, insertRequest.getTypeDescriptor().getType());
+                if (insertRequest.getId() != null) {
+                    actionNode.put(KEY_DOC_ID, insertRequest.getId());
+                    actionNode.put(KEY_VERSION, 1);
+                    actionNode.put(KEY_VERSION_TYPE, "external");
+                }
+                ObjectNode bulkActionNode = MAPPER.createObjectNode();
+                bulkActionNode.set(KEY_INDEX, actionNode);
+                bulkOperation.write(MAPPER.writeValueAsBytes(bulkActionNode));
+                bulkOperation.write('\n');
+                marshal(insertRequest.getStorable(), bulkOperation);
+                bulkOperation.write('\n');
+            }
         } catch (IOException e) {
             throw new ClientException(ClientErrorCodes.ACTION_ERROR, e);
         }
+        Response insertResponse = restCallTimeoutHandler(() -> client.performRequest(
+                POST_ACTION,
+                getBulkPath(),
+                Collections.emptyMap(),
+                EntityBuilder.create().setBinary(bulkOperation.toByteArray()).setContentType(ContentType.APPLICATION_JSON).build(),
+                new BasicHeader("Content-Type", ContentType.APPLICATION_JSON.toString())), "multi-index", "INSERT BULK");
+        if (isRequestSuccessful(insertResponse)) {
+            BulkInsertResponse bulkResponse = new BulkInsertResponse();
+            JsonNode responseNode;
+            try {
+                responseNode = MAPPER.readTree(EntityUtils.toString(insertResponse.getEntity()));
+            } catch (IOException e) {
+                throw new ClientException(ClientErrorCodes.ACTION_ERROR, e);
+            }
+            for (JsonNode item : responseNode.path(KEY_ITEMS)) {
+                JsonNode jsonNode = item.get(KEY_INDEX);
+                if (jsonNode == null) {
+                    throw new ClientException(ClientErrorCodes.ACTION_ERROR, "Unexpected action response");
+                }
+                String id = jsonNode.path(KEY_DOC_ID).asText(null);
+                TypeDescriptor typeDescriptor = new TypeDescriptor(jsonNode.path(KEY_DOC_INDEX).asText(), jsonNode.path(KEY_DOC_TYPE).asText());
+                if (!isRequestSuccessful(jsonNode.path(KEY_STATUS).asInt())) {
+                    String failureMessage = jsonNode.path(KEY_ERROR).path(KEY_REASON).asText(MSG_EMPTY_ERROR);
+                    bulkResponse.add(new InsertResponse(id, typeDescriptor, failureMessage));
+                    logger.debug("Insert failed [{}, {}, {}]", typeDescriptor.getIndex(), typeDescriptor.getType(), failureMessage);
+                    continue;
+                }
+                bulkResponse.add(new InsertResponse(id, typeDescriptor));
+            }
+            return bulkResponse;
+        } else {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR,
+                    (insertResponse != null && insertResponse.getStatusLine() != null) ? insertResponse.getStatusLine().getReasonPhrase() : CLIENT_GENERIC_ERROR_MSG);
+        }
+    }
+
+    @Override
+    public UpdateResponse upsert(UpdateRequest updateRequest) throws ClientException {
+        RestClient client = getClient();
+        ByteArrayOutputStream upsertOperation = new ByteArrayOutputStream(512);
+        writeUpsertDocument(updateRequest, upsertOperation);
+        byte[] json = upsertOperation.toByteArray();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Upsert - converted object: '{}'", new String(json, StandardCharsets.UTF_8));
+        }
         Response updateResponse = restCallTimeoutHandler(() -> client.performRequest(
                 POST_ACTION,
                 getUpsertPath(updateRequest.getTypeDescriptor(), updateRequest.getId()),
                 Collections.emptyMap(),
-                EntityBuilder.create().setText(json).setContentType(ContentType.APPLICATION_JSON).build(),
+                EntityBuilder.create().setBinary(json).setContentType(ContentType.APPLICATION_JSON).build(),
                 new BasicHeader("Content-Type", ContentType.APPLICATION_JSON.toString())), updateRequest.getTypeDescriptor().getIndex(), "UPSERT");
         if (isRequestSuccessful(updateResponse)) {
             JsonNode responseNode;
@@ -219,31 +278,26 @@ public class RestDatastoreClient extends AbstractDatastoreClient<RestClient> {
     @Override
     public BulkUpdateResponse upsert(BulkUpdateRequest bulkUpdateRequest) throws ClientException {
         RestClient client = getClient();
-        StringBuilder bulkOperation = new StringBuilder();
+        ByteArrayOutputStream bulkOperation = new ByteArrayOutputStream();
         for (UpdateRequest upsertRequest : bulkUpdateRequest.getRequest()) {
-            Map<String, Object> storableMap = modelContext.marshal(upsertRequest.getStorable());
-            bulkOperation.append("{ \"update\": {\"_id\": \"")
+            String action = new StringBuilder("{ \"update\": {\"_id\": \"")
                     .append(upsertRequest.getId())
                     .append("\", \"_type\": \"")
                     .append(upsertRequest.getTypeDescriptor().getType())
                     .append("\", \"_index\": \"")
                     .append(upsertRequest.getTypeDescriptor().getIndex())
-                    .append("\"}\n");
-
-            bulkOperation.append("{ \"doc\": ");
-            try {
-
-                bulkOperation.append(MAPPER.writeValueAsString(storableMap));
-            } catch (IOException e) {
-                throw new ClientException(ClientErrorCodes.ACTION_ERROR, e);
-            }
-            bulkOperation.append(", \"doc_as_upsert\": true }\n");
+                    .append("\"}\n")
+                    .toString();
+            byte[] actionBytes = action.getBytes(StandardCharsets.UTF_8);
+            bulkOperation.write(actionBytes, 0, actionBytes.length);
+            writeUpsertDocument(upsertRequest, bulkOperation);
+            bulkOperation.write('\n');
         }
         Response updateResponse = restCallTimeoutHandler(() -> client.performRequest(
                 POST_ACTION,
                 getBulkPath(),
                 Collections.emptyMap(),
-                EntityBuilder.create().setText(bulkOperation.toString()).setContentType(ContentType.APPLICATION_JSON).build(),
+                EntityBuilder.create().setBinary(bulkOperation.toByteArray()).setContentType(ContentType.APPLICATION_JSON).build(),
                 new BasicHeader("Content-Type", ContentType.APPLICATION_JSON.toString())), "multi-index", "UPSERT BULK");
         if (isRequestSuccessful(updateResponse)) {
             BulkUpdateResponse bulkResponse = new BulkUpdateResponse();
@@ -288,6 +342,25 @@ public class RestDatastoreClient extends AbstractDatastoreClient<RestClient> {
         }
     }
 
+    /**
+     * Write the update document (the storable as partial document to be upserted) of the upsert request
+     *
+     * @param updateRequest
+     * @param output
+     * @throws ClientException
+     */
+    private void writeUpsertDocument(UpdateRequest updateRequest, ByteArrayOutputStream output) throws ClientException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeFieldName(KEY_DOC);
+            modelContext.marshal(updateRequest.getStorable(), generator);
+            generator.writeBooleanField(KEY_DOC_AS_UPSERT, true);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR, e);
+        }
+    }
+
     @Override
     public <T> T find(TypeDescriptor typeDescriptor, Object query, Class<T> clazz) throws ClientException {
         ResultList<T> result = query(typeDescriptor, query, clazz);
@@ -332,14 +405,13 @@ public class RestDatastoreClient extends AbstractDatastoreClient<RestClient> {
         ResultList<T> resultList = new ResultList<>(totalCount);
         if (resultsNode != null && resultsNode.size() > 0) {
             for (JsonNode result : resultsNode) {
-                Map<String, Object> object = MAPPER.convertValue(result.get(SchemaKeys.KEY_SOURCE), Map.class);
+                // read the source straight from the response tree (no intermediate map)
                 String id = result.get(KEY_DOC_ID).asText();
-                String index = result.get(KEY_DOC_INDEX).asText();
-                String type = result.get(KEY_DOC_TYPE).asText();
-                object.put(ModelContext.TYPE_DESCRIPTOR_KEY, new TypeDescriptor(index, type));
-                object.put(ModelContext.DATASTORE_ID_KEY, id);
-                object.put(QueryConverter.QUERY_FETCH_STYLE_KEY, queryFetchStyle);
-                resultList.add(modelContext.unmarshal(clazz, object));
+                resultList.add(unmarshal(clazz, id, queryFetchStyle, result.path(SchemaKeys.KEY_SOURCE).traverse()));
+            }
+            JsonNode sortValuesNode = resultsNode.get(resultsNode.size() - 1).get(SchemaKeys.KEY_SORT);
+            if (sortValuesNode != null && sortValuesNode.isArray()) {
+                resultList.setLastSortValues(MAPPER.convertValue(sortValuesNode, Object[].class));
             }
         }
         return resultList;
@@ -376,6 +448,33 @@ public class RestDatastoreClient extends AbstractDatastoreClient<RestClient> {
         return totalCount;
     }
 
+    @Override
+    public JsonNode aggregate(TypeDescriptor typeDescriptor, Object query, ObjectNode aggregations) throws ClientException {
+        RestClient client = getClient();
+        JsonNode queryMap = toAggregationQuery(query, aggregations);
+        logger.debug("Aggregate - converted query: '{}'", queryMap);
+        JsonNode aggregationsNode = null;
+        Response queryResponse = restCallTimeoutHandler(() -> client.performRequest(
+                GET_ACTION,
+                getSearchPath(typeDescriptor),
+                Collections.emptyMap(),
+                EntityBuilder.create().setText(MAPPER.writeValueAsString(queryMap)).setContentType(ContentType.APPLICATION_JSON).build(),
+                new BasicHeader("Content-Type", ContentType.APPLICATION_JSON.toString())), typeDescriptor.getIndex(), "AGGREGATE");
+        if (isRequestSuccessful(queryResponse)) {
+            JsonNode responseNode;
+            try {
+                responseNode = MAPPER.readTree(EntityUtils.toString(queryResponse.getEntity()));
+            } catch (IOException e) {
+                throw new ClientException(ClientErrorCodes.ACTION_ERROR, e);
+            }
+            aggregationsNode = responseNode.get(KEY_AGGREGATIONS);
+        } else if (queryResponse != null) {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR,
+                    (queryResponse.getStatusLine() != null) ? queryResponse.getStatusLine().getReasonPhrase() : CLIENT_GENERIC_ERROR_MSG);
+        }
+        return aggregationsNode;
+    }
+
     @Override
     public void delete(TypeDescriptor typeDescriptor, String id) throws ClientException {
         logger.debug("Delete - id: '{}'", id);
@@ -468,6 +567,22 @@ public class RestDatastoreClient extends AbstractDatastoreClient<RestClient> {
         }
     }
 
+    @Override
+    public void updateIndexSettings(String indexName, ObjectNode indexSettings) throws ClientException {
+        logger.debug("Update index settings - index: '{}' - object: '{}'", indexName, indexSettings);
+        RestClient client = getClient();
+        Response updateIndexSettingsResponse = restCallTimeoutHandler(() -> client.performRequest(
+                PUT_ACTION,
+                getIndexSettingsPath(indexName),
+                Collections.emptyMap(),
+                EntityBuilder.create().setText(MAPPER.writeValueAsString(indexSettings)).setContentType(ContentType.APPLICATION_JSON).build(),
+                new BasicHeader("Content-Type", ContentType.APPLICATION_JSON.toString())), indexName, "UPDATE INDEX SETTINGS");
+        if (!isRequestSuccessful(updateIndexSettingsResponse)) {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR,
+                    (updateIndexSettingsResponse != null && updateIndexSettingsResponse.getStatusLine() != null) ? updateIndexSettingsResponse.getStatusLine().getReasonPhrase() : CLIENT_GENERIC_ERROR_MSG);
+        }
+    }
+
     @Override
     public boolean isMappingExists(TypeDescriptor typeDescriptor) throws ClientException {
         logger.debug("Mapping exists - mapping name: '{} - {}'", typeDescriptor.getIndex(), typeDescriptor.getType());
@@ -619,6 +734,10 @@ public class RestDatastoreClient extends AbstractDatastoreClient<RestClient> {
         return String.format("/%s", index);
     }
 
+    private String getIndexSettingsPath(String index) {
+        return String.format("/%s/_settings", index);
+    }
+
     private String getFindIndexPath(String index) {
         return String.format("/_cat/indices?h=index&index=%s", index);
     }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -48,7 +48,38 @@ public enum ClientSettingsKey implements SettingKey {
     /**
      * Scroll timeout
      */
-    SCROLL_TIMEOUT("datastore.scroll.timeout");
+    SCROLL_TIMEOUT("datastore.scroll.timeout"),
+    /**
+     * Send the single insert and upsert requests through the bulk processor (disabled by default: each request waits up to {@link #BULK_PROCESSOR_FLUSH_INTERVAL}
+     * milliseconds for its bulk request to be sent)
+     *
+     * @since 1.3.0
+     */
+    BULK_PROCESSOR_ENABLED("datastore.bulk_processor.enabled"),
+    /**
+     * Maximum number of requests of a bulk request
+     *
+     * @since 1.3.0
+     */
+    BULK_PROCESSOR_ACTIONS("datastore.bulk_processor.actions"),
+    /**
+     * Maximum size (in MB) of a bulk request
+     *
+     * @since 1.3.0
+     */
+    BULK_PROCESSOR_SIZE("datastore.bulk_processor.size"),
+    /**
+     * Maximum time (in milliseconds) a request waits before its bulk request is sent
+     *
+     * @since 1.3.0
+     */
+    BULK_PROCESSOR_FLUSH_INTERVAL("datastore.bulk_processor.flush_interval"),
+    /**
+     * Number of bulk requests allowed to be executed while collecting the next one
+     *
+     * @since 1.3.0
+     */
+    BULK_PROCESSOR_CONCURRENT_REQUESTS("datastore.bulk_processor.concurrent_requests");
 
 
     private String key;
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.client.transport;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.eclipse.kapua.service.datastore.client.ClientErrorCodes;
+import org.eclipse.kapua.service.datastore.client.ClientException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Size and time bounded bulk processor for the single write requests of the transport client.<br>
+ * The write requests coming from the concurrent callers are collected and sent as a single bulk request when {@link ClientSettingsKey#BULK_PROCESSOR_ACTIONS} requests
+ * or {@link ClientSettingsKey#BULK_PROCESSOR_SIZE} MB are collected, or at most every {@link ClientSettingsKey#BULK_PROCESSOR_FLUSH_INTERVAL} milliseconds.<br>
+ * Each caller waits for the outcome of its own request, so a request rejected by Elasticsearch is reported to its caller only.<br>
+ * Since every request waits up to {@link ClientSettingsKey#BULK_PROCESSOR_FLUSH_INTERVAL} milliseconds for its bulk request to be sent, the bulk processor only pays off with
+ * many concurrent writers, and it is disabled by default ({@link ClientSettingsKey#BULK_PROCESSOR_ENABLED}).
+ *
+ * @since 1.3.0
+ */
+public class TransportBulkProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransportBulkProcessor.class);
+
+    private static final String BULK_FAILED_ERROR_MSG = "Bulk request failed!";
+    private static final String BULK_TIMEOUT_ERROR_MSG = "Bulk request timed out!";
+    private static final String BULK_ITEM_MISSING_ERROR_MSG = "No response for the request in the bulk response!";
+
+    private final Client client;
+    private final RequestCollector requestCollector;
+    private final Map<DocWriteRequest<?>, CompletableFuture<BulkItemResponse>> pendingRequests = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * Collects the requests and sends them as bulk requests, reporting the outcome of each bulk request to the listener
+     */
+    interface RequestCollector {
+
+        void add(DocWriteRequest<?> request);
+
+        boolean awaitClose(long timeout, TimeUnit unit) throws InterruptedException;
+    }
+
+    /**
+     * Create the bulk processor for the given client based on the default configuration settings ({@link ClientSettingsKey})
+     *
+     * @param client
+     */
+    public TransportBulkProcessor(Client client) {
+        this(client, listener -> newBulkProcessor(client, listener));
+    }
+
+    TransportBulkProcessor(Client client, Function<BulkProcessor.Listener, RequestCollector> requestCollectorFactory) {
+        this.client = client;
+        requestCollector = requestCollectorFactory.apply(new BulkListener());
+    }
+
+    private static RequestCollector newBulkProcessor(Client client, BulkProcessor.Listener listener) {
+        ClientSettings settings = ClientSettings.getInstance();
+        // the rejected requests are not retried: the retried items would no longer match the positions of the requests in the bulk request
+        BulkProcessor bulkProcessor = BulkProcessor.builder(client, listener)
+                .setBulkActions(settings.getInt(ClientSettingsKey.BULK_PROCESSOR_ACTIONS, 1000))
+                .setBulkSize(new ByteSizeValue(settings.getLong(ClientSettingsKey.BULK_PROCESSOR_SIZE, 5), ByteSizeUnit.MB))
+                .setFlushInterval(TimeValue.timeValueMillis(settings.getLong(ClientSettingsKey.BULK_PROCESSOR_FLUSH_INTERVAL, 50)))
+                .setConcurrentRequests(settings.getInt(ClientSettingsKey.BULK_PROCESSOR_CONCURRENT_REQUESTS, 2))
+                .setBackoffPolicy(BackoffPolicy.noBackoff())
+                .build();
+        return new RequestCollector() {
+
+            @Override
+            public void add(DocWriteRequest<?> request) {
+                bulkProcessor.add(request);
+            }
+
+            @Override
+            public boolean awaitClose(long timeout, TimeUnit unit) throws InterruptedException {
+                return bulkProcessor.awaitClose(timeout, unit);
+            }
+        };
+    }
+
+    /**
+     * Get the client the bulk processor sends the requests through
+     *
+     * @return
+     */
+    public Client getClient() {
+        return client;
+    }
+
+    /**
+     * Add the request to the next bulk request and wait for its outcome
+     *
+     * @param request
+     * @param timeout
+     * @return the item response of the request (never failed)
+     * @throws ClientException
+     *             if the request is rejected, the bulk request fails or the outcome is not available before the timeout
+     */
+    public BulkItemResponse execute(DocWriteRequest<?> request, TimeValue timeout) throws ClientException {
+        CompletableFuture<BulkItemResponse> future = new CompletableFuture<>();
+        pendingRequests.put(request, future);
+        BulkItemResponse itemResponse;
+        try {
+            requestCollector.add(request);
+            itemResponse = future.get(timeout.millis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR, e, BULK_FAILED_ERROR_MSG);
+        } catch (ExecutionException e) {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR, e.getCause(), BULK_FAILED_ERROR_MSG);
+        } catch (TimeoutException e) {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR, e, BULK_TIMEOUT_ERROR_MSG);
+        } catch (RuntimeException e) {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR, e, BULK_FAILED_ERROR_MSG);
+        } finally {
+            pendingRequests.remove(request);
+        }
+
+        if (itemResponse.isFailed()) {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR, itemResponse.getFailure().getCause(), itemResponse.getFailureMessage());
+        }
+        return itemResponse;
+    }
+
+    /**
+     * Send the pending requests and close the bulk processor
+     *
+     * @param timeout
+     */
+    public void close(TimeValue timeout) {
+        try {
+            requestCollector.awaitClose(timeout.millis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (pendingRequests) {
+            for (CompletableFuture<BulkItemResponse> future : pendingRequests.values()) {
+                future.completeExceptionally(new IllegalStateException("Bulk processor closed"));
+            }
+        }
+    }
+
+    private class BulkListener implements BulkProcessor.Listener {
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+            logger.debug("Executing bulk request {} - actions: {}", executionId, request.numberOfActions());
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            List<DocWriteRequest> requests = request.requests();
+            for (BulkItemResponse itemResponse : response.getItems()) {
+                CompletableFuture<BulkItemResponse> future = pendingRequests.remove(requests.get(itemResponse.getItemId()));
+                if (future != null) {
+                    future.complete(itemResponse);
+                }
+            }
+            // shouldn't happen: every request has its item response
+            for (DocWriteRequest<?> docWriteRequest : requests) {
+                CompletableFuture<BulkItemResponse> future = pendingRequests.remove(docWriteRequest);
+                if (future != null) {
+                    future.completeExceptionally(new IllegalStateException(BULK_ITEM_MISSING_ERROR_MSG));
+                }
+            }
+            if (response.hasFailures()) {
+                logger.info("Bulk request {} completed with failures: {}", executionId, response.buildFailureMessage());
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            logger.warn("Bulk request {} failed: {}", executionId, failure.getMessage());
+            for (DocWriteRequest<?> docWriteRequest : request.requests()) {
+                CompletableFuture<BulkItemResponse> future = pendingRequests.remove(docWriteRequest);
+                if (future != null) {
+                    future.completeExceptionally(failure);
+                }
+            }
+        }
+    }
+}
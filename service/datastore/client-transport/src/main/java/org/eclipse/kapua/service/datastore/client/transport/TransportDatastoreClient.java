@@ -12,18 +12,19 @@
  *******************************************************************************/
 package org.eclipse.kapua.service.datastore.client.transport;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 import org.eclipse.kapua.service.datastore.client.AbstractDatastoreClient;
 import org.eclipse.kapua.service.datastore.client.ClientErrorCodes;
 import org.eclipse.kapua.service.datastore.client.ClientException;
 import org.eclipse.kapua.service.datastore.client.ClientProvider;
-import org.eclipse.kapua.service.datastore.client.ModelContext;
-import org.eclipse.kapua.service.datastore.client.QueryConverter;
+import org.eclipse.kapua.service.datastore.client.ClientUnavailableException;
 import org.eclipse.kapua.service.datastore.client.SchemaKeys;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertResponse;
 import org.eclipse.kapua.service.datastore.client.model.BulkUpdateRequest;
 import org.eclipse.kapua.service.datastore.client.model.BulkUpdateResponse;
 import org.eclipse.kapua.service.datastore.client.model.IndexRequest;
@@ -34,6 +35,7 @@ import org.eclipse.kapua.service.datastore.client.model.ResultList;
 import org.eclipse.kapua.service.datastore.client.model.TypeDescriptor;
 import org.eclipse.kapua.service.datastore.client.model.UpdateRequest;
 import org.eclipse.kapua.service.datastore.client.model.UpdateResponse;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexAction;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexResponse;
@@ -58,6 +60,8 @@ import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -73,7 +77,9 @@ import org.elasticsearch.search.sort.SortOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
@@ -93,14 +99,18 @@ public class TransportDatastoreClient extends AbstractDatastoreClient<Client> {
     private static final String CLIENT_QUERY_PARSING_ERROR_MSG = "Cannot parse query!";
     private static final String CLIENT_CANNOT_DELETE_INDEX_ERROR_MSG = "Cannot delete indexes!";
     private static final String CLIENT_CANNOT_REFRESH_INDEX_ERROR_MSG = "Cannot refresh indexes!";
+    private static final String CLIENT_AGGREGATION_PARSING_ERROR_MSG = "Cannot parse aggregations result!";
+
+    private static final String KEY_AGGREGATIONS = "aggregations";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
 
     private static final String INDEXES_ALL = "_all";
     private static final String DOC = "_doc";
 
     private static TransportDatastoreClient instance;
 
-    private ModelContext modelContext;
-    private QueryConverter queryConverter;
+    private TransportBulkProcessor bulkProcessor;
 
     static {
         instance = new TransportDatastoreClient();
@@ -132,25 +142,67 @@ public class TransportDatastoreClient extends AbstractDatastoreClient<Client> {
     @Override
     public InsertResponse insert(InsertRequest insertRequest) throws ClientException {
         Client client = getClient();
-        Map<String, Object> storableMap = modelContext.marshal(insertRequest.getStorable());
-        logger.debug("Insert - converted object: '{}'", storableMap);
-        org.elasticsearch.action.index.IndexRequest idxRequest = new org.elasticsearch.action.index.IndexRequest(insertRequest.getTypeDescriptor().getIndex(), insertRequest.getTypeDescriptor().getType()).source(storableMap);
+        byte[] storableSource = marshal(insertRequest.getStorable());
+        org.elasticsearch.action.index.IndexRequest idxRequest = new org.elasticsearch.action.index.IndexRequest(insertRequest.getTypeDescriptor().getIndex(), insertRequest.getTypeDescriptor().getType())
+                .source(storableSource, XContentType.JSON);
         if (insertRequest.getId() != null) {
             idxRequest.id(insertRequest.getId()).version(1).versionType(VersionType.EXTERNAL);
         }
+        if (isBulkProcessorEnabled()) {
+            BulkItemResponse itemResponse = getBulkProcessor(client).execute(idxRequest, getQueryTimeout());
+            return new InsertResponse(itemResponse.getId(), insertRequest.getTypeDescriptor());
+        }
         org.elasticsearch.action.index.IndexResponse response = client.index(idxRequest).actionGet(getQueryTimeout());
         return new InsertResponse(response.getId(), insertRequest.getTypeDescriptor());
     }
 
+    @Override
+    public BulkInsertResponse insert(BulkInsertRequest bulkInsertRequest) throws ClientException {
+        Client client = getClient();
+        BulkRequest bulkRequest = new BulkRequest();
+        for (InsertRequest insertRequest : bulkInsertRequest.getRequest()) {
+            byte[] storableSource = marshal(insertRequest.getStorable());
+            org.elasticsearch.action.index.IndexRequest idxRequest = new org.elasticsearch.action.index.IndexRequest(insertRequest.getTypeDescriptor().getIndex(), insertRequest.getTypeDescriptor().getType())
+                    .source(storableSource, XContentType.JSON);
+            if (insertRequest.getId() != null) {
+                idxRequest.id(insertRequest.getId()).version(1).versionType(VersionType.EXTERNAL);
+            }
+            bulkRequest.add(idxRequest);
+        }
+
+        BulkResponse bulkResponse = client.bulk(bulkRequest).actionGet(getQueryTimeout());
+
+        BulkInsertResponse response = new BulkInsertResponse();
+        BulkItemResponse[] itemResponses = bulkResponse.getItems();
+        if (itemResponses != null) {
+            for (BulkItemResponse bulkItemResponse : itemResponses) {
+                TypeDescriptor typeDescriptor = new TypeDescriptor(bulkItemResponse.getIndex(), bulkItemResponse.getType());
+                if (bulkItemResponse.isFailed()) {
+                    String failureMessage = bulkItemResponse.getFailureMessage();
+                    response.add(new InsertResponse(bulkItemResponse.getId(), typeDescriptor, failureMessage));
+                    logger.debug("Insert failed [{}, {}, {}]", typeDescriptor.getIndex(), typeDescriptor.getType(), failureMessage);
+                    continue;
+                }
+                response.add(new InsertResponse(bulkItemResponse.getId(), typeDescriptor));
+            }
+        }
+        return response;
+    }
+
     @Override
     public UpdateResponse upsert(UpdateRequest upsertRequest) throws ClientException {
         Client client = getClient();
-        Map<String, Object> storableMap = modelContext.marshal(upsertRequest.getStorable());
-        logger.debug("Upsert - converted object: '{}'", storableMap);
-        org.elasticsearch.action.index.IndexRequest idxRequest = new org.elasticsearch.action.index.IndexRequest(upsertRequest.getTypeDescriptor().getIndex(), upsertRequest.getTypeDescriptor().getType(), upsertRequest.getId()).source(storableMap);
+        byte[] storableSource = marshal(upsertRequest.getStorable());
+        org.elasticsearch.action.index.IndexRequest idxRequest = new org.elasticsearch.action.index.IndexRequest(upsertRequest.getTypeDescriptor().getIndex(), upsertRequest.getTypeDescriptor().getType(), upsertRequest.getId())
+                .source(storableSource, XContentType.JSON);
         org.elasticsearch.action.update.UpdateRequest updateRequest = new org.elasticsearch.action.update.UpdateRequest(upsertRequest.getTypeDescriptor().getIndex(),
-                upsertRequest.getTypeDescriptor().getType(), upsertRequest.getId()).doc(storableMap);
-        org.elasticsearch.action.update.UpdateResponse response = client.update(updateRequest.upsert(idxRequest)).actionGet(getQueryTimeout());
+                upsertRequest.getTypeDescriptor().getType(), upsertRequest.getId()).doc(storableSource, XContentType.JSON);
+        updateRequest.upsert(idxRequest);
+        if (isBulkProcessorEnabled()) {
+            BulkItemResponse itemResponse = getBulkProcessor(client).execute(updateRequest, getQueryTimeout());
+            return new UpdateResponse(itemResponse.getId(), upsertRequest.getTypeDescriptor());
+        }
+        org.elasticsearch.action.update.UpdateResponse response = client.update(updateRequest).actionGet(getQueryTimeout());
         return new UpdateResponse(response.getId(), upsertRequest.getTypeDescriptor());
     }
 
@@ -162,10 +214,9 @@ public class TransportDatastoreClient extends AbstractDatastoreClient<Client> {
             String type = upsertRequest.getTypeDescriptor().getType();
             String index = upsertRequest.getTypeDescriptor().getIndex();
             String id = upsertRequest.getId();
-            Map<String, Object> mappedObject = modelContext.marshal(upsertRequest.getStorable());
-            logger.debug("Upsert - converted object: '{}'", mappedObject);
-            org.elasticsearch.action.index.IndexRequest idxRequest = new org.elasticsearch.action.index.IndexRequest(index, type, id).source(mappedObject);
-            org.elasticsearch.action.update.UpdateRequest updateRequest = new org.elasticsearch.action.update.UpdateRequest(index, type, id).doc(mappedObject);
+            byte[] storableSource = marshal(upsertRequest.getStorable());
+            org.elasticsearch.action.index.IndexRequest idxRequest = new org.elasticsearch.action.index.IndexRequest(index, type, id).source(storableSource, XContentType.JSON);
+            org.elasticsearch.action.update.UpdateRequest updateRequest = new org.elasticsearch.action.update.UpdateRequest(index, type, id).doc(storableSource, XContentType.JSON);
             updateRequest.upsert(idxRequest);
             bulkRequest.add(updateRequest);
         }
@@ -213,7 +264,7 @@ public class TransportDatastoreClient extends AbstractDatastoreClient<Client> {
         ObjectNode fetchSourceFields = (ObjectNode) queryMap.path(SchemaKeys.KEY_SOURCE);
         String[] includesFields = toIncludedExcludedFields(fetchSourceFields.path(SchemaKeys.KEY_INCLUDES));
         String[] excludesFields = toIncludedExcludedFields(fetchSourceFields.path(SchemaKeys.KEY_EXCLUDES));
-        SearchRequestBuilder searchReqBuilder = client.prepareSearch(typeDescriptor.getIndex());
+        SearchRequestBuilder searchReqBuilder = client.prepareSearch(getSearchIndexes(typeDescriptor));
         searchReqBuilder.setTypes(typeDescriptor.getType())
                 .setSource(toSearchSourceBuilder(queryMap))
                 .setFetchSource(includesFields, excludesFields);
@@ -239,11 +290,17 @@ public class TransportDatastoreClient extends AbstractDatastoreClient<Client> {
         ResultList<T> result = new ResultList<T>(totalCount);
         if (searchHits != null) {
             for (SearchHit searchHit : searchHits) {
-                Map<String, Object> object = searchHit.getSource();
-                object.put(ModelContext.TYPE_DESCRIPTOR_KEY, new TypeDescriptor(searchHit.getIndex(), searchHit.getType()));
-                object.put(ModelContext.DATASTORE_ID_KEY, searchHit.getId());
-                object.put(QueryConverter.QUERY_FETCH_STYLE_KEY, queryFetchStyle);
-                result.add(modelContext.unmarshal(clazz, object));
+                // read the source straight from the hit bytes (no intermediate map)
+                JsonParser sourceParser;
+                try {
+                    sourceParser = JSON_FACTORY.createParser(searchHit.source());
+                } catch (IOException e) {
+                    throw new ClientException(ClientErrorCodes.ACTION_ERROR, e);
+                }
+                result.add(unmarshal(clazz, searchHit.getId(), queryFetchStyle, sourceParser));
+            }
+            if (searchHits.length > 0) {
+                result.setLastSortValues(toSortValues(searchHits[searchHits.length - 1].getSortValues()));
             }
         }
         return result;
@@ -254,7 +311,7 @@ public class TransportDatastoreClient extends AbstractDatastoreClient<Client> {
         Client client = getClient();
         // TODO check for fetch none
         JsonNode queryMap = queryConverter.convertQuery(query);
-        SearchRequestBuilder searchReqBuilder = client.prepareSearch(typeDescriptor.getIndex());
+        SearchRequestBuilder searchReqBuilder = client.prepareSearch(getSearchIndexes(typeDescriptor));
         SearchHits searchHits = null;
         try {
             SearchResponse response = searchReqBuilder.setTypes(typeDescriptor.getType())
@@ -273,6 +330,36 @@ public class TransportDatastoreClient extends AbstractDatastoreClient<Client> {
         return searchHits.getTotalHits();
     }
 
+    @Override
+    public JsonNode aggregate(TypeDescriptor typeDescriptor, Object query, ObjectNode aggregations) throws ClientException {
+        Client client = getClient();
+        JsonNode queryMap = toAggregationQuery(query, aggregations);
+        logger.debug("Aggregate - converted query: '{}'", queryMap);
+        SearchResponse response = null;
+        try {
+            response = client.prepareSearch(getSearchIndexes(typeDescriptor))
+                    .setTypes(typeDescriptor.getType())
+                    .setSource(toSearchSourceBuilder(queryMap))
+                    .execute()
+                    .actionGet(getQueryTimeout());
+        } catch (IndexNotFoundException infe) {
+            logger.warn("Cannot find index '{}'", typeDescriptor.getIndex());
+        } catch (SearchPhaseExecutionException spee) {
+            logger.warn("Generic search error {}", spee.getMessage(), spee);
+        }
+        if (response == null || response.getAggregations() == null) {
+            return null;
+        }
+        try {
+            XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+            response.getAggregations().toXContent(builder, ToXContent.EMPTY_PARAMS);
+            builder.endObject();
+            return MAPPER.readTree(builder.string()).get(KEY_AGGREGATIONS);
+        } catch (IOException e) {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR, e, CLIENT_AGGREGATION_PARSING_ERROR_MSG);
+        }
+    }
+
     @Override
     public void delete(TypeDescriptor typeDescriptor, String id) throws ClientException {
         Client client = getClient();
@@ -299,7 +386,7 @@ public class TransportDatastoreClient extends AbstractDatastoreClient<Client> {
         SearchResponse scrollResponse = null;
         try {
             // delete by query API is deprecated, scroll with bulk delete must be used
-            scrollResponse = client.prepareSearch(typeDescriptor.getIndex())
+            scrollResponse = client.prepareSearch(getSearchIndexes(typeDescriptor))
                     .setTypes(typeDescriptor.getType())
                     .setFetchSource(false)
                     .addSort(DOC, SortOrder.ASC)
@@ -375,6 +462,17 @@ public class TransportDatastoreClient extends AbstractDatastoreClient<Client> {
                 .actionGet(getQueryTimeout());
     }
 
+    @Override
+    public void updateIndexSettings(String indexName, ObjectNode indexSettings) throws ClientException {
+        Client client = getClient();
+        client.admin()
+                .indices()
+                .prepareUpdateSettings(indexName)
+                .setSettings(indexSettings.toString(), XContentType.JSON)
+                .execute()
+                .actionGet(getQueryTimeout());
+    }
+
     @Override
     public boolean isMappingExists(TypeDescriptor typeDescriptor) throws ClientException {
         Client client = getClient();
@@ -405,6 +503,13 @@ public class TransportDatastoreClient extends AbstractDatastoreClient<Client> {
         }
     }
 
+    /**
+     * The index of a search can be a comma separated list of index expressions (as for the REST API)
+     */
+    private String[] getSearchIndexes(TypeDescriptor typeDescriptor) {
+        return typeDescriptor.getIndex().split(",");
+    }
+
     private String[] toIncludedExcludedFields(JsonNode queryMap) throws ClientException {
         if (queryMap instanceof ArrayNode) {
             ArrayNode arrayNode = (ArrayNode) queryMap;
@@ -419,6 +524,23 @@ public class TransportDatastoreClient extends AbstractDatastoreClient<Client> {
         }
     }
 
+    /**
+     * Converts the hit sort values to plain values (keyword fields are returned as {@link BytesRef})
+     *
+     * @param sortValues
+     * @return
+     */
+    private Object[] toSortValues(Object[] sortValues) {
+        if (sortValues == null || sortValues.length == 0) {
+            return null;
+        }
+        Object[] values = new Object[sortValues.length];
+        for (int i = 0; i < sortValues.length; i++) {
+            values[i] = sortValues[i] instanceof BytesRef ? ((BytesRef) sortValues[i]).utf8ToString() : sortValues[i];
+        }
+        return values;
+    }
+
     private SearchSourceBuilder toSearchSourceBuilder(JsonNode queryMap) throws ClientException {
         SearchSourceBuilder searchSourceBuilder = null;
         try {
@@ -490,6 +612,43 @@ public class TransportDatastoreClient extends AbstractDatastoreClient<Client> {
         }
     }
 
+    @Override
+    public void close() throws ClientUnavailableException {
+        closeBulkProcessor();
+        super.close();
+    }
+
+    /**
+     * Check if the single insert and upsert requests are sent through the bulk processor ({@link ClientSettingsKey#BULK_PROCESSOR_ENABLED})
+     *
+     * @return
+     */
+    private boolean isBulkProcessorEnabled() {
+        return ClientSettings.getInstance().getBoolean(ClientSettingsKey.BULK_PROCESSOR_ENABLED, false);
+    }
+
+    /**
+     * Get the bulk processor bound to the given client.<br>
+     * If the client was reinitialized, the bulk processor of the previous client is closed and a new one is created.
+     *
+     * @param client
+     * @return
+     */
+    private synchronized TransportBulkProcessor getBulkProcessor(Client client) {
+        if (bulkProcessor == null || bulkProcessor.getClient() != client) {
+            closeBulkProcessor();
+            bulkProcessor = new TransportBulkProcessor(client);
+        }
+        return bulkProcessor;
+    }
+
+    private synchronized void closeBulkProcessor() {
+        if (bulkProcessor != null) {
+            bulkProcessor.close(getQueryTimeout());
+            bulkProcessor = null;
+        }
+    }
+
     /**
      * Get the scroll timeout (default value)
      * 
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.client.transport;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.client.ClientException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.unit.TimeValue;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(JUnitTests.class)
+public class TransportBulkProcessorTest extends Assert {
+
+    private static final TimeValue TIMEOUT = TimeValue.timeValueSeconds(10);
+
+    private final BlockingQueue<DocWriteRequest<?>> collectedRequests = new LinkedBlockingQueue<>();
+
+    private BulkProcessor.Listener listener;
+    private TransportBulkProcessor bulkProcessor;
+    private ExecutorService callers;
+
+    @Before
+    public void setUp() {
+        collectedRequests.clear();
+        callers = Executors.newCachedThreadPool();
+        bulkProcessor = new TransportBulkProcessor(null, bulkListener -> {
+            listener = bulkListener;
+            return new TransportBulkProcessor.RequestCollector() {
+
+                @Override
+                public void add(DocWriteRequest<?> request) {
+                    collectedRequests.add(request);
+                }
+
+                @Override
+                public boolean awaitClose(long timeout, TimeUnit unit) {
+                    // the collected requests are never sent
+                    return true;
+                }
+            };
+        });
+    }
+
+    @After
+    public void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void itemFailuresReportedToTheirCallers() throws Exception {
+        IndexRequest firstRequest = new IndexRequest("index", "type", "1");
+        IndexRequest secondRequest = new IndexRequest("index", "type", "2");
+        Future<BulkItemResponse> firstCaller = submit(firstRequest);
+        Future<BulkItemResponse> secondCaller = submit(secondRequest);
+        BulkRequest bulkRequest = collect(2);
+
+        // the item responses are matched to the requests by their position in the bulk request
+        Exception firstCause = new IllegalArgumentException("first rejected");
+        Exception secondCause = new IllegalArgumentException("second rejected");
+        BulkItemResponse[] itemResponses = new BulkItemResponse[] {
+                failure(indexOf(bulkRequest, secondRequest), secondRequest, secondCause),
+                failure(indexOf(bulkRequest, firstRequest), firstRequest, firstCause)
+        };
+        listener.afterBulk(1L, bulkRequest, new BulkResponse(itemResponses, 1L));
+
+        assertSame(firstCause, getClientException(firstCaller).getCause());
+        assertSame(secondCause, getClientException(secondCaller).getCause());
+    }
+
+    @Test
+    public void bulkFailureReportedToAllCallers() throws Exception {
+        Future<BulkItemResponse> firstCaller = submit(new IndexRequest("index", "type", "1"));
+        Future<BulkItemResponse> secondCaller = submit(new IndexRequest("index", "type", "2"));
+        BulkRequest bulkRequest = collect(2);
+
+        Exception failure = new IllegalStateException("cluster unavailable");
+        listener.afterBulk(1L, bulkRequest, failure);
+
+        assertSame(failure, getClientException(firstCaller).getCause());
+        assertSame(failure, getClientException(secondCaller).getCause());
+    }
+
+    @Test
+    public void missingItemResponseReported() throws Exception {
+        IndexRequest firstRequest = new IndexRequest("index", "type", "1");
+        IndexRequest secondRequest = new IndexRequest("index", "type", "2");
+        Future<BulkItemResponse> firstCaller = submit(firstRequest);
+        Future<BulkItemResponse> secondCaller = submit(secondRequest);
+        BulkRequest bulkRequest = collect(2);
+
+        Exception firstCause = new IllegalArgumentException("first rejected");
+        BulkItemResponse[] itemResponses = new BulkItemResponse[] { failure(indexOf(bulkRequest, firstRequest), firstRequest, firstCause) };
+        listener.afterBulk(1L, bulkRequest, new BulkResponse(itemResponses, 1L));
+
+        assertSame(firstCause, getClientException(firstCaller).getCause());
+        assertTrue(getClientException(secondCaller).getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void closeWithPendingRequests() throws Exception {
+        Future<BulkItemResponse> caller = submit(new IndexRequest("index", "type", "1"));
+        collect(1);
+
+        bulkProcessor.close(TIMEOUT);
+
+        assertTrue(getClientException(caller).getCause() instanceof IllegalStateException);
+    }
+
+    private Future<BulkItemResponse> submit(IndexRequest request) {
+        return callers.submit(() -> bulkProcessor.execute(request, TIMEOUT));
+    }
+
+    /**
+     * Waits for the given number of requests to be collected and builds the bulk request the bulk processor would send
+     */
+    private BulkRequest collect(int count) throws InterruptedException {
+        BulkRequest bulkRequest = new BulkRequest();
+        for (int i = 0; i < count; i++) {
+            DocWriteRequest<?> request = collectedRequests.poll(TIMEOUT.millis(), TimeUnit.MILLISECONDS);
+            assertNotNull("Request not collected", request);
+            bulkRequest.add((IndexRequest) request);
+        }
+        return bulkRequest;
+    }
+
+    private static int indexOf(BulkRequest bulkRequest, DocWriteRequest<?> request) {
+        for (int i = 0; i < bulkRequest.requests().size(); i++) {
+            if (bulkRequest.requests().get(i) == request) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Request not in the bulk request");
+    }
+
+    private static BulkItemResponse failure(int itemId, IndexRequest request, Exception cause) {
+        return new BulkItemResponse(itemId, DocWriteRequest.OpType.INDEX, new BulkItemResponse.Failure(request.index(), request.type(), request.id(), cause));
+    }
+
+    private static ClientException getClientException(Future<BulkItemResponse> caller) throws InterruptedException, TimeoutException {
+        try {
+            caller.get(TIMEOUT.millis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            assertTrue("Unexpected exception: " + e.getCause(), e.getCause() instanceof ClientException);
+            return (ClientException) e.getCause();
+        }
+        fail("The request should have failed");
+        return null;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -38,6 +38,7 @@ public abstract class AbstractStorableQuery<S extends Storable> implements Stora
     private KapuaId scopeId;
     private Integer limit;
     private Integer indexOffset;
+    private String nextKey;
     private boolean askTotalCount;
     private List<SortField> sortFields;
     private StorableFetchStyle fetchStyle;
@@ -133,6 +134,16 @@ public abstract class AbstractStorableQuery<S extends Storable> implements Stora
         return limit;
     }
 
+    @Override
+    public String getNextKey() {
+        return nextKey;
+    }
+
+    @Override
+    public void setNextKey(String nextKey) {
+        this.nextKey = nextKey;
+    }
+
     @Override
     public boolean isAskTotalCount() {
         return askTotalCount;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -11,6 +11,8 @@
  *******************************************************************************/
 package org.eclipse.kapua.service.datastore.internal;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 import org.eclipse.kapua.KapuaIllegalArgumentException;
 import org.eclipse.kapua.commons.util.ArgumentValidator;
 import org.eclipse.kapua.model.id.KapuaId;
@@ -24,10 +26,12 @@ import org.eclipse.kapua.service.datastore.client.model.TypeDescriptor;
 import org.eclipse.kapua.service.datastore.client.model.UpdateRequest;
 import org.eclipse.kapua.service.datastore.client.model.UpdateResponse;
 import org.eclipse.kapua.service.datastore.internal.client.DatastoreClientFactory;
+import org.eclipse.kapua.service.datastore.internal.converter.RegistryActivityConverter;
 import org.eclipse.kapua.service.datastore.internal.mediator.ChannelInfoField;
 import org.eclipse.kapua.service.datastore.internal.mediator.ChannelInfoRegistryMediator;
 import org.eclipse.kapua.service.datastore.internal.mediator.ConfigurationException;
 import org.eclipse.kapua.service.datastore.internal.mediator.MessageStoreConfiguration;
+import org.eclipse.kapua.service.datastore.internal.model.ChannelInfoImpl;
 import org.eclipse.kapua.service.datastore.internal.model.ChannelInfoListResultImpl;
 import org.eclipse.kapua.service.datastore.internal.model.StorableIdImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.ChannelInfoQueryImpl;
@@ -39,9 +43,14 @@ import org.eclipse.kapua.service.datastore.model.ChannelInfo;
 import org.eclipse.kapua.service.datastore.model.ChannelInfoListResult;
 import org.eclipse.kapua.service.datastore.model.StorableId;
 import org.eclipse.kapua.service.datastore.model.query.ChannelInfoQuery;
+import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
 /**
  * Channel information registry facade
  * 
@@ -110,6 +119,7 @@ public class ChannelInfoRegistryFacade {
                         UpdateRequest request = new UpdateRequest(channelInfo.getId().toString(), new TypeDescriptor(metadata.getRegistryIndexName(), ChannelInfoSchema.CHANNEL_TYPE_NAME),
                                 channelInfo);
                         response = client.upsert(request);
+                        RegistryQueryCache.getInstance().invalidate(channelInfo.getScopeId());
 
                         if (!channelInfoId.equals(response.getId())) {
                             // this condition shouldn't happens
@@ -159,6 +169,7 @@ public class ChannelInfoRegistryFacade {
             mediator.onBeforeChannelInfoDelete(channelInfo);
             TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, ChannelInfoSchema.CHANNEL_TYPE_NAME);
             client.delete(typeDescriptor, id.toString());
+            RegistryQueryCache.getInstance().invalidate(scopeId);
         }
     }
 
@@ -220,7 +231,7 @@ public class ChannelInfoRegistryFacade {
 
         String indexName = SchemaUtil.getKapuaIndexName(query.getScopeId());
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, ChannelInfoSchema.CHANNEL_TYPE_NAME);
-        return new ChannelInfoListResultImpl(client.query(typeDescriptor, query, ChannelInfo.class));
+        return new ChannelInfoListResultImpl(RegistryQueryCache.getInstance().query(client, typeDescriptor, query, ChannelInfo.class, ChannelInfoImpl::new));
     }
 
     /**
@@ -251,7 +262,7 @@ public class ChannelInfoRegistryFacade {
 
         String indexName = SchemaUtil.getKapuaIndexName(query.getScopeId());
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, ChannelInfoSchema.CHANNEL_TYPE_NAME);
-        return client.count(typeDescriptor, query);
+        return RegistryQueryCache.getInstance().count(client, typeDescriptor, query);
     }
 
     /**
@@ -289,6 +300,58 @@ public class ChannelInfoRegistryFacade {
         }
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, ChannelInfoSchema.CHANNEL_TYPE_NAME);
         client.deleteByQuery(typeDescriptor, query);
+        RegistryQueryCache.getInstance().invalidate(query.getScopeId());
+    }
+
+    /**
+     * Delete the channel info registry entries of the channels that haven't been published since the given date.<br>
+     * The entries are checked and deleted a page at a time (see {@link RegistryCleaner}), then removed from the channels cache so the channel is registered again by its next message.
+     *
+     * @param scopeId
+     * @param expiredBefore
+     * @param pageSize
+     * @return the deleted entries count
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    public int deleteStale(KapuaId scopeId, Date expiredBefore, int pageSize)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException {
+        return new ChannelInfoRegistryCleaner().deleteStale(scopeId, expiredBefore, pageSize);
+    }
+
+    private class ChannelInfoRegistryCleaner extends RegistryCleaner<ChannelInfo> {
+
+        private ChannelInfoRegistryCleaner() {
+            super(client, ChannelInfoSchema.CHANNEL_TYPE_NAME, ChannelInfo.class, ChannelInfoField.TIMESTAMP);
+        }
+
+        @Override
+        protected AbstractStorableQuery<ChannelInfo> newQuery(KapuaId scopeId) {
+            return new ChannelInfoQueryImpl(scopeId);
+        }
+
+        @Override
+        protected StorableId getId(ChannelInfo channelInfo) {
+            return channelInfo.getId();
+        }
+
+        @Override
+        protected Set<StorableId> findPublished(KapuaId scopeId, List<ChannelInfo> channelInfos, MessageQuery publishedSinceQuery)
+                throws KapuaIllegalArgumentException,
+                ConfigurationException,
+                ClientException {
+            JsonNode aggregationsNode = mediator.aggregateMessages(publishedSinceQuery, RegistryActivityConverter.toChannelInfoAggregations(channelInfos));
+            return RegistryActivityConverter.toPublishedChannelInfoIds(channelInfos, aggregationsNode);
+        }
+
+        @Override
+        protected void onDeleted(ChannelInfo channelInfo) {
+            DatastoreCacheManager.getInstance().getChannelsCache().remove(channelInfo.getId().toString());
+        }
     }
 
 }
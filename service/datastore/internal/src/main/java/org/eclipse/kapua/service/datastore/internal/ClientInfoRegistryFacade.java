@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -11,6 +11,8 @@
  *******************************************************************************/
 package org.eclipse.kapua.service.datastore.internal;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 import org.eclipse.kapua.KapuaIllegalArgumentException;
 import org.eclipse.kapua.commons.util.ArgumentValidator;
 import org.eclipse.kapua.model.id.KapuaId;
@@ -24,10 +26,12 @@ import org.eclipse.kapua.service.datastore.client.model.TypeDescriptor;
 import org.eclipse.kapua.service.datastore.client.model.UpdateRequest;
 import org.eclipse.kapua.service.datastore.client.model.UpdateResponse;
 import org.eclipse.kapua.service.datastore.internal.client.DatastoreClientFactory;
+import org.eclipse.kapua.service.datastore.internal.converter.RegistryActivityConverter;
 import org.eclipse.kapua.service.datastore.internal.mediator.ClientInfoField;
 import org.eclipse.kapua.service.datastore.internal.mediator.ClientInfoRegistryMediator;
 import org.eclipse.kapua.service.datastore.internal.mediator.ConfigurationException;
 import org.eclipse.kapua.service.datastore.internal.mediator.MessageStoreConfiguration;
+import org.eclipse.kapua.service.datastore.internal.model.ClientInfoImpl;
 import org.eclipse.kapua.service.datastore.internal.model.ClientInfoListResultImpl;
 import org.eclipse.kapua.service.datastore.internal.model.StorableIdImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.ClientInfoQueryImpl;
@@ -39,9 +43,14 @@ import org.eclipse.kapua.service.datastore.model.ClientInfo;
 import org.eclipse.kapua.service.datastore.model.ClientInfoListResult;
 import org.eclipse.kapua.service.datastore.model.StorableId;
 import org.eclipse.kapua.service.datastore.model.query.ClientInfoQuery;
+import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
 /**
  * Client information registry facade
  * 
@@ -110,6 +119,7 @@ public class ClientInfoRegistryFacade {
 
                         UpdateRequest request = new UpdateRequest(clientInfo.getId().toString(), new TypeDescriptor(kapuaIndexName, ClientInfoSchema.CLIENT_TYPE_NAME), clientInfo);
                         response = client.upsert(request);
+                        RegistryQueryCache.getInstance().invalidate(clientInfo.getScopeId());
 
                         if (!clientInfoId.equals(response.getId())) {
                             // this condition shouldn't happens
@@ -154,6 +164,7 @@ public class ClientInfoRegistryFacade {
         String indexName = SchemaUtil.getKapuaIndexName(scopeId);
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, ClientInfoSchema.CLIENT_TYPE_NAME);
         client.delete(typeDescriptor, id.toString());
+        RegistryQueryCache.getInstance().invalidate(scopeId);
     }
 
     /**
@@ -214,7 +225,7 @@ public class ClientInfoRegistryFacade {
 
         String indexName = SchemaUtil.getKapuaIndexName(query.getScopeId());
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, ClientInfoSchema.CLIENT_TYPE_NAME);
-        return new ClientInfoListResultImpl(client.query(typeDescriptor, query, ClientInfo.class));
+        return new ClientInfoListResultImpl(RegistryQueryCache.getInstance().query(client, typeDescriptor, query, ClientInfo.class, ClientInfoImpl::new));
     }
 
     /**
@@ -245,7 +256,7 @@ public class ClientInfoRegistryFacade {
 
         String dataIndexName = SchemaUtil.getKapuaIndexName(query.getScopeId());
         TypeDescriptor typeDescriptor = new TypeDescriptor(dataIndexName, ClientInfoSchema.CLIENT_TYPE_NAME);
-        return client.count(typeDescriptor, query);
+        return RegistryQueryCache.getInstance().count(client, typeDescriptor, query);
     }
 
     /**
@@ -278,6 +289,58 @@ public class ClientInfoRegistryFacade {
         String indexName = SchemaUtil.getKapuaIndexName(query.getScopeId());
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, ClientInfoSchema.CLIENT_TYPE_NAME);
         client.deleteByQuery(typeDescriptor, query);
+        RegistryQueryCache.getInstance().invalidate(query.getScopeId());
+    }
+
+    /**
+     * Delete the client info registry entries of the clients that haven't published any message since the given date.<br>
+     * The entries are checked and deleted a page at a time (see {@link RegistryCleaner}), then removed from the clients cache so the client is registered again by its next message.
+     *
+     * @param scopeId
+     * @param expiredBefore
+     * @param pageSize
+     * @return the deleted entries count
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    public int deleteStale(KapuaId scopeId, Date expiredBefore, int pageSize)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException {
+        return new ClientInfoRegistryCleaner().deleteStale(scopeId, expiredBefore, pageSize);
+    }
+
+    private class ClientInfoRegistryCleaner extends RegistryCleaner<ClientInfo> {
+
+        private ClientInfoRegistryCleaner() {
+            super(client, ClientInfoSchema.CLIENT_TYPE_NAME, ClientInfo.class, ClientInfoField.TIMESTAMP);
+        }
+
+        @Override
+        protected AbstractStorableQuery<ClientInfo> newQuery(KapuaId scopeId) {
+            return new ClientInfoQueryImpl(scopeId);
+        }
+
+        @Override
+        protected StorableId getId(ClientInfo clientInfo) {
+            return clientInfo.getId();
+        }
+
+        @Override
+        protected Set<StorableId> findPublished(KapuaId scopeId, List<ClientInfo> clientInfos, MessageQuery publishedSinceQuery)
+                throws KapuaIllegalArgumentException,
+                ConfigurationException,
+                ClientException {
+            JsonNode aggregationsNode = mediator.aggregateMessages(publishedSinceQuery, RegistryActivityConverter.toClientInfoAggregations(clientInfos));
+            return RegistryActivityConverter.toPublishedClientInfoIds(clientInfos, aggregationsNode);
+        }
+
+        @Override
+        protected void onDeleted(ClientInfo clientInfo) {
+            DatastoreCacheManager.getInstance().getClientsCache().remove(clientInfo.getClientId());
+        }
     }
 
 }
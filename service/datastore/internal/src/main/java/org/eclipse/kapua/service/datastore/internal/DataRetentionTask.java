@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.MessageStoreService;
+import org.eclipse.kapua.service.datastore.client.ClientException;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingKey;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Periodic data retention task.<br>
+ * Every {@link DatastoreSettingKey#DATA_RETENTION_INTERVAL} seconds, for each scope owning data indexes, the data indexes fully older than the account data time to live
+ * are dropped (see {@link MessageStoreFacade#deleteExpiredData(KapuaId)}).<br>
+ * The registry entries no longer in use are deleted by the {@link RegistryCleanupTask}.
+ *
+ * @since 1.3.0
+ */
+public class DataRetentionTask extends DatastoreScheduledTask {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataRetentionTask.class);
+
+    /**
+     * Name of the {@link org.eclipse.kapua.commons.event.HousekeeperRun} lock of the task
+     */
+    static final String TASK_NAME = MessageStoreService.class.getName() + ".dataRetention";
+
+    private final MessageStoreFacade messageStoreFacade;
+
+    /**
+     * Constructor.<br>
+     * The task is scheduled only if enabled by {@link DatastoreSettingKey#DATA_RETENTION_ENABLED}.
+     *
+     * @param messageStoreFacade
+     * @since 1.3.0
+     */
+    public DataRetentionTask(MessageStoreFacade messageStoreFacade) {
+        super(TASK_NAME,
+                DatastoreSettings.getInstance().getBoolean(DatastoreSettingKey.DATA_RETENTION_ENABLED, false),
+                DatastoreSettings.getInstance().getLong(DatastoreSettingKey.DATA_RETENTION_INTERVAL, 3600L),
+                DatastoreEntityManagerFactory.getInstance());
+        this.messageStoreFacade = messageStoreFacade;
+    }
+
+    @Override
+    protected void execute() {
+        List<KapuaId> scopeIds;
+        try {
+            scopeIds = messageStoreFacade.getDataScopeIds();
+        } catch (ClientException e) {
+            LOG.warn("Cannot get the scopes to apply the data retention to: {}", e.getMessage(), e);
+            return;
+        }
+
+        for (KapuaId scopeId : scopeIds) {
+            try {
+                String[] deletedIndexes = KapuaSecurityUtils.doPrivileged(() -> messageStoreFacade.deleteExpiredData(scopeId));
+                LOG.debug("Data retention applied to scope {} - deleted indexes: {}", scopeId, deletedIndexes.length);
+            } catch (Exception e) {
+                // go ahead with the other scopes
+                LOG.warn("Cannot apply the data retention to scope {}: {}", scopeId, e.getMessage(), e);
+            }
+        }
+    }
+}
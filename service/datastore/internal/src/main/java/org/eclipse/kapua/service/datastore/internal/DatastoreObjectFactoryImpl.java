@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -17,7 +17,13 @@ import org.eclipse.kapua.service.datastore.DatastoreObjectFactory;
 import org.eclipse.kapua.service.datastore.internal.model.ChannelInfoListResultImpl;
 import org.eclipse.kapua.service.datastore.internal.model.ClientInfoListResultImpl;
 import org.eclipse.kapua.service.datastore.internal.model.MessageListResultImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MessageStoreBatchResultImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MessageStoreResultImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MetricAggregationResultImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MetricBucketImpl;
 import org.eclipse.kapua.service.datastore.internal.model.MetricInfoListResultImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MetricPercentileImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MetricStatisticsImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.ChannelInfoQueryImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.ClientInfoQueryImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.MessageQueryImpl;
@@ -25,7 +31,13 @@ import org.eclipse.kapua.service.datastore.internal.model.query.MetricInfoQueryI
 import org.eclipse.kapua.service.datastore.model.ChannelInfoListResult;
 import org.eclipse.kapua.service.datastore.model.ClientInfoListResult;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreBatchResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
+import org.eclipse.kapua.service.datastore.model.MetricBucket;
 import org.eclipse.kapua.service.datastore.model.MetricInfoListResult;
+import org.eclipse.kapua.service.datastore.model.MetricPercentile;
+import org.eclipse.kapua.service.datastore.model.MetricStatistics;
 import org.eclipse.kapua.service.datastore.model.query.ChannelInfoQuery;
 import org.eclipse.kapua.service.datastore.model.query.ClientInfoQuery;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
@@ -79,4 +91,34 @@ public class DatastoreObjectFactoryImpl implements DatastoreObjectFactory {
         return new MetricInfoListResultImpl();
     }
 
+    @Override
+    public MessageStoreBatchResult newMessageStoreBatchResult() {
+        return new MessageStoreBatchResultImpl();
+    }
+
+    @Override
+    public MessageStoreResult newMessageStoreResult() {
+        return new MessageStoreResultImpl();
+    }
+
+    @Override
+    public MetricAggregationResult newMetricAggregationResult() {
+        return new MetricAggregationResultImpl();
+    }
+
+    @Override
+    public MetricStatistics newMetricStatistics() {
+        return new MetricStatisticsImpl();
+    }
+
+    @Override
+    public MetricBucket newMetricBucket() {
+        return new MetricBucketImpl();
+    }
+
+    @Override
+    public MetricPercentile newMetricPercentile() {
+        return new MetricPercentileImpl();
+    }
+
 }
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.event.HousekeeperRun;
+import org.eclipse.kapua.commons.jpa.EntityManager;
+import org.eclipse.kapua.commons.jpa.EntityManagerFactory;
+import org.eclipse.kapua.commons.util.KapuaDateUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Datastore maintenance task executed periodically.<br>
+ * The task is scheduled by every instance running the {@link DatastoreServiceModule}, so each execution is claimed through the {@link HousekeeperRun} lock of the task:
+ * only the instance claiming it first runs it, the other ones skip it until the next interval.
+ *
+ * @since 1.3.0
+ */
+public abstract class DatastoreScheduledTask implements Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DatastoreScheduledTask.class);
+
+    private final String name;
+    private final boolean enabled;
+    private final long interval;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructor
+     *
+     * @param name                 the name of the {@link HousekeeperRun} lock of the task, also used to name its thread
+     * @param enabled              whether the task must be scheduled
+     * @param interval             the time (in seconds) between two executions
+     * @param entityManagerFactory the entity manager factory of the {@link HousekeeperRun} lock
+     * @since 1.3.0
+     */
+    protected DatastoreScheduledTask(String name, boolean enabled, long interval, EntityManagerFactory entityManagerFactory) {
+        this.name = name;
+        this.enabled = enabled;
+        this.interval = interval;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Schedule the task, if enabled and not already scheduled
+     *
+     * @since 1.3.0
+     */
+    public synchronized void start() {
+        if (!enabled || executor != null) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this, interval, interval, TimeUnit.SECONDS);
+        LOG.info("Task {} scheduled every {} seconds", name, interval);
+    }
+
+    /**
+     * Stop the task, interrupting the running execution if any
+     *
+     * @since 1.3.0
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            LOG.info("Task {} stopped", name);
+        }
+    }
+
+    @Override
+    public final void run() {
+        if (claimExecution()) {
+            execute();
+        } else {
+            LOG.debug("Task {} already executed by another instance", name);
+        }
+    }
+
+    /**
+     * Execute the task
+     *
+     * @since 1.3.0
+     */
+    protected abstract void execute();
+
+    /**
+     * Claims the execution through the {@link HousekeeperRun} lock, releasing it before the task is executed
+     *
+     * @return {@code true} if this instance must execute the task, {@code false} if another instance already executed it within the interval
+     */
+    private boolean claimExecution() {
+        EntityManager manager = null;
+        try {
+            manager = entityManagerFactory.createEntityManager();
+            manager.beginTransaction();
+            HousekeeperRun housekeeperRun = manager.findWithLock(HousekeeperRun.class, name);
+            if (housekeeperRun == null) {
+                LOG.warn("Cannot find the lock of task {}, skipping the execution", name);
+                return false;
+            }
+
+            Date now = Date.from(KapuaDateUtils.getKapuaSysDate());
+            if (housekeeperRun.getLastRunOn() != null && now.getTime() - housekeeperRun.getLastRunOn().getTime() < TimeUnit.SECONDS.toMillis(interval)) {
+                return false;
+            }
+
+            housekeeperRun.setLastRunBy(name);
+            housekeeperRun.setLastRunOn(now);
+            manager.persist(housekeeperRun);
+            manager.commit();
+            return true;
+        } catch (KapuaException | RuntimeException e) {
+            // the lock is held by another instance
+            LOG.debug("Cannot claim the execution of task {}: {}", name, e.getMessage(), e);
+            return false;
+        } finally {
+            if (manager != null) {
+                manager.rollback();
+                manager.close();
+            }
+        }
+    }
+}
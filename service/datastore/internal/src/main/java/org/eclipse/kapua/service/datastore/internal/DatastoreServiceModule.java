@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.core.ServiceModule;
+import org.eclipse.kapua.locator.KapuaProvider;
+import org.eclipse.kapua.service.account.AccountService;
+import org.eclipse.kapua.service.datastore.MessageStoreService;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreMediator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+
+/**
+ * Datastore service module.<br>
+ * Schedules the datastore maintenance tasks when the application starts the service modules and stops them on shutdown.
+ *
+ * @since 1.3.0
+ */
+@KapuaProvider
+public class DatastoreServiceModule implements ServiceModule {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DatastoreServiceModule.class);
+
+    @Inject
+    private MessageStoreService messageStoreService;
+
+    @Inject
+    private AccountService accountService;
+
+    private DataRetentionTask dataRetentionTask;
+    private RegistryCleanupTask registryCleanupTask;
+
+    @Override
+    public synchronized void start() throws KapuaException {
+        LOG.info("Starting datastore service module...");
+        MessageStoreFacade messageStoreFacade = new MessageStoreFacade(new ConfigurationProviderImpl(messageStoreService, accountService), DatastoreMediator.getInstance());
+
+        dataRetentionTask = new DataRetentionTask(messageStoreFacade);
+        dataRetentionTask.start();
+
+        registryCleanupTask = new RegistryCleanupTask(messageStoreFacade);
+        registryCleanupTask.start();
+        LOG.info("Starting datastore service module... DONE");
+    }
+
+    @Override
+    public synchronized void stop() throws KapuaException {
+        LOG.info("Stopping datastore service module...");
+        if (dataRetentionTask != null) {
+            dataRetentionTask.stop();
+            dataRetentionTask = null;
+        }
+        if (registryCleanupTask != null) {
+            registryCleanupTask.stop();
+            registryCleanupTask = null;
+        }
+        LOG.info("Stopping datastore service module... DONE");
+    }
+}
@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.client.ClientException;
+import org.eclipse.kapua.service.datastore.client.DatastoreClient;
+import org.eclipse.kapua.service.datastore.client.SchemaKeys;
+import org.eclipse.kapua.service.datastore.internal.client.DatastoreClientFactory;
+import org.eclipse.kapua.service.datastore.internal.schema.KeyValueEntry;
+import org.eclipse.kapua.service.datastore.internal.schema.SchemaUtil;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingKey;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive refresh interval of the data indexes.<br>
+ * While an index receives more than {@link DatastoreSettingKey#INDEX_REFRESH_INTERVAL_ADAPTIVE_INGEST_RATE} messages per second and nobody searched its scope
+ * for {@link DatastoreSettingKey#INDEX_REFRESH_INTERVAL_ADAPTIVE_READ_QUIET_PERIOD} seconds, its refresh interval is raised to
+ * {@link DatastoreSettingKey#INDEX_REFRESH_INTERVAL_ADAPTIVE_MAX} to save the creation of segments nobody reads.<br>
+ * The default {@link DatastoreSettingKey#INDEX_REFRESH_INTERVAL} is restored as soon as a search arrives for the scope or the ingest rate drops.<br>
+ * <br>
+ * The ingest and search activity is tracked in memory, so it only covers the messages stored and searched by this JVM: a search served by another JVM
+ * (i.e. the REST API or the console while the broker stores the messages) does not restore the refresh interval, and the data stays hidden up to
+ * {@link DatastoreSettingKey#INDEX_REFRESH_INTERVAL_ADAPTIVE_MAX} seconds.
+ * For this reason {@link DatastoreSettingKey#INDEX_REFRESH_INTERVAL_ADAPTIVE_ENABLED} is disabled by default and should only be enabled when the same JVM stores and
+ * searches the messages.<br>
+ * The index settings are updated asynchronously, so neither the store nor the search path wait for them.
+ *
+ * @since 1.3.0
+ */
+public class IndexRefreshManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IndexRefreshManager.class);
+
+    private static final IndexRefreshManager INSTANCE = newInstance();
+
+    /**
+     * Width of the window the ingest rate is measured on
+     */
+    static final long EVALUATION_WINDOW = 10000L;
+
+    private final boolean enabled;
+    private final String defaultRefreshInterval;
+    private final String relaxedRefreshInterval;
+    private final long ingestRateThreshold;
+    private final long readQuietPeriod;
+    private final LongSupplier clock;
+    private final Executor updateExecutor;
+    private final RefreshIntervalUpdater refreshIntervalUpdater;
+
+    private final Map<String, IndexState> indexStates = new ConcurrentHashMap<>();
+    private final Map<KapuaId, Long> lastReadByScope = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep;
+
+    /**
+     * Updates the refresh interval of an index
+     */
+    @FunctionalInterface
+    interface RefreshIntervalUpdater {
+
+        void update(String indexName, String refreshInterval);
+    }
+
+    /**
+     * Ingest activity of a single data index.<br>
+     * The evaluation window and the relaxed flag are guarded by the instance lock.
+     */
+    private static class IndexState {
+
+        private final KapuaId scopeId;
+        private final LongAdder writes = new LongAdder();
+        private long windowStart;
+        private volatile long lastWrite;
+        private volatile boolean relaxed;
+
+        private IndexState(KapuaId scopeId, long now) {
+            this.scopeId = scopeId;
+            this.windowStart = now;
+            this.lastWrite = now;
+        }
+    }
+
+    IndexRefreshManager(boolean enabled, long refreshInterval, long relaxedInterval, long ingestRateThreshold, long readQuietPeriod,
+            LongSupplier clock, Executor updateExecutor, RefreshIntervalUpdater refreshIntervalUpdater) {
+        this.enabled = enabled && relaxedInterval > refreshInterval;
+        this.defaultRefreshInterval = String.format("%ss", refreshInterval);
+        this.relaxedRefreshInterval = String.format("%ss", relaxedInterval);
+        this.ingestRateThreshold = ingestRateThreshold;
+        this.readQuietPeriod = readQuietPeriod * 1000;
+        this.clock = clock;
+        this.updateExecutor = updateExecutor;
+        this.refreshIntervalUpdater = refreshIntervalUpdater;
+        this.lastSweep = new AtomicLong(clock.getAsLong());
+    }
+
+    private static IndexRefreshManager newInstance() {
+        DatastoreSettings config = DatastoreSettings.getInstance();
+        boolean enabled = config.getBoolean(DatastoreSettingKey.INDEX_REFRESH_INTERVAL_ADAPTIVE_ENABLED, false);
+
+        // The thread is only needed if the adaptive refresh interval is enabled
+        Executor updateExecutor = enabled ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "datastore-index-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }) : Runnable::run;
+
+        return new IndexRefreshManager(enabled,
+                config.getLong(DatastoreSettingKey.INDEX_REFRESH_INTERVAL),
+                config.getLong(DatastoreSettingKey.INDEX_REFRESH_INTERVAL_ADAPTIVE_MAX, 30L),
+                config.getLong(DatastoreSettingKey.INDEX_REFRESH_INTERVAL_ADAPTIVE_INGEST_RATE, 200L),
+                config.getLong(DatastoreSettingKey.INDEX_REFRESH_INTERVAL_ADAPTIVE_READ_QUIET_PERIOD, 60L),
+                System::currentTimeMillis,
+                updateExecutor,
+                IndexRefreshManager::updateRefreshInterval);
+    }
+
+    /**
+     * Get the index refresh manager instance
+     *
+     * @return
+     * @since 1.3.0
+     */
+    public static IndexRefreshManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Record a message written to the given data index.<br>
+     * Once per evaluation window the refresh interval of the index is raised or restored according to the measured ingest rate.
+     *
+     * @param scopeId
+     * @param indexName
+     * @since 1.3.0
+     */
+    public void onWrite(KapuaId scopeId, String indexName) {
+        if (!enabled) {
+            return;
+        }
+
+        long now = clock.getAsLong();
+        IndexState indexState = indexStates.computeIfAbsent(indexName, name -> new IndexState(scopeId, now));
+        indexState.writes.increment();
+        indexState.lastWrite = now;
+
+        if (now - indexState.windowStart < EVALUATION_WINDOW) {
+            return;
+        }
+
+        synchronized (indexState) {
+            long elapsed = now - indexState.windowStart;
+            if (elapsed < EVALUATION_WINDOW) {
+                // Already evaluated by a concurrent write
+                return;
+            }
+
+            long ingestRate = indexState.writes.sumThenReset() * 1000 / elapsed;
+            indexState.windowStart = now;
+
+            if (!indexState.relaxed && ingestRate >= ingestRateThreshold && !isRecentlyRead(scopeId, now)) {
+                LOG.info("Relaxing refresh interval of index '{}' to '{}' - ingest rate: {} msg/s", indexName, relaxedRefreshInterval, ingestRate);
+                indexState.relaxed = true;
+                submitUpdate(indexName, relaxedRefreshInterval);
+            } else if (indexState.relaxed && ingestRate < ingestRateThreshold) {
+                restore(indexName, indexState);
+            }
+        }
+
+        sweep(now);
+    }
+
+    /**
+     * Record a search on the data indexes of the given scope.<br>
+     * The relaxed indexes of the scope get back the default refresh interval, so the data just stored becomes searchable again at the usual pace.
+     *
+     * @param scopeId
+     * @since 1.3.0
+     */
+    public void onRead(KapuaId scopeId) {
+        if (!enabled) {
+            return;
+        }
+
+        lastReadByScope.put(scopeId, clock.getAsLong());
+
+        for (Map.Entry<String, IndexState> entry : indexStates.entrySet()) {
+            IndexState indexState = entry.getValue();
+            if (indexState.relaxed && indexState.scopeId.equals(scopeId)) {
+                restore(entry.getKey(), indexState);
+            }
+        }
+    }
+
+    /**
+     * Forget the tracked indexes (to be called when the indexes are deleted)
+     *
+     * @since 1.3.0
+     */
+    public void clear() {
+        indexStates.clear();
+        lastReadByScope.clear();
+    }
+
+    private boolean isRecentlyRead(KapuaId scopeId, long now) {
+        Long lastRead = lastReadByScope.get(scopeId);
+        return lastRead != null && now - lastRead < readQuietPeriod;
+    }
+
+    /**
+     * Restores the indexes no longer written (i.e. the previous indexing window) and forgets them
+     */
+    private void sweep(long now) {
+        long previousSweep = lastSweep.get();
+        if (now - previousSweep < EVALUATION_WINDOW || !lastSweep.compareAndSet(previousSweep, now)) {
+            return;
+        }
+
+        Iterator<Map.Entry<String, IndexState>> iterator = indexStates.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, IndexState> entry = iterator.next();
+            IndexState indexState = entry.getValue();
+            if (now - indexState.lastWrite >= 2 * EVALUATION_WINDOW) {
+                restore(entry.getKey(), indexState);
+                iterator.remove();
+            }
+        }
+
+        lastReadByScope.values().removeIf(lastRead -> now - lastRead >= readQuietPeriod);
+    }
+
+    private void restore(String indexName, IndexState indexState) {
+        synchronized (indexState) {
+            if (indexState.relaxed) {
+                LOG.info("Restoring refresh interval of index '{}' to '{}'", indexName, defaultRefreshInterval);
+                indexState.relaxed = false;
+                submitUpdate(indexName, defaultRefreshInterval);
+            }
+        }
+    }
+
+    /**
+     * Submits the update while holding the lock of the index state, so the updates of an index are executed in the same order as the state changes
+     */
+    private void submitUpdate(String indexName, String refreshInterval) {
+        updateExecutor.execute(() -> refreshIntervalUpdater.update(indexName, refreshInterval));
+    }
+
+    private static void updateRefreshInterval(String indexName, String refreshInterval) {
+        try {
+            ObjectNode indexNode = SchemaUtil.getField(new KeyValueEntry[] { new KeyValueEntry(SchemaKeys.KEY_REFRESH_INTERVAL, refreshInterval) });
+            ObjectNode rootNode = SchemaUtil.getObjectNode();
+            rootNode.set(SchemaKeys.KEY_INDEX, indexNode);
+
+            DatastoreClient<?> client = DatastoreClientFactory.getInstance();
+            client.updateIndexSettings(indexName, rootNode);
+        } catch (ClientException e) {
+            LOG.warn("Cannot update the refresh interval of index '{}' to '{}': {}", indexName, refreshInterval, e.getMessage(), e);
+        }
+    }
+}
@@ -12,7 +12,10 @@
 package org.eclipse.kapua.service.datastore.internal;
 
 import com.codahale.metrics.Counter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.KapuaIllegalArgumentException;
 import org.eclipse.kapua.commons.cache.LocalCache;
 import org.eclipse.kapua.commons.metric.MetricServiceFactory;
@@ -23,16 +26,20 @@ import org.eclipse.kapua.message.KapuaMessage;
 import org.eclipse.kapua.message.device.data.KapuaDataChannel;
 import org.eclipse.kapua.message.internal.device.data.KapuaDataChannelImpl;
 import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.client.ClientErrorCodes;
 import org.eclipse.kapua.service.datastore.client.ClientException;
 import org.eclipse.kapua.service.datastore.client.ClientUnavailableException;
 import org.eclipse.kapua.service.datastore.client.DatastoreClient;
 import org.eclipse.kapua.service.datastore.client.QueryMappingException;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertRequest;
 import org.eclipse.kapua.service.datastore.client.model.IndexRequest;
 import org.eclipse.kapua.service.datastore.client.model.InsertRequest;
 import org.eclipse.kapua.service.datastore.client.model.InsertResponse;
 import org.eclipse.kapua.service.datastore.client.model.ResultList;
 import org.eclipse.kapua.service.datastore.client.model.TypeDescriptor;
 import org.eclipse.kapua.service.datastore.internal.client.DatastoreClientFactory;
+import org.eclipse.kapua.service.datastore.internal.converter.MetricAggregationConverter;
+import org.eclipse.kapua.service.datastore.internal.converter.SearchAfterKey;
 import org.eclipse.kapua.service.datastore.internal.mediator.ConfigurationException;
 import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreChannel;
 import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
@@ -44,6 +51,8 @@ import org.eclipse.kapua.service.datastore.internal.mediator.Metric;
 import org.eclipse.kapua.service.datastore.internal.model.DataIndexBy;
 import org.eclipse.kapua.service.datastore.internal.model.DatastoreMessageImpl;
 import org.eclipse.kapua.service.datastore.internal.model.MessageListResultImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MessageStoreBatchResultImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MessageStoreResultImpl;
 import org.eclipse.kapua.service.datastore.internal.model.StorableIdImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.ChannelInfoQueryImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.ChannelMatchPredicateImpl;
@@ -57,18 +66,28 @@ import org.eclipse.kapua.service.datastore.internal.schema.MessageSchema;
 import org.eclipse.kapua.service.datastore.internal.schema.Metadata;
 import org.eclipse.kapua.service.datastore.internal.schema.MetricInfoSchema;
 import org.eclipse.kapua.service.datastore.internal.schema.SchemaUtil;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingKey;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
 import org.eclipse.kapua.service.datastore.model.ChannelInfo;
 import org.eclipse.kapua.service.datastore.model.ClientInfo;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreBatchResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
 import org.eclipse.kapua.service.datastore.model.MetricInfo;
 import org.eclipse.kapua.service.datastore.model.StorableId;
+import org.eclipse.kapua.service.datastore.model.query.AndPredicate;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregation;
+import org.eclipse.kapua.service.datastore.model.query.RangePredicate;
 import org.eclipse.kapua.service.datastore.model.query.StorableFetchStyle;
+import org.eclipse.kapua.service.datastore.model.query.StorablePredicate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -85,6 +104,9 @@ public final class MessageStoreFacade {
 
     private static final Logger logger = LoggerFactory.getLogger(MessageStoreFacade.class);
 
+    private static final List<Class<?>> AGGREGABLE_METRIC_TYPES = Arrays.asList(Integer.class, Long.class, Float.class, Double.class);
+    private static final long MAX_AGGREGATION_BUCKETS = DatastoreSettings.getInstance().getLong(DatastoreSettingKey.CONFIG_MAX_AGGREGATION_BUCKETS, 10000L);
+
     private final Counter metricMessagesAlreadyInTheDatastoreCount;
 
     private final MessageStoreMediator mediator;
@@ -120,9 +142,116 @@ public final class MessageStoreFacade {
             throws KapuaIllegalArgumentException,
             ConfigurationException,
             ClientException {
+        PendingInsert pendingInsert = prepareInsert(message, messageId);
+
+        if (!newInsert) {
+            DatastoreMessage datastoreMessage = doFind(message.getScopeId(), new StorableIdImpl(messageId));
+            if (datastoreMessage != null) {
+                logger.debug("Message with datatstore id '{}' already found", messageId);
+                metricMessagesAlreadyInTheDatastoreCount.inc();
+                return new StorableIdImpl(messageId);
+            }
+        }
+
+        mediator.onUpdatedMappings(message.getScopeId(), pendingInsert.indexedOn, pendingInsert.metrics);
+
+        InsertResponse insertResponse = client.insert(pendingInsert.insertRequest);
+        return onInserted(pendingInsert, insertResponse.getId());
+    }
+
+    /**
+     * Store a batch of messages with a single bulk insert.<br>
+     * The messages not valid, belonging to a scope with the storage disabled or rejected by the datastore are reported by a negative result,
+     * without affecting the rest of the batch.
+     *
+     * @param messages
+     * @param messageIds
+     *            the identifiers to assign to the messages (one for each message)
+     * @return the results in the same order of the messages
+     * @throws KapuaIllegalArgumentException
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    public MessageStoreBatchResult store(List<? extends KapuaMessage<?, ?>> messages, List<String> messageIds)
+            throws KapuaIllegalArgumentException,
+            ClientException {
+        ArgumentValidator.notNull(messages, "messages");
+        ArgumentValidator.notNull(messageIds, "messageIds");
+        if (messages.size() != messageIds.size()) {
+            throw new KapuaIllegalArgumentException("messageIds", String.format("%s identifiers for %s messages", messageIds.size(), messages.size()));
+        }
+
+        MessageStoreResult[] results = new MessageStoreResult[messages.size()];
+        List<Integer> pendingPositions = new ArrayList<>();
+        List<PendingInsert> pendingInserts = new ArrayList<>();
+        BulkInsertRequest bulkInsertRequest = new BulkInsertRequest();
+        for (int i = 0; i < messages.size(); i++) {
+            KapuaMessage<?, ?> message = messages.get(i);
+            try {
+                PendingInsert pendingInsert = prepareInsert(message, messageIds.get(i));
+                mediator.onUpdatedMappings(message.getScopeId(), pendingInsert.indexedOn, pendingInsert.metrics);
+                pendingPositions.add(i);
+                pendingInserts.add(pendingInsert);
+                bulkInsertRequest.add(pendingInsert.insertRequest);
+            } catch (KapuaIllegalArgumentException | ConfigurationException e) {
+                logger.debug("Message at position {} rejected: {}", i, e.getMessage());
+                results[i] = new MessageStoreResultImpl(e.getMessage());
+            }
+        }
+
+        if (!pendingInserts.isEmpty()) {
+            List<InsertResponse> insertResponses = client.insert(bulkInsertRequest).getResponse();
+            if (insertResponses.size() != pendingInserts.size()) {
+                throw new ClientException(ClientErrorCodes.ACTION_ERROR, String.format("Bulk insert returned %s responses for %s requests", insertResponses.size(), pendingInserts.size()));
+            }
+            for (int i = 0; i < insertResponses.size(); i++) {
+                InsertResponse insertResponse = insertResponses.get(i);
+                int position = pendingPositions.get(i);
+                if (!insertResponse.isResult()) {
+                    results[position] = new MessageStoreResultImpl(insertResponse.getDescription());
+                    continue;
+                }
+                try {
+                    results[position] = new MessageStoreResultImpl(onInserted(pendingInserts.get(i), insertResponse.getId()));
+                } catch (KapuaIllegalArgumentException | ConfigurationException e) {
+                    // the message is stored anyway, only the registries update failed
+                    logger.warn("Cannot update the registries for message '{}': {}", insertResponse.getId(), e.getMessage(), e);
+                    results[position] = new MessageStoreResultImpl(new StorableIdImpl(insertResponse.getId()));
+                }
+            }
+        }
+
+        return new MessageStoreBatchResultImpl(new ArrayList<>(Arrays.asList(results)));
+    }
+
+    /**
+     * Message converted and ready to be inserted
+     */
+    private static class PendingInsert {
+
+        private final MessageInfo messageInfo;
+        private final DatastoreMessage messageToStore;
+        private final InsertRequest insertRequest;
+        private final long indexedOn;
+        private final Map<String, Metric> metrics;
+
+        private PendingInsert(MessageInfo messageInfo, DatastoreMessage messageToStore, InsertRequest insertRequest, long indexedOn, Map<String, Metric> metrics) {
+            this.messageInfo = messageInfo;
+            this.messageToStore = messageToStore;
+            this.insertRequest = insertRequest;
+            this.indexedOn = indexedOn;
+            this.metrics = metrics;
+        }
+    }
+
+    private PendingInsert prepareInsert(KapuaMessage<?, ?> message, String messageId)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException {
         ArgumentValidator.notNull(message, "message");
         ArgumentValidator.notNull(message.getScopeId(), "scopeId");
         ArgumentValidator.notNull(message.getReceivedOn(), "receivedOn");
+        ArgumentValidator.notNull(message.getChannel(), "channel");
         ArgumentValidator.notNull(messageId, "messageId");
 
         // Collect context data
@@ -155,15 +284,6 @@ public final class MessageStoreFacade {
         String indexName = schemaMetadata.getDataIndexName();
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, MessageSchema.MESSAGE_TYPE_NAME);
 
-        if (!newInsert) {
-            DatastoreMessage datastoreMessage = find(message.getScopeId(), new StorableIdImpl(messageId), StorableFetchStyle.SOURCE_SELECT);
-            if (datastoreMessage != null) {
-                logger.debug("Message with datatstore id '{}' already found", messageId);
-                metricMessagesAlreadyInTheDatastoreCount.inc();
-                return new StorableIdImpl(messageId);
-            }
-        }
-
         // Save message (the big one)
         DatastoreMessage messageToStore = convertTo(message, messageId);
         messageToStore.setTimestamp(indexedOnDate);
@@ -183,13 +303,19 @@ public final class MessageStoreFacade {
                 metrics.put(mappedName, metric);
             }
         }
-        mediator.onUpdatedMappings(message.getScopeId(), indexedOn, metrics);
+        return new PendingInsert(messageInfo, messageToStore, insertRequest, indexedOn, metrics);
+    }
 
-        InsertResponse insertResponse = client.insert(insertRequest);
-        messageToStore.setDatastoreId(new StorableIdImpl(insertResponse.getId()));
+    private StorableId onInserted(PendingInsert pendingInsert, String insertedId)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException {
+        DatastoreMessage messageToStore = pendingInsert.messageToStore;
+        messageToStore.setDatastoreId(new StorableIdImpl(insertedId));
+        IndexRefreshManager.getInstance().onWrite(messageToStore.getScopeId(), pendingInsert.insertRequest.getTypeDescriptor().getIndex());
 
-        mediator.onAfterMessageStore(messageInfo, messageToStore);
-        return new StorableIdImpl(insertResponse.getId());
+        mediator.onAfterMessageStore(pendingInsert.messageInfo, messageToStore);
+        return new StorableIdImpl(insertedId);
     }
 
     /**
@@ -219,7 +345,7 @@ public final class MessageStoreFacade {
         }
 
         // get the index by finding the object by id
-        DatastoreMessage messageToBeDeleted = find(scopeId, id, StorableFetchStyle.FIELDS);
+        DatastoreMessage messageToBeDeleted = doFind(scopeId, id);
         if (messageToBeDeleted != null) {
             Metadata schemaMetadata = mediator.getMetadata(scopeId, messageToBeDeleted.getTimestamp().getTime());
             String indexName = schemaMetadata.getDataIndexName();
@@ -249,6 +375,11 @@ public final class MessageStoreFacade {
         ArgumentValidator.notNull(id, "id");
         ArgumentValidator.notNull(fetchStyle, "fetchStyle");
 
+        IndexRefreshManager.getInstance().onRead(scopeId);
+        return doFind(scopeId, id);
+    }
+
+    private DatastoreMessage doFind(KapuaId scopeId, StorableId id) throws ClientException {
         MessageQueryImpl idsQuery = new MessageQueryImpl(scopeId);
         idsQuery.setLimit(1);
 
@@ -286,11 +417,22 @@ public final class MessageStoreFacade {
             return new MessageListResultImpl();
         }
 
-        String dataIndexName = SchemaUtil.getDataIndexName(query.getScopeId());
+        IndexRefreshManager.getInstance().onRead(query.getScopeId());
+        String dataIndexName = getDataIndexName(query);
         TypeDescriptor typeDescriptor = new TypeDescriptor(dataIndexName, MessageSchema.MESSAGE_TYPE_NAME);
-        MessageListResult result = new MessageListResultImpl(client.query(typeDescriptor, query, DatastoreMessage.class));
-        Integer offset = query.getOffset();
-        result.setLimitExceeded((offset == null ? 0 : offset) + result.getSize() < result.getTotalCount());
+        ResultList<DatastoreMessage> resultList = client.query(typeDescriptor, query, DatastoreMessage.class);
+        MessageListResultImpl result = new MessageListResultImpl(resultList);
+        if (query.getNextKey() != null) {
+            // paging by continuation key: a full page may be followed by other messages
+            Integer limit = query.getLimit();
+            if (!result.isEmpty() && (limit == null || result.getSize() >= limit)) {
+                result.setNextKey(SearchAfterKey.encode(resultList.getLastSortValues()));
+            }
+            result.setLimitExceeded(result.getNextKey() != null);
+        } else {
+            Integer offset = query.getOffset();
+            result.setLimitExceeded((offset == null ? 0 : offset) + result.getSize() < result.getTotalCount());
+        }
         return result;
     }
 
@@ -319,11 +461,119 @@ public final class MessageStoreFacade {
             return 0;
         }
 
-        String indexName = SchemaUtil.getDataIndexName(query.getScopeId());
+        IndexRefreshManager.getInstance().onRead(query.getScopeId());
+        String indexName = getDataIndexName(query);
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, MessageSchema.MESSAGE_TYPE_NAME);
         return client.count(typeDescriptor, query);
     }
 
+    /**
+     * Compute the statistics of a metric over the messages matching the given query
+     *
+     * @param query
+     * @param aggregation
+     * @return
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws QueryMappingException
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    public MetricAggregationResult aggregate(MessageQuery query, MetricAggregation aggregation)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException {
+        ArgumentValidator.notNull(query, "query");
+        ArgumentValidator.notNull(query.getScopeId(), "query.scopeId");
+        checkAggregation(query, aggregation);
+
+        MessageStoreConfiguration accountServicePlan = configProvider.getConfiguration(query.getScopeId());
+        long ttl = accountServicePlan.getDataTimeToLiveMilliseconds();
+
+        if (!accountServicePlan.getDataStorageEnabled() || ttl == MessageStoreConfiguration.DISABLED) {
+            logger.debug("Storage not enabled for account {}, returning empty result", query.getScopeId());
+            return MetricAggregationConverter.toResult(aggregation, null);
+        }
+
+        IndexRefreshManager.getInstance().onRead(query.getScopeId());
+        String indexName = getDataIndexName(query);
+        TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, MessageSchema.MESSAGE_TYPE_NAME);
+        JsonNode aggregationsNode = client.aggregate(typeDescriptor, query, MetricAggregationConverter.toAggregations(aggregation));
+        return MetricAggregationConverter.toResult(aggregation, aggregationsNode);
+    }
+
+    /**
+     * Run the given aggregations over the messages matching the given query, without any document returned.<br>
+     * Used by the registry maintenance to check in a single request which entries of a page are still published.
+     *
+     * @param query
+     * @param aggregations
+     * @return the aggregations result ({@code null} if the storage is disabled or no data index matches the query)
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    public JsonNode aggregateMessages(MessageQuery query, ObjectNode aggregations)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException {
+        ArgumentValidator.notNull(query, "query");
+        ArgumentValidator.notNull(query.getScopeId(), "query.scopeId");
+        ArgumentValidator.notNull(aggregations, "aggregations");
+
+        MessageStoreConfiguration accountServicePlan = configProvider.getConfiguration(query.getScopeId());
+        long ttl = accountServicePlan.getDataTimeToLiveMilliseconds();
+
+        if (!accountServicePlan.getDataStorageEnabled() || ttl == MessageStoreConfiguration.DISABLED) {
+            logger.debug("Storage not enabled for account {}, returning empty result", query.getScopeId());
+            return null;
+        }
+
+        // no IndexRefreshManager.onRead: the maintenance reads are not searches of the scope and must not force the refresh of its indexes
+        String indexName = getDataIndexName(query);
+        TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, MessageSchema.MESSAGE_TYPE_NAME);
+        return client.aggregate(typeDescriptor, query, aggregations);
+    }
+
+    private void checkAggregation(MessageQuery query, MetricAggregation aggregation) throws KapuaIllegalArgumentException {
+        ArgumentValidator.notNull(aggregation, "aggregation");
+        ArgumentValidator.notEmptyOrNull(aggregation.getMetricName(), "aggregation.metricName");
+        ArgumentValidator.notNull(aggregation.getMetricType(), "aggregation.metricType");
+        if (!AGGREGABLE_METRIC_TYPES.contains(aggregation.getMetricType())) {
+            throw new KapuaIllegalArgumentException("aggregation.metricType", aggregation.getMetricType().getSimpleName());
+        }
+        for (Double percent : aggregation.getPercents()) {
+            if (percent == null || percent < 0 || percent > 100) {
+                throw new KapuaIllegalArgumentException("aggregation.percents", String.valueOf(percent));
+            }
+        }
+
+        if (aggregation.getInterval() != null) {
+            long intervalMillis = MetricAggregationConverter.getIntervalMillis(aggregation.getInterval());
+            if (intervalMillis <= 0) {
+                throw new KapuaIllegalArgumentException("aggregation.interval", aggregation.getInterval());
+            }
+            // the time range bounds the number of buckets, so it must be closed on both sides
+            Long[] timestampRange = new Long[2];
+            collectTimestampRange(query.getPredicate(), timestampRange);
+            if (timestampRange[0] == null || timestampRange[1] == null) {
+                throw new KapuaIllegalArgumentException("query.predicate", "a timestamp range bounded on both sides is required by the aggregation interval");
+            }
+            if (timestampRange[1] >= timestampRange[0]) {
+                long buckets;
+                try {
+                    buckets = Math.subtractExact(timestampRange[1], timestampRange[0]) / intervalMillis + 1;
+                } catch (ArithmeticException e) {
+                    buckets = Long.MAX_VALUE;
+                }
+                if (buckets > MAX_AGGREGATION_BUCKETS) {
+                    throw new KapuaIllegalArgumentException("aggregation.interval", aggregation.getInterval());
+                }
+            }
+        }
+    }
+
     /**
      * Delete messages count matching the given query.<br>
      * <b>Be careful using this function since it doesn't guarantee the datastore consistency.<br>
@@ -355,6 +605,126 @@ public final class MessageStoreFacade {
         client.deleteByQuery(typeDescriptor, query);
     }
 
+    /**
+     * Delete the data of the scope older than the account data time to live.<br>
+     * The data indexes whose indexing window is fully expired are dropped as a whole (far cheaper than deleting the messages by query).<br>
+     * The messages of the indexing window across the expiration date are kept until the whole window is expired.
+     * The client, channel and metric registry entries no longer in use are deleted by {@link #deleteStaleRegistryEntries(KapuaId)}.
+     *
+     * @param scopeId
+     * @return the dropped data indexes
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    public String[] deleteExpiredData(KapuaId scopeId)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException {
+        ArgumentValidator.notNull(scopeId, "scopeId");
+
+        MessageStoreConfiguration accountServicePlan = configProvider.getConfiguration(scopeId);
+        long ttl = accountServicePlan.getDataTimeToLiveMilliseconds();
+
+        if (!accountServicePlan.getDataStorageEnabled() || ttl == MessageStoreConfiguration.DISABLED) {
+            logger.debug("Storage not enabled or data time to live disabled for account {}, skipping retention", scopeId);
+            return new String[0];
+        }
+
+        Date expiredBefore = new Date(System.currentTimeMillis() - ttl);
+        String[] indexes = client.findIndexes(new IndexRequest(SchemaUtil.getDataIndexName(scopeId))).getIndexes();
+        String[] expiredIndexes;
+        try {
+            expiredIndexes = DatastoreUtils.getExpiredDataIndexes(indexes, expiredBefore.toInstant());
+        } catch (KapuaException kaex) {
+            throw new ConfigurationException("Error while selecting the expired data indexes", kaex);
+        }
+
+        if (expiredIndexes.length > 0) {
+            logger.info("Deleting expired data indexes of account {}: {}", scopeId, expiredIndexes);
+            client.deleteIndexes(expiredIndexes);
+            LocalCache<String, Metadata> metadataCache = DatastoreCacheManager.getInstance().getMetadataCache();
+            for (String expiredIndex : expiredIndexes) {
+                metadataCache.remove(expiredIndex);
+            }
+        }
+
+        return expiredIndexes;
+    }
+
+    /**
+     * Delete the client, channel and metric registry entries of the scope that haven't been published within the account data time to live.<br>
+     * The registry entries are checked (and the stale ones deleted in bulk) {@link DatastoreSettingKey#REGISTRY_CLEANUP_PAGE_SIZE} at once.
+     *
+     * @param scopeId
+     * @return the deleted registry entries count
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    public int deleteStaleRegistryEntries(KapuaId scopeId)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException {
+        ArgumentValidator.notNull(scopeId, "scopeId");
+
+        MessageStoreConfiguration accountServicePlan = configProvider.getConfiguration(scopeId);
+        long ttl = accountServicePlan.getDataTimeToLiveMilliseconds();
+
+        if (!accountServicePlan.getDataStorageEnabled() || ttl == MessageStoreConfiguration.DISABLED) {
+            logger.debug("Storage not enabled or data time to live disabled for account {}, skipping registry cleanup", scopeId);
+            return 0;
+        }
+
+        Date expiredBefore = new Date(System.currentTimeMillis() - ttl);
+        int pageSize = DatastoreSettings.getInstance().getInt(DatastoreSettingKey.REGISTRY_CLEANUP_PAGE_SIZE, 500);
+        return mediator.deleteStaleRegistryEntries(scopeId, expiredBefore, pageSize);
+    }
+
+    /**
+     * Get the scopes owning at least one data index
+     *
+     * @return
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    public List<KapuaId> getDataScopeIds() throws ClientException {
+        final String prefix = DatastoreSettings.getInstance().getString(DatastoreSettingKey.INDEX_PREFIX);
+        String indexExp = prefix != null && !prefix.isEmpty() ? prefix + "-*" : "*";
+
+        List<KapuaId> scopeIds = new ArrayList<>();
+        for (String index : client.findIndexes(new IndexRequest(indexExp)).getIndexes()) {
+            KapuaId scopeId = DatastoreUtils.getDataIndexScopeId(index);
+            if (scopeId != null && !scopeIds.contains(scopeId)) {
+                scopeIds.add(scopeId);
+            }
+        }
+        return scopeIds;
+    }
+
+    /**
+     * Get the scopes owning a registry index
+     *
+     * @return
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    public List<KapuaId> getRegistryScopeIds() throws ClientException {
+        final String prefix = DatastoreSettings.getInstance().getString(DatastoreSettingKey.INDEX_PREFIX);
+        String indexExp = prefix != null && !prefix.isEmpty() ? prefix + "-.*" : ".*";
+
+        List<KapuaId> scopeIds = new ArrayList<>();
+        for (String index : client.findIndexes(new IndexRequest(indexExp)).getIndexes()) {
+            KapuaId scopeId = DatastoreUtils.getRegistryIndexScopeId(index);
+            if (scopeId != null) {
+                scopeIds.add(scopeId);
+            }
+        }
+        return scopeIds;
+    }
+
     // TODO cache will not be reset from the client code it should be automatically reset
     // after some time.
     private void resetCache(KapuaId scopeId, KapuaId deviceId, String channel, String clientId)
@@ -488,6 +858,65 @@ public final class MessageStoreFacade {
 
     // Utility methods
 
+    /**
+     * Get the data indexes to be searched by the query.<br>
+     * If the query predicates bound the message timestamp on both sides, only the indexes of the weeks overlapping that range are returned
+     * (whatever the indexing window they were created with), otherwise all the data indexes of the scope.
+     *
+     * @param query
+     * @return
+     * @throws ConfigurationException
+     */
+    private String getDataIndexName(MessageQuery query) throws ConfigurationException {
+        Long[] timestampRange = new Long[2];
+        collectTimestampRange(query.getPredicate(), timestampRange);
+        if (timestampRange[0] == null || timestampRange[1] == null) {
+            return SchemaUtil.getDataIndexName(query.getScopeId());
+        }
+
+        try {
+            return DatastoreUtils.getDataIndexName(query.getScopeId(), timestampRange[0], timestampRange[1]);
+        } catch (KapuaException kaex) {
+            throw new ConfigurationException("Error while generating index name", kaex);
+        }
+    }
+
+    /**
+     * Narrows the timestamp range with the timestamp {@link RangePredicate}s that must be satisfied by the query (the root one or the ones in nested {@link AndPredicate}s).
+     */
+    private void collectTimestampRange(StorablePredicate predicate, Long[] timestampRange) {
+        if (predicate instanceof AndPredicate) {
+            for (StorablePredicate andPredicate : ((AndPredicate) predicate).getPredicates()) {
+                collectTimestampRange(andPredicate, timestampRange);
+            }
+        } else if (predicate instanceof RangePredicate && MessageField.TIMESTAMP.field().equals(((RangePredicate) predicate).getField())) {
+            Long minValue = toEpochMillis(((RangePredicate) predicate).getMinValue());
+            if (minValue != null && (timestampRange[0] == null || minValue > timestampRange[0])) {
+                timestampRange[0] = minValue;
+            }
+
+            Long maxValue = toEpochMillis(((RangePredicate) predicate).getMaxValue());
+            if (maxValue != null && (timestampRange[1] == null || maxValue < timestampRange[1])) {
+                timestampRange[1] = maxValue;
+            }
+        }
+    }
+
+    private Long toEpochMillis(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof String) {
+            try {
+                return KapuaDateUtils.parseDate((String) value).getTime();
+            } catch (ParseException e) {
+                logger.debug("Cannot parse the timestamp range value '{}'. All the indexes will be searched", value);
+            }
+        }
+        return null;
+    }
+
     /**
      * Check if the full channel admit any account (so if the channel starts with a specific wildcard).<br>
      * In the MQTT word this method return true if the topic starts with '+/'.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -42,10 +42,17 @@ import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingKey;
 import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreBatchResult;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
 import org.eclipse.kapua.service.datastore.model.StorableId;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregation;
 import org.eclipse.kapua.service.datastore.model.query.StorableFetchStyle;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -165,6 +172,37 @@ public class MessageStoreServiceImpl extends AbstractKapuaConfigurableService im
         }
     }
 
+    @Override
+    public MessageStoreBatchResult store(List<? extends KapuaMessage<?, ?>> messages)
+            throws KapuaException {
+        ArgumentValidator.notNull(messages, "messages");
+        // check the access once for each scope (the messages without scope are rejected by the facade)
+        Set<KapuaId> scopeIds = new HashSet<>();
+        List<String> datastoreIds = new ArrayList<>(messages.size());
+        for (KapuaMessage<?, ?> message : messages) {
+            if (message != null && message.getScopeId() != null && scopeIds.add(message.getScopeId())) {
+                checkDataAccess(message.getScopeId(), Actions.write);
+            }
+            datastoreIds.add(UUID.randomUUID().toString());
+        }
+        Context metricDataSaveTimeContext = metricDataSaveTime.time();
+        try {
+            metricMessageCount.inc(messages.size());
+            return messageStoreFacade.store(messages, datastoreIds);
+        } catch (KapuaIllegalArgumentException e) {
+            metricValidationErrorCount.inc();
+            throw e;
+        } catch (ClientCommunicationException e) {
+            metricCommunicationErrorCount.inc();
+            throw new DatastoreCommunicationException(null, e);
+        } catch (Exception e) {
+            metricGenericErrorCount.inc();
+            throw new DatastoreException(KapuaErrorCodes.INTERNAL_ERROR, e);
+        } finally {
+            metricDataSaveTimeContext.stop();
+        }
+    }
+
     @Override
     public void delete(KapuaId scopeId, StorableId id)
             throws KapuaException {
@@ -209,6 +247,19 @@ public class MessageStoreServiceImpl extends AbstractKapuaConfigurableService im
         }
     }
 
+    @Override
+    public MetricAggregationResult aggregate(MessageQuery query, MetricAggregation aggregation)
+            throws KapuaException {
+        checkDataAccess(query.getScopeId(), Actions.read);
+        try {
+            return messageStoreFacade.aggregate(query, aggregation);
+        } catch (KapuaIllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DatastoreException(KapuaErrorCodes.INTERNAL_ERROR, e);
+        }
+    }
+
     @Override
     public void delete(MessageQuery query)
             throws KapuaException {
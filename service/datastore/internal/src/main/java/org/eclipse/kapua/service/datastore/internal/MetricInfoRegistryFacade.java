@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -11,6 +11,8 @@
  *******************************************************************************/
 package org.eclipse.kapua.service.datastore.internal;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 import org.eclipse.kapua.KapuaIllegalArgumentException;
 import org.eclipse.kapua.commons.util.ArgumentValidator;
 import org.eclipse.kapua.model.id.KapuaId;
@@ -27,10 +29,12 @@ import org.eclipse.kapua.service.datastore.client.model.TypeDescriptor;
 import org.eclipse.kapua.service.datastore.client.model.UpdateRequest;
 import org.eclipse.kapua.service.datastore.client.model.UpdateResponse;
 import org.eclipse.kapua.service.datastore.internal.client.DatastoreClientFactory;
+import org.eclipse.kapua.service.datastore.internal.converter.RegistryActivityConverter;
 import org.eclipse.kapua.service.datastore.internal.mediator.ConfigurationException;
 import org.eclipse.kapua.service.datastore.internal.mediator.MessageStoreConfiguration;
 import org.eclipse.kapua.service.datastore.internal.mediator.MetricInfoField;
 import org.eclipse.kapua.service.datastore.internal.mediator.MetricInfoRegistryMediator;
+import org.eclipse.kapua.service.datastore.internal.model.MetricInfoImpl;
 import org.eclipse.kapua.service.datastore.internal.model.MetricInfoListResultImpl;
 import org.eclipse.kapua.service.datastore.internal.model.StorableIdImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.IdsPredicateImpl;
@@ -42,9 +46,15 @@ import org.eclipse.kapua.service.datastore.model.MetricInfo;
 import org.eclipse.kapua.service.datastore.model.MetricInfoListResult;
 import org.eclipse.kapua.service.datastore.model.StorableId;
 import org.eclipse.kapua.service.datastore.model.query.MetricInfoQuery;
+import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * Metric information registry facade
  *
@@ -104,6 +114,7 @@ public class MetricInfoRegistryFacade {
 
                 UpdateRequest request = new UpdateRequest(metricInfo.getId().toString(), new TypeDescriptor(metadata.getRegistryIndexName(), MetricInfoSchema.METRIC_TYPE_NAME), metricInfo);
                 response = client.upsert(request);
+                RegistryQueryCache.getInstance().invalidate(metricInfo.getScopeId());
 
                 if (!metricInfoId.equals(response.getId())) {
                     // this condition shouldn't happens
@@ -162,6 +173,12 @@ public class MetricInfoRegistryFacade {
                 logger.trace(String.format("Upsert failed [%s]", e.getMessage()));
                 throw e;
             }
+            Set<KapuaId> scopeIds = new HashSet<>();
+            for (MetricInfo metricInfo : metricInfos) {
+                if (scopeIds.add(metricInfo.getScopeId())) {
+                    RegistryQueryCache.getInstance().invalidate(metricInfo.getScopeId());
+                }
+            }
 
             if (upsertResponse != null) {
                 if (upsertResponse.getResponse().size() <= 0) {
@@ -216,6 +233,7 @@ public class MetricInfoRegistryFacade {
         String indexName = SchemaUtil.getKapuaIndexName(scopeId);
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, MetricInfoSchema.METRIC_TYPE_NAME);
         client.delete(typeDescriptor, id.toString());
+        RegistryQueryCache.getInstance().invalidate(scopeId);
     }
 
     /**
@@ -276,7 +294,7 @@ public class MetricInfoRegistryFacade {
 
         String indexNme = SchemaUtil.getKapuaIndexName(query.getScopeId());
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexNme, MetricInfoSchema.METRIC_TYPE_NAME);
-        ResultList<MetricInfo> result = client.query(typeDescriptor, query, MetricInfo.class);
+        ResultList<MetricInfo> result = RegistryQueryCache.getInstance().query(client, typeDescriptor, query, MetricInfo.class, MetricInfoImpl::new);
         return new MetricInfoListResultImpl(result);
     }
 
@@ -308,7 +326,7 @@ public class MetricInfoRegistryFacade {
 
         String indexName = SchemaUtil.getKapuaIndexName(query.getScopeId());
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, MetricInfoSchema.METRIC_TYPE_NAME);
-        return client.count(typeDescriptor, query);
+        return RegistryQueryCache.getInstance().count(client, typeDescriptor, query);
     }
 
     /**
@@ -340,5 +358,58 @@ public class MetricInfoRegistryFacade {
         String indexName = SchemaUtil.getKapuaIndexName(query.getScopeId());
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, MetricInfoSchema.METRIC_TYPE_NAME);
         client.deleteByQuery(typeDescriptor, query);
+        RegistryQueryCache.getInstance().invalidate(query.getScopeId());
     }
+
+    /**
+     * Delete the metric info registry entries of the metrics that haven't been published since the given date.<br>
+     * The entries are checked and deleted a page at a time (see {@link RegistryCleaner}), then removed from the metrics cache so the metric is registered again by its next message.
+     *
+     * @param scopeId
+     * @param expiredBefore
+     * @param pageSize
+     * @return the deleted entries count
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    public int deleteStale(KapuaId scopeId, Date expiredBefore, int pageSize)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException {
+        return new MetricInfoRegistryCleaner().deleteStale(scopeId, expiredBefore, pageSize);
+    }
+
+    private class MetricInfoRegistryCleaner extends RegistryCleaner<MetricInfo> {
+
+        private MetricInfoRegistryCleaner() {
+            super(client, MetricInfoSchema.METRIC_TYPE_NAME, MetricInfo.class, MetricInfoField.TIMESTAMP_FULL);
+        }
+
+        @Override
+        protected AbstractStorableQuery<MetricInfo> newQuery(KapuaId scopeId) {
+            return new MetricInfoQueryImpl(scopeId);
+        }
+
+        @Override
+        protected StorableId getId(MetricInfo metricInfo) {
+            return metricInfo.getId();
+        }
+
+        @Override
+        protected Set<StorableId> findPublished(KapuaId scopeId, List<MetricInfo> metricInfos, MessageQuery publishedSinceQuery)
+                throws KapuaIllegalArgumentException,
+                ConfigurationException,
+                ClientException {
+            JsonNode aggregationsNode = mediator.aggregateMessages(publishedSinceQuery, RegistryActivityConverter.toMetricInfoAggregations(metricInfos));
+            return RegistryActivityConverter.toPublishedMetricInfoIds(metricInfos, aggregationsNode);
+        }
+
+        @Override
+        protected void onDeleted(MetricInfo metricInfo) {
+            DatastoreCacheManager.getInstance().getMetricsCache().remove(metricInfo.getId().toString());
+        }
+    }
+
 }
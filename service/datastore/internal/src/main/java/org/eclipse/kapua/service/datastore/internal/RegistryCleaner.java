@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import org.eclipse.kapua.KapuaIllegalArgumentException;
+import org.eclipse.kapua.commons.util.ArgumentValidator;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.client.ClientException;
+import org.eclipse.kapua.service.datastore.client.DatastoreClient;
+import org.eclipse.kapua.service.datastore.client.model.ResultList;
+import org.eclipse.kapua.service.datastore.client.model.TypeDescriptor;
+import org.eclipse.kapua.service.datastore.internal.converter.SearchAfterKey;
+import org.eclipse.kapua.service.datastore.internal.mediator.ConfigurationException;
+import org.eclipse.kapua.service.datastore.internal.mediator.MessageField;
+import org.eclipse.kapua.service.datastore.internal.model.query.IdsPredicateImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MessageQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.RangePredicateImpl;
+import org.eclipse.kapua.service.datastore.internal.schema.SchemaUtil;
+import org.eclipse.kapua.service.datastore.model.Storable;
+import org.eclipse.kapua.service.datastore.model.StorableId;
+import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+import org.eclipse.kapua.service.datastore.model.query.StorableField;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Deletes the registry entries of a scope that haven't been published since a given date.<br>
+ * The entry timestamp is the one of the first message, so the entries older than the given date are paged through: for each page a single aggregation over the messages
+ * published since the date tells the entries still in use (see {@link #findPublished(KapuaId, List, MessageQuery)}).
+ * The other entries of the page are deleted in bulk by a single delete by ids query, then removed from the registry cache so they are registered again by their next message.
+ *
+ * @param <T> registry entry type
+ * @since 1.3.0
+ */
+abstract class RegistryCleaner<T extends Storable> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegistryCleaner.class);
+
+    private final DatastoreClient<?> client;
+    private final String typeName;
+    private final Class<T> clazz;
+    private final StorableField timestampField;
+
+    /**
+     * Constructor
+     *
+     * @param client         the datastore client of the registry
+     * @param typeName       the registry type name
+     * @param clazz          the registry entry class
+     * @param timestampField the field of the registry entry timestamp
+     * @since 1.3.0
+     */
+    protected RegistryCleaner(DatastoreClient<?> client, String typeName, Class<T> clazz, StorableField timestampField) {
+        this.client = client;
+        this.typeName = typeName;
+        this.clazz = clazz;
+        this.timestampField = timestampField;
+    }
+
+    /**
+     * Delete the registry entries of the scope that haven't been published since the given date
+     *
+     * @param scopeId
+     * @param expiredBefore
+     * @param pageSize
+     * @return the deleted entries count
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    public int deleteStale(KapuaId scopeId, Date expiredBefore, int pageSize)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException {
+        ArgumentValidator.notNull(scopeId, "scopeId");
+        ArgumentValidator.notNull(expiredBefore, "expiredBefore");
+
+        AbstractStorableQuery<T> query = newQuery(scopeId);
+        query.setLimit(pageSize);
+        query.setNextKey("");
+        query.setPredicate(new RangePredicateImpl(timestampField, null, new Date(expiredBefore.getTime() - 1)));
+
+        MessageQuery publishedSinceQuery = new MessageQueryImpl(scopeId);
+        publishedSinceQuery.setPredicate(new RangePredicateImpl(MessageField.TIMESTAMP, expiredBefore, null));
+
+        TypeDescriptor typeDescriptor = new TypeDescriptor(SchemaUtil.getKapuaIndexName(scopeId), typeName);
+        int deleted = 0;
+        ResultList<T> entries;
+        do {
+            entries = client.query(typeDescriptor, query, clazz);
+            List<T> staleEntries = new ArrayList<>(entries.getResult());
+            if (!staleEntries.isEmpty()) {
+                Set<StorableId> publishedIds = findPublished(scopeId, entries.getResult(), publishedSinceQuery);
+                staleEntries.removeIf(entry -> publishedIds.contains(getId(entry)));
+            }
+
+            if (!staleEntries.isEmpty()) {
+                IdsPredicateImpl staleIdsPredicate = new IdsPredicateImpl(typeName);
+                for (T staleEntry : staleEntries) {
+                    staleIdsPredicate.addValue(getId(staleEntry));
+                }
+                AbstractStorableQuery<T> deleteQuery = newQuery(scopeId);
+                deleteQuery.setPredicate(staleIdsPredicate);
+                client.deleteByQuery(typeDescriptor, deleteQuery);
+                for (T staleEntry : staleEntries) {
+                    onDeleted(staleEntry);
+                }
+                deleted += staleEntries.size();
+            }
+            if (!entries.getResult().isEmpty()) {
+                query.setNextKey(SearchAfterKey.encode(entries.getLastSortValues()));
+            }
+        } while (entries.getResult().size() >= pageSize);
+
+        if (deleted > 0) {
+            RegistryQueryCache.getInstance().invalidate(scopeId);
+            LOG.debug("Deleted {} stale {} registry entries of account {}", deleted, typeName, scopeId);
+        }
+        return deleted;
+    }
+
+    /**
+     * Create a new query of the registry
+     *
+     * @param scopeId
+     * @return
+     * @since 1.3.0
+     */
+    protected abstract AbstractStorableQuery<T> newQuery(KapuaId scopeId);
+
+    /**
+     * Get the identifier of the registry entry
+     *
+     * @param entry
+     * @return
+     * @since 1.3.0
+     */
+    protected abstract StorableId getId(T entry);
+
+    /**
+     * Find the registry entries of the page published by at least one of the messages matching the given query, in a single request
+     *
+     * @param scopeId
+     * @param entries
+     * @param publishedSinceQuery the query of the messages published since the expiration date
+     * @return the identifiers of the published entries
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    protected abstract Set<StorableId> findPublished(KapuaId scopeId, List<T> entries, MessageQuery publishedSinceQuery)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException;
+
+    /**
+     * Remove the deleted registry entry from the registry cache
+     *
+     * @param entry
+     * @since 1.3.0
+     */
+    protected abstract void onDeleted(T entry);
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.MessageStoreService;
+import org.eclipse.kapua.service.datastore.client.ClientException;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingKey;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Periodic registry cleanup task.<br>
+ * Every {@link DatastoreSettingKey#REGISTRY_CLEANUP_INTERVAL} seconds, for each scope owning a registry index, the client, channel and metric registry entries
+ * not published within the account data time to live are deleted (see {@link MessageStoreFacade#deleteStaleRegistryEntries(KapuaId)}).
+ *
+ * @since 1.3.0
+ */
+public class RegistryCleanupTask extends DatastoreScheduledTask {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegistryCleanupTask.class);
+
+    /**
+     * Name of the {@link org.eclipse.kapua.commons.event.HousekeeperRun} lock of the task
+     */
+    static final String TASK_NAME = MessageStoreService.class.getName() + ".registryCleanup";
+
+    private final MessageStoreFacade messageStoreFacade;
+
+    /**
+     * Constructor.<br>
+     * The task is scheduled only if enabled by {@link DatastoreSettingKey#REGISTRY_CLEANUP_ENABLED}.
+     *
+     * @param messageStoreFacade
+     * @since 1.3.0
+     */
+    public RegistryCleanupTask(MessageStoreFacade messageStoreFacade) {
+        super(TASK_NAME,
+                DatastoreSettings.getInstance().getBoolean(DatastoreSettingKey.REGISTRY_CLEANUP_ENABLED, false),
+                DatastoreSettings.getInstance().getLong(DatastoreSettingKey.REGISTRY_CLEANUP_INTERVAL, 86400L),
+                DatastoreEntityManagerFactory.getInstance());
+        this.messageStoreFacade = messageStoreFacade;
+    }
+
+    @Override
+    protected void execute() {
+        List<KapuaId> scopeIds;
+        try {
+            scopeIds = messageStoreFacade.getRegistryScopeIds();
+        } catch (ClientException e) {
+            LOG.warn("Cannot get the scopes to apply the registry cleanup to: {}", e.getMessage(), e);
+            return;
+        }
+
+        for (KapuaId scopeId : scopeIds) {
+            try {
+                int deletedEntries = KapuaSecurityUtils.doPrivileged(() -> messageStoreFacade.deleteStaleRegistryEntries(scopeId));
+                LOG.debug("Registry cleanup applied to scope {} - deleted entries: {}", scopeId, deletedEntries);
+            } catch (Exception e) {
+                // go ahead with the other scopes
+                LOG.warn("Cannot apply the registry cleanup to scope {}: {}", scopeId, e.getMessage(), e);
+            }
+        }
+    }
+}
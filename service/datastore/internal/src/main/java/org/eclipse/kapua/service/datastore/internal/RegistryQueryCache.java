@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import org.eclipse.kapua.commons.cache.LocalCache;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.client.ClientException;
+import org.eclipse.kapua.service.datastore.client.DatastoreClient;
+import org.eclipse.kapua.service.datastore.client.QueryConverter;
+import org.eclipse.kapua.service.datastore.client.model.ResultList;
+import org.eclipse.kapua.service.datastore.client.model.TypeDescriptor;
+import org.eclipse.kapua.service.datastore.internal.converter.QueryConverterImpl;
+import org.eclipse.kapua.service.datastore.internal.schema.SchemaUtil;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingKey;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Short lived cache of the client, channel and metric registry query and count results.<br>
+ * Dashboards and consoles poll the same registry queries every few seconds, so the results are kept for {@link DatastoreSettingKey#CONFIG_CACHE_QUERY_LOCAL_EXPIRE_AFTER} seconds.<br>
+ * The cache key is the registry index (so the scope), the type and the Elasticsearch query the registry query is converted to.
+ * The entries of a scope are invalidated as soon as a registry entry of the scope is inserted or deleted.<br>
+ * The query results are returned as copies, so the callers can populate them (i.e. the last published fields of the client information) without changing the cached
+ * entries.<br>
+ * <br>
+ * The cache is local to the JVM, so the invalidation only covers the registry entries inserted or deleted by this JVM: the changes made by another JVM
+ * (i.e. the broker storing the messages while the REST API or the console serve the queries) become visible only when the cached entries expire, up to
+ * {@link DatastoreSettingKey#CONFIG_CACHE_QUERY_LOCAL_EXPIRE_AFTER} seconds later.
+ *
+ * @since 1.3.0
+ */
+public class RegistryQueryCache {
+
+    private static final RegistryQueryCache INSTANCE = newInstance();
+
+    private static final String KEY_SEPARATOR = "|";
+    private static final String QUERY_KEY = "query";
+    private static final String COUNT_KEY = "count";
+
+    private final QueryConverter queryConverter = new QueryConverterImpl();
+    private final LocalCache<String, Object> cache;
+
+    /**
+     * Loads a result from the datastore
+     */
+    @FunctionalInterface
+    interface Loader<V> {
+
+        V load() throws ClientException;
+    }
+
+    RegistryQueryCache(int expireAfter, int sizeMax) {
+        cache = expireAfter > 0 ? new LocalCache<>(sizeMax, expireAfter, null) : null;
+    }
+
+    private static RegistryQueryCache newInstance() {
+        DatastoreSettings config = DatastoreSettings.getInstance();
+        return new RegistryQueryCache(
+                config.getInt(DatastoreSettingKey.CONFIG_CACHE_QUERY_LOCAL_EXPIRE_AFTER, 5),
+                config.getInt(DatastoreSettingKey.CONFIG_CACHE_QUERY_LOCAL_SIZE_MAXIMUM, 1000));
+    }
+
+    /**
+     * Get the registry query cache instance
+     *
+     * @return
+     * @since 1.3.0
+     */
+    public static RegistryQueryCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get a copy of the query result from the cache, or query the datastore and cache the result
+     *
+     * @param client
+     * @param typeDescriptor
+     * @param query
+     * @param clazz
+     * @param copier         builds a copy of a result item
+     * @return
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    public <T> ResultList<T> query(DatastoreClient<?> client, TypeDescriptor typeDescriptor, Object query, Class<T> clazz, UnaryOperator<T> copier) throws ClientException {
+        if (cache == null) {
+            return client.query(typeDescriptor, query, clazz);
+        }
+
+        return query(getKey(QUERY_KEY, typeDescriptor, query), () -> client.query(typeDescriptor, query, clazz), copier);
+    }
+
+    /**
+     * Get the count result from the cache, or count on the datastore and cache the result
+     *
+     * @param client
+     * @param typeDescriptor
+     * @param query
+     * @return
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    public long count(DatastoreClient<?> client, TypeDescriptor typeDescriptor, Object query) throws ClientException {
+        if (cache == null) {
+            return client.count(typeDescriptor, query);
+        }
+
+        return count(getKey(COUNT_KEY, typeDescriptor, query), () -> client.count(typeDescriptor, query));
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> ResultList<T> query(String key, Loader<ResultList<T>> loader, UnaryOperator<T> copier) throws ClientException {
+        if (cache == null) {
+            return loader.load();
+        }
+
+        ResultList<T> result = (ResultList<T>) cache.get(key);
+        if (result == null) {
+            result = loader.load();
+            cache.put(key, result);
+        }
+        return copyOf(result, copier);
+    }
+
+    long count(String key, Loader<Long> loader) throws ClientException {
+        if (cache == null) {
+            return loader.load();
+        }
+
+        Long count = (Long) cache.get(key);
+        if (count == null) {
+            count = loader.load();
+            cache.put(key, count);
+        }
+        return count;
+    }
+
+    /**
+     * Invalidate the cached results of the scope (to be called when a registry entry of the scope is inserted or deleted)
+     *
+     * @param scopeId
+     * @since 1.3.0
+     */
+    public void invalidate(KapuaId scopeId) {
+        if (cache == null) {
+            return;
+        }
+
+        invalidate(SchemaUtil.getKapuaIndexName(scopeId));
+    }
+
+    void invalidate(String indexName) {
+        if (cache == null) {
+            return;
+        }
+
+        String keyPrefix = indexName + KEY_SEPARATOR;
+        for (String key : cache.getAllKeys()) {
+            if (key.startsWith(keyPrefix)) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Invalidate all the cached results
+     *
+     * @since 1.3.0
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private static <T> ResultList<T> copyOf(ResultList<T> result, UnaryOperator<T> copier) {
+        ResultList<T> copy = new ResultList<>(result.getTotalCount());
+        for (T item : result.getResult()) {
+            copy.add(copier.apply(item));
+        }
+        Object[] lastSortValues = result.getLastSortValues();
+        copy.setLastSortValues(lastSortValues != null ? lastSortValues.clone() : null);
+        return copy;
+    }
+
+    private String getKey(String operation, TypeDescriptor typeDescriptor, Object query) throws ClientException {
+        return new StringBuilder(typeDescriptor.getIndex())
+                .append(KEY_SEPARATOR).append(typeDescriptor.getType())
+                .append(KEY_SEPARATOR).append(operation)
+                .append(KEY_SEPARATOR).append(queryConverter.convertQuery(query))
+                .toString();
+    }
+}
@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.converter;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.kapua.service.datastore.client.DatamodelMappingException;
+import org.eclipse.kapua.service.datastore.client.SchemaKeys;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.datastore.internal.mediator.MessageField;
+import org.eclipse.kapua.service.datastore.internal.model.MetricAggregationResultImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MetricBucketImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MetricPercentileImpl;
+import org.eclipse.kapua.service.datastore.internal.schema.SchemaUtil;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
+import org.eclipse.kapua.service.datastore.model.MetricBucket;
+import org.eclipse.kapua.service.datastore.model.MetricStatistics;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Metric aggregation converter.<br>
+ * It converts a {@link MetricAggregation} to the Elasticsearch aggregations definition and the Elasticsearch aggregations result back to a {@link MetricAggregationResult}.
+ *
+ * <pre>
+ *  {
+ *      "metric_stats": { "stats": { "field": "metrics.temperature.dbl" } },
+ *      "metric_percentiles": { "percentiles": { "field": "metrics.temperature.dbl", "percents": [ 50, 99 ] } },
+ *      "metric_histogram": {
+ *          "date_histogram": { "field": "timestamp", "interval": "1h", "min_doc_count": 1 },
+ *          "aggs": {
+ *              "metric_stats": { ... },
+ *              "metric_percentiles": { ... }
+ *          }
+ *      }
+ *  }
+ * </pre>
+ *
+ * @since 1.3.0
+ */
+public class MetricAggregationConverter {
+
+    private static final String AGGREGATION_STATS = "metric_stats";
+    private static final String AGGREGATION_PERCENTILES = "metric_percentiles";
+    private static final String AGGREGATION_HISTOGRAM = "metric_histogram";
+
+    private static final String KEY_STATS = "stats";
+    private static final String KEY_PERCENTILES = "percentiles";
+    private static final String KEY_DATE_HISTOGRAM = "date_histogram";
+    private static final String KEY_FIELD = "field";
+    private static final String KEY_PERCENTS = "percents";
+    private static final String KEY_INTERVAL = "interval";
+    private static final String KEY_MIN_DOC_COUNT = "min_doc_count";
+    private static final String KEY_BUCKETS = "buckets";
+    private static final String KEY_KEY = "key";
+    private static final String KEY_VALUES = "values";
+    private static final String KEY_COUNT = "count";
+    private static final String KEY_MIN = "min";
+    private static final String KEY_MAX = "max";
+    private static final String KEY_AVG = "avg";
+    private static final String KEY_SUM = "sum";
+
+    /**
+     * Fixed intervals (i.e. '90m') and calendar intervals (i.e. '1M' or 'month') supported by the Elasticsearch date histogram
+     */
+    private static final Pattern FIXED_INTERVAL_PATTERN = Pattern.compile("^([1-9][0-9]*)(ms|s|m|h|d)$");
+    private static final Pattern CALENDAR_INTERVAL_PATTERN = Pattern.compile("^(1[smhdwMqy]|second|minute|hour|day|week|month|quarter|year)$");
+
+    private MetricAggregationConverter() {
+
+    }
+
+    /**
+     * Get the interval width in milliseconds (the calendar intervals are approximated to their minimum width)
+     *
+     * @param interval
+     * @return the interval width or -1 if the interval is not valid (or its width overflows)
+     */
+    public static long getIntervalMillis(String interval) {
+        if (interval == null) {
+            return -1;
+        }
+        Matcher fixedMatcher = FIXED_INTERVAL_PATTERN.matcher(interval);
+        if (fixedMatcher.matches()) {
+            try {
+                return Math.multiplyExact(Long.parseLong(fixedMatcher.group(1)), getUnitMillis(fixedMatcher.group(2)));
+            } catch (NumberFormatException | ArithmeticException e) {
+                return -1;
+            }
+        }
+        if (CALENDAR_INTERVAL_PATTERN.matcher(interval).matches()) {
+            return getUnitMillis(interval.length() == 2 ? interval.substring(1) : interval);
+        }
+        return -1;
+    }
+
+    private static long getUnitMillis(String unit) {
+        switch (unit) {
+        case "ms":
+            return 1L;
+        case "s":
+        case "second":
+            return 1000L;
+        case "m":
+        case "minute":
+            return 60 * 1000L;
+        case "h":
+        case "hour":
+            return 60 * 60 * 1000L;
+        case "d":
+        case "day":
+            return 24 * 60 * 60 * 1000L;
+        case "w":
+        case "week":
+            return 7 * 24 * 60 * 60 * 1000L;
+        case "M":
+        case "month":
+            return 28 * 24 * 60 * 60 * 1000L;
+        case "q":
+        case "quarter":
+            return 90 * 24 * 60 * 60 * 1000L;
+        default:
+            return 365 * 24 * 60 * 60 * 1000L;
+        }
+    }
+
+    /**
+     * Get the name of the field storing the metric values
+     *
+     * @param aggregation
+     * @return
+     */
+    public static String getMetricField(MetricAggregation aggregation) {
+        String metricType = DatastoreUtils.getClientMetricFromAcronym(DatastoreUtils.getClientMetricFromType(aggregation.getMetricType()));
+        return String.format("metrics.%s.%s", DatastoreUtils.normalizeMetricName(aggregation.getMetricName()), metricType);
+    }
+
+    /**
+     * Convert the metric aggregation to the Elasticsearch aggregations definition
+     *
+     * @param aggregation
+     * @return
+     * @throws DatamodelMappingException
+     */
+    public static ObjectNode toAggregations(MetricAggregation aggregation) throws DatamodelMappingException {
+        ObjectNode aggregationsNode = toMetricAggregations(aggregation);
+        if (aggregation.getInterval() != null) {
+            ObjectNode dateHistogramNode = SchemaUtil.getObjectNode();
+            dateHistogramNode.set(KEY_FIELD, SchemaUtil.getTextNode(MessageField.TIMESTAMP.field()));
+            dateHistogramNode.set(KEY_INTERVAL, SchemaUtil.getTextNode(aggregation.getInterval()));
+            dateHistogramNode.set(KEY_MIN_DOC_COUNT, SchemaUtil.getNumericNode(1));
+            ObjectNode histogramNode = getAggregationNode(KEY_DATE_HISTOGRAM, dateHistogramNode);
+            histogramNode.set(SchemaKeys.KEY_AGGREGATIONS, toMetricAggregations(aggregation));
+            aggregationsNode.set(AGGREGATION_HISTOGRAM, histogramNode);
+        }
+        return aggregationsNode;
+    }
+
+    private static ObjectNode toMetricAggregations(MetricAggregation aggregation) throws DatamodelMappingException {
+        String metricField = getMetricField(aggregation);
+        ObjectNode aggregationsNode = SchemaUtil.getObjectNode();
+        aggregationsNode.set(AGGREGATION_STATS, getAggregationNode(KEY_STATS, SchemaUtil.getField(KEY_FIELD, metricField)));
+        List<Double> percents = aggregation.getPercents();
+        if (!percents.isEmpty()) {
+            ArrayNode percentsNode = SchemaUtil.getArrayNode();
+            for (Double percent : percents) {
+                percentsNode.add(percent);
+            }
+            ObjectNode percentilesNode = SchemaUtil.getObjectNode();
+            percentilesNode.set(KEY_FIELD, SchemaUtil.getTextNode(metricField));
+            percentilesNode.set(KEY_PERCENTS, percentsNode);
+            aggregationsNode.set(AGGREGATION_PERCENTILES, getAggregationNode(KEY_PERCENTILES, percentilesNode));
+        }
+        return aggregationsNode;
+    }
+
+    private static ObjectNode getAggregationNode(String aggregationType, ObjectNode aggregationSettings) {
+        ObjectNode aggregationNode = SchemaUtil.getObjectNode();
+        aggregationNode.set(aggregationType, aggregationSettings);
+        return aggregationNode;
+    }
+
+    /**
+     * Convert the Elasticsearch aggregations result to the metric aggregation result
+     *
+     * @param aggregation
+     * @param aggregationsNode
+     *            the aggregations result (if {@code null} an empty result is returned)
+     * @return
+     */
+    public static MetricAggregationResult toResult(MetricAggregation aggregation, JsonNode aggregationsNode) {
+        MetricAggregationResult result = new MetricAggregationResultImpl();
+        result.setMetricName(aggregation.getMetricName());
+        if (aggregationsNode == null) {
+            return result;
+        }
+        fillStatistics(result.getStatistics(), aggregationsNode);
+        JsonNode bucketsNode = aggregationsNode.path(AGGREGATION_HISTOGRAM).path(KEY_BUCKETS);
+        for (JsonNode bucketNode : bucketsNode) {
+            MetricBucket bucket = new MetricBucketImpl();
+            bucket.setTimestamp(new Date(bucketNode.path(KEY_KEY).asLong()));
+            fillStatistics(bucket, bucketNode);
+            result.getBuckets().add(bucket);
+        }
+        return result;
+    }
+
+    private static void fillStatistics(MetricStatistics statistics, JsonNode aggregationsNode) {
+        JsonNode statsNode = aggregationsNode.path(AGGREGATION_STATS);
+        statistics.setCount(statsNode.path(KEY_COUNT).asLong());
+        if (statistics.getCount() > 0) {
+            statistics.setMin(toDouble(statsNode.get(KEY_MIN)));
+            statistics.setMax(toDouble(statsNode.get(KEY_MAX)));
+            statistics.setAvg(toDouble(statsNode.get(KEY_AVG)));
+            statistics.setSum(toDouble(statsNode.get(KEY_SUM)));
+        }
+        Iterator<Map.Entry<String, JsonNode>> percentiles = aggregationsNode.path(AGGREGATION_PERCENTILES).path(KEY_VALUES).fields();
+        while (percentiles.hasNext()) {
+            Map.Entry<String, JsonNode> percentile = percentiles.next();
+            statistics.getPercentiles().add(new MetricPercentileImpl(Double.parseDouble(percentile.getKey()), statistics.getCount() > 0 ? toDouble(percentile.getValue()) : null));
+        }
+    }
+
+    private static Double toDouble(JsonNode valueNode) {
+        if (valueNode == null || valueNode.isNull() || !(valueNode.isNumber() || valueNode.isTextual())) {
+            return null;
+        }
+        double value = valueNode.asDouble(Double.NaN);
+        return Double.isNaN(value) || Double.isInfinite(value) ? null : value;
+    }
+
+}
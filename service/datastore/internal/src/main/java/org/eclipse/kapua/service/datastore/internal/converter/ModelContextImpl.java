@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -15,6 +15,7 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.text.ParseException;
 import java.util.Date;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,7 +51,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonMappingException;
 
 /**
@@ -67,6 +71,7 @@ public class ModelContextImpl implements ModelContext {
     private static final String UNSUPPORTED_OBJECT_TYPE_ERROR_MSG = "The conversion of object [%s] is not supported!";
     private static final String UNMARSHAL_INVALID_PARAMETERS_ERROR_MSG = "Object and/or object type cannot be null!";
     private static final String MARSHAL_INVALID_PARAMETERS_ERROR_MSG = "Object and/or object type cannot be null!";
+    private static final String UNEXPECTED_TOKEN_ERROR_MSG = "Unexpected token [%s] (expected [%s])!";
 
     @SuppressWarnings("unchecked")
     @Override
@@ -114,6 +119,62 @@ public class ModelContextImpl implements ModelContext {
         throw new DatamodelMappingException(String.format(UNSUPPORTED_OBJECT_TYPE_ERROR_MSG, object.getClass().getName()));
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T unmarshal(Class<T> clazz, String datastoreId, Object fetchStyle, JsonParser sourceParser) throws DatamodelMappingException {
+        if (clazz == null || sourceParser == null) {
+            throw new DatamodelMappingException(UNMARSHAL_INVALID_PARAMETERS_ERROR_MSG);
+        }
+        try {
+            if (!sourceParser.hasCurrentToken()) {
+                sourceParser.nextToken();
+            }
+            checkToken(sourceParser, JsonToken.START_OBJECT);
+            if (DatastoreMessage.class.isAssignableFrom(clazz)) {
+                return (T) readDatastoreMessage(datastoreId, getStorableFetchStyle(fetchStyle), sourceParser);
+            } else if (ClientInfo.class.isAssignableFrom(clazz)) {
+                return (T) readClientInfo(datastoreId, sourceParser);
+            } else if (MetricInfo.class.isAssignableFrom(clazz)) {
+                return (T) readMetricInfo(datastoreId, sourceParser);
+            } else if (ChannelInfo.class.isAssignableFrom(clazz)) {
+                return (T) readChannelInfo(datastoreId, sourceParser);
+            }
+        } catch (IOException | ParseException | IllegalArgumentException e) {
+            throw new DatamodelMappingException(CONVERSION_ERROR_MSG, e);
+        }
+        throw new DatamodelMappingException(String.format(UNSUPPORTED_OBJECT_TYPE_ERROR_MSG, clazz.getName()));
+    }
+
+    @Override
+    public void marshal(Object object, JsonGenerator generator) throws DatamodelMappingException {
+        if (object == null || generator == null) {
+            throw new DatamodelMappingException(MARSHAL_INVALID_PARAMETERS_ERROR_MSG);
+        }
+        try {
+            if (object instanceof DatastoreMessage) {
+                writeDatastoreMessage((DatastoreMessage) object, generator);
+                return;
+            }
+            if (object instanceof ClientInfo) {
+                writeClientInfo((ClientInfo) object, generator);
+                return;
+            }
+            if (object instanceof ChannelInfo) {
+                writeChannelInfo((ChannelInfo) object, generator);
+                return;
+            }
+            if (object instanceof MetricInfo) {
+                writeMetricInfo((MetricInfo) object, generator);
+                return;
+            }
+        } catch (ParseException e) {
+            throw new DatamodelMappingException(DATE_CONVERSION_ERROR_MSG, e);
+        } catch (IOException e) {
+            throw new DatamodelMappingException(CONVERSION_ERROR_MSG, e);
+        }
+        throw new DatamodelMappingException(String.format(UNSUPPORTED_OBJECT_TYPE_ERROR_MSG, object.getClass().getName()));
+    }
+
     /*
      * 
      * unmarshal section
@@ -390,8 +451,471 @@ public class ModelContextImpl implements ModelContext {
         return unmarshalledMetricInfo;
     }
 
-    private StorableFetchStyle getStorableFetchStyle(Map<String, Object> objectMap) {
-        Object storableFetchStyle = objectMap.get(QueryConverter.QUERY_FETCH_STYLE_KEY);
+    /*
+     * 
+     * streaming read section
+     * (same mapping of the unmarshal section, the document fields are read straight from the parser)
+     */
+    private DatastoreMessage readDatastoreMessage(String id, StorableFetchStyle fetchStyle, JsonParser parser) throws IOException, ParseException {
+        String messageId = null;
+        String scopeIdStr = null;
+        String deviceIdStr = null;
+        String clientId = null;
+        String timestamp = null;
+        List<String> channelParts = null;
+        KapuaPositionImpl position = null;
+        String capturedOn = null;
+        String sentOn = null;
+        String receivedOn = null;
+        Map<String, Object> payloadMetrics = null;
+        byte[] body = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (fieldName) {
+            case MessageSchema.MESSAGE_ID:
+                messageId = parser.getText();
+                break;
+            case MessageSchema.MESSAGE_SCOPE_ID:
+                scopeIdStr = parser.getText();
+                break;
+            case MessageSchema.MESSAGE_DEVICE_ID:
+                deviceIdStr = parser.getText();
+                break;
+            case MessageSchema.MESSAGE_CLIENT_ID:
+                clientId = parser.getText();
+                break;
+            case MessageSchema.MESSAGE_TIMESTAMP:
+                timestamp = parser.getText();
+                break;
+            case MessageSchema.MESSAGE_CHANNEL_PARTS:
+                channelParts = readStringList(parser);
+                break;
+            case MessageSchema.MESSAGE_POSITION:
+                position = readPosition(parser);
+                break;
+            case MessageSchema.MESSAGE_CAPTURED_ON:
+                capturedOn = parser.getText();
+                break;
+            case MessageSchema.MESSAGE_SENT_ON:
+                sentOn = parser.getText();
+                break;
+            case MessageSchema.MESSAGE_RECEIVED_ON:
+                receivedOn = parser.getText();
+                break;
+            case MessageSchema.MESSAGE_METRICS:
+                payloadMetrics = readMetrics(parser);
+                break;
+            case MessageSchema.MESSAGE_BODY:
+                body = parser.getBinaryValue(Base64Variants.getDefaultVariant());
+                break;
+            default:
+                parser.skipChildren();
+                break;
+            }
+        }
+
+        DatastoreMessageImpl message = new DatastoreMessageImpl();
+        message.setDatastoreId(new StorableIdImpl(id));
+        if (messageId != null) {
+            message.setId(UUID.fromString(messageId));
+        }
+        message.setScopeId(new KapuaEid(new BigInteger(scopeIdStr)));
+        message.setDeviceId(deviceIdStr == null ? null : new KapuaEid(new BigInteger(deviceIdStr)));
+        message.setClientId(clientId);
+
+        KapuaDataChannelImpl dataChannel = new KapuaDataChannelImpl();
+        message.setChannel(dataChannel);
+        message.setTimestamp(KapuaDateUtils.parseDate(timestamp));
+
+        // stop the mapping if only fields are requested
+        if (fetchStyle.equals(StorableFetchStyle.FIELDS)) {
+            return message;
+        }
+
+        dataChannel.setSemanticParts(channelParts);
+        if (position != null) {
+            message.setPosition(position);
+        }
+        message.setCapturedOn(KapuaDateUtils.parseDate(capturedOn));
+        message.setSentOn(KapuaDateUtils.parseDate(sentOn));
+        message.setReceivedOn(KapuaDateUtils.parseDate(receivedOn));
+        KapuaDataPayloadImpl payload = new KapuaDataPayloadImpl();
+        if (payloadMetrics != null) {
+            payload.setMetrics(payloadMetrics);
+        }
+        if (fetchStyle.equals(StorableFetchStyle.SOURCE_SELECT)) {
+            return message;
+        }
+        if (body != null) {
+            payload.setBody(body);
+        }
+        message.setPayload(payload);
+        return message;
+    }
+
+    private KapuaPositionImpl readPosition(JsonParser parser) throws IOException, ParseException {
+        checkToken(parser, JsonToken.START_OBJECT);
+        KapuaPositionImpl position = new KapuaPositionImpl();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (fieldName) {
+            case MessageSchema.MESSAGE_POS_LOCATION:
+                checkToken(parser, JsonToken.START_OBJECT);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String locationFieldName = parser.getCurrentName();
+                    if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                        continue;
+                    }
+                    if (MessageSchema.MESSAGE_POSITION_LATITUDE.equals(locationFieldName)) {
+                        position.setLatitude(parser.getDoubleValue());
+                    } else if (MessageSchema.MESSAGE_POSITION_LONGITUDE.equals(locationFieldName)) {
+                        position.setLongitude(parser.getDoubleValue());
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                break;
+            case MessageSchema.MESSAGE_POS_ALT:
+                position.setAltitude(parser.getDoubleValue());
+                break;
+            case MessageSchema.MESSAGE_POS_HEADING:
+                position.setHeading(parser.getDoubleValue());
+                break;
+            case MessageSchema.MESSAGE_POS_PRECISION:
+                position.setPrecision(parser.getDoubleValue());
+                break;
+            case MessageSchema.MESSAGE_POS_SATELLITES:
+                position.setSatellites(parser.getIntValue());
+                break;
+            case MessageSchema.MESSAGE_POS_SPEED:
+                position.setSpeed(parser.getDoubleValue());
+                break;
+            case MessageSchema.MESSAGE_POS_STATUS:
+                position.setStatus(parser.getIntValue());
+                break;
+            case MessageSchema.MESSAGE_POS_TIMESTAMP:
+                position.setTimestamp(KapuaDateUtils.parseDate(parser.getText()));
+                break;
+            default:
+                parser.skipChildren();
+                break;
+            }
+        }
+        return position;
+    }
+
+    private Map<String, Object> readMetrics(JsonParser parser) throws IOException {
+        checkToken(parser, JsonToken.START_OBJECT);
+        Map<String, Object> payloadMetrics = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String metricName = parser.getCurrentName();
+            parser.nextToken();
+            checkToken(parser, JsonToken.START_OBJECT);
+            // the metric object has a single field named as the metric type acronym
+            if (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String valueType = parser.getCurrentName();
+                parser.nextToken();
+                Object value = readScalarValue(parser);
+                // since elasticsearch doesn't return always the same type of the saved field
+                // (usually due to some promotion of the field type)
+                // we need to check the metric type returned by elasticsearch and, if needed, convert to the proper type
+                payloadMetrics.put(DatastoreUtils.restoreMetricName(metricName), DatastoreUtils.convertToCorrectType(valueType, value));
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    parser.nextToken();
+                    parser.skipChildren();
+                }
+            }
+        }
+        return payloadMetrics;
+    }
+
+    private MetricInfo readMetricInfo(String id, JsonParser parser) throws IOException, ParseException {
+        String scopeIdStr = null;
+        String clientId = null;
+        String channel = null;
+        String name = null;
+        String type = null;
+        String lastMsgTimestamp = null;
+        String lastMsgId = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (fieldName) {
+            case MetricInfoSchema.METRIC_SCOPE_ID:
+                scopeIdStr = parser.getText();
+                break;
+            case MetricInfoSchema.METRIC_CLIENT_ID:
+                clientId = parser.getText();
+                break;
+            case MetricInfoSchema.METRIC_CHANNEL:
+                channel = parser.getText();
+                break;
+            case MetricInfoSchema.METRIC_MTR:
+                checkToken(parser, JsonToken.START_OBJECT);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String metricFieldName = parser.getCurrentName();
+                    if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                        continue;
+                    }
+                    switch (metricFieldName) {
+                    case MetricInfoSchema.METRIC_MTR_NAME:
+                        name = parser.getText();
+                        break;
+                    case MetricInfoSchema.METRIC_MTR_TYPE:
+                        type = parser.getText();
+                        break;
+                    case MetricInfoSchema.METRIC_MTR_TIMESTAMP:
+                        lastMsgTimestamp = parser.getText();
+                        break;
+                    case MetricInfoSchema.METRIC_MTR_MSG_ID:
+                        lastMsgId = parser.getText();
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                    }
+                }
+                break;
+            default:
+                parser.skipChildren();
+                break;
+            }
+        }
+
+        MetricInfo metricInfo = new MetricInfoImpl(new KapuaEid(new BigInteger(scopeIdStr)));
+        metricInfo.setId(new StorableIdImpl(id));
+        metricInfo.setClientId(clientId);
+        metricInfo.setChannel(channel);
+        metricInfo.setFirstMessageId(new StorableIdImpl(lastMsgId));
+        metricInfo.setName(DatastoreUtils.restoreMetricName(name));
+        metricInfo.setFirstMessageOn(KapuaDateUtils.parseDate(lastMsgTimestamp));
+        metricInfo.setMetricType(DatastoreUtils.convertToKapuaType(type));
+        return metricInfo;
+    }
+
+    private ChannelInfo readChannelInfo(String id, JsonParser parser) throws IOException, ParseException {
+        Map<String, String> fields = readStringFields(parser);
+        ChannelInfo channelInfo = new ChannelInfoImpl(new KapuaEid(new BigInteger(fields.get(ChannelInfoSchema.CHANNEL_SCOPE_ID))));
+        channelInfo.setId(new StorableIdImpl(id));
+        channelInfo.setClientId(fields.get(ChannelInfoSchema.CHANNEL_CLIENT_ID));
+        channelInfo.setName(fields.get(ChannelInfoSchema.CHANNEL_NAME));
+        channelInfo.setFirstMessageId(new StorableIdImpl(fields.get(ChannelInfoSchema.CHANNEL_MESSAGE_ID)));
+        channelInfo.setFirstMessageOn(KapuaDateUtils.parseDate(fields.get(ChannelInfoSchema.CHANNEL_TIMESTAMP)));
+        return channelInfo;
+    }
+
+    private ClientInfo readClientInfo(String id, JsonParser parser) throws IOException, ParseException {
+        Map<String, String> fields = readStringFields(parser);
+        ClientInfo clientInfo = new ClientInfoImpl(new KapuaEid(new BigInteger(fields.get(ClientInfoSchema.CLIENT_SCOPE_ID))));
+        clientInfo.setId(new StorableIdImpl(id));
+        clientInfo.setClientId(fields.get(ClientInfoSchema.CLIENT_ID));
+        clientInfo.setFirstMessageId(new StorableIdImpl(fields.get(ClientInfoSchema.CLIENT_MESSAGE_ID)));
+        clientInfo.setFirstMessageOn(KapuaDateUtils.parseDate(fields.get(ClientInfoSchema.CLIENT_TIMESTAMP)));
+        return clientInfo;
+    }
+
+    /**
+     * Read the scalar fields of the current object (the registry documents are flat objects of string fields)
+     */
+    private Map<String, String> readStringFields(JsonParser parser) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+                fields.put(fieldName, parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return fields;
+    }
+
+    private List<String> readStringList(JsonParser parser) throws IOException {
+        checkToken(parser, JsonToken.START_ARRAY);
+        List<String> values = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(parser.getValueAsString());
+        }
+        return values;
+    }
+
+    /**
+     * Read the current scalar value with the same types the untyped Jackson mapping (used by the unmarshal section) returns
+     */
+    private Object readScalarValue(JsonParser parser) throws IOException {
+        switch (parser.getCurrentToken()) {
+        case VALUE_STRING:
+            return parser.getText();
+        case VALUE_NUMBER_INT:
+            return parser.getNumberValue();
+        case VALUE_NUMBER_FLOAT:
+            return parser.getDoubleValue();
+        case VALUE_TRUE:
+            return Boolean.TRUE;
+        case VALUE_FALSE:
+            return Boolean.FALSE;
+        case VALUE_NULL:
+            return null;
+        default:
+            parser.skipChildren();
+            return null;
+        }
+    }
+
+    private void checkToken(JsonParser parser, JsonToken expectedToken) throws JsonParseException {
+        if (parser.getCurrentToken() != expectedToken) {
+            throw new JsonParseException(parser, String.format(UNEXPECTED_TOKEN_ERROR_MSG, parser.getCurrentToken(), expectedToken));
+        }
+    }
+
+    /*
+     * 
+     * streaming write section
+     * (same documents of the marshal section, the fields are written straight to the generator)
+     */
+    private void writeDatastoreMessage(DatastoreMessage message, JsonGenerator generator) throws IOException, ParseException {
+        generator.writeStartObject();
+        if (message.getId() != null) {
+            generator.writeStringField(MessageSchema.MESSAGE_ID, message.getId().toString());
+        }
+        generator.writeStringField(MessageSchema.MESSAGE_TIMESTAMP, KapuaDateUtils.formatDate(message.getTimestamp()));
+        generator.writeStringField(MessageSchema.MESSAGE_RECEIVED_ON, KapuaDateUtils.formatDate(message.getReceivedOn()));
+        generator.writeStringField(MessageSchema.MESSAGE_IP_ADDRESS, "127.0.0.1");// TODO
+        generator.writeStringField(MessageSchema.MESSAGE_SCOPE_ID, message.getScopeId().toStringId());
+        generator.writeStringField(MessageSchema.MESSAGE_DEVICE_ID, message.getDeviceId() == null ? null : message.getDeviceId().toStringId());
+        generator.writeStringField(MessageSchema.MESSAGE_CLIENT_ID, message.getClientId());
+        generator.writeStringField(MessageSchema.MESSAGE_CHANNEL, message.getChannel().toString());
+        List<String> channelParts = message.getChannel().getSemanticParts();
+        generator.writeFieldName(MessageSchema.MESSAGE_CHANNEL_PARTS);
+        if (channelParts != null) {
+            generator.writeStartArray();
+            for (String channelPart : channelParts) {
+                generator.writeString(channelPart);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeNull();
+        }
+        generator.writeStringField(MessageSchema.MESSAGE_CAPTURED_ON, KapuaDateUtils.formatDate(message.getCapturedOn()));
+        generator.writeStringField(MessageSchema.MESSAGE_SENT_ON, KapuaDateUtils.formatDate(message.getSentOn()));
+
+        KapuaPosition kapuaPosition = message.getPosition();
+        if (kapuaPosition != null) {
+            generator.writeObjectFieldStart(MessageSchema.MESSAGE_POSITION);
+            if (kapuaPosition.getLongitude() != null && kapuaPosition.getLatitude() != null) {
+                generator.writeObjectFieldStart(MessageSchema.MESSAGE_POS_LOCATION);
+                generator.writeNumberField(MessageSchema.MESSAGE_POSITION_LONGITUDE, kapuaPosition.getLongitude());
+                generator.writeNumberField(MessageSchema.MESSAGE_POSITION_LATITUDE, kapuaPosition.getLatitude());
+                generator.writeEndObject();
+            } else {
+                generator.writeNullField(MessageSchema.MESSAGE_POS_LOCATION);
+            }
+            writeValueField(generator, MessageSchema.MESSAGE_POS_ALT, kapuaPosition.getAltitude());
+            writeValueField(generator, MessageSchema.MESSAGE_POS_PRECISION, kapuaPosition.getPrecision());
+            writeValueField(generator, MessageSchema.MESSAGE_POS_HEADING, kapuaPosition.getHeading());
+            writeValueField(generator, MessageSchema.MESSAGE_POS_SPEED, kapuaPosition.getSpeed());
+            generator.writeStringField(MessageSchema.MESSAGE_POS_TIMESTAMP, KapuaDateUtils.formatDate(kapuaPosition.getTimestamp()));
+            writeValueField(generator, MessageSchema.MESSAGE_POS_SATELLITES, kapuaPosition.getSatellites());
+            writeValueField(generator, MessageSchema.MESSAGE_POS_STATUS, kapuaPosition.getStatus());
+            generator.writeEndObject();
+        }
+        KapuaPayload payload = message.getPayload();
+        if (payload != null) {
+            writeValueField(generator, MessageSchema.MESSAGE_BODY, payload.getBody());
+            Map<String, Object> kapuaMetrics = payload.getMetrics();
+            if (kapuaMetrics != null) {
+                generator.writeObjectFieldStart(MessageSchema.MESSAGE_METRICS);
+                for (Map.Entry<String, Object> kapuaMetric : kapuaMetrics.entrySet()) {
+                    Object metricValue = kapuaMetric.getValue();
+                    // Sanitize field names: '.' is not allowed
+                    String metricName = DatastoreUtils.normalizeMetricName(kapuaMetric.getKey());
+                    String clientMetricType = DatastoreUtils.getClientMetricFromType(metricValue.getClass());
+                    String clientMetricTypeAcronim = DatastoreUtils.getClientMetricFromAcronym(clientMetricType);
+                    generator.writeObjectFieldStart(metricName);
+                    if (DatastoreUtils.isDateMetric(clientMetricTypeAcronim) && metricValue instanceof Date) {
+                        generator.writeStringField(clientMetricTypeAcronim, KapuaDateUtils.formatDate((Date) metricValue));
+                    } else {
+                        writeValueField(generator, clientMetricTypeAcronim, metricValue);
+                    }
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeClientInfo(ClientInfo clientInfo, JsonGenerator generator) throws IOException, ParseException {
+        generator.writeStartObject();
+        generator.writeStringField(ClientInfoSchema.CLIENT_ID, clientInfo.getClientId());
+        generator.writeStringField(ClientInfoSchema.CLIENT_MESSAGE_ID, clientInfo.getFirstMessageId().toString());
+        generator.writeStringField(ClientInfoSchema.CLIENT_TIMESTAMP, KapuaDateUtils.formatDate(clientInfo.getFirstMessageOn()));
+        generator.writeStringField(ClientInfoSchema.CLIENT_SCOPE_ID, clientInfo.getScopeId().toStringId());
+        generator.writeEndObject();
+    }
+
+    private void writeChannelInfo(ChannelInfo channelInfo, JsonGenerator generator) throws IOException, ParseException {
+        generator.writeStartObject();
+        generator.writeStringField(ChannelInfoSchema.CHANNEL_NAME, channelInfo.getName());
+        generator.writeStringField(ChannelInfoSchema.CHANNEL_TIMESTAMP, KapuaDateUtils.formatDate(channelInfo.getFirstMessageOn()));
+        generator.writeStringField(ChannelInfoSchema.CHANNEL_CLIENT_ID, channelInfo.getClientId());
+        generator.writeStringField(ChannelInfoSchema.CHANNEL_SCOPE_ID, channelInfo.getScopeId().toStringId());
+        generator.writeStringField(ChannelInfoSchema.CHANNEL_MESSAGE_ID, channelInfo.getFirstMessageId().toString());
+        generator.writeEndObject();
+    }
+
+    private void writeMetricInfo(MetricInfo metricInfo, JsonGenerator generator) throws IOException, ParseException {
+        generator.writeStartObject();
+        generator.writeStringField(MetricInfoSchema.METRIC_SCOPE_ID, metricInfo.getScopeId().toStringId());
+        generator.writeStringField(MetricInfoSchema.METRIC_CLIENT_ID, metricInfo.getClientId());
+        generator.writeStringField(MetricInfoSchema.METRIC_CHANNEL, metricInfo.getChannel());
+        generator.writeObjectFieldStart(MetricInfoSchema.METRIC_MTR);
+        generator.writeStringField(MetricInfoSchema.METRIC_MTR_NAME, metricInfo.getName());
+        generator.writeStringField(MetricInfoSchema.METRIC_MTR_TYPE, DatastoreUtils.convertToClientMetricType(metricInfo.getMetricType()));
+        generator.writeStringField(MetricInfoSchema.METRIC_MTR_TIMESTAMP, KapuaDateUtils.formatDate(metricInfo.getFirstMessageOn()));
+        generator.writeStringField(MetricInfoSchema.METRIC_MTR_MSG_ID, metricInfo.getFirstMessageId().toString());
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write the field with the same json value the Jackson serialization of the map value (used by the marshal section) has
+     */
+    private void writeValueField(JsonGenerator generator, String fieldName, Object value) throws IOException {
+        generator.writeFieldName(fieldName);
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Integer) {
+            generator.writeNumber((Integer) value);
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Float) {
+            generator.writeNumber((Float) value);
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof byte[]) {
+            generator.writeBinary(Base64Variants.getDefaultVariant(), (byte[]) value, 0, ((byte[]) value).length);
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    private StorableFetchStyle getStorableFetchStyle(Object storableFetchStyle) {
         if (storableFetchStyle instanceof StorableFetchStyle) {
             return (StorableFetchStyle) storableFetchStyle;
         } else {
@@ -400,4 +924,8 @@ public class ModelContextImpl implements ModelContext {
         }
     }
 
+    private StorableFetchStyle getStorableFetchStyle(Map<String, Object> objectMap) {
+        return getStorableFetchStyle(objectMap.get(QueryConverter.QUERY_FETCH_STYLE_KEY));
+    }
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -19,6 +19,7 @@ import org.eclipse.kapua.service.datastore.client.QueryMappingException;
 import org.eclipse.kapua.service.datastore.client.SchemaKeys;
 import org.eclipse.kapua.service.datastore.internal.AbstractStorableQuery;
 import org.eclipse.kapua.service.datastore.internal.schema.SchemaUtil;
+import org.eclipse.kapua.service.datastore.model.query.SortDirection;
 import org.eclipse.kapua.service.datastore.model.query.SortField;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -32,6 +33,11 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
  */
 public class QueryConverterImpl implements QueryConverter {
 
+    /**
+     * Field appended to the sort when paging by continuation key, so that objects with the same sort values have a stable order
+     */
+    private static final String TIEBREAKER_FIELD = "_uid";
+
     @Override
     public JsonNode convertQuery(Object query) throws QueryMappingException, DatamodelMappingException {
         if (!(query instanceof AbstractStorableQuery<?>)) {
@@ -57,9 +63,22 @@ public class QueryConverterImpl implements QueryConverter {
             }
         }
         // offset and limit settings
-        Integer offset = storableQuery.getOffset();
-        if (offset != null) {
-            rootNode.set(SchemaKeys.KEY_FROM, SchemaUtil.getNumericNode(offset));
+        String nextKey = storableQuery.getNextKey();
+        if (nextKey != null) {
+            // paging by continuation key: the offset is ignored and the search starts after the sort values of the last object of the previous page
+            sortNode.add(SchemaUtil.getField(TIEBREAKER_FIELD, SortDirection.ASC.name()));
+            if (!nextKey.isEmpty()) {
+                ArrayNode searchAfterNode = SearchAfterKey.decode(nextKey);
+                if (searchAfterNode.size() != sortNode.size()) {
+                    throw new QueryMappingException(String.format("The next key doesn't match the query sort fields! Expected %s values but found %s", sortNode.size(), searchAfterNode.size()));
+                }
+                rootNode.set(SchemaKeys.KEY_SEARCH_AFTER, searchAfterNode);
+            }
+        } else {
+            Integer offset = storableQuery.getOffset();
+            if (offset != null) {
+                rootNode.set(SchemaKeys.KEY_FROM, SchemaUtil.getNumericNode(offset));
+            }
         }
         Integer limit = storableQuery.getLimit();
         if (limit != null) {
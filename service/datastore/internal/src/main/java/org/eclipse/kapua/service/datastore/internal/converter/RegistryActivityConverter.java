@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.converter;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.kapua.service.datastore.client.DatamodelMappingException;
+import org.eclipse.kapua.service.datastore.client.SchemaKeys;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.datastore.internal.mediator.MessageField;
+import org.eclipse.kapua.service.datastore.internal.model.query.AndPredicateImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.ExistsPredicateImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.TermPredicateImpl;
+import org.eclipse.kapua.service.datastore.internal.schema.SchemaUtil;
+import org.eclipse.kapua.service.datastore.model.ChannelInfo;
+import org.eclipse.kapua.service.datastore.model.ClientInfo;
+import org.eclipse.kapua.service.datastore.model.MetricInfo;
+import org.eclipse.kapua.service.datastore.model.StorableId;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Registry activity converter.<br>
+ * It converts a page of client, channel or metric registry entries to the Elasticsearch aggregations telling which of them are still published, and the Elasticsearch
+ * aggregations result back to the identifiers of the published entries.<br>
+ * The clients and the channels are looked up by a terms aggregation restricted to the values of the page, while the metric names are fields of the messages, so each metric
+ * is looked up by its own filter.
+ *
+ * <pre>
+ *  {
+ *      "registry_clients": {
+ *          "terms": { "field": "client_id", "size": 2, "include": [ "client-1", "client-2" ] },
+ *          "aggs": {
+ *              "registry_channels": { "terms": { "field": "channel", "size": 2, "include": [ "sensors/temperature", "sensors/humidity" ] } }
+ *          }
+ *      },
+ *      "registry_metrics": {
+ *          "filters": {
+ *              "filters": {
+ *                  "metric-info-id": { "bool": { "must": [ { "term": { "client_id": "client-1" } }, { "term": { "channel": "sensors/temperature" } }, { "exists": { "field": "metrics.value" } } ] } }
+ *              }
+ *          }
+ *      }
+ *  }
+ * </pre>
+ *
+ * @since 1.3.0
+ */
+public class RegistryActivityConverter {
+
+    private static final String AGGREGATION_CLIENTS = "registry_clients";
+    private static final String AGGREGATION_CHANNELS = "registry_channels";
+    private static final String AGGREGATION_METRICS = "registry_metrics";
+
+    private static final String KEY_TERMS = "terms";
+    private static final String KEY_FILTERS = "filters";
+    private static final String KEY_FIELD = "field";
+    private static final String KEY_SIZE = "size";
+    private static final String KEY_INCLUDE = "include";
+    private static final String KEY_BUCKETS = "buckets";
+    private static final String KEY_KEY = "key";
+    private static final String KEY_DOC_COUNT = "doc_count";
+
+    private RegistryActivityConverter() {
+
+    }
+
+    /**
+     * Convert the client info registry entries to the aggregations of their clients
+     *
+     * @param clientInfos
+     * @return
+     */
+    public static ObjectNode toClientInfoAggregations(Collection<ClientInfo> clientInfos) {
+        Set<String> clientIds = new LinkedHashSet<>();
+        for (ClientInfo clientInfo : clientInfos) {
+            clientIds.add(clientInfo.getClientId());
+        }
+
+        ObjectNode aggregationsNode = SchemaUtil.getObjectNode();
+        aggregationsNode.set(AGGREGATION_CLIENTS, getTermsAggregationNode(MessageField.CLIENT_ID.field(), clientIds));
+        return aggregationsNode;
+    }
+
+    /**
+     * Get the identifiers of the client info registry entries whose client is in the aggregations result
+     *
+     * @param clientInfos
+     * @param aggregationsNode
+     *            the aggregations result (if {@code null} none of the entries is published)
+     * @return
+     */
+    public static Set<StorableId> toPublishedClientInfoIds(Collection<ClientInfo> clientInfos, JsonNode aggregationsNode) {
+        Set<String> publishedClientIds = new HashSet<>();
+        if (aggregationsNode != null) {
+            for (JsonNode clientBucket : aggregationsNode.path(AGGREGATION_CLIENTS).path(KEY_BUCKETS)) {
+                if (clientBucket.path(KEY_DOC_COUNT).asLong() > 0) {
+                    publishedClientIds.add(clientBucket.path(KEY_KEY).asText());
+                }
+            }
+        }
+
+        Set<StorableId> publishedIds = new HashSet<>();
+        for (ClientInfo clientInfo : clientInfos) {
+            if (publishedClientIds.contains(clientInfo.getClientId())) {
+                publishedIds.add(clientInfo.getId());
+            }
+        }
+        return publishedIds;
+    }
+
+    /**
+     * Convert the channel info registry entries to the aggregations of their clients and channels
+     *
+     * @param channelInfos
+     * @return
+     */
+    public static ObjectNode toChannelInfoAggregations(Collection<ChannelInfo> channelInfos) {
+        Set<String> clientIds = new LinkedHashSet<>();
+        Set<String> channels = new LinkedHashSet<>();
+        for (ChannelInfo channelInfo : channelInfos) {
+            clientIds.add(channelInfo.getClientId());
+            channels.add(channelInfo.getName());
+        }
+
+        ObjectNode channelsNode = SchemaUtil.getObjectNode();
+        channelsNode.set(AGGREGATION_CHANNELS, getTermsAggregationNode(MessageField.CHANNEL.field(), channels));
+        ObjectNode clientsNode = getTermsAggregationNode(MessageField.CLIENT_ID.field(), clientIds);
+        clientsNode.set(SchemaKeys.KEY_AGGREGATIONS, channelsNode);
+
+        ObjectNode aggregationsNode = SchemaUtil.getObjectNode();
+        aggregationsNode.set(AGGREGATION_CLIENTS, clientsNode);
+        return aggregationsNode;
+    }
+
+    /**
+     * Get the identifiers of the channel info registry entries whose client and channel are in the aggregations result
+     *
+     * @param channelInfos
+     * @param aggregationsNode
+     *            the aggregations result (if {@code null} none of the entries is published)
+     * @return
+     */
+    public static Set<StorableId> toPublishedChannelInfoIds(Collection<ChannelInfo> channelInfos, JsonNode aggregationsNode) {
+        Map<String, Set<String>> publishedChannelsByClient = new HashMap<>();
+        if (aggregationsNode != null) {
+            for (JsonNode clientBucket : aggregationsNode.path(AGGREGATION_CLIENTS).path(KEY_BUCKETS)) {
+                Set<String> publishedChannels = new HashSet<>();
+                for (JsonNode channelBucket : clientBucket.path(AGGREGATION_CHANNELS).path(KEY_BUCKETS)) {
+                    if (channelBucket.path(KEY_DOC_COUNT).asLong() > 0) {
+                        publishedChannels.add(channelBucket.path(KEY_KEY).asText());
+                    }
+                }
+                publishedChannelsByClient.put(clientBucket.path(KEY_KEY).asText(), publishedChannels);
+            }
+        }
+
+        Set<StorableId> publishedIds = new HashSet<>();
+        for (ChannelInfo channelInfo : channelInfos) {
+            Set<String> publishedChannels = publishedChannelsByClient.get(channelInfo.getClientId());
+            if (publishedChannels != null && publishedChannels.contains(channelInfo.getName())) {
+                publishedIds.add(channelInfo.getId());
+            }
+        }
+        return publishedIds;
+    }
+
+    /**
+     * Convert the metric info registry entries to the aggregation of one filter for each entry
+     *
+     * @param metricInfos
+     * @return
+     * @throws DatamodelMappingException
+     */
+    public static ObjectNode toMetricInfoAggregations(Collection<MetricInfo> metricInfos) throws DatamodelMappingException {
+        ObjectNode filtersNode = SchemaUtil.getObjectNode();
+        for (MetricInfo metricInfo : metricInfos) {
+            AndPredicateImpl metricPredicate = new AndPredicateImpl();
+            metricPredicate.addPredicate(new TermPredicateImpl(MessageField.CLIENT_ID, metricInfo.getClientId()));
+            metricPredicate.addPredicate(new TermPredicateImpl(MessageField.CHANNEL, metricInfo.getChannel()));
+            metricPredicate.addPredicate(new ExistsPredicateImpl(MessageField.METRICS.field(), DatastoreUtils.normalizeMetricName(metricInfo.getName())));
+            filtersNode.set(metricInfo.getId().toString(), metricPredicate.toSerializedMap());
+        }
+
+        ObjectNode filtersSettingsNode = SchemaUtil.getObjectNode();
+        filtersSettingsNode.set(KEY_FILTERS, filtersNode);
+
+        ObjectNode aggregationsNode = SchemaUtil.getObjectNode();
+        aggregationsNode.set(AGGREGATION_METRICS, getAggregationNode(KEY_FILTERS, filtersSettingsNode));
+        return aggregationsNode;
+    }
+
+    /**
+     * Get the identifiers of the metric info registry entries whose filter matches at least one message in the aggregations result
+     *
+     * @param metricInfos
+     * @param aggregationsNode
+     *            the aggregations result (if {@code null} none of the entries is published)
+     * @return
+     */
+    public static Set<StorableId> toPublishedMetricInfoIds(Collection<MetricInfo> metricInfos, JsonNode aggregationsNode) {
+        Set<StorableId> publishedIds = new HashSet<>();
+        if (aggregationsNode == null) {
+            return publishedIds;
+        }
+
+        JsonNode bucketsNode = aggregationsNode.path(AGGREGATION_METRICS).path(KEY_BUCKETS);
+        for (MetricInfo metricInfo : metricInfos) {
+            if (bucketsNode.path(metricInfo.getId().toString()).path(KEY_DOC_COUNT).asLong() > 0) {
+                publishedIds.add(metricInfo.getId());
+            }
+        }
+        return publishedIds;
+    }
+
+    private static ObjectNode getTermsAggregationNode(String field, Collection<String> values) {
+        ArrayNode includeNode = SchemaUtil.getArrayNode();
+        for (String value : values) {
+            includeNode.add(value);
+        }
+
+        ObjectNode termsNode = SchemaUtil.getObjectNode();
+        termsNode.set(KEY_FIELD, SchemaUtil.getTextNode(field));
+        termsNode.set(KEY_SIZE, SchemaUtil.getNumericNode(values.size()));
+        termsNode.set(KEY_INCLUDE, includeNode);
+        return getAggregationNode(KEY_TERMS, termsNode);
+    }
+
+    private static ObjectNode getAggregationNode(String aggregationType, ObjectNode aggregationSettings) {
+        ObjectNode aggregationNode = SchemaUtil.getObjectNode();
+        aggregationNode.set(aggregationType, aggregationSettings);
+        return aggregationNode;
+    }
+
+}
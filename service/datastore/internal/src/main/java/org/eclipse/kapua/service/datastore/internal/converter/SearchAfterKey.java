@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.converter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.eclipse.kapua.service.datastore.client.QueryMappingException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+/**
+ * Continuation key codec.<br>
+ * The key handed to the clients is the url safe base64 encoding of the json array of the sort values of the last object returned, so it can be sent back as is
+ * to get the objects following it (Elasticsearch search_after).
+ *
+ * @since 1.3.0
+ */
+public class SearchAfterKey {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String INVALID_KEY_ERROR_MSG = "Invalid next key [%s]";
+
+    private SearchAfterKey() {
+
+    }
+
+    /**
+     * Encode the sort values as continuation key
+     *
+     * @param sortValues
+     * @return the continuation key or {@code null} if no sort values are provided
+     * @throws QueryMappingException
+     */
+    public static String encode(Object[] sortValues) throws QueryMappingException {
+        if (sortValues == null || sortValues.length == 0) {
+            return null;
+        }
+        try {
+            byte[] json = MAPPER.writeValueAsBytes(sortValues);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new QueryMappingException("Cannot encode the next key", e);
+        }
+    }
+
+    /**
+     * Decode the continuation key to the sort values to search after
+     *
+     * @param nextKey
+     * @return
+     * @throws QueryMappingException
+     *             if the key is not a valid continuation key
+     */
+    public static ArrayNode decode(String nextKey) throws QueryMappingException {
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(nextKey.getBytes(StandardCharsets.US_ASCII));
+            JsonNode sortValues = MAPPER.readTree(json);
+            if (sortValues == null || !sortValues.isArray() || sortValues.size() == 0) {
+                throw new QueryMappingException(String.format(INVALID_KEY_ERROR_MSG, nextKey));
+            }
+            return (ArrayNode) sortValues;
+        } catch (IllegalArgumentException | IOException e) {
+            throw new QueryMappingException(String.format(INVALID_KEY_ERROR_MSG, nextKey), e);
+        }
+    }
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -12,6 +12,9 @@
  *******************************************************************************/
 package org.eclipse.kapua.service.datastore.internal.mediator;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
 import org.eclipse.kapua.KapuaIllegalArgumentException;
 import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.message.KapuaPayload;
@@ -24,8 +27,10 @@ import org.eclipse.kapua.service.datastore.client.QueryMappingException;
 import org.eclipse.kapua.service.datastore.internal.ChannelInfoRegistryFacade;
 import org.eclipse.kapua.service.datastore.internal.ClientInfoRegistryFacade;
 import org.eclipse.kapua.service.datastore.internal.DatastoreCacheManager;
+import org.eclipse.kapua.service.datastore.internal.IndexRefreshManager;
 import org.eclipse.kapua.service.datastore.internal.MessageStoreFacade;
 import org.eclipse.kapua.service.datastore.internal.MetricInfoRegistryFacade;
+import org.eclipse.kapua.service.datastore.internal.RegistryQueryCache;
 import org.eclipse.kapua.service.datastore.internal.model.ChannelInfoImpl;
 import org.eclipse.kapua.service.datastore.internal.model.ClientInfoImpl;
 import org.eclipse.kapua.service.datastore.internal.model.MetricInfoImpl;
@@ -36,7 +41,9 @@ import org.eclipse.kapua.service.datastore.model.ChannelInfo;
 import org.eclipse.kapua.service.datastore.model.ClientInfo;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MetricInfo;
+import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
 
+import java.util.Date;
 import java.util.Map;
 
 /**
@@ -186,6 +193,18 @@ public class DatastoreMediator implements MessageStoreMediator,
         metricInfoStoreFacade.upstore(messageMetrics);
     }
 
+    @Override
+    public int deleteStaleRegistryEntries(KapuaId scopeId, Date expiredBefore, int pageSize)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException {
+        // the registries are not split by time so the entries no longer in use are looked up and deleted page by page
+        int deleted = metricInfoStoreFacade.deleteStale(scopeId, expiredBefore, pageSize);
+        deleted += channelInfoStoreFacade.deleteStale(scopeId, expiredBefore, pageSize);
+        deleted += clientInfoStoreFacade.deleteStale(scopeId, expiredBefore, pageSize);
+        return deleted;
+    }
+
     /*
      *
      * ClientInfo Store Mediator methods
@@ -233,6 +252,18 @@ public class DatastoreMediator implements MessageStoreMediator,
         // otherwise the computational cost for each delete operation will be too high
     }
 
+    /*
+     *
+     * Client, Channel and Metric Info Store Mediators common methods
+     */
+    @Override
+    public JsonNode aggregateMessages(MessageQuery query, ObjectNode aggregations)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException {
+        return messageStoreFacade.aggregateMessages(query, aggregations);
+    }
+
     public void refreshAllIndexes() throws ClientException {
         messageStoreFacade.refreshAllIndexes();
     }
@@ -252,6 +283,8 @@ public class DatastoreMediator implements MessageStoreMediator,
         DatastoreCacheManager.getInstance().getClientsCache().invalidateAll();
         DatastoreCacheManager.getInstance().getMetricsCache().invalidateAll();
         DatastoreCacheManager.getInstance().getMetadataCache().invalidateAll();
+        IndexRefreshManager.getInstance().clear();
+        RegistryQueryCache.getInstance().invalidateAll();
     }
 
 }
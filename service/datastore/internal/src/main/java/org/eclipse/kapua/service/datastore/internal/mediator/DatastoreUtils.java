@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -18,6 +18,7 @@ import com.google.common.hash.Hashing;
 
 import org.eclipse.kapua.KapuaErrorCodes;
 import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
 import org.eclipse.kapua.commons.util.KapuaDateUtils;
 //import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.model.id.KapuaId;
@@ -29,6 +30,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.time.Instant;
@@ -45,7 +47,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -91,6 +96,17 @@ public class DatastoreUtils {
     public static final String INDEXING_WINDOW_OPTION_DAY = "day";
     public static final String INDEXING_WINDOW_OPTION_HOUR = "hour";
 
+    /**
+     * Maximum number of index expressions a time range is converted to before falling back to all the indexes of the scope
+     */
+    private static final int MAX_DATA_INDEX_EXPRESSIONS = 64;
+
+    /**
+     * Data index name (without prefix): the scope id followed by the indexing window (week, day or hour)
+     */
+    private static final Pattern DATA_INDEX_NAME_PATTERN = Pattern.compile("^([0-9]+)-[0-9]{4}-[0-9]{2}(-[0-9]{2}){0,2}$");
+    private static final Pattern REGISTRY_INDEX_NAME_PATTERN = Pattern.compile("^\\.([0-9]+)$");
+
     private static final DateTimeFormatter DATA_INDEX_FORMATTER_WEEK = new DateTimeFormatterBuilder()
             .parseDefaulting(WeekFields.ISO.dayOfWeek(), 1)
             .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
@@ -291,6 +307,74 @@ public class DatastoreUtils {
         return sb.toString();
     }
 
+    /**
+     * Get the data indexes expression for the specified scope and time range (both bounds included).<br>
+     * The expression lists, comma separated, one wildcard for each week overlapping the range, so the search is sent only to those indexes.
+     * The week wildcard also matches the day and hour indexes of that week, so the indexes created before a change of {@link DatastoreSettingKey#INDEXING_WINDOW_OPTION}
+     * are searched too.<br>
+     * If the range spans too many weeks the whole scope wildcard ({@link #getDataIndexName(KapuaId)}) is returned.
+     *
+     * @param scopeId
+     * @param windowStart
+     * @param windowEnd
+     * @return
+     * @throws KapuaException
+     * @since 1.3.0
+     */
+    public static String getDataIndexName(KapuaId scopeId, long windowStart, long windowEnd) throws KapuaException {
+        long windowWidth = ChronoUnit.WEEKS.getDuration().toMillis();
+        if (windowStart > windowEnd || (windowEnd - windowStart) / windowWidth >= MAX_DATA_INDEX_EXPRESSIONS) {
+            return getDataIndexName(scopeId);
+        }
+
+        Set<String> indexNames = new LinkedHashSet<>();
+        for (long time = windowStart; time <= windowEnd && time >= windowStart; time += windowWidth) {
+            indexNames.add(getDataIndexName(scopeId, time, INDEXING_WINDOW_OPTION_WEEK) + "*");
+        }
+        indexNames.add(getDataIndexName(scopeId, windowEnd, INDEXING_WINDOW_OPTION_WEEK) + "*");
+        return StringUtils.join(indexNames, ',');
+    }
+
+    /**
+     * Get the scope the data index belongs to
+     *
+     * @param indexName
+     * @return the scope identifier or {@code null} if the index is not a data index
+     * @since 1.3.0
+     */
+    public static KapuaId getDataIndexScopeId(String indexName) {
+        String name = indexName;
+        final String prefix = DatastoreSettings.getInstance().getString(DatastoreSettingKey.INDEX_PREFIX);
+        if (StringUtils.isNotEmpty(prefix)) {
+            if (!name.startsWith(prefix + "-")) {
+                return null;
+            }
+            name = name.substring(prefix.length() + 1);
+        }
+        Matcher matcher = DATA_INDEX_NAME_PATTERN.matcher(name);
+        return matcher.matches() ? new KapuaEid(new BigInteger(matcher.group(1))) : null;
+    }
+
+    /**
+     * Get the scope the registry index belongs to
+     *
+     * @param indexName
+     * @return the scope identifier or {@code null} if the index is not a registry index
+     * @since 1.3.0
+     */
+    public static KapuaId getRegistryIndexScopeId(String indexName) {
+        String name = indexName;
+        final String prefix = DatastoreSettings.getInstance().getString(DatastoreSettingKey.INDEX_PREFIX);
+        if (StringUtils.isNotEmpty(prefix)) {
+            if (!name.startsWith(prefix + "-")) {
+                return null;
+            }
+            name = name.substring(prefix.length() + 1);
+        }
+        Matcher matcher = REGISTRY_INDEX_NAME_PATTERN.matcher(name);
+        return matcher.matches() ? new KapuaEid(new BigInteger(matcher.group(1))) : null;
+    }
+
     /**
      * Get the Kapua index name for the specified base name
      *
@@ -391,6 +475,20 @@ public class DatastoreUtils {
         return result.toArray(new String[0]);
     }
 
+    /**
+     * Return the data indexes whose whole indexing window ends on or before the expiration instant.<br>
+     * The index across the expiration instant is not returned, so its messages are kept until the whole window is expired.
+     *
+     * @param indexes
+     * @param expiredBefore
+     * @return
+     * @throws DatastoreException
+     * @since 1.3.0
+     */
+    public static String[] getExpiredDataIndexes(@NotNull String[] indexes, @NotNull Instant expiredBefore) throws DatastoreException {
+        return convertToDataIndexes(indexes, null, expiredBefore);
+    }
+
     private static boolean isIndexFullyAfterInstant(@NotNull Instant indexStart, @NotNull Instant indexEnd, @NotNull Instant checkpoint) {
         return !indexStart.isBefore(checkpoint) && !indexEnd.isBefore(checkpoint);
     }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -17,6 +17,7 @@ import org.eclipse.kapua.service.datastore.client.ClientException;
 import org.eclipse.kapua.service.datastore.internal.schema.Metadata;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 
+import java.util.Date;
 import java.util.Map;
 
 /**
@@ -52,4 +53,20 @@ public interface MessageStoreMediator {
      * @throws ClientException
      */
     void onAfterMessageStore(MessageInfo messageInfo, DatastoreMessage message) throws KapuaIllegalArgumentException, ConfigurationException, ClientException;
+
+    /**
+     * Delete the client, channel and metric registry entries of the scope that haven't been published since the given date
+     *
+     * @param scopeId
+     * @param expiredBefore
+     *            the date the data of the scope is expired before
+     * @param pageSize
+     *            the registry entries checked (and deleted in bulk) at once
+     * @return the deleted registry entries count
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    int deleteStaleRegistryEntries(KapuaId scopeId, Date expiredBefore, int pageSize) throws KapuaIllegalArgumentException, ConfigurationException, ClientException;
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -11,10 +11,15 @@
  *******************************************************************************/
 package org.eclipse.kapua.service.datastore.internal.mediator;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.eclipse.kapua.KapuaIllegalArgumentException;
 import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.service.datastore.client.ClientException;
 import org.eclipse.kapua.service.datastore.internal.schema.Metadata;
 import org.eclipse.kapua.service.datastore.model.MetricInfo;
+import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
 
 /**
  * Metric information registry mediator definition
@@ -42,4 +47,20 @@ public interface MetricInfoRegistryMediator {
      * @throws ClientException
      */
     void onAfterMetricInfoDelete(KapuaId scopeId, MetricInfo metricInfo) throws ClientException;
+
+    /**
+     * Run the given aggregations over the messages matching the given query (used to check in a single request which metric info registry entries are still in use)
+     *
+     * @param query
+     * @param aggregations
+     * @return the aggregations result ({@code null} if no message can match the query)
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws ClientException
+     * @since 1.3.0
+     */
+    JsonNode aggregateMessages(MessageQuery query, ObjectNode aggregations)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException;
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -55,6 +55,22 @@ public class ChannelInfoImpl implements ChannelInfo {
         this.id = id;
     }
 
+    /**
+     * Construct a copy of the given channel information
+     *
+     * @param channelInfo
+     * @since 1.3.0
+     */
+    public ChannelInfoImpl(ChannelInfo channelInfo) {
+        this(channelInfo.getScopeId(), channelInfo.getId());
+        setClientId(channelInfo.getClientId());
+        setName(channelInfo.getName());
+        setFirstMessageId(channelInfo.getFirstMessageId());
+        setFirstMessageOn(copyOf(channelInfo.getFirstMessageOn()));
+        setLastMessageId(channelInfo.getLastMessageId());
+        setLastMessageOn(copyOf(channelInfo.getLastMessageOn()));
+    }
+
     @Override
     public StorableId getId() {
         return id;
@@ -138,4 +154,7 @@ public class ChannelInfoImpl implements ChannelInfo {
         this.lastMessageOn = lastMessageOn;
     }
 
+    private static Date copyOf(Date date) {
+        return date != null ? new Date(date.getTime()) : null;
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -54,6 +54,21 @@ public class ClientInfoImpl implements ClientInfo {
         this.id = id;
     }
 
+    /**
+     * Construct a copy of the given client information
+     *
+     * @param clientInfo
+     * @since 1.3.0
+     */
+    public ClientInfoImpl(ClientInfo clientInfo) {
+        this(clientInfo.getScopeId(), clientInfo.getId());
+        setClientId(clientInfo.getClientId());
+        setFirstMessageId(clientInfo.getFirstMessageId());
+        setFirstMessageOn(copyOf(clientInfo.getFirstMessageOn()));
+        setLastMessageId(clientInfo.getLastMessageId());
+        setLastMessageOn(copyOf(clientInfo.getLastMessageOn()));
+    }
+
     @Override
     public KapuaId getScopeId() {
         return scopeId;
@@ -122,4 +137,8 @@ public class ClientInfoImpl implements ClientInfo {
     public void setLastMessageOn(Date lastMessageOn) {
         this.lastMessageOn = lastMessageOn;
     }
+
+    private static Date copyOf(Date date) {
+        return date != null ? new Date(date.getTime()) : null;
+    }
 }
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model;
+
+import org.eclipse.kapua.service.datastore.model.MessageStoreBatchResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Message store batch result implementation
+ *
+ * @since 1.3.0
+ */
+public class MessageStoreBatchResultImpl implements MessageStoreBatchResult {
+
+    private List<MessageStoreResult> results;
+
+    public MessageStoreBatchResultImpl() {
+        results = new ArrayList<>();
+    }
+
+    /**
+     * Construct a batch result with the given results
+     *
+     * @param results
+     */
+    public MessageStoreBatchResultImpl(List<MessageStoreResult> results) {
+        this.results = results;
+    }
+
+    @Override
+    public List<MessageStoreResult> getResults() {
+        return results;
+    }
+
+    @Override
+    public void setResults(List<MessageStoreResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model;
+
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+import org.eclipse.kapua.service.datastore.model.StorableId;
+
+/**
+ * Message store result implementation
+ *
+ * @since 1.3.0
+ */
+public class MessageStoreResultImpl implements MessageStoreResult {
+
+    private boolean stored;
+    private StorableId datastoreId;
+    private String error;
+
+    public MessageStoreResultImpl() {
+    }
+
+    /**
+     * Positive result constructor
+     *
+     * @param datastoreId
+     */
+    public MessageStoreResultImpl(StorableId datastoreId) {
+        this.stored = true;
+        this.datastoreId = datastoreId;
+    }
+
+    /**
+     * Negative result constructor
+     *
+     * @param error
+     */
+    public MessageStoreResultImpl(String error) {
+        this.stored = false;
+        this.error = error;
+    }
+
+    @Override
+    public boolean isStored() {
+        return stored;
+    }
+
+    @Override
+    public void setStored(boolean stored) {
+        this.stored = stored;
+    }
+
+    @Override
+    public StorableId getDatastoreId() {
+        return datastoreId;
+    }
+
+    @Override
+    public void setDatastoreId(StorableId datastoreId) {
+        this.datastoreId = datastoreId;
+    }
+
+    @Override
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model;
+
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
+import org.eclipse.kapua.service.datastore.model.MetricBucket;
+import org.eclipse.kapua.service.datastore.model.MetricStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Metric aggregation result implementation
+ *
+ * @since 1.3.0
+ */
+public class MetricAggregationResultImpl implements MetricAggregationResult {
+
+    private String metricName;
+    private MetricStatistics statistics;
+    private List<MetricBucket> buckets;
+
+    public MetricAggregationResultImpl() {
+        statistics = new MetricStatisticsImpl();
+        buckets = new ArrayList<>();
+    }
+
+    @Override
+    public String getMetricName() {
+        return metricName;
+    }
+
+    @Override
+    public void setMetricName(String metricName) {
+        this.metricName = metricName;
+    }
+
+    @Override
+    public MetricStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public void setStatistics(MetricStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public List<MetricBucket> getBuckets() {
+        return buckets;
+    }
+
+    @Override
+    public void setBuckets(List<MetricBucket> buckets) {
+        this.buckets = buckets;
+    }
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model;
+
+import org.eclipse.kapua.service.datastore.model.MetricBucket;
+
+import java.util.Date;
+
+/**
+ * Metric time bucket implementation
+ *
+ * @since 1.3.0
+ */
+public class MetricBucketImpl extends MetricStatisticsImpl implements MetricBucket {
+
+    private Date timestamp;
+
+    public MetricBucketImpl() {
+        super();
+    }
+
+    @Override
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public void setTimestamp(Date timestamp) {
+        this.timestamp = timestamp;
+    }
+}
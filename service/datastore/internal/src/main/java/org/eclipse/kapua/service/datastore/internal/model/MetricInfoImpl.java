@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -58,6 +58,24 @@ public class MetricInfoImpl implements MetricInfo {
         this.id = id;
     }
 
+    /**
+     * Construct a copy of the given metric information
+     *
+     * @param metricInfo
+     * @since 1.3.0
+     */
+    public MetricInfoImpl(MetricInfo metricInfo) {
+        this(metricInfo.getScopeId(), metricInfo.getId());
+        setClientId(metricInfo.getClientId());
+        setChannel(metricInfo.getChannel());
+        setName(metricInfo.getName());
+        setMetricType(metricInfo.getMetricType());
+        setFirstMessageId(metricInfo.getFirstMessageId());
+        setFirstMessageOn(copyOf(metricInfo.getFirstMessageOn()));
+        setLastMessageId(metricInfo.getLastMessageId());
+        setLastMessageOn(copyOf(metricInfo.getLastMessageOn()));
+    }
+
     @Override
     public StorableId getId() {
         return id;
@@ -156,4 +174,8 @@ public class MetricInfoImpl implements MetricInfo {
     public void setLastMessageOn(Date lastMessageOn) {
         this.lastMessageOn = lastMessageOn;
     }
+
+    private static Date copyOf(Date date) {
+        return date != null ? new Date(date.getTime()) : null;
+    }
 }
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model;
+
+import org.eclipse.kapua.service.datastore.model.MetricPercentile;
+
+/**
+ * Metric percentile implementation
+ *
+ * @since 1.3.0
+ */
+public class MetricPercentileImpl implements MetricPercentile {
+
+    private double percent;
+    private Double value;
+
+    public MetricPercentileImpl() {
+    }
+
+    /**
+     * Construct a metric percentile with the given percent and value
+     *
+     * @param percent
+     * @param value
+     */
+    public MetricPercentileImpl(double percent, Double value) {
+        this.percent = percent;
+        this.value = value;
+    }
+
+    @Override
+    public double getPercent() {
+        return percent;
+    }
+
+    @Override
+    public void setPercent(double percent) {
+        this.percent = percent;
+    }
+
+    @Override
+    public Double getValue() {
+        return value;
+    }
+
+    @Override
+    public void setValue(Double value) {
+        this.value = value;
+    }
+}
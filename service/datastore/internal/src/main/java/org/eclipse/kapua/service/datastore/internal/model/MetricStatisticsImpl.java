@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model;
+
+import org.eclipse.kapua.service.datastore.model.MetricPercentile;
+import org.eclipse.kapua.service.datastore.model.MetricStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Metric statistics implementation
+ *
+ * @since 1.3.0
+ */
+public class MetricStatisticsImpl implements MetricStatistics {
+
+    private long count;
+    private Double min;
+    private Double max;
+    private Double avg;
+    private Double sum;
+    private List<MetricPercentile> percentiles;
+
+    public MetricStatisticsImpl() {
+        percentiles = new ArrayList<>();
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public Double getMin() {
+        return min;
+    }
+
+    @Override
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    @Override
+    public Double getMax() {
+        return max;
+    }
+
+    @Override
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    @Override
+    public Double getAvg() {
+        return avg;
+    }
+
+    @Override
+    public void setAvg(Double avg) {
+        this.avg = avg;
+    }
+
+    @Override
+    public Double getSum() {
+        return sum;
+    }
+
+    @Override
+    public void setSum(Double sum) {
+        this.sum = sum;
+    }
+
+    @Override
+    public List<MetricPercentile> getPercentiles() {
+        return percentiles;
+    }
+
+    @Override
+    public void setPercentiles(List<MetricPercentile> percentiles) {
+        this.percentiles = percentiles;
+    }
+}
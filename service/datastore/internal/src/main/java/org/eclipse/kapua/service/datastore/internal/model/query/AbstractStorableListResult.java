@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -122,6 +122,17 @@ public class AbstractStorableListResult<E extends Storable> implements StorableL
         return nextKey;
     }
 
+    /**
+     * Set the key to be used to get the next result list
+     * 
+     * @param nextKey
+     * 
+     * @since 1.3.0
+     */
+    public void setNextKey(Object nextKey) {
+        this.nextKey = nextKey;
+    }
+
     @Override
     public Long getTotalCount() {
         return totalCount;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -38,6 +38,18 @@ public enum DatastoreSettingKey implements SettingKey {
      * Metadata cache maximum size
      */
     CONFIG_CACHE_METADATA_LOCAL_SIZE_MAXIMUM("datastore.cache.metadata.local.size.maximum"),
+    /**
+     * Registry query results cache expire time (in seconds, 0 disables the cache)
+     *
+     * @since 1.3.0
+     */
+    CONFIG_CACHE_QUERY_LOCAL_EXPIRE_AFTER("datastore.cache.query.local.expire.after"),
+    /**
+     * Registry query results cache maximum size
+     *
+     * @since 1.3.0
+     */
+    CONFIG_CACHE_QUERY_LOCAL_SIZE_MAXIMUM("datastore.cache.query.local.size.maximum"),
     /**
      * Enable datastore timing profile
      */
@@ -50,6 +62,22 @@ public enum DatastoreSettingKey implements SettingKey {
      * Elasticsearch index refresh interval (the data is available for a search operation only if it is indexed)
      */
     INDEX_REFRESH_INTERVAL("datastore.index.refresh_interval"),
+    /**
+     * Enables the adaptive refresh interval of the data indexes under heavy ingest (effective only when the same JVM stores and searches the messages)
+     */
+    INDEX_REFRESH_INTERVAL_ADAPTIVE_ENABLED("datastore.index.refresh_interval.adaptive.enabled"),
+    /**
+     * Refresh interval (in seconds) of the data indexes under heavy ingest
+     */
+    INDEX_REFRESH_INTERVAL_ADAPTIVE_MAX("datastore.index.refresh_interval.adaptive.max"),
+    /**
+     * Ingest rate (in messages per second) above which a data index is considered under heavy ingest
+     */
+    INDEX_REFRESH_INTERVAL_ADAPTIVE_INGEST_RATE("datastore.index.refresh_interval.adaptive.ingest_rate"),
+    /**
+     * Time (in seconds) without searches on a scope before its data indexes can get the adaptive refresh interval
+     */
+    INDEX_REFRESH_INTERVAL_ADAPTIVE_READ_QUIET_PERIOD("datastore.index.refresh_interval.adaptive.read_quiet_period"),
     /**
      * Shards number
      */
@@ -62,6 +90,42 @@ public enum DatastoreSettingKey implements SettingKey {
      * Elasticsearch index refresh interval (the data is available for a search operation only if it is indexed)
      */
     CONFIG_MAX_ENTRIES_ON_DELETE("datastore.delete.max_entries_on_delete"),
+    /**
+     * Maximum number of time buckets a metric aggregation can ask for
+     *
+     * @since 1.3.0
+     */
+    CONFIG_MAX_AGGREGATION_BUCKETS("datastore.aggregation.max_buckets"),
+    /**
+     * Enables the periodic drop of the expired data indexes
+     *
+     * @since 1.3.0
+     */
+    DATA_RETENTION_ENABLED("datastore.retention.enabled"),
+    /**
+     * Time (in seconds) between two data retention runs
+     *
+     * @since 1.3.0
+     */
+    DATA_RETENTION_INTERVAL("datastore.retention.interval"),
+    /**
+     * Enables the periodic delete of the client, channel and metric registry entries not published within the account data time to live
+     *
+     * @since 1.3.0
+     */
+    REGISTRY_CLEANUP_ENABLED("datastore.registry.cleanup.enabled"),
+    /**
+     * Time (in seconds) between two registry cleanup runs
+     *
+     * @since 1.3.0
+     */
+    REGISTRY_CLEANUP_INTERVAL("datastore.registry.cleanup.interval"),
+    /**
+     * Registry entries checked (and deleted in bulk) at once by the registry cleanup
+     *
+     * @since 1.3.0
+     */
+    REGISTRY_CLEANUP_PAGE_SIZE("datastore.registry.cleanup.page_size"),
     /**
      * Elasticsearch index name system-wide prefix
      */
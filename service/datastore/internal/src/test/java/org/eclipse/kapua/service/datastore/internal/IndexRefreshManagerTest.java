@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Category(JUnitTests.class)
+public class IndexRefreshManagerTest extends Assert {
+
+    private static final KapuaId SCOPE_ID = new KapuaEid(BigInteger.ONE);
+    private static final KapuaId OTHER_SCOPE_ID = new KapuaEid(BigInteger.TEN);
+
+    private static final String INDEX = "1-2020-01";
+    private static final String OTHER_INDEX = "1-2020-02";
+
+    private static final String DEFAULT = "5s";
+    private static final String RELAXED = "30s";
+
+    // 10 msg/s over the 10 seconds evaluation window
+    private static final int HEAVY_INGEST = 100;
+
+    private final AtomicLong time = new AtomicLong();
+    private final List<Runnable> pendingUpdates = new ArrayList<>();
+    private final List<String> updates = new ArrayList<>();
+
+    private IndexRefreshManager refreshManager;
+
+    @Before
+    public void setUp() {
+        time.set(1000000L);
+        pendingUpdates.clear();
+        updates.clear();
+        refreshManager = newRefreshManager(true);
+    }
+
+    @Test
+    public void relaxUnderHeavyIngest() {
+        relax(SCOPE_ID, INDEX);
+
+        assertEquals(Collections.singletonList(INDEX + "=" + RELAXED), updates);
+    }
+
+    @Test
+    public void notRelaxedUnderLightIngest() {
+        write(SCOPE_ID, INDEX, HEAVY_INGEST / 2);
+        tick();
+        write(SCOPE_ID, INDEX, 1);
+        runPendingUpdates();
+
+        assertTrue(updates.isEmpty());
+    }
+
+    @Test
+    public void notRelaxedWhenRecentlyRead() {
+        refreshManager.onRead(SCOPE_ID);
+        write(SCOPE_ID, INDEX, HEAVY_INGEST);
+        tick();
+        write(SCOPE_ID, INDEX, 1);
+        runPendingUpdates();
+
+        assertTrue(updates.isEmpty());
+    }
+
+    @Test
+    public void relaxedOnce() {
+        relax(SCOPE_ID, INDEX);
+
+        write(SCOPE_ID, INDEX, HEAVY_INGEST);
+        tick();
+        write(SCOPE_ID, INDEX, 1);
+        runPendingUpdates();
+
+        assertEquals(Collections.singletonList(INDEX + "=" + RELAXED), updates);
+    }
+
+    @Test
+    public void restoreOnRead() {
+        relax(SCOPE_ID, INDEX);
+
+        refreshManager.onRead(SCOPE_ID);
+        refreshManager.onRead(SCOPE_ID);
+        runPendingUpdates();
+
+        assertEquals(Arrays.asList(INDEX + "=" + RELAXED, INDEX + "=" + DEFAULT), updates);
+    }
+
+    @Test
+    public void restoreOnReadIsAsynchronous() {
+        relax(SCOPE_ID, INDEX);
+
+        refreshManager.onRead(SCOPE_ID);
+        assertEquals(Collections.singletonList(INDEX + "=" + RELAXED), updates);
+        assertEquals(1, pendingUpdates.size());
+
+        runPendingUpdates();
+        assertEquals(Arrays.asList(INDEX + "=" + RELAXED, INDEX + "=" + DEFAULT), updates);
+    }
+
+    @Test
+    public void notRestoredOnReadOfOtherScope() {
+        relax(SCOPE_ID, INDEX);
+
+        refreshManager.onRead(OTHER_SCOPE_ID);
+        runPendingUpdates();
+
+        assertEquals(Collections.singletonList(INDEX + "=" + RELAXED), updates);
+    }
+
+    @Test
+    public void restoreWhenIngestDrops() {
+        relax(SCOPE_ID, INDEX);
+
+        tick();
+        write(SCOPE_ID, INDEX, 1);
+        runPendingUpdates();
+
+        assertEquals(Arrays.asList(INDEX + "=" + RELAXED, INDEX + "=" + DEFAULT), updates);
+    }
+
+    @Test
+    public void relaxAgainAfterRestore() {
+        relax(SCOPE_ID, INDEX);
+        refreshManager.onRead(SCOPE_ID);
+
+        // The read quiet period must elapse before relaxing again
+        time.addAndGet(60000L);
+        relax(SCOPE_ID, INDEX);
+
+        assertEquals(Arrays.asList(INDEX + "=" + RELAXED, INDEX + "=" + DEFAULT, INDEX + "=" + RELAXED), updates);
+    }
+
+    @Test
+    public void restoreIndexNoLongerWritten() {
+        relax(SCOPE_ID, INDEX);
+
+        // The next indexing window is written and the previous index is swept
+        write(SCOPE_ID, OTHER_INDEX, 1);
+        tick();
+        tick();
+        write(SCOPE_ID, OTHER_INDEX, 1);
+        runPendingUpdates();
+
+        assertEquals(Arrays.asList(INDEX + "=" + RELAXED, INDEX + "=" + DEFAULT), updates);
+
+        // The swept index is no longer tracked
+        refreshManager.onRead(SCOPE_ID);
+        runPendingUpdates();
+        assertEquals(2, updates.size());
+    }
+
+    @Test
+    public void clear() {
+        relax(SCOPE_ID, INDEX);
+
+        refreshManager.clear();
+        refreshManager.onRead(SCOPE_ID);
+        runPendingUpdates();
+
+        assertEquals(Collections.singletonList(INDEX + "=" + RELAXED), updates);
+    }
+
+    @Test
+    public void disabled() {
+        refreshManager = newRefreshManager(false);
+
+        relax(SCOPE_ID, INDEX);
+        refreshManager.onRead(SCOPE_ID);
+        runPendingUpdates();
+
+        assertTrue(updates.isEmpty());
+    }
+
+    @Test
+    public void disabledWhenRelaxedIsNotGreater() {
+        refreshManager = new IndexRefreshManager(true, 30L, 30L, 10L, 60L, time::get, pendingUpdates::add, this::update);
+
+        relax(SCOPE_ID, INDEX);
+
+        assertTrue(updates.isEmpty());
+    }
+
+    private IndexRefreshManager newRefreshManager(boolean enabled) {
+        return new IndexRefreshManager(enabled, 5L, 30L, 10L, 60L, time::get, pendingUpdates::add, this::update);
+    }
+
+    /**
+     * Writes under heavy ingest for a whole evaluation window
+     */
+    private void relax(KapuaId scopeId, String indexName) {
+        write(scopeId, indexName, HEAVY_INGEST);
+        tick();
+        write(scopeId, indexName, 1);
+        runPendingUpdates();
+    }
+
+    private void write(KapuaId scopeId, String indexName, int count) {
+        for (int i = 0; i < count; i++) {
+            refreshManager.onWrite(scopeId, indexName);
+        }
+    }
+
+    private void tick() {
+        time.addAndGet(IndexRefreshManager.EVALUATION_WINDOW);
+    }
+
+    private void runPendingUpdates() {
+        List<Runnable> toRun = new ArrayList<>(pendingUpdates);
+        pendingUpdates.clear();
+        toRun.forEach(Runnable::run);
+    }
+
+    private void update(String indexName, String refreshInterval) {
+        updates.add(indexName + "=" + refreshInterval);
+    }
+}
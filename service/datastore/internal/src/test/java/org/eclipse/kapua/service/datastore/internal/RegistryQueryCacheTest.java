@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.client.ClientException;
+import org.eclipse.kapua.service.datastore.client.model.ResultList;
+import org.eclipse.kapua.service.datastore.internal.model.ClientInfoImpl;
+import org.eclipse.kapua.service.datastore.internal.model.StorableIdImpl;
+import org.eclipse.kapua.service.datastore.model.ClientInfo;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Category(JUnitTests.class)
+public class RegistryQueryCacheTest extends Assert {
+
+    private static final KapuaId SCOPE_ID = new KapuaEid(BigInteger.ONE);
+
+    private static final String INDEX = ".1";
+    private static final String OTHER_INDEX = ".10";
+
+    private static final String QUERY = INDEX + "|client|query|{}";
+    private static final String COUNT = INDEX + "|client|count|{}";
+    private static final String OTHER_QUERY = OTHER_INDEX + "|client|query|{}";
+
+    private static final Date LAST_MESSAGE_ON = new Date(1000000L);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private RegistryQueryCache queryCache;
+
+    @Before
+    public void setUp() {
+        loads.set(0);
+        queryCache = new RegistryQueryCache(60, 100);
+    }
+
+    @Test
+    public void queryCached() throws ClientException {
+        query(QUERY);
+        ResultList<ClientInfo> result = query(QUERY);
+
+        assertEquals(1, loads.get());
+        assertEquals(1, result.getTotalCount());
+        assertEquals("client-1", result.getResult().get(0).getClientId());
+        assertArrayEquals(new Object[]{ 1000000L, "client-1" }, result.getLastSortValues());
+    }
+
+    @Test
+    public void queryReturnsCopies() throws ClientException {
+        ResultList<ClientInfo> first = query(QUERY);
+        ResultList<ClientInfo> second = query(QUERY);
+
+        assertNotSame(first, second);
+        assertNotSame(first.getResult().get(0), second.getResult().get(0));
+        assertNotSame(first.getLastSortValues(), second.getLastSortValues());
+    }
+
+    @Test
+    public void queryResultChangesNotCached() throws ClientException {
+        // The caller populates the result, as the client info service does with the last published fields
+        ResultList<ClientInfo> first = query(QUERY);
+        ClientInfo clientInfo = first.getResult().get(0);
+        clientInfo.setLastMessageId(new StorableIdImpl("other-message"));
+        clientInfo.setLastMessageOn(new Date(2000000L));
+        clientInfo.getFirstMessageOn().setTime(0L);
+        first.getResult().clear();
+
+        ResultList<ClientInfo> second = query(QUERY);
+
+        assertEquals(1, loads.get());
+        assertEquals(1, second.getResult().size());
+        ClientInfo cachedClientInfo = second.getResult().get(0);
+        assertEquals(new StorableIdImpl("message-1"), cachedClientInfo.getLastMessageId());
+        assertEquals(LAST_MESSAGE_ON, cachedClientInfo.getLastMessageOn());
+        assertEquals(LAST_MESSAGE_ON, cachedClientInfo.getFirstMessageOn());
+    }
+
+    @Test
+    public void countCached() throws ClientException {
+        assertEquals(3L, count(COUNT));
+        assertEquals(3L, count(COUNT));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void invalidateIndex() throws ClientException {
+        query(QUERY);
+        count(COUNT);
+        query(OTHER_QUERY);
+
+        queryCache.invalidate(INDEX);
+
+        query(QUERY);
+        count(COUNT);
+        query(OTHER_QUERY);
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    public void invalidateAll() throws ClientException {
+        query(QUERY);
+        query(OTHER_QUERY);
+
+        queryCache.invalidateAll();
+
+        query(QUERY);
+        query(OTHER_QUERY);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void disabled() throws ClientException {
+        queryCache = new RegistryQueryCache(0, 100);
+
+        query(QUERY);
+        query(QUERY);
+        count(COUNT);
+        count(COUNT);
+
+        assertEquals(4, loads.get());
+    }
+
+    private ResultList<ClientInfo> query(String key) throws ClientException {
+        return queryCache.query(key, this::loadClientInfos, ClientInfoImpl::new);
+    }
+
+    private long count(String key) throws ClientException {
+        return queryCache.count(key, () -> {
+            loads.incrementAndGet();
+            return 3L;
+        });
+    }
+
+    private ResultList<ClientInfo> loadClientInfos() {
+        loads.incrementAndGet();
+
+        ClientInfo clientInfo = new ClientInfoImpl(SCOPE_ID, new StorableIdImpl("client-info-1"));
+        clientInfo.setClientId("client-1");
+        clientInfo.setFirstMessageId(new StorableIdImpl("message-1"));
+        clientInfo.setFirstMessageOn(new Date(LAST_MESSAGE_ON.getTime()));
+        clientInfo.setLastMessageId(new StorableIdImpl("message-1"));
+        clientInfo.setLastMessageOn(new Date(LAST_MESSAGE_ON.getTime()));
+
+        ResultList<ClientInfo> result = new ResultList<>(1);
+        result.add(clientInfo);
+        result.setLastSortValues(new Object[]{ 1000000L, "client-1" });
+        return result;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2019 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -83,6 +83,9 @@ import org.eclipse.kapua.service.datastore.model.ClientInfo;
 import org.eclipse.kapua.service.datastore.model.ClientInfoListResult;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreBatchResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
 import org.eclipse.kapua.service.datastore.model.MetricInfo;
 import org.eclipse.kapua.service.datastore.model.MetricInfoListResult;
 import org.eclipse.kapua.service.datastore.model.StorableId;
@@ -96,6 +99,7 @@ import org.eclipse.kapua.service.datastore.model.query.TermPredicate;
 import org.eclipse.kapua.service.datastore.model.query.StorablePredicateFactory;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
 import org.eclipse.kapua.service.datastore.model.query.ChannelInfoQuery;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregation;
 import org.eclipse.kapua.service.datastore.model.query.MetricInfoQuery;
 import org.eclipse.kapua.service.datastore.model.query.SortField;
 import org.eclipse.kapua.service.datastore.model.query.StorableFetchStyle;
@@ -767,6 +771,61 @@ public class DatastoreSteps extends TestBase {
         stepData.put(idListKey, tmpList);
     }
 
+    @Given("^I clear the channel of the message (\\d+) in the list \"(.+)\"$")
+    public void clearMessageChannel(int index, String msgListKey) {
+
+        List<KapuaDataMessage> tmpMsgList = (List<KapuaDataMessage>) stepData.get(msgListKey);
+        tmpMsgList.get(index).setChannel(null);
+    }
+
+    @Given("^I move the message (\\d+) in the list \"(.+)\" to the system account$")
+    public void moveMessageToSystemAccount(int index, String msgListKey) {
+
+        List<KapuaDataMessage> tmpMsgList = (List<KapuaDataMessage>) stepData.get(msgListKey);
+        tmpMsgList.get(index).setScopeId(SYS_SCOPE_ID);
+    }
+
+    @When("^I store the messages from list \"(.+)\" in a single batch and remember the result as \"(.+)\"$")
+    public void insertMessagesBatchIntoDatastore(String msgListKey, String resultKey) throws Exception {
+
+        List<KapuaDataMessage> tmpMsgList = (List<KapuaDataMessage>) stepData.get(msgListKey);
+        primeException();
+        try {
+            MessageStoreBatchResult batchResult = messageStoreService.store(tmpMsgList);
+            stepData.put(resultKey, batchResult);
+        } catch (KapuaException ex) {
+            verifyException(ex);
+        }
+    }
+
+    @Then("^The batch result \"(.+)\" reports (\\d+) stored and (\\d+) rejected messages?$")
+    public void checkBatchResultCounts(String resultKey, int stored, int rejected) {
+
+        MessageStoreBatchResult batchResult = (MessageStoreBatchResult) stepData.get(resultKey);
+        int storedCount = 0;
+        int rejectedCount = 0;
+        for (MessageStoreResult result : batchResult.getResults()) {
+            if (result.isStored()) {
+                assertNotNull("A stored message must have an id", result.getDatastoreId());
+                assertNull("A stored message must not have an error", result.getError());
+                storedCount++;
+            } else {
+                assertNull("A rejected message must not have an id", result.getDatastoreId());
+                assertNotNull("A rejected message must have an error", result.getError());
+                rejectedCount++;
+            }
+        }
+        assertEquals("Wrong number of stored messages", stored, storedCount);
+        assertEquals("Wrong number of rejected messages", rejected, rejectedCount);
+    }
+
+    @Then("^The message (\\d+) in the batch result \"(.+)\" is rejected$")
+    public void checkBatchResultRejected(int index, String resultKey) {
+
+        MessageStoreBatchResult batchResult = (MessageStoreBatchResult) stepData.get(resultKey);
+        assertFalse("The message should have been rejected", batchResult.getResults().get(index).isStored());
+    }
+
     @Given("^I set the database to device timestamp indexing$")
     public void setDatabaseToDeviceTimestampIndexing() throws KapuaException {
 
@@ -1513,6 +1572,22 @@ public class DatastoreSteps extends TestBase {
         stepData.put("messageCountResult", count);
     }
 
+    @When("^I aggregate the double metric \"(.+)\" with interval \"(.+)\"$")
+    public void aggregateDoubleMetric(String metricName, String interval) throws Exception {
+
+        MessageQuery messageQuery = (MessageQuery) stepData.get("messageQuery");
+        MetricAggregation aggregation = MetricAggregation.of(metricName, Double.class);
+        aggregation.setInterval(interval);
+
+        primeException();
+        try {
+            MetricAggregationResult aggregationResult = messageStoreService.aggregate(messageQuery, aggregation);
+            stepData.put("metricAggregationResult", aggregationResult);
+        } catch (KapuaException ex) {
+            verifyException(ex);
+        }
+    }
+
     @Then("^I get message count (\\d+)$")
     public void getDesiredMessageCountResult(int desiredCount) throws AssertionError {
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2019 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -29,6 +29,7 @@ import org.slf4j.LoggerFactory;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
@@ -124,6 +125,33 @@ public class IndexCalculatorTest extends Assert {
         assertEquals("1-2017-01-02-12", hourIndexName);     // Index Hour is UTC!
     }
 
+    @Test
+    public void expiredDataIndexes() throws KapuaException {
+        String[] indexes = new String[]{
+                weekIndex("2018-10-03T12:00:00Z"),
+                weekIndex("2018-10-17T10:30:00Z"),
+                weekIndex("2018-10-24T12:00:00Z"),
+                dayIndex("2018-10-16T12:00:00Z"),
+                dayIndex("2018-10-17T10:30:00Z"),
+                dayIndex("2018-10-18T12:00:00Z"),
+                hourIndex("2018-10-17T09:15:00Z"),
+                hourIndex("2018-10-17T10:30:00Z"),
+                hourIndex("2018-10-17T11:15:00Z")
+        };
+
+        // The indexes across the expiration date are kept, whatever the indexing window
+        String[] expiredIndexes = DatastoreUtils.getExpiredDataIndexes(indexes, Instant.parse("2018-10-17T10:30:00Z"));
+        compareResult(new String[]{ "1-2018-40", "1-2018-42-03", "1-2018-42-04-09" }, expiredIndexes);
+
+        // An index ending right at the expiration date is expired
+        expiredIndexes = DatastoreUtils.getExpiredDataIndexes(indexes, Instant.parse("2018-10-17T11:00:00Z"));
+        compareResult(new String[]{ "1-2018-40", "1-2018-42-03", "1-2018-42-04-09", "1-2018-42-04-10" }, expiredIndexes);
+
+        // Nothing is expired before the oldest index ends
+        expiredIndexes = DatastoreUtils.getExpiredDataIndexes(indexes, Instant.parse("2018-10-01T00:00:00Z"));
+        compareResult(null, expiredIndexes);
+    }
+
     @Test
     public void registryIndexNameByScopeId() {
         assertEquals(".1", DatastoreUtils.getRegistryIndexName(KapuaId.ONE));
@@ -202,6 +230,18 @@ public class IndexCalculatorTest extends Assert {
         }
     }
 
+    private String weekIndex(String timestamp) throws KapuaException {
+        return DatastoreUtils.getDataIndexName(KapuaId.ONE, Instant.parse(timestamp).toEpochMilli(), DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK);
+    }
+
+    private String dayIndex(String timestamp) throws KapuaException {
+        return DatastoreUtils.getDataIndexName(KapuaId.ONE, Instant.parse(timestamp).toEpochMilli(), DatastoreUtils.INDEXING_WINDOW_OPTION_DAY);
+    }
+
+    private String hourIndex(String timestamp) throws KapuaException {
+        return DatastoreUtils.getDataIndexName(KapuaId.ONE, Instant.parse(timestamp).toEpochMilli(), DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR);
+    }
+
     private String[] getDataIndexesByAccount(KapuaId scopeId) {
         return buildExpectedResult("1", 1, 2015, 52, 2018, new int[]{ 53, 52, 52, 52 });
     }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2019 Red Hat Inc and others.
+ * Copyright (c) 2017, 2020 Red Hat Inc and others.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -15,6 +15,7 @@ import java.math.BigInteger;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.regex.Pattern;
 
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.commons.model.id.KapuaEid;
@@ -72,4 +73,96 @@ public class ClientUtilsIndexNameTest extends Assert {
             Assert.fail("Error while generating index name");
         }
     }
+
+    @Test
+    public void testTimeRange() {
+        final long start = ZonedDateTime.of(2017, 1, 1, 0, 30, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        try {
+            // Two weeks
+            Assert.assertEquals("1-2017-01*,1-2017-02*",
+                    DatastoreUtils.getDataIndexName(ONE, start, ZonedDateTime.of(2017, 1, 8, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli()));
+
+            // Two hours of the same week
+            Assert.assertEquals("1-2017-01*",
+                    DatastoreUtils.getDataIndexName(ONE, start, ZonedDateTime.of(2017, 1, 1, 1, 10, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli()));
+
+            // Reversed range, all the indexes
+            Assert.assertEquals("1-*",
+                    DatastoreUtils.getDataIndexName(ONE, start, start - 1));
+
+            // Too many weeks, falls back to all the indexes
+            Assert.assertEquals("1-*",
+                    DatastoreUtils.getDataIndexName(ONE, start, ZonedDateTime.of(2019, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli()));
+        } catch (KapuaException kaex) {
+            Assert.fail("Error while generating index name");
+        }
+    }
+
+    @Test
+    public void testTimeRangeMixedIndexingWindows() throws KapuaException {
+        // The indexing window was changed from week to day and then to hour while storing the messages
+        final long weekTime = ZonedDateTime.of(2017, 1, 3, 10, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        final long dayTime = ZonedDateTime.of(2017, 1, 10, 10, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        final long hourTime = ZonedDateTime.of(2017, 1, 17, 10, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        final String weekIndex = DatastoreUtils.getDataIndexName(ONE, weekTime, DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK);
+        final String dayIndex = DatastoreUtils.getDataIndexName(ONE, dayTime, DatastoreUtils.INDEXING_WINDOW_OPTION_DAY);
+        final String hourIndex = DatastoreUtils.getDataIndexName(ONE, hourTime, DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR);
+
+        // A range inside each index matches it
+        assertMatches(DatastoreUtils.getDataIndexName(ONE, weekTime, weekTime + 60000L), weekIndex);
+        assertMatches(DatastoreUtils.getDataIndexName(ONE, dayTime, dayTime + 60000L), dayIndex);
+        assertMatches(DatastoreUtils.getDataIndexName(ONE, hourTime, hourTime + 60000L), hourIndex);
+
+        // A range spanning all the indexes matches them all
+        String indexExpression = DatastoreUtils.getDataIndexName(ONE, weekTime, hourTime);
+        assertMatches(indexExpression, weekIndex);
+        assertMatches(indexExpression, dayIndex);
+        assertMatches(indexExpression, hourIndex);
+
+        // A range after the week index does not match it
+        indexExpression = DatastoreUtils.getDataIndexName(ONE, dayTime, hourTime);
+        assertFalse(matches(indexExpression, weekIndex));
+        assertMatches(indexExpression, dayIndex);
+        assertMatches(indexExpression, hourIndex);
+
+        // The indexes of other scopes never match
+        assertFalse(matches(indexExpression, DatastoreUtils.getDataIndexName(new KapuaEid(BigInteger.valueOf(11L)), dayTime, DatastoreUtils.INDEXING_WINDOW_OPTION_DAY)));
+    }
+
+    private static void assertMatches(String indexExpression, String indexName) {
+        assertTrue(indexExpression + " does not match " + indexName, matches(indexExpression, indexName));
+    }
+
+    private static boolean matches(String indexExpression, String indexName) {
+        for (String wildcard : indexExpression.split(",")) {
+            if (indexName.matches(Pattern.quote(wildcard).replace("*", "\\E.*\\Q"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void dataIndexScopeId() {
+        Assert.assertEquals(ONE, DatastoreUtils.getDataIndexScopeId("1-2017-01"));
+        Assert.assertEquals(ONE, DatastoreUtils.getDataIndexScopeId("1-2017-01-01"));
+        Assert.assertEquals(ONE, DatastoreUtils.getDataIndexScopeId("1-2017-01-01-00"));
+        Assert.assertEquals(new KapuaEid(BigInteger.valueOf(1234567890L)), DatastoreUtils.getDataIndexScopeId("1234567890-2017-52"));
+
+        // Registry and foreign indexes
+        Assert.assertNull(DatastoreUtils.getDataIndexScopeId(".1"));
+        Assert.assertNull(DatastoreUtils.getDataIndexScopeId("1-2017"));
+        Assert.assertNull(DatastoreUtils.getDataIndexScopeId("foo"));
+    }
+
+    @Test
+    public void registryIndexScopeId() {
+        Assert.assertEquals(ONE, DatastoreUtils.getRegistryIndexScopeId(".1"));
+        Assert.assertEquals(new KapuaEid(BigInteger.valueOf(1234567890L)), DatastoreUtils.getRegistryIndexScopeId(".1234567890"));
+
+        // Data and foreign indexes
+        Assert.assertNull(DatastoreUtils.getRegistryIndexScopeId("1-2017-01"));
+        Assert.assertNull(DatastoreUtils.getRegistryIndexScopeId(".kibana"));
+        Assert.assertNull(DatastoreUtils.getRegistryIndexScopeId("1"));
+    }
 }
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit.client;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.client.DatamodelMappingException;
+import org.eclipse.kapua.service.datastore.internal.converter.MetricAggregationConverter;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
+import org.eclipse.kapua.service.datastore.model.MetricBucket;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregation;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+@Category(JUnitTests.class)
+public class MetricAggregationConverterTest extends Assert {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void intervalMillis() {
+        assertEquals(90 * 60 * 1000L, MetricAggregationConverter.getIntervalMillis("90m"));
+        assertEquals(500L, MetricAggregationConverter.getIntervalMillis("500ms"));
+        assertEquals(60 * 60 * 1000L, MetricAggregationConverter.getIntervalMillis("1h"));
+        assertEquals(7 * 24 * 60 * 60 * 1000L, MetricAggregationConverter.getIntervalMillis("1w"));
+        assertEquals(7 * 24 * 60 * 60 * 1000L, MetricAggregationConverter.getIntervalMillis("week"));
+        assertEquals(-1L, MetricAggregationConverter.getIntervalMillis("2w"));
+        assertEquals(-1L, MetricAggregationConverter.getIntervalMillis("0s"));
+        assertEquals(-1L, MetricAggregationConverter.getIntervalMillis("1 hour"));
+        assertEquals(-1L, MetricAggregationConverter.getIntervalMillis(null));
+
+        // Overflowing widths
+        assertEquals(-1L, MetricAggregationConverter.getIntervalMillis("9223372036854775807d"));
+        assertEquals(-1L, MetricAggregationConverter.getIntervalMillis("99999999999999999999ms"));
+        assertEquals(106751991L * 24 * 60 * 60 * 1000L, MetricAggregationConverter.getIntervalMillis("106751991d"));
+    }
+
+    @Test
+    public void toAggregations() throws DatamodelMappingException {
+        MetricAggregation aggregation = MetricAggregation.of("temperature", Double.class);
+        aggregation.setInterval("1h");
+        aggregation.setPercents(Arrays.asList(50d, 99d));
+
+        ObjectNode aggregationsNode = MetricAggregationConverter.toAggregations(aggregation);
+        assertEquals("metrics.temperature.dbl", aggregationsNode.path("metric_stats").path("stats").path("field").asText());
+        assertEquals(2, aggregationsNode.path("metric_percentiles").path("percentiles").path("percents").size());
+        assertEquals("1h", aggregationsNode.path("metric_histogram").path("date_histogram").path("interval").asText());
+        assertTrue(aggregationsNode.path("metric_histogram").path("aggs").has("metric_stats"));
+    }
+
+    @Test
+    public void toAggregationsWithoutInterval() throws DatamodelMappingException {
+        ObjectNode aggregationsNode = MetricAggregationConverter.toAggregations(MetricAggregation.of("speed", Integer.class));
+        assertEquals("metrics.speed.int", aggregationsNode.path("metric_stats").path("stats").path("field").asText());
+        assertFalse(aggregationsNode.has("metric_percentiles"));
+        assertFalse(aggregationsNode.has("metric_histogram"));
+    }
+
+    @Test
+    public void toResult() throws IOException {
+        JsonNode aggregationsNode = MAPPER.readTree("{" +
+                "\"metric_stats\":{\"count\":3,\"min\":1.0,\"max\":5.0,\"avg\":3.0,\"sum\":9.0}," +
+                "\"metric_percentiles\":{\"values\":{\"50.0\":3.0}}," +
+                "\"metric_histogram\":{\"buckets\":[" +
+                "{\"key_as_string\":\"2017-01-02T12:00:00.000Z\",\"key\":1483358400000,\"doc_count\":2,\"metric_stats\":{\"count\":2,\"min\":1.0,\"max\":3.0,\"avg\":2.0,\"sum\":4.0}}," +
+                "{\"key_as_string\":\"2017-01-02T13:00:00.000Z\",\"key\":1483362000000,\"doc_count\":1,\"metric_stats\":{\"count\":1,\"min\":5.0,\"max\":5.0,\"avg\":5.0,\"sum\":5.0}}" +
+                "]}}");
+
+        MetricAggregationResult result = MetricAggregationConverter.toResult(MetricAggregation.of("temperature", Double.class), aggregationsNode);
+        assertEquals("temperature", result.getMetricName());
+        assertEquals(3, result.getStatistics().getCount());
+        assertEquals(1.0, result.getStatistics().getMin(), 0);
+        assertEquals(5.0, result.getStatistics().getMax(), 0);
+        assertEquals(3.0, result.getStatistics().getAvg(), 0);
+        assertEquals(9.0, result.getStatistics().getSum(), 0);
+        assertEquals(1, result.getStatistics().getPercentiles().size());
+        assertEquals(50.0, result.getStatistics().getPercentiles().get(0).getPercent(), 0);
+        assertEquals(3.0, result.getStatistics().getPercentiles().get(0).getValue(), 0);
+
+        assertEquals(2, result.getBuckets().size());
+        MetricBucket bucket = result.getBuckets().get(1);
+        assertEquals(1483362000000L, bucket.getTimestamp().getTime());
+        assertEquals(1, bucket.getCount());
+        assertEquals(5.0, bucket.getAvg(), 0);
+    }
+
+    @Test
+    public void toResultEmpty() throws IOException {
+        JsonNode aggregationsNode = MAPPER.readTree("{\"metric_stats\":{\"count\":0,\"min\":null,\"max\":null,\"avg\":null,\"sum\":0.0}}");
+
+        MetricAggregationResult result = MetricAggregationConverter.toResult(MetricAggregation.of("temperature", Double.class), aggregationsNode);
+        assertEquals(0, result.getStatistics().getCount());
+        assertNull(result.getStatistics().getMin());
+        assertNull(result.getStatistics().getSum());
+        assertTrue(result.getBuckets().isEmpty());
+
+        result = MetricAggregationConverter.toResult(MetricAggregation.of("temperature", Double.class), null);
+        assertEquals(0, result.getStatistics().getCount());
+    }
+}
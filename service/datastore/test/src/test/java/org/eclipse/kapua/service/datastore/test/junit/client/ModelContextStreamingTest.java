@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.message.internal.KapuaPositionImpl;
+import org.eclipse.kapua.message.internal.device.data.KapuaDataChannelImpl;
+import org.eclipse.kapua.message.internal.device.data.KapuaDataPayloadImpl;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.client.ModelContext;
+import org.eclipse.kapua.service.datastore.client.QueryConverter;
+import org.eclipse.kapua.service.datastore.internal.converter.ModelContextImpl;
+import org.eclipse.kapua.service.datastore.internal.model.ChannelInfoImpl;
+import org.eclipse.kapua.service.datastore.internal.model.ClientInfoImpl;
+import org.eclipse.kapua.service.datastore.internal.model.DatastoreMessageImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MetricInfoImpl;
+import org.eclipse.kapua.service.datastore.internal.model.StorableIdImpl;
+import org.eclipse.kapua.service.datastore.model.ChannelInfo;
+import org.eclipse.kapua.service.datastore.model.ClientInfo;
+import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
+import org.eclipse.kapua.service.datastore.model.MetricInfo;
+import org.eclipse.kapua.service.datastore.model.query.StorableFetchStyle;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Category(JUnitTests.class)
+public class ModelContextStreamingTest extends Assert {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ModelContext MODEL_CONTEXT = new ModelContextImpl();
+
+    private static final KapuaEid SCOPE_ID = new KapuaEid(BigInteger.valueOf(42));
+    private static final Date DATE = new Date(1483358400123L);
+
+    @Test
+    public void marshalMessage() throws Exception {
+        DatastoreMessage message = createMessage();
+        assertEquals(MAPPER.readTree(MAPPER.writeValueAsBytes(MODEL_CONTEXT.marshal(message))), MAPPER.readTree(marshal(message)));
+
+        message.setPosition(null);
+        message.setPayload(null);
+        assertEquals(MAPPER.readTree(MAPPER.writeValueAsBytes(MODEL_CONTEXT.marshal(message))), MAPPER.readTree(marshal(message)));
+    }
+
+    @Test
+    public void unmarshalMessage() throws Exception {
+        byte[] source = marshal(createMessage());
+
+        DatastoreMessage expected = MODEL_CONTEXT.unmarshal(DatastoreMessage.class, toMap(source, "message-1", StorableFetchStyle.SOURCE_FULL));
+        DatastoreMessage message = unmarshal(DatastoreMessage.class, source, "message-1", StorableFetchStyle.SOURCE_FULL);
+        assertEquals(expected.getDatastoreId().toString(), message.getDatastoreId().toString());
+        assertEquals(expected.getId(), message.getId());
+        assertEquals(expected.getScopeId(), message.getScopeId());
+        assertEquals(expected.getDeviceId(), message.getDeviceId());
+        assertEquals(expected.getClientId(), message.getClientId());
+        assertEquals(expected.getChannel().getSemanticParts(), message.getChannel().getSemanticParts());
+        assertEquals(expected.getTimestamp(), message.getTimestamp());
+        assertEquals(expected.getCapturedOn(), message.getCapturedOn());
+        assertEquals(expected.getSentOn(), message.getSentOn());
+        assertEquals(expected.getReceivedOn(), message.getReceivedOn());
+        assertEquals(expected.getPosition().getLatitude(), message.getPosition().getLatitude());
+        assertEquals(expected.getPosition().getLongitude(), message.getPosition().getLongitude());
+        assertEquals(expected.getPosition().getSatellites(), message.getPosition().getSatellites());
+        assertEquals(expected.getPosition().getTimestamp(), message.getPosition().getTimestamp());
+        assertEquals(expected.getPayload().getMetrics().keySet(), message.getPayload().getMetrics().keySet());
+        for (String metricName : Arrays.asList("int.metric", "lng", "flt", "dbl", "bln", "str", "dte")) {
+            assertEquals(expected.getPayload().getMetrics().get(metricName), message.getPayload().getMetrics().get(metricName));
+        }
+        assertArrayEquals(expected.getPayload().getBody(), message.getPayload().getBody());
+
+        message = unmarshal(DatastoreMessage.class, source, "message-1", StorableFetchStyle.FIELDS);
+        assertEquals("client-1", message.getClientId());
+        assertEquals(DATE, message.getTimestamp());
+        assertNull(message.getPosition());
+    }
+
+    @Test
+    public void registryRoundTrip() throws Exception {
+        ClientInfo clientInfo = new ClientInfoImpl(SCOPE_ID);
+        clientInfo.setClientId("client-1");
+        clientInfo.setFirstMessageId(new StorableIdImpl("message-1"));
+        clientInfo.setFirstMessageOn(DATE);
+        byte[] source = marshal(clientInfo);
+        assertEquals(MAPPER.readTree(MAPPER.writeValueAsBytes(MODEL_CONTEXT.marshal(clientInfo))), MAPPER.readTree(source));
+        ClientInfo clientInfoRead = unmarshal(ClientInfo.class, source, "client-info-1", null);
+        assertEquals("client-info-1", clientInfoRead.getId().toString());
+        assertEquals(SCOPE_ID, clientInfoRead.getScopeId());
+        assertEquals("client-1", clientInfoRead.getClientId());
+        assertEquals(DATE, clientInfoRead.getFirstMessageOn());
+
+        ChannelInfo channelInfo = new ChannelInfoImpl(SCOPE_ID);
+        channelInfo.setClientId("client-1");
+        channelInfo.setName("building/room/temperature");
+        channelInfo.setFirstMessageId(new StorableIdImpl("message-1"));
+        channelInfo.setFirstMessageOn(DATE);
+        source = marshal(channelInfo);
+        assertEquals(MAPPER.readTree(MAPPER.writeValueAsBytes(MODEL_CONTEXT.marshal(channelInfo))), MAPPER.readTree(source));
+        ChannelInfo channelInfoRead = unmarshal(ChannelInfo.class, source, "channel-info-1", null);
+        assertEquals("building/room/temperature", channelInfoRead.getName());
+        assertEquals("message-1", channelInfoRead.getFirstMessageId().toString());
+
+        MetricInfo metricInfo = new MetricInfoImpl(SCOPE_ID);
+        metricInfo.setClientId("client-1");
+        metricInfo.setChannel("building/room");
+        metricInfo.setName("temperature");
+        metricInfo.setMetricType(Double.class);
+        metricInfo.setFirstMessageId(new StorableIdImpl("message-1"));
+        metricInfo.setFirstMessageOn(DATE);
+        source = marshal(metricInfo);
+        assertEquals(MAPPER.readTree(MAPPER.writeValueAsBytes(MODEL_CONTEXT.marshal(metricInfo))), MAPPER.readTree(source));
+        MetricInfo metricInfoRead = unmarshal(MetricInfo.class, source, "metric-info-1", null);
+        assertEquals("building/room", metricInfoRead.getChannel());
+        assertEquals("temperature", metricInfoRead.getName());
+        assertEquals(Double.class, metricInfoRead.getMetricType());
+        assertEquals(DATE, metricInfoRead.getFirstMessageOn());
+    }
+
+    private DatastoreMessage createMessage() {
+        DatastoreMessageImpl message = new DatastoreMessageImpl();
+        message.setId(UUID.randomUUID());
+        message.setScopeId(SCOPE_ID);
+        message.setDeviceId(new KapuaEid(BigInteger.TEN));
+        message.setClientId("client-1");
+        KapuaDataChannelImpl channel = new KapuaDataChannelImpl();
+        channel.setSemanticParts(Arrays.asList("building", "room"));
+        message.setChannel(channel);
+        message.setTimestamp(DATE);
+        message.setCapturedOn(DATE);
+        message.setSentOn(null);
+        message.setReceivedOn(DATE);
+
+        KapuaPositionImpl position = new KapuaPositionImpl();
+        position.setLatitude(45.5);
+        position.setLongitude(12.25);
+        position.setSatellites(7);
+        position.setTimestamp(DATE);
+        message.setPosition(position);
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("int.metric", 10);
+        metrics.put("lng", 10000000000L);
+        metrics.put("flt", 1.5f);
+        metrics.put("dbl", 2.25d);
+        metrics.put("bln", true);
+        metrics.put("str", "value");
+        metrics.put("dte", DATE);
+        metrics.put("bin", new byte[] { 1, 2, 3 });
+        KapuaDataPayloadImpl payload = new KapuaDataPayloadImpl();
+        payload.setMetrics(metrics);
+        payload.setBody(new byte[] { 4, 5, 6 });
+        message.setPayload(payload);
+        return message;
+    }
+
+    private byte[] marshal(Object object) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(output)) {
+            MODEL_CONTEXT.marshal(object, generator);
+        }
+        return output.toByteArray();
+    }
+
+    private <T> T unmarshal(Class<T> clazz, byte[] source, String id, StorableFetchStyle fetchStyle) throws Exception {
+        try (JsonParser parser = MAPPER.getFactory().createParser(source)) {
+            return MODEL_CONTEXT.unmarshal(clazz, id, fetchStyle, parser);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toMap(byte[] source, String id, StorableFetchStyle fetchStyle) throws IOException {
+        Map<String, Object> object = MAPPER.readValue(source, Map.class);
+        object.put(ModelContext.DATASTORE_ID_KEY, id);
+        object.put(QueryConverter.QUERY_FETCH_STYLE_KEY, fetchStyle);
+        return object;
+    }
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit.client;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.client.DatamodelMappingException;
+import org.eclipse.kapua.service.datastore.internal.converter.RegistryActivityConverter;
+import org.eclipse.kapua.service.datastore.internal.model.ChannelInfoImpl;
+import org.eclipse.kapua.service.datastore.internal.model.ClientInfoImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MetricInfoImpl;
+import org.eclipse.kapua.service.datastore.internal.model.StorableIdImpl;
+import org.eclipse.kapua.service.datastore.model.ChannelInfo;
+import org.eclipse.kapua.service.datastore.model.ClientInfo;
+import org.eclipse.kapua.service.datastore.model.MetricInfo;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+@Category(JUnitTests.class)
+public class RegistryActivityConverterTest extends Assert {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void toClientInfoAggregations() {
+        List<ClientInfo> clientInfos = Arrays.asList(clientInfo("1", "client-1"), clientInfo("2", "client-2"), clientInfo("3", "client-1"));
+
+        ObjectNode aggregationsNode = RegistryActivityConverter.toClientInfoAggregations(clientInfos);
+
+        JsonNode termsNode = aggregationsNode.path("registry_clients").path("terms");
+        assertEquals("client_id", termsNode.path("field").asText());
+        assertEquals(2, termsNode.path("size").asInt());
+        assertEquals(2, termsNode.path("include").size());
+        assertEquals("client-1", termsNode.path("include").get(0).asText());
+        assertEquals("client-2", termsNode.path("include").get(1).asText());
+    }
+
+    @Test
+    public void clientInfoStaleOrPublishing() throws IOException {
+        List<ClientInfo> clientInfos = Arrays.asList(
+                clientInfo("1", "publishing"),
+                clientInfo("2", "stale"),
+                clientInfo("3", "empty-bucket"));
+        JsonNode aggregationsNode = MAPPER.readTree("{\"registry_clients\": {\"buckets\": ["
+                + "{\"key\": \"publishing\", \"doc_count\": 12},"
+                + "{\"key\": \"empty-bucket\", \"doc_count\": 0}"
+                + "]}}");
+
+        assertEquals(Collections.singleton(new StorableIdImpl("1")), RegistryActivityConverter.toPublishedClientInfoIds(clientInfos, aggregationsNode));
+    }
+
+    @Test
+    public void clientInfoWithoutData() {
+        List<ClientInfo> clientInfos = Arrays.asList(clientInfo("1", "client-1"), clientInfo("2", "client-2"));
+
+        // no data index matching the query: all the entries are stale
+        assertTrue(RegistryActivityConverter.toPublishedClientInfoIds(clientInfos, null).isEmpty());
+    }
+
+    @Test
+    public void toChannelInfoAggregations() {
+        List<ChannelInfo> channelInfos = Arrays.asList(channelInfo("1", "client-1", "a/b"), channelInfo("2", "client-2", "a/b"), channelInfo("3", "client-2", "c"));
+
+        ObjectNode aggregationsNode = RegistryActivityConverter.toChannelInfoAggregations(channelInfos);
+
+        JsonNode clientsNode = aggregationsNode.path("registry_clients");
+        assertEquals("client_id", clientsNode.path("terms").path("field").asText());
+        assertEquals(2, clientsNode.path("terms").path("size").asInt());
+        JsonNode channelsTermsNode = clientsNode.path("aggs").path("registry_channels").path("terms");
+        assertEquals("channel", channelsTermsNode.path("field").asText());
+        assertEquals(2, channelsTermsNode.path("size").asInt());
+        assertEquals("a/b", channelsTermsNode.path("include").get(0).asText());
+        assertEquals("c", channelsTermsNode.path("include").get(1).asText());
+    }
+
+    @Test
+    public void channelInfoStaleOrPublishing() throws IOException {
+        List<ChannelInfo> channelInfos = Arrays.asList(
+                channelInfo("1", "client-1", "publishing"),
+                channelInfo("2", "client-1", "stale"),
+                channelInfo("3", "client-2", "publishing"),
+                channelInfo("4", "client-3", "publishing"));
+        // the channel is published by client-1 only: the same channel of client-2 is stale
+        JsonNode aggregationsNode = MAPPER.readTree("{\"registry_clients\": {\"buckets\": ["
+                + "{\"key\": \"client-1\", \"doc_count\": 5, \"registry_channels\": {\"buckets\": [{\"key\": \"publishing\", \"doc_count\": 5}]}},"
+                + "{\"key\": \"client-2\", \"doc_count\": 3, \"registry_channels\": {\"buckets\": [{\"key\": \"other\", \"doc_count\": 3}]}}"
+                + "]}}");
+
+        assertEquals(Collections.singleton(new StorableIdImpl("1")), RegistryActivityConverter.toPublishedChannelInfoIds(channelInfos, aggregationsNode));
+        assertTrue(RegistryActivityConverter.toPublishedChannelInfoIds(channelInfos, null).isEmpty());
+    }
+
+    @Test
+    public void toMetricInfoAggregations() throws DatamodelMappingException, IOException {
+        List<MetricInfo> metricInfos = Collections.singletonList(metricInfo("1", "client-1", "a/b", "temperature"));
+
+        ObjectNode aggregationsNode = RegistryActivityConverter.toMetricInfoAggregations(metricInfos);
+
+        JsonNode expectedFilterNode = MAPPER.readTree("{\"bool\": {\"must\": ["
+                + "{\"term\": {\"client_id\": \"client-1\"}},"
+                + "{\"term\": {\"channel\": \"a/b\"}},"
+                + "{\"exists\": {\"field\": \"metrics.temperature\"}}"
+                + "]}}");
+        assertEquals(expectedFilterNode, aggregationsNode.path("registry_metrics").path("filters").path("filters").path("1"));
+    }
+
+    @Test
+    public void metricInfoStaleOrPublishing() throws IOException {
+        List<MetricInfo> metricInfos = Arrays.asList(
+                metricInfo("1", "client-1", "a/b", "publishing"),
+                metricInfo("2", "client-1", "a/b", "stale"),
+                metricInfo("3", "client-1", "a/b", "missing-bucket"));
+        JsonNode aggregationsNode = MAPPER.readTree("{\"registry_metrics\": {\"buckets\": {"
+                + "\"1\": {\"doc_count\": 7},"
+                + "\"2\": {\"doc_count\": 0}"
+                + "}}}");
+
+        assertEquals(Collections.singleton(new StorableIdImpl("1")), RegistryActivityConverter.toPublishedMetricInfoIds(metricInfos, aggregationsNode));
+        assertTrue(RegistryActivityConverter.toPublishedMetricInfoIds(metricInfos, null).isEmpty());
+    }
+
+    private static ClientInfo clientInfo(String id, String clientId) {
+        ClientInfo clientInfo = new ClientInfoImpl(KapuaId.ONE, new StorableIdImpl(id));
+        clientInfo.setClientId(clientId);
+        return clientInfo;
+    }
+
+    private static ChannelInfo channelInfo(String id, String clientId, String name) {
+        ChannelInfo channelInfo = new ChannelInfoImpl(KapuaId.ONE, new StorableIdImpl(id));
+        channelInfo.setClientId(clientId);
+        channelInfo.setName(name);
+        return channelInfo;
+    }
+
+    private static MetricInfo metricInfo(String id, String clientId, String channel, String name) {
+        MetricInfo metricInfo = new MetricInfoImpl(KapuaId.ONE, new StorableIdImpl(id));
+        metricInfo.setClientId(clientId);
+        metricInfo.setChannel(channel);
+        metricInfo.setName(name);
+        return metricInfo;
+    }
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit.client;
+
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.client.QueryMappingException;
+import org.eclipse.kapua.service.datastore.internal.converter.SearchAfterKey;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+@Category(JUnitTests.class)
+public class SearchAfterKeyTest extends Assert {
+
+    @Test
+    public void encodeDecode() throws QueryMappingException {
+        String nextKey = SearchAfterKey.encode(new Object[] { 1483360496123L, "message#AVx1" });
+        assertNotNull(nextKey);
+        assertFalse(nextKey.contains("="));
+
+        ArrayNode sortValues = SearchAfterKey.decode(nextKey);
+        assertEquals(2, sortValues.size());
+        assertEquals(1483360496123L, sortValues.get(0).asLong());
+        assertEquals("message#AVx1", sortValues.get(1).asText());
+    }
+
+    @Test
+    public void encodeEmpty() throws QueryMappingException {
+        assertNull(SearchAfterKey.encode(null));
+        assertNull(SearchAfterKey.encode(new Object[0]));
+    }
+
+    @Test(expected = QueryMappingException.class)
+    public void decodeNotBase64() throws QueryMappingException {
+        SearchAfterKey.decode("not a key!");
+    }
+
+    @Test(expected = QueryMappingException.class)
+    public void decodeNotArray() throws QueryMappingException {
+        SearchAfterKey.decode("eyJhIjoxfQ");
+    }
+}
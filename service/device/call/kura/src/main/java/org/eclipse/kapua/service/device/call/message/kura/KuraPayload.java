@@ -26,6 +26,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -58,6 +59,15 @@ public class KuraPayload implements DevicePayload {
      */
     protected Map<String, Object> metrics;
 
+    /**
+     * The metrics read by {@link #readFromByteArray(byte[])} and not yet converted into {@link #metrics}.
+     * <p>
+     * Many messages are only routed and never look at their metrics, so the conversion is deferred to the first access.
+     *
+     * @since 1.3.0
+     */
+    private List<KuraPayloadProto.KuraPayload.KuraMetric> protoMetrics;
+
     /**
      * The raw body.
      *
@@ -100,12 +110,27 @@ public class KuraPayload implements DevicePayload {
             metrics = new HashMap<>();
         }
 
+        if (protoMetrics != null) {
+            List<KuraPayloadProto.KuraPayload.KuraMetric> pendingMetrics = protoMetrics;
+            protoMetrics = null;
+
+            pendingMetrics.forEach(kuraMetric -> {
+                try {
+                    Object value = getProtoKuraMetricValue(kuraMetric, kuraMetric.getType());
+                    metrics.put(kuraMetric.getName(), value);
+                } catch (MessageException me) {
+                    LOG.warn("During deserialization, ignoring metric named: {}. Unrecognized value type: {}", kuraMetric.getName(), kuraMetric.getType(), me);
+                }
+            });
+        }
+
         return metrics;
     }
 
     @Override
     public void setMetrics(Map<String, Object> metrics) {
         this.metrics = metrics;
+        this.protoMetrics = null;
     }
 
     @Override
@@ -205,15 +230,13 @@ public class KuraPayload implements DevicePayload {
         }
 
         //
-        // Add metrics
-        protoMsg.getMetricList().forEach(kuraMetric -> {
-            try {
-                Object value = getProtoKuraMetricValue(kuraMetric, kuraMetric.getType());
-                addMetric(kuraMetric.getName(), value);
-            } catch (MessageException me) {
-                LOG.warn("During deserialization, ignoring metric named: {}. Unrecognized value type: {}", kuraMetric.getName(), kuraMetric.getType(), me);
+        // Add metrics (converted on first access)
+        if (protoMsg.getMetricCount() > 0) {
+            if (protoMetrics != null) {
+                getMetrics();
             }
-        });
+            protoMetrics = protoMsg.getMetricList();
+        }
 
         //
         // Set the body
@@ -17,10 +17,15 @@ import com.google.common.io.ByteStreams;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
 
 /**
  * Gzip utilities.
@@ -29,6 +34,23 @@ import java.util.zip.GZIPOutputStream;
  */
 public class GZIPUtils {
 
+    private static final int FLAG_HCRC = 2;
+    private static final int FLAG_EXTRA = 4;
+    private static final int FLAG_NAME = 8;
+    private static final int FLAG_COMMENT = 16;
+
+    private static final int TRAILER_SIZE = 8;
+
+    /**
+     * Worst case compression ratio of the deflate algorithm, used to bound the size declared by the trailer.
+     */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    /**
+     * {@link Inflater}s are expensive to create and hold native memory until they are ended, so they are reused per thread.
+     */
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
     private GZIPUtils() {
     }
 
@@ -62,15 +84,19 @@ public class GZIPUtils {
 
         try (
                 ByteArrayOutputStream result = new ByteArrayOutputStream();
-                OutputStream out = new GZIPOutputStream(result)
+                GZIPOutputStream out = new GZIPOutputStream(result)
         ) {
             ByteSource.wrap(source).copyTo(out);
+            // Write the trailer before reading the result
+            out.finish();
             return result.toByteArray();
         }
     }
 
     /**
      * Uncompress GZIP compressed data.
+     * <p>
+     * Data is inflated straight from the given array with a per thread {@link Inflater}, without going through streams.
      *
      * @param source the data to uncompress.
      * @return the uncompressed data, returns {@code null} if the input was {@code null}.
@@ -82,6 +108,53 @@ public class GZIPUtils {
             return new byte[0];
         }
 
+        int offset = skipHeader(source);
+
+        Inflater inflater = INFLATERS.get();
+        try {
+            inflater.setInput(source, offset, source.length - offset);
+
+            byte[] result = new byte[initialSize(source)];
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == result.length) {
+                    result = Arrays.copyOf(result, result.length * 2);
+                }
+
+                int read = inflater.inflate(result, length, result.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new EOFException("Unexpected end of ZLIB input stream");
+                }
+                length += read;
+            }
+
+            int remaining = inflater.getRemaining();
+            if (remaining < TRAILER_SIZE) {
+                throw new EOFException("Unexpected end of ZLIB input stream");
+            } else if (remaining > TRAILER_SIZE) {
+                // Concatenated GZIP members are rare, leave them to the stream implementation
+                return decompressStream(source);
+            }
+
+            int trailerOffset = source.length - TRAILER_SIZE;
+            CRC32 crc = new CRC32();
+            crc.update(result, 0, length);
+            if (readInt(source, trailerOffset) != (int) crc.getValue() || readInt(source, trailerOffset + 4) != length) {
+                throw new ZipException("Corrupt GZIP trailer");
+            }
+
+            return length == result.length ? result : Arrays.copyOf(result, length);
+        } catch (DataFormatException dfe) {
+            throw new ZipException(dfe.getMessage());
+        } finally {
+            inflater.reset();
+        }
+    }
+
+    //
+    // Private methods
+    //
+    private static byte[] decompressStream(byte[] source) throws IOException {
         try (
                 ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(source);
                 GZIPInputStream inputStream = new GZIPInputStream(byteArrayInputStream)
@@ -89,4 +162,74 @@ public class GZIPUtils {
             return ByteStreams.toByteArray(inputStream);
         }
     }
+
+    /**
+     * Skips the GZIP header as described by RFC 1952.
+     *
+     * @param source The compressed data.
+     * @return The offset of the first deflated byte.
+     * @throws IOException if the header is not valid.
+     */
+    private static int skipHeader(byte[] source) throws IOException {
+        if (!isCompressed(source)) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (source.length < 10 + TRAILER_SIZE) {
+            throw new EOFException("Unexpected end of GZIP header");
+        }
+        if (source[2] != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+
+        int flags = source[3] & 0xff;
+        int offset = 10;
+        if ((flags & FLAG_EXTRA) != 0) {
+            checkHeaderLength(source, offset + 2);
+            offset += 2 + ((source[offset] & 0xff) | ((source[offset + 1] & 0xff) << 8));
+        }
+        if ((flags & FLAG_NAME) != 0) {
+            offset = skipZeroTerminated(source, offset);
+        }
+        if ((flags & FLAG_COMMENT) != 0) {
+            offset = skipZeroTerminated(source, offset);
+        }
+        if ((flags & FLAG_HCRC) != 0) {
+            offset += 2;
+        }
+
+        checkHeaderLength(source, offset);
+        return offset;
+    }
+
+    private static int skipZeroTerminated(byte[] source, int offset) throws IOException {
+        while (offset < source.length && source[offset] != 0) {
+            offset++;
+        }
+
+        checkHeaderLength(source, offset + 1);
+        return offset + 1;
+    }
+
+    private static void checkHeaderLength(byte[] source, int length) throws IOException {
+        if (length > source.length - TRAILER_SIZE) {
+            throw new EOFException("Unexpected end of GZIP header");
+        }
+    }
+
+    /**
+     * The trailer declares the uncompressed size (modulo 2^32), which allows to allocate the result only once.
+     */
+    private static int initialSize(byte[] source) {
+        long declaredSize = readInt(source, source.length - 4) & 0xffffffffL;
+        long maxSize = (long) source.length * MAX_DEFLATE_RATIO;
+
+        return (int) Math.max(Math.min(Math.min(declaredSize, maxSize), Integer.MAX_VALUE - 8), 64);
+    }
+
+    private static int readInt(byte[] source, int offset) {
+        return (source[offset] & 0xff) |
+                ((source[offset + 1] & 0xff) << 8) |
+                ((source[offset + 2] & 0xff) << 16) |
+                ((source[offset + 3] & 0xff) << 24);
+    }
 }
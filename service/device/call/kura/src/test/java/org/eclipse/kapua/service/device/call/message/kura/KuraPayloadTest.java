@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.device.call.message.kura;
+
+import org.eclipse.kapua.message.internal.MessageException;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.device.call.message.kura.utils.GZIPUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+@Category(JUnitTests.class)
+public class KuraPayloadTest extends Assert {
+
+    @Test
+    public void readMetrics() throws MessageException {
+        KuraPayload payload = new KuraPayload();
+        payload.readFromByteArray(newPayload().toByteArray());
+
+        Map<String, Object> metrics = payload.getMetrics();
+        assertEquals(7, metrics.size());
+        assertEquals("value", metrics.get("string"));
+        assertEquals(1.5d, metrics.get("double"));
+        assertEquals(2.5f, metrics.get("float"));
+        assertEquals(3, metrics.get("int"));
+        assertEquals(4L, metrics.get("long"));
+        assertEquals(true, metrics.get("boolean"));
+        assertArrayEquals(new byte[]{ 1, 2, 3 }, (byte[]) metrics.get("bytes"));
+
+        // Metrics are converted once, then the same map is returned
+        assertSame(metrics, payload.getMetrics());
+    }
+
+    @Test
+    public void readCompressed() throws MessageException, IOException {
+        KuraPayload source = newPayload();
+        source.setTimestamp(new Date(1577836800000L));
+        source.setBody(new byte[]{ 4, 5, 6 });
+
+        KuraPayload payload = new KuraPayload();
+        payload.readFromByteArray(GZIPUtils.compress(source.toByteArray()));
+
+        assertEquals(source.getTimestamp(), payload.getTimestamp());
+        assertArrayEquals(source.getBody(), payload.getBody());
+        assertEquals(7, payload.getMetrics().size());
+    }
+
+    @Test
+    public void setMetricsAfterRead() throws MessageException {
+        KuraPayload payload = new KuraPayload();
+        payload.readFromByteArray(newPayload().toByteArray());
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("other", 42);
+        payload.setMetrics(metrics);
+
+        // The metrics read and not yet converted must not be added to the ones set afterwards
+        assertSame(metrics, payload.getMetrics());
+        assertEquals(1, payload.getMetrics().size());
+        assertEquals(42, payload.getMetrics().get("other"));
+    }
+
+    @Test
+    public void addAndRemoveMetricAfterRead() throws MessageException {
+        KuraPayload payload = new KuraPayload();
+        payload.readFromByteArray(newPayload().toByteArray());
+
+        payload.addMetric("other", 42);
+        payload.removeMetric("string");
+
+        Map<String, Object> metrics = payload.getMetrics();
+        assertEquals(7, metrics.size());
+        assertEquals(42, metrics.get("other"));
+        assertNull(metrics.get("string"));
+        assertEquals(3, metrics.get("int"));
+    }
+
+    @Test
+    public void readTwice() throws MessageException {
+        KuraPayload first = new KuraPayload();
+        first.addMetric("first", 1);
+        KuraPayload second = new KuraPayload();
+        second.addMetric("second", 2);
+
+        KuraPayload payload = new KuraPayload();
+        payload.readFromByteArray(first.toByteArray());
+        payload.readFromByteArray(second.toByteArray());
+
+        Map<String, Object> metrics = payload.getMetrics();
+        assertEquals(2, metrics.size());
+        assertEquals(1, metrics.get("first"));
+        assertEquals(2, metrics.get("second"));
+    }
+
+    @Test
+    public void writeAfterRead() throws MessageException {
+        KuraPayload payload = new KuraPayload();
+        payload.readFromByteArray(newPayload().toByteArray());
+
+        // Serializing converts the pending metrics
+        KuraPayload copy = new KuraPayload();
+        copy.readFromByteArray(payload.toByteArray());
+
+        assertEquals(7, copy.getMetrics().size());
+        assertEquals(4L, copy.getMetrics().get("long"));
+    }
+
+    private static KuraPayload newPayload() {
+        KuraPayload payload = new KuraPayload();
+        payload.addMetric("string", "value");
+        payload.addMetric("double", 1.5d);
+        payload.addMetric("float", 2.5f);
+        payload.addMetric("int", 3);
+        payload.addMetric("long", 4L);
+        payload.addMetric("boolean", true);
+        payload.addMetric("bytes", new byte[]{ 1, 2, 3 });
+        return payload;
+    }
+}
@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.device.call.message.kura.utils;
+
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+@Category(JUnitTests.class)
+public class GZIPUtilsTest extends Assert {
+
+    private static final int FLAG_HCRC = 2;
+    private static final int FLAG_EXTRA = 4;
+    private static final int FLAG_NAME = 8;
+    private static final int FLAG_COMMENT = 16;
+
+    @Test
+    public void decompressGZIPOutputStream() throws IOException {
+        for (byte[] data : Arrays.asList(new byte[0], text(1), text(100), text(100_000), random(100_000))) {
+            assertArrayEquals(data, GZIPUtils.decompress(gzipStream(data)));
+        }
+    }
+
+    @Test
+    public void compressRoundTrip() throws IOException {
+        byte[] data = text(10_000);
+        byte[] compressed = GZIPUtils.compress(data);
+
+        assertTrue(GZIPUtils.isCompressed(compressed));
+        assertArrayEquals(data, GZIPUtils.decompress(compressed));
+    }
+
+    @Test
+    public void decompressSameThreadRepeatedly() throws IOException {
+        // The inflater of the thread is reused, so a previous failure must not affect the next call
+        byte[] data = text(1000);
+        byte[] corrupted = gzipStream(data);
+        corrupted[corrupted.length - 8] ^= 1;
+
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(data, GZIPUtils.decompress(gzipStream(data)));
+            try {
+                GZIPUtils.decompress(corrupted);
+                fail("Corrupted data decompressed");
+            } catch (ZipException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void decompressWithName() throws IOException {
+        byte[] data = text(500);
+        byte[] header = header(FLAG_NAME, zeroTerminated("payload.bin"));
+
+        assertArrayEquals(data, GZIPUtils.decompress(gzip(header, data)));
+    }
+
+    @Test
+    public void decompressWithExtra() throws IOException {
+        byte[] data = text(500);
+        byte[] extra = { 'K', 'P', 4, 0, 1, 2, 3, 4 };
+        byte[] header = header(FLAG_EXTRA, new byte[]{ (byte) extra.length, 0 }, extra);
+
+        assertArrayEquals(data, GZIPUtils.decompress(gzip(header, data)));
+    }
+
+    @Test
+    public void decompressWithHeaderCrc() throws IOException {
+        byte[] data = text(500);
+        byte[] header = header(FLAG_HCRC);
+
+        CRC32 headerCrc = new CRC32();
+        headerCrc.update(header, 0, header.length);
+        byte[] headerWithCrc = concat(header, new byte[]{ (byte) headerCrc.getValue(), (byte) (headerCrc.getValue() >> 8) });
+
+        assertArrayEquals(data, GZIPUtils.decompress(gzip(headerWithCrc, data)));
+    }
+
+    @Test
+    public void decompressWithAllFlags() throws IOException {
+        byte[] data = text(500);
+        byte[] extra = { 1, 2, 3 };
+        byte[] header = header(FLAG_HCRC | FLAG_EXTRA | FLAG_NAME | FLAG_COMMENT,
+                new byte[]{ (byte) extra.length, 0 }, extra,
+                zeroTerminated("payload.bin"),
+                zeroTerminated("a comment"));
+
+        CRC32 headerCrc = new CRC32();
+        headerCrc.update(header, 0, header.length);
+        byte[] headerWithCrc = concat(header, new byte[]{ (byte) headerCrc.getValue(), (byte) (headerCrc.getValue() >> 8) });
+
+        assertArrayEquals(data, GZIPUtils.decompress(gzip(headerWithCrc, data)));
+    }
+
+    @Test
+    public void decompressConcatenatedMembers() throws IOException {
+        byte[] first = text(300);
+        byte[] second = random(300);
+
+        assertArrayEquals(concat(first, second), GZIPUtils.decompress(concat(gzipStream(first), gzipStream(second))));
+    }
+
+    @Test(expected = ZipException.class)
+    public void decompressCorruptCrc() throws IOException {
+        byte[] compressed = gzipStream(text(1000));
+        compressed[compressed.length - 8] ^= 1;
+
+        GZIPUtils.decompress(compressed);
+    }
+
+    @Test(expected = ZipException.class)
+    public void decompressCorruptSize() throws IOException {
+        byte[] compressed = gzipStream(text(1000));
+        compressed[compressed.length - 4] ^= 1;
+
+        GZIPUtils.decompress(compressed);
+    }
+
+    @Test(expected = IOException.class)
+    public void decompressTruncatedTrailer() throws IOException {
+        byte[] compressed = gzipStream(text(1000));
+
+        GZIPUtils.decompress(Arrays.copyOf(compressed, compressed.length - 3));
+    }
+
+    @Test(expected = ZipException.class)
+    public void decompressNotCompressed() throws IOException {
+        GZIPUtils.decompress(text(100));
+    }
+
+    private static byte[] gzipStream(byte[] data) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(result)) {
+            out.write(data);
+        }
+        return result.toByteArray();
+    }
+
+    /**
+     * Builds a GZIP member with the given header, which must already contain the optional fields of its flags.
+     */
+    private static byte[] gzip(byte[] header, byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(data);
+        deflater.finish();
+
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        while (!deflater.finished()) {
+            deflated.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+
+        return concat(header, deflated.toByteArray(), littleEndian((int) crc.getValue()), littleEndian(data.length));
+    }
+
+    private static byte[] header(int flags, byte[]... optionalFields) {
+        byte[] header = { 0x1f, (byte) 0x8b, 8, (byte) flags, 0, 0, 0, 0, 0, (byte) 0xff };
+        byte[][] fields = new byte[optionalFields.length + 1][];
+        fields[0] = header;
+        System.arraycopy(optionalFields, 0, fields, 1, optionalFields.length);
+        return concat(fields);
+    }
+
+    private static byte[] zeroTerminated(String value) {
+        return concat(value.getBytes(StandardCharsets.ISO_8859_1), new byte[1]);
+    }
+
+    private static byte[] littleEndian(int value) {
+        return new byte[]{ (byte) value, (byte) (value >> 8), (byte) (value >> 16), (byte) (value >> 24) };
+    }
+
+    private static byte[] concat(byte[]... arrays) {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        for (byte[] array : arrays) {
+            result.write(array, 0, array.length);
+        }
+        return result.toByteArray();
+    }
+
+    private static byte[] text(int length) {
+        byte[] text = new byte[length];
+        for (int i = 0; i < length; i++) {
+            text[i] = (byte) ('a' + i % 26);
+        }
+        return text;
+    }
+
+    private static byte[] random(int length) {
+        byte[] random = new byte[length];
+        new Random(length).nextBytes(random);
+        return random;
+    }
+}
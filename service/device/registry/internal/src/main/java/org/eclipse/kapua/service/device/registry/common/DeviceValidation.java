@@ -36,7 +36,11 @@ import org.eclipse.kapua.service.device.registry.DeviceRegistryService;
 import org.eclipse.kapua.service.tag.Tag;
 import org.eclipse.kapua.service.tag.TagService;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Provides logic used to validate preconditions required to execute the device service operation.
@@ -100,19 +104,53 @@ public final class DeviceValidation {
      * @throws KapuaException
      */
     public static DeviceCreator validateCreatePreconditions(DeviceCreator deviceCreator) throws KapuaException {
+        validateCreateArguments(deviceCreator);
+        validateCreateAccess(deviceCreator.getScopeId(), deviceCreator.getGroupId());
+
+        return deviceCreator;
+    }
+
+    /**
+     * Validates the device creates precondition for a list of device creators.<br>
+     * The group existence and the access are checked once for each distinct scope and group.
+     *
+     * @param deviceCreators
+     * @return
+     * @throws KapuaException
+     * @since 1.3.0
+     */
+    public static List<DeviceCreator> validateCreateAllPreconditions(List<DeviceCreator> deviceCreators) throws KapuaException {
+        ArgumentValidator.notNull(deviceCreators, "deviceCreators");
+
+        Map<KapuaId, Set<KapuaId>> scopeGroupIds = new HashMap<>();
+        for (DeviceCreator deviceCreator : deviceCreators) {
+            validateCreateArguments(deviceCreator);
+            scopeGroupIds.computeIfAbsent(deviceCreator.getScopeId(), scopeId -> new HashSet<>()).add(deviceCreator.getGroupId());
+        }
+
+        for (Map.Entry<KapuaId, Set<KapuaId>> scopeGroups : scopeGroupIds.entrySet()) {
+            for (KapuaId groupId : scopeGroups.getValue()) {
+                validateCreateAccess(scopeGroups.getKey(), groupId);
+            }
+        }
+
+        return deviceCreators;
+    }
+
+    private static void validateCreateArguments(DeviceCreator deviceCreator) throws KapuaException {
         ArgumentValidator.notNull(deviceCreator, "deviceCreator");
         ArgumentValidator.notNull(deviceCreator.getScopeId(), "deviceCreator.scopeId");
         ArgumentValidator.notEmptyOrNull(deviceCreator.getClientId(), "deviceCreator.clientId");
         ArgumentValidator.lengthRange(deviceCreator.getClientId(), 1, 255, "deviceCreator.clientId");
         ArgumentValidator.match(deviceCreator.getClientId(), DeviceValidationRegex.CLIENT_ID, "deviceCreator.clientId");
+    }
 
-        if (deviceCreator.getGroupId() != null) {
-            ArgumentValidator.notNull(groupService.find(deviceCreator.getScopeId(), deviceCreator.getGroupId()), "deviceCreator.groupId");
+    private static void validateCreateAccess(KapuaId scopeId, KapuaId groupId) throws KapuaException {
+        if (groupId != null) {
+            ArgumentValidator.notNull(groupService.find(scopeId, groupId), "deviceCreator.groupId");
         }
 
-        authorizationService.checkPermission(permissionFactory.newPermission(DEVICE_DOMAIN, Actions.write, deviceCreator.getScopeId(), deviceCreator.getGroupId()));
-
-        return deviceCreator;
+        authorizationService.checkPermission(permissionFactory.newPermission(DEVICE_DOMAIN, Actions.write, scopeId, groupId));
     }
 
     /**
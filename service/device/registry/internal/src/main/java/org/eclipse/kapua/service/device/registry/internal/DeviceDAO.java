@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -23,6 +23,7 @@ import org.eclipse.kapua.service.device.registry.DeviceCreator;
 import org.eclipse.kapua.service.device.registry.DeviceDomains;
 import org.eclipse.kapua.service.device.registry.DeviceListResult;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -40,6 +41,27 @@ public class DeviceDAO extends ServiceDAO {
      * @return
      */
     public static Device create(EntityManager em, DeviceCreator deviceCreator) {
+        return ServiceDAO.create(em, newDevice(deviceCreator));
+    }
+
+    /**
+     * Creates new Devices, grouping the inserts in JDBC batches
+     *
+     * @param em
+     * @param deviceCreators
+     * @return
+     * @since 1.3.0
+     */
+    public static List<Device> createAll(EntityManager em, List<DeviceCreator> deviceCreators) {
+        List<Device> devices = new ArrayList<>(deviceCreators.size());
+        for (DeviceCreator deviceCreator : deviceCreators) {
+            devices.add(newDevice(deviceCreator));
+        }
+
+        return ServiceDAO.createAll(em, devices);
+    }
+
+    private static Device newDevice(DeviceCreator deviceCreator) {
         Device device = new DeviceImpl(deviceCreator.getScopeId());
 
         device.setGroupId(deviceCreator.getGroupId());
@@ -71,7 +93,7 @@ public class DeviceDAO extends ServiceDAO {
         device.setConnectionId(deviceCreator.getConnectionId());
         device.setLastEventId(deviceCreator.getLastEventId());
 
-        return ServiceDAO.create(em, device);
+        return device;
     }
 
     /**
@@ -109,6 +131,27 @@ public class DeviceDAO extends ServiceDAO {
      */
     public static DeviceListResult query(EntityManager em, KapuaQuery<Device> query)
             throws KapuaException {
+        return doQuery(query, () -> ServiceDAO.query(em, Device.class, DeviceImpl.class, new DeviceListResultImpl(), query));
+    }
+
+    /**
+     * Returns the page of devices matching the provided query that come after the given device id, ordered by device id.
+     *
+     * @param em
+     * @param query
+     * @param afterId the id of the last device of the previous page, or {@code null} for the first page
+     * @return
+     * @throws KapuaException
+     * @see ServiceDAO#queryAfter(EntityManager, Class, Class, org.eclipse.kapua.model.query.KapuaListResult, KapuaQuery, KapuaId)
+     * @since 1.3.0
+     */
+    public static DeviceListResult queryAfter(EntityManager em, KapuaQuery<Device> query, KapuaId afterId)
+            throws KapuaException {
+        return doQuery(query, () -> ServiceDAO.queryAfter(em, Device.class, DeviceImpl.class, new DeviceListResultImpl(), query, afterId));
+    }
+
+    private static DeviceListResult doQuery(KapuaQuery<Device> query, DeviceQueryAction queryAction)
+            throws KapuaException {
 
         handleKapuaQueryGroupPredicate(query, DeviceDomains.DEVICE_DOMAIN, DeviceAttributes.GROUP_ID);
 
@@ -129,7 +172,7 @@ public class DeviceDAO extends ServiceDAO {
             query.addFetchAttributes(DeviceAttributes.LAST_EVENT);
         }
 
-        DeviceListResult results = ServiceDAO.query(em, Device.class, DeviceImpl.class, new DeviceListResultImpl(), query);
+        DeviceListResult results = queryAction.query();
 
         if (deviceConnectionFetchAdded || deviceLastEventFetchAdded) {
             for (Device d : results.getItems()) {
@@ -175,4 +218,10 @@ public class DeviceDAO extends ServiceDAO {
     public static Device delete(EntityManager em, KapuaId scopeId, KapuaId deviceId) throws KapuaEntityNotFoundException {
         return ServiceDAO.delete(em, DeviceImpl.class, scopeId, deviceId);
     }
+
+    @FunctionalInterface
+    private interface DeviceQueryAction {
+
+        DeviceListResult query() throws KapuaException;
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Eurotech and/or its affiliates and others
+ * Copyright (c) 2016, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -35,6 +35,13 @@ import org.eclipse.kapua.service.device.registry.common.DeviceValidation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * {@link DeviceRegistryService} implementation.
  *
@@ -46,6 +53,8 @@ public class DeviceRegistryServiceImpl extends AbstractKapuaConfigurableResource
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DeviceRegistryServiceImpl.class);
 
+    private static final int PAGE_SIZE = 100;
+
     /**
      * Constructor
      *
@@ -86,6 +95,41 @@ public class DeviceRegistryServiceImpl extends AbstractKapuaConfigurableResource
         return entityManagerSession.doTransactedAction(EntityManagerContainer.<Device>create().onResultHandler(entityManager -> DeviceDAO.create(entityManager, deviceCreator)));
     }
 
+    @Override
+    public List<Device> createAll(List<DeviceCreator> deviceCreators) throws KapuaException {
+        DeviceValidation.validateCreateAllPreconditions(deviceCreators);
+
+        if (deviceCreators.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        //
+        // Check limits
+        checkAllowedChildEntities(deviceCreators, "Devices");
+
+        //
+        // Check duplicate clientIds, within the list and with the existing ones, with a single query for each scope
+        Map<KapuaId, Set<String>> scopeClientIds = new HashMap<>();
+        for (DeviceCreator deviceCreator : deviceCreators) {
+            if (!scopeClientIds.computeIfAbsent(deviceCreator.getScopeId(), scopeId -> new HashSet<>()).add(deviceCreator.getClientId())) {
+                throw new KapuaDuplicateNameException(deviceCreator.getClientId());
+            }
+        }
+
+        for (Map.Entry<KapuaId, Set<String>> clientIds : scopeClientIds.entrySet()) {
+            DeviceQuery query = new DeviceQueryImpl(clientIds.getKey());
+            query.setPredicate(query.attributePredicate(DeviceAttributes.CLIENT_ID, clientIds.getValue().toArray(new String[0])));
+            query.setLimit(1);
+
+            DeviceListResult duplicates = query(query);
+            if (!duplicates.isEmpty()) {
+                throw new KapuaDuplicateNameException(duplicates.getFirstItem().getClientId());
+            }
+        }
+
+        return entityManagerSession.doTransactedAction(EntityManagerContainer.<List<Device>>create().onResultHandler(entityManager -> DeviceDAO.createAll(entityManager, deviceCreators)));
+    }
+
     @Override
     public Device update(Device device) throws KapuaException {
         DeviceValidation.validateUpdatePreconditions(device);
@@ -173,28 +217,52 @@ public class DeviceRegistryServiceImpl extends AbstractKapuaConfigurableResource
         KapuaLocator locator = KapuaLocator.getInstance();
         DeviceFactory deviceFactory = locator.getFactory(DeviceFactory.class);
 
-        DeviceQuery query = deviceFactory.newQuery(scopeId);
-        query.setPredicate(query.attributePredicate(DeviceAttributes.GROUP_ID, groupId));
+        KapuaId afterId = null;
+        DeviceListResult devicesToUpdate;
+        do {
+            DeviceQuery query = deviceFactory.newQuery(scopeId);
+            query.setPredicate(query.attributePredicate(DeviceAttributes.GROUP_ID, groupId));
 
-        DeviceListResult devicesToDelete = query(query);
+            devicesToUpdate = queryAfter(query, afterId);
 
-        for (Device d : devicesToDelete.getItems()) {
-            d.setGroupId(null);
-            update(d);
-        }
+            for (Device d : devicesToUpdate.getItems()) {
+                d.setGroupId(null);
+                update(d);
+                afterId = d.getId();
+            }
+        } while (devicesToUpdate.isLimitExceeded());
     }
 
     private void deleteDeviceByAccountId(KapuaId scopeId, KapuaId accountId) throws KapuaException {
         KapuaLocator locator = KapuaLocator.getInstance();
         DeviceFactory deviceFactory = locator.getFactory(DeviceFactory.class);
 
-        DeviceQuery query = deviceFactory.newQuery(accountId);
+        KapuaId afterId = null;
+        DeviceListResult devicesToDelete;
+        do {
+            devicesToDelete = queryAfter(deviceFactory.newQuery(accountId), afterId);
 
-        DeviceListResult devicesToDelete = query(query);
+            for (Device d : devicesToDelete.getItems()) {
+                delete(d.getScopeId(), d.getId());
+                afterId = d.getId();
+            }
+        } while (devicesToDelete.isLimitExceeded());
+    }
 
-        for (Device d : devicesToDelete.getItems()) {
-            delete(d.getScopeId(), d.getId());
-        }
+    /**
+     * Loads a page of {@link Device}s with the connection and the last event, so that they can be updated or deleted.<br>
+     * Pages are loaded with a keyset query, so the cost of each page does not grow with the number of devices already processed.
+     *
+     * @param query   The {@link DeviceQuery} to perform.
+     * @param afterId The id of the last {@link Device} of the previous page, or {@code null} for the first page.
+     * @return The page of {@link Device}s.
+     * @throws KapuaException
+     */
+    private DeviceListResult queryAfter(DeviceQuery query, KapuaId afterId) throws KapuaException {
+        query.setLimit(PAGE_SIZE);
+        query.setFetchAttributes(Lists.newArrayList(DeviceAttributes.CONNECTION, DeviceAttributes.LAST_EVENT));
+
+        return entityManagerSession.doAction(EntityManagerContainer.<DeviceListResult>create().onResultHandler(entityManager -> DeviceDAO.queryAfter(entityManager, query, afterId)));
     }
 
 }
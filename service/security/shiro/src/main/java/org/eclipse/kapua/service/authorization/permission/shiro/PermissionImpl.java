@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -243,6 +243,9 @@ public class PermissionImpl extends WildcardPermission implements Permission, or
      * to the same level of the given {@link org.apache.shiro.authz.Permission}.
      * </p>
      * <p>
+     * This is checked for each stored {@link Permission} on each permission check, so it relies on the entity-cached {@link AccountService#find(KapuaId)} and an in-memory
+     * match of the parent account path rather than on a query of the account ancestry.
+     * </p>
      * <p>
      * <b>Example:</b>
      * User 'A' in account 'A' has scopeId 'A' and this permission (A) "*:*:A:*".<br>
@@ -260,6 +263,10 @@ public class PermissionImpl extends WildcardPermission implements Permission, or
     private boolean forwardPermission(org.apache.shiro.authz.Permission p) {
         Permission permission = (Permission) p;
 
+        if (getTargetScopeId() == null) {
+            return false;
+        }
+
         try {
             Account account = KapuaSecurityUtils.doPrivileged(() -> ACCOUNT_SERVICE.find(permission.getTargetScopeId()));
 
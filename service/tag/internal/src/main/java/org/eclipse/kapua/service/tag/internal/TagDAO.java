@@ -22,6 +22,9 @@ import org.eclipse.kapua.service.tag.TagCreator;
 import org.eclipse.kapua.service.tag.TagListResult;
 import org.eclipse.kapua.service.tag.TagQuery;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * {@link Tag} DAO
  * 
@@ -43,11 +46,31 @@ public class TagDAO extends ServiceDAO {
      */
     public static Tag create(EntityManager em, TagCreator creator)
             throws KapuaException {
+        return ServiceDAO.create(em, newTag(creator));
+    }
+
+    /**
+     * Creates and returns new {@link Tag}s, grouping the inserts in JDBC batches
+     *
+     * @param em
+     * @param creators
+     * @return
+     * @since 1.3.0
+     */
+    public static List<Tag> createAll(EntityManager em, List<TagCreator> creators) {
+        List<Tag> tags = new ArrayList<>(creators.size());
+        for (TagCreator creator : creators) {
+            tags.add(newTag(creator));
+        }
+
+        return ServiceDAO.createAll(em, tags);
+    }
+
+    private static Tag newTag(TagCreator creator) {
         Tag tag = new TagImpl(creator.getScopeId());
         tag.setName(creator.getName());
         tag.setDescription(creator.getDescription());
-
-        return ServiceDAO.create(em, tag);
+        return tag;
     }
 
     /**
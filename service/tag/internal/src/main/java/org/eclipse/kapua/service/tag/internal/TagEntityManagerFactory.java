@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -35,11 +35,13 @@ public class TagEntityManagerFactory extends AbstractEntityManagerFactory implem
 
     /**
      * Constructs a new entity manager factory and configure it to use the tag persistence unit.
+     * The JDBC batch writing is enabled for the bulk creation of the tags.
      */
     private TagEntityManagerFactory() {
         super(PERSISTENCE_UNIT_NAME,
                 DATASOURCE_NAME,
-                UNIQUE_CONSTRAINTS);
+                UNIQUE_CONSTRAINTS,
+                true);
     }
 
     /**
@@ -34,6 +34,12 @@ import org.eclipse.kapua.service.tag.TagQuery;
 import org.eclipse.kapua.service.tag.TagService;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 //import org.eclipse.kapua.locator.KapuaLocator;
 
@@ -87,6 +93,58 @@ public class TagServiceImpl extends AbstractKapuaConfigurableResourceLimitedServ
         return entityManagerSession.doTransactedAction(em -> TagDAO.create(em, tagCreator));
     }
 
+    @Override
+    public List<Tag> createAll(List<TagCreator> tagCreators) throws KapuaException {
+        //
+        // Argument validation
+        ArgumentValidator.notNull(tagCreators, "tagCreators");
+        for (TagCreator tagCreator : tagCreators) {
+            ArgumentValidator.notNull(tagCreator, "tagCreator");
+            ArgumentValidator.notNull(tagCreator.getScopeId(), "tagCreator.scopeId");
+            ArgumentValidator.validateEntityName(tagCreator.getName(), "tagCreator.name");
+        }
+
+        if (tagCreators.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        //
+        // Group names by scope, checking duplicates within the list
+        Map<KapuaId, Set<String>> scopeNames = new HashMap<>();
+        for (TagCreator tagCreator : tagCreators) {
+            if (!scopeNames.computeIfAbsent(tagCreator.getScopeId(), scopeId -> new HashSet<>()).add(tagCreator.getName())) {
+                throw new KapuaDuplicateNameException(tagCreator.getName());
+            }
+        }
+
+        //
+        // Check Access
+        for (KapuaId scopeId : scopeNames.keySet()) {
+            authorizationService.checkPermission(permissionFactory.newPermission(TagDomains.TAG_DOMAIN, Actions.write, scopeId));
+        }
+
+        //
+        // Check limit
+        checkAllowedChildEntities(tagCreators, "Tags");
+
+        //
+        // Check duplicate name
+        for (Map.Entry<KapuaId, Set<String>> names : scopeNames.entrySet()) {
+            TagQuery query = new TagQueryImpl(names.getKey());
+            query.setPredicate(query.attributePredicate(TagAttributes.NAME, names.getValue().toArray(new String[0])));
+            query.setLimit(1);
+
+            TagListResult duplicates = query(query);
+            if (!duplicates.isEmpty()) {
+                throw new KapuaDuplicateNameException(duplicates.getFirstItem().getName());
+            }
+        }
+
+        //
+        // Do create
+        return entityManagerSession.doTransactedAction(em -> TagDAO.createAll(em, tagCreators));
+    }
+
     @Override
     public Tag update(Tag tag) throws KapuaException {
         //
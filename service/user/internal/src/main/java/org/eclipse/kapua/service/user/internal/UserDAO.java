@@ -24,6 +24,9 @@ import org.eclipse.kapua.service.user.UserAttributes;
 import org.eclipse.kapua.service.user.UserCreator;
 import org.eclipse.kapua.service.user.UserListResult;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * {@link User} {@link ServiceDAO}
  *
@@ -40,6 +43,27 @@ public class UserDAO extends ServiceDAO {
      * @since 1.0.0
      */
     public static User create(EntityManager em, UserCreator userCreator) {
+        return ServiceDAO.create(em, newUser(userCreator));
+    }
+
+    /**
+     * Creates and returns new {@link User}s, grouping the inserts in JDBC batches
+     *
+     * @param em
+     * @param userCreators
+     * @return
+     * @since 1.3.0
+     */
+    public static List<User> createAll(EntityManager em, List<UserCreator> userCreators) {
+        List<User> users = new ArrayList<>(userCreators.size());
+        for (UserCreator userCreator : userCreators) {
+            users.add(newUser(userCreator));
+        }
+
+        return ServiceDAO.createAll(em, users);
+    }
+
+    private static User newUser(UserCreator userCreator) {
         //
         // Create User
         UserImpl userImpl = new UserImpl(userCreator.getScopeId(), userCreator.getName());
@@ -52,7 +76,7 @@ public class UserDAO extends ServiceDAO {
         userImpl.setStatus(userCreator.getUserStatus());
         userImpl.setExpirationDate(userCreator.getExpirationDate());
 
-        return ServiceDAO.create(em, userImpl);
+        return userImpl;
     }
 
     /**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2016 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -39,9 +39,10 @@ public class UserEntityManagerFactory extends AbstractEntityManagerFactory imple
 
     /**
      * Constructs a new entity manager factory and configure it to use the user persistence unit.
+     * The JDBC batch writing is enabled for the bulk creation of the users.
      */
     private UserEntityManagerFactory() {
-        super(PERSISTENCE_UNIT_NAME, DATASOURCE_NAME, UNIQUE_CONSTRAINTS);
+        super(PERSISTENCE_UNIT_NAME, DATASOURCE_NAME, UNIQUE_CONSTRAINTS, true);
     }
 
     /**
@@ -48,7 +48,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * {@link UserService} implementation.
@@ -76,18 +82,7 @@ public class UserServiceImpl extends AbstractKapuaConfigurableResourceLimitedSer
     public User create(UserCreator userCreator) throws KapuaException {
         //
         // Argument Validation
-        ArgumentValidator.notNull(userCreator.getScopeId().getId(), "userCreator.scopeId");
-        ArgumentValidator.notEmptyOrNull(userCreator.getName(), "userCreator.name");
-        ArgumentValidator.match(userCreator.getName(), CommonsValidationRegex.NAME_REGEXP, "userCreator.name");
-        ArgumentValidator.match(userCreator.getEmail(), CommonsValidationRegex.EMAIL_REGEXP, "userCreator.email");
-        ArgumentValidator.notNull(userCreator.getUserType(), "userCreator.userType");
-        ArgumentValidator.notNull(userCreator.getUserStatus(), "userCreator.userStatus");
-
-        if (userCreator.getUserType() == UserType.EXTERNAL) {
-            ArgumentValidator.notEmptyOrNull(userCreator.getExternalId(), "userCreator.externalId");
-        } else if (userCreator.getUserType() == UserType.INTERNAL) {
-            ArgumentValidator.isEmptyOrNull(userCreator.getExternalId(), "userCreator.externalId");
-        }
+        validateCreateArguments(userCreator);
 
         int remainingChildEntities = allowedChildEntities(userCreator.getScopeId());
         if (remainingChildEntities <= 0) {
@@ -126,6 +121,98 @@ public class UserServiceImpl extends AbstractKapuaConfigurableResourceLimitedSer
                 userCreator)));
     }
 
+    @Override
+    public List<User> createAll(List<UserCreator> userCreators) throws KapuaException {
+        //
+        // Argument Validation
+        ArgumentValidator.notNull(userCreators, "userCreators");
+
+        // User names and external ids are unique across all the scopes
+        Map<String, UserCreator> creatorsByName = new HashMap<>();
+        Map<String, UserCreator> creatorsByExternalId = new HashMap<>();
+        for (UserCreator userCreator : userCreators) {
+            validateCreateArguments(userCreator);
+
+            if (creatorsByName.putIfAbsent(userCreator.getName(), userCreator) != null) {
+                throw new KapuaDuplicateNameException(userCreator.getName());
+            }
+            if (userCreator.getUserType() == UserType.EXTERNAL &&
+                    creatorsByExternalId.putIfAbsent(userCreator.getExternalId(), userCreator) != null) {
+                throw new KapuaDuplicateExternalIdException(userCreator.getExternalId());
+            }
+        }
+
+        if (userCreators.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        //
+        // Check Access
+        Set<KapuaId> scopeIds = userCreators.stream().map(UserCreator::getScopeId).collect(Collectors.toSet());
+        for (KapuaId scopeId : scopeIds) {
+            authorizationService.checkPermission(permissionFactory.newPermission(UserDomains.USER_DOMAIN, Actions.write, scopeId));
+        }
+
+        //
+        // Check limits
+        checkAllowedChildEntities(userCreators, "Users");
+
+        //
+        // Check duplicate names
+        UserQuery nameQuery = new UserQueryImpl(null);
+        nameQuery.setPredicate(nameQuery.attributePredicate(UserAttributes.NAME, creatorsByName.keySet().toArray(new String[0])));
+        nameQuery.setLimit(1);
+
+        UserListResult usersByName = KapuaSecurityUtils.doPrivileged(() -> query(nameQuery));
+        if (!usersByName.isEmpty()) {
+            User userByName = usersByName.getFirstItem();
+            // The database collation may match names that differ in case or trailing spaces, so the creator could be missing from the map
+            UserCreator userCreator = creatorsByName.get(userByName.getName());
+            if (userCreator == null) {
+                userCreator = userCreators.stream()
+                        .filter(creator -> creator.getName().trim().equalsIgnoreCase(userByName.getName().trim()))
+                        .findFirst()
+                        .orElse(null);
+            }
+            if (userCreator != null && userByName.getScopeId().equals(userCreator.getScopeId())) {
+                throw new KapuaDuplicateNameException(userByName.getName());
+            }
+            throw new KapuaDuplicateNameInAnotherAccountError(userByName.getName());
+        }
+
+        //
+        // Check duplicate externalIds
+        if (!creatorsByExternalId.isEmpty()) {
+            UserQuery externalIdQuery = new UserQueryImpl(null);
+            externalIdQuery.setPredicate(externalIdQuery.attributePredicate(UserAttributes.EXTERNAL_ID, creatorsByExternalId.keySet().toArray(new String[0])));
+            externalIdQuery.setLimit(1);
+
+            UserListResult usersByExternalId = KapuaSecurityUtils.doPrivileged(() -> query(externalIdQuery));
+            if (!usersByExternalId.isEmpty()) {
+                throw new KapuaDuplicateExternalIdException(usersByExternalId.getFirstItem().getExternalId());
+            }
+        }
+
+        //
+        // Do create
+        return entityManagerSession.doTransactedAction(EntityManagerContainer.<List<User>>create().onResultHandler(em -> UserDAO.createAll(em, userCreators)));
+    }
+
+    private void validateCreateArguments(UserCreator userCreator) throws KapuaException {
+        ArgumentValidator.notNull(userCreator.getScopeId().getId(), "userCreator.scopeId");
+        ArgumentValidator.notEmptyOrNull(userCreator.getName(), "userCreator.name");
+        ArgumentValidator.match(userCreator.getName(), CommonsValidationRegex.NAME_REGEXP, "userCreator.name");
+        ArgumentValidator.match(userCreator.getEmail(), CommonsValidationRegex.EMAIL_REGEXP, "userCreator.email");
+        ArgumentValidator.notNull(userCreator.getUserType(), "userCreator.userType");
+        ArgumentValidator.notNull(userCreator.getUserStatus(), "userCreator.userStatus");
+
+        if (userCreator.getUserType() == UserType.EXTERNAL) {
+            ArgumentValidator.notEmptyOrNull(userCreator.getExternalId(), "userCreator.externalId");
+        } else if (userCreator.getUserType() == UserType.INTERNAL) {
+            ArgumentValidator.isEmptyOrNull(userCreator.getExternalId(), "userCreator.externalId");
+        }
+    }
+
     @Override
     //@RaiseServiceEvent
     public User update(User user) throws KapuaException {
@@ -486,6 +486,30 @@ public class UserServiceSteps extends TestBase {
         stepData.put("User", lastUser);
     }
 
+    @When("^I create all the following users at once$")
+    public void createAllUsers(List<CucUser> userList) throws Exception {
+
+        Account account = (Account) stepData.get("LastAccount");
+        KapuaId currentAccount = account != null ? account.getId() : DEFAULT_ID;
+        Set<ComparableUser> createdUsers = new HashSet<>();
+        stepData.remove("UserList");
+
+        List<UserCreator> userCreators = new ArrayList<>();
+        for (CucUser userItem : userList) {
+            userCreators.add(userCreatorCreator(userItem.getName(), userItem.getDisplayName(), userItem.getEmail(), userItem.getPhoneNumber(), currentAccount));
+        }
+
+        primeException();
+        try {
+            for (User user : userService.createAll(userCreators)) {
+                createdUsers.add(new ComparableUser(user));
+            }
+        } catch (KapuaException ke) {
+            verifyException(ke);
+        }
+        stepData.put("UserList", createdUsers);
+    }
+
     @When("^I retrieve metadata in scope (\\d+)$")
     public void getMetadata(int scopeId) throws KapuaException {
         stepData.remove("Metadata");
@@ -304,6 +304,80 @@ Scenario: Find multiple users
         | kapua-u2 |    Kapua User 2    | kapua_u2@kapua.com | +386 31 323 222 | ENABLED |
         | kapua-u3 |    Kapua User 3    | kapua_u3@kapua.com | +386 31 323 333 | ENABLED |
 
+Scenario: Create multiple users at once
+    Create three ordinary users in same scopeId with a single call and then find all users
+    and see if there are users with same data as those created.
+
+    When I configure the user service for the account with the id 42
+        | type    | name                       | value |
+        | boolean | infiniteChildEntities      | true  |
+        | integer | maxNumberChildEntities     | 5     |
+        | boolean | lockoutPolicy.enabled      | false |
+        | integer | lockoutPolicy.maxFailures  | 3     |
+        | integer | lockoutPolicy.resetAfter   | 300   |
+        | integer | lockoutPolicy.lockDuration | 3     |
+    When I create all the following users at once
+        | name     | displayName        | email              | phoneNumber     | status  |
+        | kapua-u1 |    Kapua User 1    | kapua_u1@kapua.com | +386 31 323 111 | ENABLED |
+        | kapua-u2 |    Kapua User 2    | kapua_u2@kapua.com | +386 31 323 222 | ENABLED |
+        | kapua-u3 |    Kapua User 3    | kapua_u3@kapua.com | +386 31 323 333 | ENABLED |
+    Then No exception was thrown
+    When I count users in scope 42
+    Then I count 3 users
+    When I search for users
+    Then I find users
+        | name     | displayName        | email              | phoneNumber     | status  |
+        | kapua-u1 |    Kapua User 1    | kapua_u1@kapua.com | +386 31 323 111 | ENABLED |
+        | kapua-u2 |    Kapua User 2    | kapua_u2@kapua.com | +386 31 323 222 | ENABLED |
+        | kapua-u3 |    Kapua User 3    | kapua_u3@kapua.com | +386 31 323 333 | ENABLED |
+
+Scenario: Create multiple users at once with an existing name
+    Create a user and then create three users with a single call, one of them with the name of the
+    existing user. KapuaDuplicateNameException should be thrown and none of the three users created.
+
+    When I configure the user service for the account with the id 42
+        | type    | name                       | value |
+        | boolean | infiniteChildEntities      | true  |
+        | integer | maxNumberChildEntities     | 5     |
+        | boolean | lockoutPolicy.enabled      | false |
+        | integer | lockoutPolicy.maxFailures  | 3     |
+        | integer | lockoutPolicy.resetAfter   | 300   |
+        | integer | lockoutPolicy.lockDuration | 3     |
+    Given I have the following users
+        | name     | displayName        | email              | phoneNumber     | status  |
+        | kapua-u2 |    Kapua User 2    | kapua_u2@kapua.com | +386 31 323 222 | ENABLED |
+    And I expect the exception "KapuaDuplicateNameException" with the text "An entity with the same name kapua-u2 already exists."
+    When I create all the following users at once
+        | name     | displayName        | email              | phoneNumber     | status  |
+        | kapua-u1 |    Kapua User 1    | kapua_u1@kapua.com | +386 31 323 111 | ENABLED |
+        | kapua-u2 |    Kapua User 2    | kapua_u2@kapua.com | +386 31 323 222 | ENABLED |
+        | kapua-u3 |    Kapua User 3    | kapua_u3@kapua.com | +386 31 323 333 | ENABLED |
+    Then An exception was thrown
+    When I count users in scope 42
+    Then I count 1 user
+
+Scenario: Create multiple users at once with a repeated name
+    Create three users with a single call, two of them with the same name.
+    KapuaDuplicateNameException should be thrown and none of the users created.
+
+    When I configure the user service for the account with the id 42
+        | type    | name                       | value |
+        | boolean | infiniteChildEntities      | true  |
+        | integer | maxNumberChildEntities     | 5     |
+        | boolean | lockoutPolicy.enabled      | false |
+        | integer | lockoutPolicy.maxFailures  | 3     |
+        | integer | lockoutPolicy.resetAfter   | 300   |
+        | integer | lockoutPolicy.lockDuration | 3     |
+    Given I expect the exception "KapuaDuplicateNameException" with the text "An entity with the same name kapua-u1 already exists."
+    When I create all the following users at once
+        | name     | displayName        | email              | phoneNumber     | status  |
+        | kapua-u1 |    Kapua User 1    | kapua_u1@kapua.com | +386 31 323 111 | ENABLED |
+        | kapua-u2 |    Kapua User 2    | kapua_u2@kapua.com | +386 31 323 222 | ENABLED |
+        | kapua-u1 |    Kapua User 3    | kapua_u3@kapua.com | +386 31 323 333 | ENABLED |
+    Then An exception was thrown
+    When I count users in scope 42
+    Then I count 0 users
+
 Scenario: Get metadata
     Query for service specific metadata.
 